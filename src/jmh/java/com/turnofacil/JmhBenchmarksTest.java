@@ -0,0 +1,47 @@
+package com.turnofacil;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Lanza las suites JMH de src/jmh/java y guarda los resultados en JSON.
+ *
+ * Ejecutar con: mvn test -Pbenchmark -Dtest=JmhBenchmarksTest
+ * Opcional: -Djmh.include=OverlapDetection (regex) y -Djmh.result=ruta.json.
+ * Para comparar un cambio, guardar el JSON de main como línea base y subir ambos
+ * ficheros a un visor JMH (p. ej. jmh.morethan.io).
+ */
+@Tag("benchmark")
+class JmhBenchmarksTest {
+
+    private static final Logger log = LoggerFactory.getLogger(JmhBenchmarksTest.class);
+
+    @Test
+    @DisplayName("Ejecuta los benchmarks JMH y publica el resultado en JSON")
+    void runBenchmarks() throws Exception {
+        String resultFile = System.getProperty("jmh.result", "target/jmh-result.json");
+        Options options = new OptionsBuilder()
+                .include("com\\.turnofacil\\..*" + System.getProperty("jmh.include", "Benchmark"))
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile)
+                .shouldFailOnError(true)
+                .build();
+
+        Collection<RunResult> results = new Runner(options).run();
+
+        assertFalse(results.isEmpty(), "Ningún benchmark coincide con jmh.include");
+        log.info("Resultados JMH: {}", resultFile);
+    }
+}
@@ -0,0 +1,49 @@
+package com.turnofacil.controller;
+
+import com.turnofacil.dto.PublicSlotDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Conversión de PublicSlotDto a Map para la página de reservas
+ * (PublicController.showBookingPage / occupied-slots).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PublicSlotMappingBenchmark {
+
+    @Param({"50", "500", "2000"})
+    int slots;
+
+    private List<PublicSlotDto> dtos;
+
+    @Setup
+    public void setUp() {
+        dtos = new ArrayList<>(slots);
+        LocalDate start = LocalDate.of(2026, 3, 2);
+        for (int i = 0; i < slots; i++) {
+            LocalDate date = start.plusDays(i / 20);
+            LocalTime time = LocalTime.of(9, 0).plusMinutes(30L * (i % 20));
+            dtos.add(new PublicSlotDto(date, time, 30));
+        }
+    }
+
+    /** PublicSlotDto -> Map para el modelo / JSON del calendario. */
+    @Benchmark
+    public List<Map<String, Object>> toSlotMaps() {
+        return dtos.stream()
+                .map(PublicController::toSlotMap)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,36 @@
+package com.turnofacil.controller;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PublicController.sanitize con los campos típicos de una reserva pública.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SanitizeBenchmark {
+
+    @Param({"name", "notes", "markup"})
+    String input;
+
+    private String value;
+
+    @Setup
+    public void setUp() {
+        value = switch (input) {
+            case "name" -> "  María José Fernández  ";
+            case "notes" -> "Primera visita, prefiere la tarde.\nAlergia al látex.\tTraer informe.";
+            default -> "<script>alert('x')</script> \u0007 Ana & \"Luis\" <b>corte</b>";
+        };
+    }
+
+    @Benchmark
+    public String sanitize() {
+        return PublicController.sanitize(value);
+    }
+}
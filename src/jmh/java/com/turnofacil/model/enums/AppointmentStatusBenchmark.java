@@ -0,0 +1,29 @@
+package com.turnofacil.model.enums;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AppointmentStatus.canTransitionTo sobre todas las parejas origen/destino.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AppointmentStatusBenchmark {
+
+    private final AppointmentStatus[] statuses = AppointmentStatus.values();
+
+    @Benchmark
+    public void allTransitions(Blackhole blackhole) {
+        for (AppointmentStatus from : statuses) {
+            for (AppointmentStatus to : statuses) {
+                blackhole.consume(from.canTransitionTo(to));
+            }
+        }
+    }
+}
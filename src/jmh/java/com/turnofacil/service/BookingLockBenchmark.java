@@ -0,0 +1,130 @@
+package com.turnofacil.service;
+
+import com.turnofacil.model.Appointment;
+import com.turnofacil.model.BusinessConfig;
+import com.turnofacil.model.User;
+import com.turnofacil.repository.AppointmentRepository;
+import com.turnofacil.repository.BusinessConfigRepository;
+import com.turnofacil.repository.ServiceRepository;
+import com.turnofacil.service.outbox.OutboxService;
+import com.turnofacil.service.whatsapp.WhatsAppService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Reservas por segundo de un mismo negocio con 8 hilos y un proveedor lento.
+ *
+ * Recorre AppointmentService.createAppointment real con repositorios simulados (sin BD).
+ * "inline" ejecuta el efecto secundario dentro del lock, como antes de sacarlo a
+ * AppointmentCreatedEvent; "after-commit" lo entrega a un executor aparte. Con
+ * providerLatencyMs > 0 la primera variante queda limitada a ~1000 / latencia reservas/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@Threads(8)
+public class BookingLockBenchmark {
+
+    @Param({"0", "20"})
+    long providerLatencyMs;
+
+    @Param({"inline", "after-commit"})
+    String sideEffects;
+
+    private AppointmentService appointmentService;
+    private ThreadPoolExecutor sideEffectExecutor;
+    private User business;
+    private final AtomicLong ids = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        business = new User();
+        business.setId(1L);
+        business.setName("Peluqueria Ana");
+        business.setEmail("negocio@example.com");
+
+        BusinessConfig config = new BusinessConfig();
+        config.setUser(business);
+        config.setBusinessName("Peluqueria Ana");
+        config.setEnableWhatsappConfirmations(true);
+
+        // stubOnly: los mocks no guardan cada invocación (millones por iteración)
+        AppointmentRepository appointmentRepo = mock(AppointmentRepository.class, withSettings().stubOnly());
+        when(appointmentRepo.findActiveAppointmentsByDateAndBusiness(anyLong(), any())).thenReturn(List.of());
+        when(appointmentRepo.save(any(Appointment.class))).thenAnswer(inv -> {
+            Appointment appointment = inv.getArgument(0);
+            appointment.setId(ids.incrementAndGet());
+            return appointment;
+        });
+
+        BusinessConfigRepository configRepo = mock(BusinessConfigRepository.class, withSettings().stubOnly());
+        when(configRepo.findByUserId(1L)).thenReturn(Optional.of(config));
+
+        BlockedSlotService blockedSlotService = mock(BlockedSlotService.class, withSettings().stubOnly());
+        PlanLimitsService planLimitsService = mock(PlanLimitsService.class, withSettings().stubOnly());
+        when(planLimitsService.canCreateAppointment(anyLong())).thenReturn(true);
+
+        WhatsAppService whatsAppService = mock(WhatsAppService.class, withSettings().stubOnly());
+        when(whatsAppService.isAvailable()).thenReturn(true);
+
+        sideEffectExecutor = new ThreadPoolExecutor(4, 4, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(1000), new ThreadPoolExecutor.DiscardOldestPolicy());
+        ApplicationEventPublisher eventPublisher = "inline".equals(sideEffects)
+                ? event -> slowProviderCall()
+                : event -> sideEffectExecutor.execute(this::slowProviderCall);
+
+        appointmentService = new AppointmentService(
+                appointmentRepo,
+                mock(UserService.class, withSettings().stubOnly()),
+                blockedSlotService,
+                mock(NotificationService.class, withSettings().stubOnly()),
+                mock(ServiceRepository.class, withSettings().stubOnly()),
+                configRepo,
+                planLimitsService,
+                whatsAppService,
+                mock(BusinessStatsService.class, withSettings().stubOnly()),
+                mock(ClientService.class, withSettings().stubOnly()),
+                mock(ReminderScheduleService.class, withSettings().stubOnly()),
+                mock(OutboxService.class, withSettings().stubOnly()),
+                eventPublisher,
+                mock(PlatformTransactionManager.class, withSettings().stubOnly()),
+                new SimpleMeterRegistry());
+    }
+
+    @TearDown
+    public void tearDown() {
+        sideEffectExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public Appointment createAppointment() {
+        return appointmentService.createAppointment(business,
+                LocalDate.of(2026, 11, 3), LocalTime.of(10, 0), 30,
+                "Cliente", "+34600000000", "cliente@example.com", null);
+    }
+
+    private void slowProviderCall() {
+        if (providerLatencyMs > 0) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(providerLatencyMs));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.turnofacil.service;
+
+import com.turnofacil.model.Appointment;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Detección de solapamientos (AppointmentService.overlapsAny) según las citas del día.
+ * "free" recorre todas las citas sin encontrar conflicto (peor caso), "conflict" choca con la primera.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OverlapDetectionBenchmark {
+
+    @Param({"5", "20", "80"})
+    int appointmentsPerDay;
+
+    private List<Appointment> appointments;
+    private LocalTime freeStart;
+    private LocalTime freeEnd;
+    private LocalTime conflictStart;
+    private LocalTime conflictEnd;
+
+    @Setup
+    public void setUp() {
+        LocalDate date = LocalDate.of(2026, 3, 2);
+        appointments = new ArrayList<>(appointmentsPerDay);
+        // Citas de 5 min empezando a las 08:00, separadas 10 min
+        for (int i = 0; i < appointmentsPerDay; i++) {
+            Appointment appointment = new Appointment();
+            appointment.setId((long) i + 1);
+            appointment.setDate(date);
+            appointment.setTime(LocalTime.of(8, 0).plusMinutes(10L * i));
+            appointment.setDuration(5);
+            appointments.add(appointment);
+        }
+        freeStart = LocalTime.of(23, 0);
+        freeEnd = LocalTime.of(23, 30);
+        conflictStart = LocalTime.of(8, 0);
+        conflictEnd = LocalTime.of(8, 30);
+    }
+
+    @Benchmark
+    public boolean free() {
+        return AppointmentService.overlapsAny(appointments, freeStart, freeEnd, 0, null);
+    }
+
+    @Benchmark
+    public boolean conflict() {
+        return AppointmentService.overlapsAny(appointments, conflictStart, conflictEnd, 0, null);
+    }
+
+    @Benchmark
+    public boolean freeWithBufferAndExclude() {
+        return AppointmentService.overlapsAny(appointments, freeStart, freeEnd, 10, 1L);
+    }
+}
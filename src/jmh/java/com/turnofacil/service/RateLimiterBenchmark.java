@@ -0,0 +1,42 @@
+package com.turnofacil.service;
+
+import com.turnofacil.service.cache.InMemoryCacheService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RateLimiterService.isAllowed sobre la cache en memoria con 4 hilos.
+ * Con 10.000 IPs casi todo se permite; con una sola IP casi todo se deniega.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class RateLimiterBenchmark {
+
+    @Param({"1", "10000"})
+    int distinctIps;
+
+    private RateLimiterService rateLimiter;
+    private String[] keys;
+
+    @Setup
+    public void setUp() {
+        rateLimiter = new RateLimiterService(new InMemoryCacheService(), new SimpleMeterRegistry());
+        keys = new String[distinctIps];
+        for (int i = 0; i < distinctIps; i++) {
+            keys[i] = "booking:10.0." + (i / 256) + "." + (i % 256);
+        }
+    }
+
+    @Benchmark
+    public boolean isAllowed() {
+        return rateLimiter.isAllowed(keys[ThreadLocalRandom.current().nextInt(distinctIps)], 5, 3600);
+    }
+}
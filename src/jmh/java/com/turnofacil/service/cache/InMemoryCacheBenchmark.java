@@ -0,0 +1,52 @@
+package com.turnofacil.service.cache;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * InMemoryCacheService.get / increment con 4 hilos compitiendo.
+ * "hotKey" concentra todos los incrementos en una clave (peor caso de contención).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class InMemoryCacheBenchmark {
+
+    private static final int KEYS = 1_000;
+    private static final Duration TTL = Duration.ofMinutes(5);
+
+    private InMemoryCacheService cache;
+    private String[] keys;
+
+    @Setup
+    public void setUp() {
+        cache = new InMemoryCacheService();
+        keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "slots:" + i;
+            cache.set(keys[i], "valor-" + i, TTL);
+        }
+    }
+
+    @Benchmark
+    public Object get() {
+        return cache.get(keys[ThreadLocalRandom.current().nextInt(KEYS)]);
+    }
+
+    @Benchmark
+    public long incrementSpread() {
+        return cache.increment("counter:" + keys[ThreadLocalRandom.current().nextInt(KEYS)], TTL);
+    }
+
+    @Benchmark
+    public long incrementHotKey() {
+        return cache.increment("counter:hot", TTL);
+    }
+}
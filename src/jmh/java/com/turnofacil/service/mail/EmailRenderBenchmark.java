@@ -0,0 +1,95 @@
+package com.turnofacil.service.mail;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recordatorios renderizados por segundo (email/reminder) para clientes de 20 negocios.
+ *
+ * "thymeleaf" procesa la plantilla entera en cada email, como EmailService antes de
+ * EmailTemplateRenderer (el parseo ya lo cacheaba Thymeleaf); "precompiled" usa
+ * EmailTemplateRenderer, que tras el primer email de cada negocio solo rellena los huecos
+ * del destinatario. Ambas formatean fecha y hora en cada llamada.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@Threads(4)
+public class EmailRenderBenchmark {
+
+    private static final int BUSINESSES = 20;
+    private static final int CLIENTS = 1_000;
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("EEEE, d 'de' MMMM 'de' yyyy", new Locale("es", "ES"));
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
+
+    @Param({"thymeleaf", "precompiled"})
+    String renderer;
+
+    private SpringTemplateEngine templateEngine;
+    private EmailTemplateRenderer templateRenderer;
+    private Map<String, Object>[] businesses;
+    private String[] clients;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        resolver.setCacheable(true);
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+        templateRenderer = new EmailTemplateRenderer(templateEngine, new SimpleMeterRegistry(), true);
+
+        businesses = new Map[BUSINESSES];
+        for (int i = 0; i < BUSINESSES; i++) {
+            Map<String, Object> business = new HashMap<>();
+            business.put("businessName", "Peluquería " + i);
+            business.put("businessPhone", "+34 600 000 0" + String.format("%02d", i));
+            // Algunos negocios sin email de contacto: otra variante del bloque th:if
+            business.put("businessEmail", i % 3 == 0 ? null : "contacto" + i + "@negocio.com");
+            businesses[i] = business;
+        }
+        clients = new String[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            clients[i] = "Cliente " + i + (i % 10 == 0 ? " & Cía" : "");
+        }
+    }
+
+    @Benchmark
+    public String renderReminder() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Map<String, Object> business = businesses[random.nextInt(BUSINESSES)];
+        Map<String, Object> recipient = new HashMap<>();
+        recipient.put("clientName", clients[random.nextInt(CLIENTS)]);
+        recipient.put("date", LocalDate.of(2026, 3, 1).plusDays(random.nextInt(60)).format(DATE_FORMATTER));
+        recipient.put("time", LocalTime.of(9, 0).plusMinutes(15L * random.nextInt(40)).format(TIME_FORMATTER));
+        recipient.put("duration", random.nextInt(4) == 0 ? null : 30);
+
+        if ("thymeleaf".equals(renderer)) {
+            Context context = new Context();
+            context.setVariables(business);
+            recipient.forEach(context::setVariable);
+            return templateEngine.process("email/reminder", context);
+        }
+        return templateRenderer.render("email/reminder", business, recipient);
+    }
+}
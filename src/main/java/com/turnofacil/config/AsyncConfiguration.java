@@ -0,0 +1,99 @@
+package com.turnofacil.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Un executor acotado por tipo de trabajo, para que un pico de uno (p. ej. confirmaciones
+ * por email) no deje sin hilos a los demás.
+ *
+ * - email: emails transaccionales (@Async de EmailService y PasswordResetService, entregas de
+ *   email del outbox como las confirmaciones de reserva).
+ * - bulkEmail: recordatorios y lotes de los jobs diarios (avisos de trial); un lote grande
+ *   no retrasa las confirmaciones.
+ * - whatsapp: entregas de WhatsApp del outbox.
+ * - sse: escritura de eventos a los navegadores. NotificationSseService escribe los de cada
+ *   negocio de uno en uno y en orden; si la cola se llena rechaza y se descartan (son avisos en vivo).
+ * - exports: exportaciones Excel/CSV; con la cola llena se rechaza y el usuario reintenta.
+ * - jobs: resto de @Async (listeners tras commit). Es el executor por defecto ("taskExecutor").
+ *
+ * Todos propagan MDC y TenantContext, esperan a las tareas pendientes al parar la aplicación
+ * (salvo exports) y exponen executor.* con tag name=&lt;bean&gt; (Spring Boot) más
+ * turnofacil.executor.rejected.
+ */
+@Configuration
+public class AsyncConfiguration {
+
+    public static final String EMAIL_EXECUTOR = "emailExecutor";
+    public static final String BULK_EMAIL_EXECUTOR = "bulkEmailExecutor";
+    public static final String WHATSAPP_EXECUTOR = "whatsappExecutor";
+    public static final String SSE_EXECUTOR = "sseExecutor";
+    public static final String EXPORT_EXECUTOR = "exportExecutor";
+    public static final String JOBS_EXECUTOR = "jobsExecutor";
+
+    @Bean(EMAIL_EXECUTOR)
+    public ThreadPoolTaskExecutor emailExecutor(MeterRegistry meterRegistry,
+                                                @Value("${app.executors.email.threads:4}") int threads,
+                                                @Value("${app.executors.email.queue-capacity:500}") int queueCapacity) {
+        return executor("email", threads, queueCapacity, MeteredRejectionPolicy.CALLER_RUNS, 30, meterRegistry);
+    }
+
+    @Bean(BULK_EMAIL_EXECUTOR)
+    public ThreadPoolTaskExecutor bulkEmailExecutor(MeterRegistry meterRegistry,
+                                                    @Value("${app.executors.bulk-email.threads:4}") int threads,
+                                                    @Value("${app.executors.bulk-email.queue-capacity:500}") int queueCapacity) {
+        return executor("bulk-email", threads, queueCapacity, MeteredRejectionPolicy.CALLER_RUNS, 30, meterRegistry);
+    }
+
+    @Bean(WHATSAPP_EXECUTOR)
+    public ThreadPoolTaskExecutor whatsappExecutor(MeterRegistry meterRegistry,
+                                                   @Value("${app.executors.whatsapp.threads:4}") int threads,
+                                                   @Value("${app.executors.whatsapp.queue-capacity:500}") int queueCapacity) {
+        return executor("whatsapp", threads, queueCapacity, MeteredRejectionPolicy.CALLER_RUNS, 30, meterRegistry);
+    }
+
+    @Bean(SSE_EXECUTOR)
+    public ThreadPoolTaskExecutor sseExecutor(MeterRegistry meterRegistry,
+                                              @Value("${app.executors.sse.threads:2}") int threads,
+                                              @Value("${app.executors.sse.queue-capacity:1000}") int queueCapacity) {
+        return executor("sse", threads, queueCapacity, MeteredRejectionPolicy.ABORT, 5, meterRegistry);
+    }
+
+    @Bean(EXPORT_EXECUTOR)
+    public ThreadPoolTaskExecutor exportExecutor(MeterRegistry meterRegistry,
+                                                 @Value("${app.export.pool-size:2}") int threads,
+                                                 @Value("${app.export.queue-capacity:20}") int queueCapacity) {
+        // Sin espera al parar: el registro de exportaciones es en memoria y se pierde igualmente
+        return executor("export", threads, queueCapacity, MeteredRejectionPolicy.ABORT, 0, meterRegistry);
+    }
+
+    @Bean(name = {JOBS_EXECUTOR, "taskExecutor"})
+    public ThreadPoolTaskExecutor jobsExecutor(MeterRegistry meterRegistry,
+                                               @Value("${app.executors.jobs.threads:4}") int threads,
+                                               @Value("${app.executors.jobs.queue-capacity:200}") int queueCapacity) {
+        return executor("jobs", threads, queueCapacity, MeteredRejectionPolicy.CALLER_RUNS, 30, meterRegistry);
+    }
+
+    private static ThreadPoolTaskExecutor executor(String name, int threads, int queueCapacity,
+                                                   MeteredRejectionPolicy rejectionPolicy, int drainSeconds,
+                                                   MeterRegistry meterRegistry) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setKeepAliveSeconds(60);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix(name + "-");
+        executor.setDaemon(true);
+        executor.setTaskDecorator(new MdcTenantTaskDecorator());
+        executor.setRejectedExecutionHandler(rejectionPolicy.handler(name, meterRegistry));
+        // Al parar: deja de aceptar tareas y espera a las encoladas hasta drainSeconds
+        // (0 = interrumpe las que estén en curso)
+        executor.setWaitForTasksToCompleteOnShutdown(drainSeconds > 0);
+        executor.setAwaitTerminationSeconds(drainSeconds);
+        return executor;
+    }
+}
@@ -2,7 +2,9 @@ package com.turnofacil.config;
 
 import com.turnofacil.service.cache.CacheService;
 import com.turnofacil.service.cache.InMemoryCacheService;
+import com.turnofacil.service.cache.MeteredCacheService;
 import com.turnofacil.service.cache.RedisCacheService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -34,7 +36,7 @@ public class CacheConfiguration {
      */
     @Bean
     @ConditionalOnProperty(name = "spring.data.redis.enabled", havingValue = "true")
-    public CacheService redisCacheService(StringRedisTemplate stringRedisTemplate) {
+    public CacheService redisCacheService(StringRedisTemplate stringRedisTemplate, MeterRegistry meterRegistry) {
         log.info("Creando RedisCacheService (Redis habilitado en configuracion)");
         RedisCacheService redisCacheService = new RedisCacheService(
                 stringRedisTemplate,
@@ -44,10 +46,10 @@ public class CacheConfiguration {
         // Verificar que Redis este realmente disponible
         if (redisCacheService.isAvailable()) {
             log.info("Redis conectado y disponible");
-            return redisCacheService;
+            return new MeteredCacheService(redisCacheService, meterRegistry);
         } else {
             log.warn("Redis habilitado pero no disponible, usando fallback InMemory");
-            return new InMemoryCacheService();
+            return new MeteredCacheService(new InMemoryCacheService(), meterRegistry);
         }
     }
 
@@ -58,8 +60,8 @@ public class CacheConfiguration {
     @Bean
     @Primary
     @ConditionalOnProperty(name = "spring.data.redis.enabled", havingValue = "false", matchIfMissing = true)
-    public CacheService inMemoryCacheService() {
+    public CacheService inMemoryCacheService(MeterRegistry meterRegistry) {
         log.info("Creando InMemoryCacheService (Redis no habilitado)");
-        return new InMemoryCacheService();
+        return new MeteredCacheService(new InMemoryCacheService(), meterRegistry);
     }
 }
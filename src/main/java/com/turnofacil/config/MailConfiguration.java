@@ -0,0 +1,55 @@
+package com.turnofacil.config;
+
+import com.turnofacil.service.mail.PooledJavaMailSender;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.mail.autoconfigure.MailProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Properties;
+
+/**
+ * JavaMailSender con pool de conexiones SMTP. Sustituye al JavaMailSenderImpl de Spring Boot
+ * (que abre y autentica una conexión por mensaje) y se configura con las mismas spring.mail.*.
+ */
+@Configuration
+@EnableConfigurationProperties(MailProperties.class)
+public class MailConfiguration {
+
+    private static final Logger log = LoggerFactory.getLogger(MailConfiguration.class);
+
+    @Bean
+    public PooledJavaMailSender mailSender(MailProperties mailProperties,
+                                           MeterRegistry meterRegistry,
+                                           @Value("${app.email.smtp-pool.size:4}") int poolSize,
+                                           @Value("${app.email.smtp-pool.idle-timeout-seconds:60}") long idleTimeoutSeconds,
+                                           @Value("${app.email.smtp-pool.max-messages-per-connection:100}") int maxMessagesPerConnection,
+                                           @Value("${app.email.smtp-pool.borrow-timeout-seconds:30}") long borrowTimeoutSeconds) {
+        PooledJavaMailSender sender = new PooledJavaMailSender(poolSize,
+                Duration.ofSeconds(idleTimeoutSeconds), maxMessagesPerConnection,
+                Duration.ofSeconds(borrowTimeoutSeconds), meterRegistry);
+        sender.setHost(mailProperties.getHost());
+        if (mailProperties.getPort() != null) {
+            sender.setPort(mailProperties.getPort());
+        }
+        sender.setUsername(mailProperties.getUsername());
+        sender.setPassword(mailProperties.getPassword());
+        sender.setProtocol(mailProperties.getProtocol());
+        if (mailProperties.getDefaultEncoding() != null) {
+            sender.setDefaultEncoding(mailProperties.getDefaultEncoding().name());
+        }
+        if (!mailProperties.getProperties().isEmpty()) {
+            Properties properties = new Properties();
+            properties.putAll(mailProperties.getProperties());
+            sender.setJavaMailProperties(properties);
+        }
+        log.info("SMTP con pool: {} conexiones, inactividad {}s, {} mensajes por conexión",
+                poolSize, idleTimeoutSeconds, maxMessagesPerConnection);
+        return sender;
+    }
+}
@@ -0,0 +1,44 @@
+package com.turnofacil.config;
+
+import com.turnofacil.security.TenantContext;
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.Map;
+
+/**
+ * Copia al hilo del executor el MDC y el TenantContext de quien encola la tarea, y los
+ * restaura al terminar (los hilos del pool se reutilizan entre tareas de negocios distintos).
+ */
+class MdcTenantTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable task) {
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        Long tenantId = TenantContext.getTenantId();
+        return () -> {
+            Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+            Long previousTenant = TenantContext.getTenantId();
+            apply(mdc, tenantId);
+            try {
+                task.run();
+            } finally {
+                // Con CallerRunsPolicy la tarea corre en el propio hilo que encoló
+                apply(previousMdc, previousTenant);
+            }
+        };
+    }
+
+    private static void apply(Map<String, String> mdc, Long tenantId) {
+        if (mdc != null) {
+            MDC.setContextMap(mdc);
+        } else {
+            MDC.clear();
+        }
+        if (tenantId != null) {
+            TenantContext.setTenantId(tenantId);
+        } else {
+            TenantContext.clear();
+        }
+    }
+}
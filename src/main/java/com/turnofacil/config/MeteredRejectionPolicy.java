@@ -0,0 +1,47 @@
+package com.turnofacil.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Qué hacer cuando la cola de un executor está llena, contándolo en
+ * turnofacil.executor.rejected{executor, policy}.
+ */
+enum MeteredRejectionPolicy {
+
+    /**
+     * Ejecuta la tarea en el hilo que la encola: frena al productor en lugar de perder trabajo.
+     * A diferencia de ThreadPoolExecutor.CallerRunsPolicy también la ejecuta con el executor
+     * ya parado, para que quien espera su resultado (CompletableFuture) no se quede colgado.
+     */
+    CALLER_RUNS,
+
+    /**
+     * Lanza RejectedExecutionException para que quien encola responda al usuario.
+     */
+    ABORT;
+
+    RejectedExecutionHandler handler(String executorName, MeterRegistry meterRegistry) {
+        Counter rejected = Counter.builder("turnofacil.executor.rejected")
+                .description("Tareas que no cupieron en la cola del executor")
+                .tag("executor", executorName)
+                .tag("policy", name().toLowerCase())
+                .register(meterRegistry);
+        return (task, executor) -> {
+            rejected.increment();
+            switch (this) {
+                case CALLER_RUNS -> task.run();
+                case ABORT -> throw new RejectedExecutionException(
+                        "Executor " + executorName + " lleno (" + queueSize(executor) + " en cola)");
+            }
+        };
+    }
+
+    private static int queueSize(ThreadPoolExecutor executor) {
+        return executor.getQueue().size();
+    }
+}
@@ -1,6 +1,7 @@
 package com.turnofacil.config;
 
 import com.turnofacil.security.TenantFilter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -21,9 +22,15 @@ import org.springframework.security.web.header.writers.XXssProtectionHeaderWrite
 public class SecurityConfig {
 
     private final TenantFilter tenantFilter;
+    private final int serverPort;
+    private final int managementPort;
 
-    public SecurityConfig(TenantFilter tenantFilter) {
+    public SecurityConfig(TenantFilter tenantFilter,
+                          @Value("${server.port:8080}") int serverPort,
+                          @Value("${management.server.port:${server.port:8080}}") int managementPort) {
         this.tenantFilter = tenantFilter;
+        this.serverPort = serverPort;
+        this.managementPort = managementPort;
     }
 
     @Bean
@@ -82,6 +89,11 @@ public class SecurityConfig {
                         .requestMatchers("/public/**").permitAll()  // páginas públicas (landing, reservas, gestión turno)
                         .requestMatchers("/legal/**", "/pricing", "/faq").permitAll()
                         .requestMatchers("/actuator/health", "/actuator/info").permitAll()
+                        // Scrape de Prometheus sin login solo por el puerto de gestión (red interna)
+                        .requestMatchers(request -> managementPort != serverPort
+                                && request.getLocalPort() == managementPort
+                                && "/actuator/prometheus".equals(request.getRequestURI())).permitAll()
+                        .requestMatchers("/actuator/**").hasRole("SUPER_ADMIN")  // métricas internas
                         .requestMatchers("/webhook/stripe").permitAll()
                         .requestMatchers("/error/**").permitAll()        // páginas de error
                         .requestMatchers("/platform/**").hasRole("SUPER_ADMIN") // super admin solamente
@@ -0,0 +1,77 @@
+package com.turnofacil.config;
+
+import com.turnofacil.monitoring.EntityLoadCountingIntegrator;
+import com.turnofacil.monitoring.ScheduledJobSqlMetricsAspect;
+import com.turnofacil.monitoring.SqlMetricsFilter;
+import com.turnofacil.monitoring.SqlMetricsRecorder;
+import com.turnofacil.monitoring.SqlStatementInspector;
+import com.turnofacil.monitoring.SqlStatsEndpoint;
+import com.turnofacil.monitoring.SqlTimingSessionListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.List;
+
+/**
+ * Instrumentación SQL por petición y por job.
+ *
+ * Hibernate informa de cada sentencia (StatementInspector), del tiempo JDBC
+ * (SessionEventListener) y de cada entidad cargada (PostLoadEventListener) al SqlScope
+ * del hilo. El filtro HTTP y el aspecto de @Scheduled abren y publican esos scopes.
+ * Se desactiva con app.sql-metrics.enabled=false.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.sql-metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlMetricsConfiguration {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlMetricsConfiguration.class);
+
+    @Bean
+    public SqlMetricsRecorder sqlMetricsRecorder(MeterRegistry meterRegistry,
+                                                 @Value("${app.sql-metrics.n-plus-one-threshold:5}") int nPlusOneThreshold) {
+        log.info("Metricas SQL activas (umbral N+1: {} sentencias iguales)", nPlusOneThreshold);
+        return new SqlMetricsRecorder(meterRegistry, nPlusOneThreshold);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlMetricsHibernateCustomizer() {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, new SqlStatementInspector());
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, SqlTimingSessionListener.class.getName());
+            properties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER,
+                    (IntegratorProvider) () -> List.of(new EntityLoadCountingIntegrator()));
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlMetricsFilter> sqlMetricsFilter(
+            SqlMetricsRecorder recorder,
+            @Value("${app.sql-metrics.server-timing:false}") boolean serverTiming) {
+        FilterRegistrationBean<SqlMetricsFilter> registration =
+                new FilterRegistrationBean<>(new SqlMetricsFilter(recorder, serverTiming));
+        // Antes de Spring Security para incluir las consultas de autenticación y TenantFilter
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Bean
+    public ScheduledJobSqlMetricsAspect scheduledJobSqlMetricsAspect(SqlMetricsRecorder recorder) {
+        return new ScheduledJobSqlMetricsAspect(recorder);
+    }
+
+    @Bean
+    public SqlStatsEndpoint sqlStatsEndpoint(SqlMetricsRecorder recorder) {
+        return new SqlStatsEndpoint(recorder);
+    }
+}
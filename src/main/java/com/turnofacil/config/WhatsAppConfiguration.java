@@ -1,8 +1,11 @@
 package com.turnofacil.config;
 
+import com.turnofacil.service.whatsapp.MeteredWhatsAppService;
 import com.turnofacil.service.whatsapp.MockWhatsAppService;
 import com.turnofacil.service.whatsapp.WhatsAppBusinessService;
+import com.turnofacil.service.whatsapp.WhatsAppClientSettings;
 import com.turnofacil.service.whatsapp.WhatsAppService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,6 +14,8 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 
+import java.time.Duration;
+
 /**
  * Configuracion del servicio de WhatsApp.
  * Selecciona automaticamente entre la API real o el mock segun configuracion.
@@ -26,19 +31,54 @@ public class WhatsAppConfiguration {
     @Value("${whatsapp.access-token:}")
     private String accessToken;
 
+    // Cliente asincrono de la API real
+    @Value("${whatsapp.client.max-in-flight:16}")
+    private int maxInFlight;
+
+    @Value("${whatsapp.client.max-queued:2000}")
+    private int maxQueued;
+
+    @Value("${whatsapp.client.messages-per-second:20}")
+    private double messagesPerSecond;
+
+    @Value("${whatsapp.client.burst:40}")
+    private int burst;
+
+    @Value("${whatsapp.client.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${whatsapp.client.retry-base-ms:500}")
+    private long retryBaseMs;
+
+    @Value("${whatsapp.client.request-timeout-seconds:15}")
+    private long requestTimeoutSeconds;
+
+    @Value("${whatsapp.client.threads:4}")
+    private int clientThreads;
+
+    // Simulacion de la API en el mock (pruebas de carga en local); usa el mismo cliente
+    @Value("${whatsapp.mock.latency-ms:0}")
+    private long mockLatencyMs;
+
+    @Value("${whatsapp.mock.latency-jitter-ms:0}")
+    private long mockLatencyJitterMs;
+
+    @Value("${whatsapp.mock.failure-rate:0}")
+    private double mockFailureRate;
+
+    @Value("${whatsapp.mock.throttle-rate:0}")
+    private double mockThrottleRate;
+
     /**
      * Bean de WhatsApp usando la API real de Meta.
      * Solo se crea si WhatsApp esta habilitado en configuracion.
      */
     @Bean
     @ConditionalOnProperty(name = "whatsapp.enabled", havingValue = "true")
-    public WhatsAppService whatsAppBusinessService() {
+    public WhatsAppService whatsAppBusinessService(MeterRegistry meterRegistry) {
         log.info("Creando WhatsAppBusinessService (WhatsApp habilitado)");
 
-        WhatsAppBusinessService service = new WhatsAppBusinessService(
-                phoneNumberId,
-                accessToken
-        );
+        WhatsAppBusinessService service = new WhatsAppBusinessService(phoneNumberId, accessToken, clientSettings());
 
         if (service.isAvailable()) {
             log.info("WhatsApp Business API conectado y disponible");
@@ -46,7 +86,7 @@ public class WhatsAppConfiguration {
             log.warn("WhatsApp habilitado pero credenciales no configuradas");
         }
 
-        return service;
+        return new MeteredWhatsAppService(service, meterRegistry);
     }
 
     /**
@@ -56,8 +96,18 @@ public class WhatsAppConfiguration {
     @Bean
     @Primary
     @ConditionalOnProperty(name = "whatsapp.enabled", havingValue = "false", matchIfMissing = true)
-    public WhatsAppService mockWhatsAppService() {
+    public WhatsAppService mockWhatsAppService(MeterRegistry meterRegistry) {
         log.info("Creando MockWhatsAppService (WhatsApp no habilitado - modo desarrollo)");
-        return new MockWhatsAppService();
+        MockWhatsAppService mock = new MockWhatsAppService(Duration.ofMillis(mockLatencyMs),
+                Duration.ofMillis(mockLatencyJitterMs), mockFailureRate, mockThrottleRate, clientSettings());
+        return new MeteredWhatsAppService(mock, meterRegistry);
+    }
+
+    /**
+     * Limites del cliente (whatsapp.client.*), compartidos por la API real y el mock.
+     */
+    private WhatsAppClientSettings clientSettings() {
+        return new WhatsAppClientSettings(maxInFlight, maxQueued, messagesPerSecond, burst, maxRetries,
+                Duration.ofMillis(retryBaseMs), Duration.ofSeconds(requestTimeoutSeconds), clientThreads);
     }
 }
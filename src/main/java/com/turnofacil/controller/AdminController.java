@@ -2,10 +2,16 @@ package com.turnofacil.controller;
 
 import com.turnofacil.dto.AppointmentDto;
 import com.turnofacil.dto.BlockedSlotDto;
+import com.turnofacil.dto.CalendarBlockedDto;
+import com.turnofacil.dto.CalendarEventDto;
+import com.turnofacil.dto.BusinessStatsTotals;
 import com.turnofacil.dto.ServiceDto;
+import com.turnofacil.dto.AppointmentExportFilter;
 import com.turnofacil.model.Appointment;
 import com.turnofacil.model.BlockedSlot;
+import com.turnofacil.model.BusinessDailyStats;
 import com.turnofacil.model.BusinessConfig;
+import com.turnofacil.model.Client;
 import com.turnofacil.model.Service;
 import com.turnofacil.model.User;
 import com.turnofacil.model.enums.AppointmentStatus;
@@ -15,16 +21,24 @@ import com.turnofacil.repository.UserRepository;
 import com.turnofacil.model.PortfolioImage;
 import com.turnofacil.service.AppointmentService;
 import com.turnofacil.service.BlockedSlotService;
+import com.turnofacil.service.BusinessStatsService;
+import com.turnofacil.service.ClientService;
+import com.turnofacil.service.export.AppointmentExportService;
+import com.turnofacil.service.export.ExportJob;
+import com.turnofacil.service.export.ExportJobService;
+import com.turnofacil.service.export.ExportType;
 import com.turnofacil.service.BusinessConfigService;
 import com.turnofacil.service.PortfolioImageService;
 import com.turnofacil.service.ServiceService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -32,6 +46,7 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import com.turnofacil.service.RateLimiterService;
@@ -43,6 +58,7 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -53,6 +69,12 @@ import java.util.stream.Collectors;
 public class AdminController {
 
     private static final Logger log = LoggerFactory.getLogger(AdminController.class);
+    private static final int CLIENT_SEARCH_LIMIT = 20;
+    private static final int CLIENT_HISTORY_PAGE_SIZE = 100;
+    // Turnos más recientes en la tabla del dashboard; el historial completo está en la exportación
+    static final int DASHBOARD_TABLE_LIMIT = 100;
+    // Vista mes con semanas de los meses adyacentes: ~6 semanas; margen para rangos algo mayores
+    private static final int CALENDAR_MAX_RANGE_DAYS = 93;
 
     private final AppointmentRepository appointmentRepo;
     private final UserRepository userRepo;
@@ -63,6 +85,10 @@ public class AdminController {
     private final UserService userService;
     private final RateLimiterService rateLimiterService;
     private final PortfolioImageService portfolioImageService;
+    private final BusinessStatsService businessStatsService;
+    private final ClientService clientService;
+    private final AppointmentExportService appointmentExportService;
+    private final ExportJobService exportJobService;
 
     public AdminController(AppointmentRepository appointmentRepo,
                            UserRepository userRepo,
@@ -72,7 +98,11 @@ public class AdminController {
                            BlockedSlotService blockedSlotService,
                            UserService userService,
                            RateLimiterService rateLimiterService,
-                           PortfolioImageService portfolioImageService) {
+                           PortfolioImageService portfolioImageService,
+                           BusinessStatsService businessStatsService,
+                           ClientService clientService,
+                           AppointmentExportService appointmentExportService,
+                           ExportJobService exportJobService) {
         this.appointmentRepo = appointmentRepo;
         this.userRepo = userRepo;
         this.appointmentService = appointmentService;
@@ -82,6 +112,10 @@ public class AdminController {
         this.userService = userService;
         this.rateLimiterService = rateLimiterService;
         this.portfolioImageService = portfolioImageService;
+        this.businessStatsService = businessStatsService;
+        this.clientService = clientService;
+        this.appointmentExportService = appointmentExportService;
+        this.exportJobService = exportJobService;
     }
 
     // ===================== DASHBOARD =====================
@@ -107,78 +141,32 @@ public class AdminController {
                 .peek(a -> { if (a.getStatus() == null) a.setStatus(AppointmentStatus.PENDING); })
                 .collect(Collectors.toList());
 
-        // Todos los turnos ordenados para paginación client-side
-        List<Appointment> allAppointmentsList = appointmentRepo.findByBusinessIdOrderByDateDescTimeDesc(bId);
+        // Últimos turnos para paginación client-side (no todo el historial)
+        List<Appointment> allAppointmentsList = appointmentRepo.findByBusinessIdOrderByDateDescTimeDesc(
+                bId, PageRequest.of(0, DASHBOARD_TABLE_LIMIT));
 
-        // KPIs con COUNT queries (no carga todas las entidades)
+        // KPIs desde el rollup diario (no escanea APPOINTMENTS)
         long turnosHoy = todayAppointments.size();
-        long turnosSemana = appointmentRepo.countByBusinessIdAndDateBetween(bId, startOfWeek, endOfWeek);
-        long turnosMes = appointmentRepo.countByBusinessIdAndDateFrom(bId, startOfMonth);
-        long turnosCompletados = appointmentRepo.countByBusinessIdAndStatus(bId, AppointmentStatus.COMPLETED);
-        long turnosCancelados = appointmentRepo.countByBusinessIdAndStatus(bId, AppointmentStatus.CANCELLED);
-        long turnosPendientes = appointmentRepo.countByBusinessIdAndStatus(bId, AppointmentStatus.PENDING);
-        long turnosNoShow = appointmentRepo.countByBusinessIdAndStatus(bId, AppointmentStatus.NO_SHOW);
-
-        long turnosPasados = appointmentRepo.countPastAppointments(bId, today, LocalTime.now());
-        double tasaNoShow = turnosPasados > 0 ? (turnosNoShow * 100.0 / turnosPasados) : 0.0;
-
-        // Calendario: carga solo rango visible (mes actual ± 1 mes)
-        LocalDate calStart = today.minusMonths(1).withDayOfMonth(1);
-        LocalDate calEnd = today.plusMonths(2).withDayOfMonth(1);
-        List<Appointment> calendarAppointments = appointmentRepo.findByDateBetweenAndBusinessId(calStart, calEnd, bId);
-
-        List<Map<String, Object>> calendarEvents = calendarAppointments.stream()
-                .map(a -> {
-                    Map<String, Object> event = new HashMap<>();
-                    event.put("id", a.getId());
-                    event.put("clientName", a.getClientName());
-                    event.put("clientPhone", a.getClientPhone());
-                    event.put("clientEmail", a.getClientEmail() != null ? a.getClientEmail() : "");
-                    event.put("notes", a.getNotes() != null ? a.getNotes() : "");
-                    event.put("internalNotes", a.getInternalNotes() != null ? a.getInternalNotes() : "");
-                    event.put("serviceId", a.getService() != null ? a.getService().getId() : "");
-                    event.put("date", a.getDate().toString());
-                    event.put("time", a.getTime().toString());
-                    event.put("duration", a.getDuration());
-                    event.put("statusCode", a.getStatus() != null ? a.getStatus().name() : "PENDING");
-
-                    if (a.getStatus() != null) {
-                        Map<String, String> statusInfo = new HashMap<>();
-                        statusInfo.put("es", a.getStatus().getDisplayName("es"));
-                        statusInfo.put("badgeClass", a.getStatus().getBadgeClass());
-                        event.put("status", statusInfo);
-                    } else {
-                        Map<String, String> statusInfo = new HashMap<>();
-                        statusInfo.put("es", "Sin estado");
-                        statusInfo.put("badgeClass", "bg-secondary");
-                        event.put("status", statusInfo);
-                    }
-                    return event;
-                })
-                .collect(Collectors.toList());
-
-        // Bloqueos futuros para calendario
-        List<BlockedSlot> blockedSlots = blockedSlotService.getFutureBlockedSlots(bId);
-        List<Map<String, Object>> blockedEvents = blockedSlots.stream()
-                .map(b -> {
-                    Map<String, Object> event = new HashMap<>();
-                    event.put("id", "blocked-" + b.getId());
-                    event.put("title", b.getTitle());
-                    event.put("type", b.getType().name());
-                    event.put("typeDisplay", b.getType().getDisplayName());
-                    event.put("color", b.getType().getColor());
-                    event.put("startDate", b.getStartDate().toString());
-                    event.put("endDate", b.getEndDate().toString());
-                    event.put("allDay", b.isAllDay());
-                    if (!b.isAllDay()) {
-                        event.put("startTime", b.getStartTime() != null ? b.getStartTime().toString() : null);
-                        event.put("endTime", b.getEndTime() != null ? b.getEndTime().toString() : null);
-                    }
-                    return event;
-                })
-                .collect(Collectors.toList());
-
-        log.info("Dashboard cargado - Hoy: {} | Semana: {} | Bloqueos: {}", turnosHoy, turnosSemana, blockedSlots.size());
+        long turnosSemana = businessStatsService.countBetween(bId, startOfWeek, endOfWeek);
+        long turnosMes = businessStatsService.countFrom(bId, startOfMonth);
+        BusinessStatsTotals totals = businessStatsService.getTotals(bId);
+        long turnosCompletados = totals.completed();
+        long turnosCancelados = totals.cancelled();
+        long turnosPendientes = totals.pending();
+        long turnosNoShow = totals.noShow();
+
+        // Pasados = días anteriores (rollup) + turnos de hoy cuya hora ya pasó
+        LocalTime now = LocalTime.now();
+        BusinessStatsTotals pastTotals = businessStatsService.getTotalsBefore(bId, today);
+        long turnosPasados = pastTotals.total()
+                + todayAppointments.stream().filter(a -> a.getTime().isBefore(now)).count();
+        long noShowPasados = pastTotals.noShow()
+                + todayAppointments.stream()
+                        .filter(a -> a.getTime().isBefore(now) && a.getStatus() == AppointmentStatus.NO_SHOW)
+                        .count();
+        double tasaNoShow = turnosPasados > 0 ? (noShowPasados * 100.0 / turnosPasados) : 0.0;
+
+        log.info("Dashboard cargado - Hoy: {} | Semana: {}", turnosHoy, turnosSemana);
 
         // KPIs
         model.addAttribute("kpiTurnosHoy", turnosHoy);
@@ -197,9 +185,9 @@ public class AdminController {
         // Paginación client-side
         model.addAttribute("todayAppointments", todayAppointments);
         model.addAttribute("allAppointments", allAppointmentsList);
+        model.addAttribute("totalAppointments", totals.total());
+        model.addAttribute("dashboardTableLimit", DASHBOARD_TABLE_LIMIT);
 
-        model.addAttribute("calendarEvents", calendarEvents);
-        model.addAttribute("blockedEvents", blockedEvents);
         model.addAttribute("today", today);
         model.addAttribute("businessConfig", config);
         model.addAttribute("currentUrl", request.getRequestURI());
@@ -221,6 +209,84 @@ public class AdminController {
         return appointmentService.getTodayAppointmentsForCurrentUser(authentication);
     }
 
+    // ===================== CALENDARIO =====================
+
+    /**
+     * Eventos del calendario para el rango visible (el calendario lo pide al navegar).
+     * ETag sobre el contenido: si nada cambió en el rango el navegador recibe 304 sin cuerpo.
+     */
+    @GetMapping("/api/calendar/events")
+    @ResponseBody
+    public ResponseEntity<?> getCalendarEvents(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            Authentication auth,
+            WebRequest webRequest) {
+
+        if (end.isBefore(start) || ChronoUnit.DAYS.between(start, end) > CALENDAR_MAX_RANGE_DAYS) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("success", false, "message", "Rango de fechas no valido"));
+        }
+
+        User business = userRepo.findByEmailIgnoreCase(auth.getName())
+                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+        Long bId = business.getId();
+
+        List<CalendarEventDto> appointments = appointmentService.getCalendarEvents(bId, start, end);
+        List<CalendarBlockedDto> blocked = blockedSlotService.getBlocksInRange(bId, start, end).stream()
+                .map(CalendarBlockedDto::fromEntity)
+                .toList();
+
+        String etag = calendarEtag(bId, start, end, appointments, blocked);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(Map.of("appointments", appointments, "blocked", blocked));
+    }
+
+    // Hash estable entre reinicios y nodos (los enums se incluyen por nombre, no por identidad)
+    private String calendarEtag(Long businessId, LocalDate start, LocalDate end,
+                                List<CalendarEventDto> appointments, List<CalendarBlockedDto> blocked) {
+        int hash = Objects.hash(businessId, start, end, blocked);
+        for (CalendarEventDto a : appointments) {
+            hash = 31 * hash + Objects.hash(a.id(), a.date(), a.time(), a.duration(),
+                    a.status() != null ? a.status().name() : null, a.clientName(), a.serviceName());
+        }
+        return "W/\"" + Integer.toHexString(hash) + "\"";
+    }
+
+    /**
+     * Detalle de un turno para el modal de edición (el calendario solo trae la proyección mínima).
+     */
+    @GetMapping("/api/appointments/{id}")
+    @ResponseBody
+    public ResponseEntity<?> getAppointmentDetail(@PathVariable Long id, Authentication auth) {
+        User business = userRepo.findByEmailIgnoreCase(auth.getName())
+                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+        try {
+            Appointment a = appointmentService.getByIdAndBusiness(id, business);
+            Map<String, Object> detail = new HashMap<>();
+            detail.put("id", a.getId());
+            detail.put("clientName", a.getClientName());
+            detail.put("clientPhone", a.getClientPhone());
+            detail.put("clientEmail", a.getClientEmail() != null ? a.getClientEmail() : "");
+            detail.put("notes", a.getNotes() != null ? a.getNotes() : "");
+            detail.put("internalNotes", a.getInternalNotes() != null ? a.getInternalNotes() : "");
+            detail.put("serviceId", a.getService() != null ? a.getService().getId() : "");
+            detail.put("date", a.getDate().toString());
+            detail.put("time", a.getTime().toString());
+            detail.put("statusCode", a.getStatus() != null ? a.getStatus().name() : "PENDING");
+            return ResponseEntity.ok(detail);
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("success", false, "message", "Acceso denegado"));
+        }
+    }
+
     @GetMapping("/api/trends")
     @ResponseBody
     public Map<String, Object> getWeeklyTrends(Authentication auth) {
@@ -228,13 +294,13 @@ public class AdminController {
         LocalDate today = LocalDate.now();
         LocalDate start = today.minusWeeks(4);
 
-        List<Object[]> dailyCounts = appointmentRepo.countByDayBetween(business.getId(), start, today);
+        List<BusinessDailyStats> dailyStats = businessStatsService.getDailyStats(business.getId(), start, today);
 
         List<String> labels = new ArrayList<>();
         List<Long> data = new ArrayList<>();
         Map<LocalDate, Long> countMap = new LinkedHashMap<>();
-        for (Object[] row : dailyCounts) {
-            countMap.put((LocalDate) row[0], (Long) row[1]);
+        for (BusinessDailyStats row : dailyStats) {
+            countMap.put(row.getStatDate(), (long) row.getTotalCount());
         }
 
         // Rellenar días sin citas con 0
@@ -623,56 +689,39 @@ public class AdminController {
 
     @GetMapping("/client-history")
     public String showClientHistory(@RequestParam(required = false) String search,
+                                    @RequestParam(defaultValue = "0") int page,
                                     Model model, Authentication auth, HttpServletRequest request) {
         User business = userRepo.findByEmailIgnoreCase(auth.getName()).orElseThrow();
         BusinessConfig config = businessConfigService.getByUserId(business.getId());
         Long bId = business.getId();
 
-        List<Appointment> appointments = List.of();
+        // Búsqueda indexada sobre CLIENTS y turnos paginados de los clientes encontrados
+        Page<Client> matchedClients = Page.empty();
+        Page<Appointment> appointmentsPage = Page.empty();
         if (search != null && !search.isBlank()) {
-            appointments = appointmentService.getClientHistory(business, search.trim());
+            matchedClients = clientService.search(bId, search, PageRequest.of(0, CLIENT_SEARCH_LIMIT));
+            List<Long> clientIds = matchedClients.getContent().stream().map(Client::getId).toList();
+            appointmentsPage = appointmentService.getClientHistory(business, clientIds,
+                    PageRequest.of(Math.max(page, 0), CLIENT_HISTORY_PAGE_SIZE));
         }
+        List<Appointment> appointments = appointmentsPage.getContent();
 
-        // Conteos para el resumen (SpEL no soporta lambdas)
-        long countCompleted = appointments.stream().filter(a -> a.getStatus() == AppointmentStatus.COMPLETED).count();
-        long countCancelled = appointments.stream().filter(a -> a.getStatus() == AppointmentStatus.CANCELLED).count();
-        long countNoShow = appointments.stream().filter(a -> a.getStatus() == AppointmentStatus.NO_SHOW).count();
-
-        // Clientes recientes (últimos 10)
-        List<Object[]> recentClientsRaw = appointmentRepo.findRecentClients(bId);
-        List<Map<String, Object>> recentClients = recentClientsRaw.stream()
-                .limit(10)
-                .map(row -> {
-                    Map<String, Object> client = new HashMap<>();
-                    client.put("name", row[0]);
-                    client.put("phone", row[1]);
-                    client.put("email", row[2]);
-                    client.put("lastVisit", row[3]);
-                    client.put("totalAppointments", row[4]);
-                    return client;
-                })
-                .collect(Collectors.toList());
+        // Conteos para el resumen desde los contadores de CLIENTS (SpEL no soporta lambdas)
+        long countCompleted = matchedClients.getContent().stream().mapToLong(Client::getCompletedAppointments).sum();
+        long countCancelled = matchedClients.getContent().stream().mapToLong(Client::getCancelledAppointments).sum();
+        long countNoShow = matchedClients.getContent().stream().mapToLong(Client::getNoShowAppointments).sum();
 
-        // Clientes frecuentes (top 5)
-        List<Object[]> topClientsRaw = appointmentRepo.findTopClients(bId);
-        List<Map<String, Object>> topClients = topClientsRaw.stream()
-                .limit(5)
-                .map(row -> {
-                    Map<String, Object> client = new HashMap<>();
-                    client.put("name", row[0]);
-                    client.put("phone", row[1]);
-                    client.put("email", row[2]);
-                    client.put("totalAppointments", row[3]);
-                    client.put("completedAppointments", row[4]);
-                    return client;
-                })
-                .collect(Collectors.toList());
+        // Clientes recientes (últimos 10) y frecuentes (top 5) desde CLIENTS
+        List<Client> recentClients = clientService.getRecentClients(bId);
+        List<Client> topClients = clientService.getTopClients(bId);
 
         // Estadísticas generales
-        long totalClients = recentClientsRaw.size();
-        long totalAppointments = appointmentRepo.findByBusinessId(bId).size();
+        long totalClients = clientService.countByBusiness(bId);
+        long totalAppointments = businessStatsService.countByBusiness(bId);
 
         model.addAttribute("appointments", appointments);
+        model.addAttribute("appointmentsPage", appointmentsPage);
+        model.addAttribute("matchedClients", matchedClients.getTotalElements());
         model.addAttribute("countCompleted", countCompleted);
         model.addAttribute("countCancelled", countCancelled);
         model.addAttribute("countNoShow", countNoShow);
@@ -782,79 +831,15 @@ public class AdminController {
         User business = userRepo.findByEmailIgnoreCase(auth.getName())
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
 
-        List<Appointment> appointments = appointmentRepo.findByBusinessId(business.getId())
-                .stream()
-                .sorted(Comparator.comparing(Appointment::getDate)
-                        .thenComparing(Appointment::getTime))
-                .collect(Collectors.toList());
-
-        if (startDate != null && !startDate.isEmpty()) {
-            LocalDate start = LocalDate.parse(startDate);
-            appointments = appointments.stream()
-                    .filter(a -> !a.getDate().isBefore(start))
-                    .collect(Collectors.toList());
-        }
-
-        if (endDate != null && !endDate.isEmpty()) {
-            LocalDate end = LocalDate.parse(endDate);
-            appointments = appointments.stream()
-                    .filter(a -> !a.getDate().isAfter(end))
-                    .collect(Collectors.toList());
-        }
-
-        if (status != null && !status.isEmpty() && !status.equals("ALL")) {
-            AppointmentStatus filterStatus = AppointmentStatus.fromCode(status.toLowerCase());
-            appointments = appointments.stream()
-                    .filter(a -> a.getStatus() == filterStatus)
-                    .collect(Collectors.toList());
-        }
-
-        Workbook workbook = new XSSFWorkbook();
-        Sheet sheet = workbook.createSheet("Turnos");
-
-        CellStyle headerStyle = workbook.createCellStyle();
-        Font headerFont = workbook.createFont();
-        headerFont.setBold(true);
-        headerFont.setColor(IndexedColors.WHITE.getIndex());
-        headerStyle.setFont(headerFont);
-        headerStyle.setFillForegroundColor(IndexedColors.DARK_BLUE.getIndex());
-        headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-        headerStyle.setAlignment(HorizontalAlignment.CENTER);
-
-        Row headerRow = sheet.createRow(0);
-        String[] columns = {"Fecha", "Hora", "Cliente", "Telefono", "Email", "Notas", "Estado", "Duracion (min)"};
-
-        for (int i = 0; i < columns.length; i++) {
-            Cell cell = headerRow.createCell(i);
-            cell.setCellValue(columns[i]);
-            cell.setCellStyle(headerStyle);
-        }
-
-        int rowNum = 1;
-        for (Appointment apt : appointments) {
-            Row row = sheet.createRow(rowNum++);
-            row.createCell(0).setCellValue(apt.getDate().toString());
-            row.createCell(1).setCellValue(apt.getTime().toString());
-            row.createCell(2).setCellValue(apt.getClientName());
-            row.createCell(3).setCellValue(apt.getClientPhone());
-            row.createCell(4).setCellValue(apt.getClientEmail() != null ? apt.getClientEmail() : "");
-            row.createCell(5).setCellValue(apt.getNotes() != null ? apt.getNotes() : "");
-            row.createCell(6).setCellValue(apt.getStatus() != null ? apt.getStatus().getDisplayName("es") : "Pendiente");
-            row.createCell(7).setCellValue(apt.getDuration() != null ? apt.getDuration() : 0);
-        }
-
-        for (int i = 0; i < columns.length; i++) {
-            sheet.autoSizeColumn(i);
-        }
+        AppointmentExportFilter filter = AppointmentExportFilter.of(startDate, endDate, status);
 
         response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
         response.setHeader("Content-Disposition",
                 "attachment; filename=turnos_" + LocalDate.now() + ".xlsx");
 
-        workbook.write(response.getOutputStream());
-        workbook.close();
+        long total = appointmentExportService.writeExcel(business.getId(), filter, response.getOutputStream());
 
-        log.info("Excel exportado - Usuario: {} | Total registros: {}", business.getEmail(), appointments.size());
+        log.info("Excel exportado - Usuario: {} | Total registros: {}", business.getEmail(), total);
     }
 
     @GetMapping("/appointments/export-csv")
@@ -867,51 +852,52 @@ public class AdminController {
 
         User business = userRepo.findByEmailIgnoreCase(auth.getName()).orElseThrow();
 
-        List<Appointment> appointments = appointmentRepo.findByBusinessId(business.getId())
-                .stream()
-                .sorted(Comparator.comparing(Appointment::getDate).thenComparing(Appointment::getTime))
-                .collect(Collectors.toList());
-
-        if (startDate != null && !startDate.isEmpty()) {
-            LocalDate start = LocalDate.parse(startDate);
-            appointments = appointments.stream().filter(a -> !a.getDate().isBefore(start)).collect(Collectors.toList());
-        }
-        if (endDate != null && !endDate.isEmpty()) {
-            LocalDate end = LocalDate.parse(endDate);
-            appointments = appointments.stream().filter(a -> !a.getDate().isAfter(end)).collect(Collectors.toList());
-        }
-        if (status != null && !status.isEmpty() && !status.equals("ALL")) {
-            AppointmentStatus filterStatus = AppointmentStatus.fromCode(status.toLowerCase());
-            appointments = appointments.stream().filter(a -> a.getStatus() == filterStatus).collect(Collectors.toList());
-        }
+        AppointmentExportFilter filter = AppointmentExportFilter.of(startDate, endDate, status);
 
         response.setContentType("text/csv; charset=UTF-8");
         response.setHeader("Content-Disposition",
                 "attachment; filename=turnos_" + LocalDate.now() + ".csv");
-        response.getOutputStream().write(0xEF); // BOM for Excel UTF-8
-        response.getOutputStream().write(0xBB);
-        response.getOutputStream().write(0xBF);
-
-        var writer = new java.io.PrintWriter(response.getOutputStream(), true, java.nio.charset.StandardCharsets.UTF_8);
-        writer.println("Fecha,Hora,Cliente,Telefono,Email,Notas,Estado,Duracion (min)");
-
-        for (Appointment apt : appointments) {
-            writer.printf("%s,%s,\"%s\",\"%s\",\"%s\",\"%s\",%s,%d%n",
-                    apt.getDate(),
-                    apt.getTime(),
-                    escapeCsv(apt.getClientName()),
-                    escapeCsv(apt.getClientPhone()),
-                    escapeCsv(apt.getClientEmail()),
-                    escapeCsv(apt.getNotes()),
-                    apt.getStatus() != null ? apt.getStatus().getDisplayName("es") : "Pendiente",
-                    apt.getDuration() != null ? apt.getDuration() : 0);
-        }
-        writer.flush();
-        log.info("CSV exportado - Usuario: {} | Total registros: {}", business.getEmail(), appointments.size());
+
+        long total = appointmentExportService.writeCsv(business.getId(), filter, response.getOutputStream());
+        log.info("CSV exportado - Usuario: {} | Total registros: {}", business.getEmail(), total);
     }
 
-    private String escapeCsv(String value) {
-        if (value == null) return "";
-        return value.replace("\"", "\"\"");
+    // Exportaciones en segundo plano: encolan el trabajo y el resultado llega por SSE (ver ExportJobService)
+
+    @PostMapping("/appointments/export")
+    @ResponseBody
+    public ResponseEntity<?> enqueueExcelExport(
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) String status,
+            Authentication auth) {
+        return enqueueExport(ExportType.APPOINTMENTS_XLSX, startDate, endDate, status, auth);
+    }
+
+    @PostMapping("/appointments/export-csv")
+    @ResponseBody
+    public ResponseEntity<?> enqueueCsvExport(
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) String status,
+            Authentication auth) {
+        return enqueueExport(ExportType.APPOINTMENTS_CSV, startDate, endDate, status, auth);
+    }
+
+    private ResponseEntity<?> enqueueExport(ExportType type, String startDate, String endDate, String status,
+                                            Authentication auth) {
+        User business = userRepo.findByEmailIgnoreCase(auth.getName())
+                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+        try {
+            AppointmentExportFilter filter = AppointmentExportFilter.of(startDate, endDate, status);
+            ExportJob job = exportJobService.enqueue(business.getId(), type, filter);
+            return ResponseEntity.accepted().body(Map.of(
+                    "success", true,
+                    "jobId", job.getId(),
+                    "message", "Exportación en curso. Te avisaremos cuando esté lista."));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(Map.of("success", false, "message", e.getMessage()));
+        }
     }
 }
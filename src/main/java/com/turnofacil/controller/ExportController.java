@@ -0,0 +1,71 @@
+package com.turnofacil.controller;
+
+import com.turnofacil.model.User;
+import com.turnofacil.repository.UserRepository;
+import com.turnofacil.service.export.ExportJob;
+import com.turnofacil.service.export.ExportJobService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Estado y descarga de las exportaciones en segundo plano (ver ExportJobService).
+ * Los trabajos se encolan desde /admin/appointments/export* y /admin/invoices/export-csv.
+ */
+@RestController
+@RequestMapping("/admin/exports")
+public class ExportController {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportController.class);
+
+    private final ExportJobService exportJobService;
+    private final UserRepository userRepo;
+
+    public ExportController(ExportJobService exportJobService, UserRepository userRepo) {
+        this.exportJobService = exportJobService;
+        this.userRepo = userRepo;
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<?> getStatus(@PathVariable String jobId, Authentication auth) {
+        User business = getCurrentUser(auth);
+        return exportJobService.getJob(business.getId(), jobId)
+                .<ResponseEntity<?>>map(job -> ResponseEntity.ok(exportJobService.toDto(job)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("success", false, "message", "Exportación no encontrada")));
+    }
+
+    @GetMapping("/{jobId}/download")
+    public ResponseEntity<Resource> download(@PathVariable String jobId,
+                                             @RequestParam(required = false) String token,
+                                             Authentication auth) {
+        User business = getCurrentUser(auth);
+        ExportJob job = exportJobService.getDownloadable(business.getId(), jobId, token).orElse(null);
+        if (job == null) {
+            log.warn("Descarga de exportacion rechazada - Negocio: {} | Job: {}", business.getId(), jobId);
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        }
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(job.getType().getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(job.getFileName()).build().toString())
+                .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                .body(new FileSystemResource(job.getFile()));
+    }
+
+    private User getCurrentUser(Authentication auth) {
+        return userRepo.findByEmailIgnoreCase(auth.getName())
+                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+    }
+}
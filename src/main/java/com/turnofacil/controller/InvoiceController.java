@@ -13,6 +13,8 @@ import com.turnofacil.repository.UserRepository;
 import com.turnofacil.service.BillingProfileService;
 import com.turnofacil.service.BusinessConfigService;
 import com.turnofacil.service.InvoiceService;
+import com.turnofacil.service.export.ExportJobService;
+import com.turnofacil.service.export.ExportType;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
@@ -40,17 +42,20 @@ public class InvoiceController {
     private final BusinessConfigService businessConfigService;
     private final UserRepository userRepo;
     private final AppointmentRepository appointmentRepo;
+    private final ExportJobService exportJobService;
 
     public InvoiceController(InvoiceService invoiceService,
                              BillingProfileService billingProfileService,
                              BusinessConfigService businessConfigService,
                              UserRepository userRepo,
-                             AppointmentRepository appointmentRepo) {
+                             AppointmentRepository appointmentRepo,
+                             ExportJobService exportJobService) {
         this.invoiceService = invoiceService;
         this.billingProfileService = billingProfileService;
         this.businessConfigService = businessConfigService;
         this.userRepo = userRepo;
         this.appointmentRepo = appointmentRepo;
+        this.exportJobService = exportJobService;
     }
 
     // ===================== LISTADO DE FACTURAS =====================
@@ -245,6 +250,23 @@ public class InvoiceController {
         return ResponseEntity.notFound().build();
     }
 
+    // ===================== EXPORTACIÓN =====================
+
+    @PostMapping("/export-csv")
+    public String exportCsv(RedirectAttributes redirectAttrs, Authentication auth) {
+        User user = getCurrentUser(auth);
+
+        try {
+            exportJobService.enqueue(user.getId(), ExportType.INVOICES_CSV, null);
+            redirectAttrs.addFlashAttribute("success",
+                "Exportación de facturas en curso. Te avisaremos cuando el fichero esté listo para descargar.");
+        } catch (IllegalStateException e) {
+            redirectAttrs.addFlashAttribute("error", e.getMessage());
+        }
+
+        return "redirect:/admin/invoices";
+    }
+
     // ===================== HELPERS =====================
 
     private User getCurrentUser(Authentication auth) {
@@ -1,6 +1,5 @@
 package com.turnofacil.controller;
 
-import com.turnofacil.dto.PublicSlotDto;
 import com.turnofacil.model.Appointment;
 import com.turnofacil.model.BlockedSlot;
 import com.turnofacil.model.BusinessConfig;
@@ -101,11 +100,9 @@ public class PublicAppointmentController {
             BusinessConfig config = businessConfigRepo.findByUserId(businessId).orElse(null);
 
             // Occupied slots
-            List<Appointment> appointments = appointmentService.getAllByBusiness(appointment.getBusiness());
-            List<Map<String, Object>> occupiedSlots = appointments.stream()
-                    .filter(a -> !a.getId().equals(appointment.getId())) // exclude current appointment
-                    .map(a -> {
-                        PublicSlotDto dto = PublicSlotDto.fromAppointment(a);
+            List<Map<String, Object>> occupiedSlots = appointmentService
+                    .getPublicSlots(businessId, appointment.getId()).stream() // exclude current appointment
+                    .map(dto -> {
                         Map<String, Object> slot = new HashMap<>();
                         slot.put("date", dto.date().toString());
                         slot.put("time", dto.time().toString());
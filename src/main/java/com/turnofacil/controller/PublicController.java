@@ -3,7 +3,6 @@ package com.turnofacil.controller;
 import com.turnofacil.dto.PublicBlockedSlotDto;
 import com.turnofacil.dto.PublicSlotDto;
 import com.turnofacil.exception.ResourceNotFoundException;
-import com.turnofacil.model.Appointment;
 import com.turnofacil.model.BlockedSlot;
 import com.turnofacil.model.BusinessConfig;
 import com.turnofacil.model.Service;
@@ -65,21 +64,9 @@ public class PublicController {
 
         // Obtener turnos ocupados - SOLO datos necesarios para el calendario
         // NO exponemos datos de clientes (nombres, telefonos, emails)
-        List<Appointment> appointments = appointmentService.getAllByBusiness(config.getUser());
-
-        // Transformar a DTO SEGURO - solo fecha, hora y duracion
-        List<Map<String, Object>> occupiedSlots = appointments.stream()
-                .map(appointment -> {
-                    PublicSlotDto dto = PublicSlotDto.fromAppointment(appointment);
-                    Map<String, Object> slot = new HashMap<>();
-                    slot.put("date", dto.date().toString());
-                    slot.put("time", dto.time().toString());
-                    slot.put("start", dto.getStartIso());
-                    slot.put("duration", dto.duration());
-                    slot.put("end", dto.getEndIso());
-                    // NO incluimos: clientName, clientPhone, clientEmail, notes, status
-                    return slot;
-                })
+        // La proyección ya es un DTO SEGURO - solo fecha, hora y duracion
+        List<Map<String, Object>> occupiedSlots = appointmentService.getPublicSlots(config.getUser().getId(), null).stream()
+                .map(PublicController::toSlotMap)
                 .collect(Collectors.toList());
 
         // Obtener bloqueos de horario
@@ -123,24 +110,27 @@ public class PublicController {
         BusinessConfig config = businessConfigService.findBySlug(slug)
                 .orElseThrow(() -> new ResourceNotFoundException("Negocio", "slug", slug));
 
-        List<Appointment> appointments = appointmentService.getAllByBusiness(config.getUser());
-
-        List<Map<String, Object>> slots = appointments.stream()
-                .map(appointment -> {
-                    PublicSlotDto dto = PublicSlotDto.fromAppointment(appointment);
-                    Map<String, Object> slot = new HashMap<>();
-                    slot.put("date", dto.date().toString());
-                    slot.put("time", dto.time().toString());
-                    slot.put("start", dto.getStartIso());
-                    slot.put("duration", dto.duration());
-                    slot.put("end", dto.getEndIso());
-                    return slot;
-                })
+        List<Map<String, Object>> slots = appointmentService.getPublicSlots(config.getUser().getId(), null).stream()
+                .map(PublicController::toSlotMap)
                 .collect(Collectors.toList());
 
         return ResponseEntity.ok(slots);
     }
 
+    /**
+     * Slot ocupado para el calendario público: solo fecha, hora y duración.
+     * NO incluimos: clientName, clientPhone, clientEmail, notes, status
+     */
+    static Map<String, Object> toSlotMap(PublicSlotDto dto) {
+        Map<String, Object> slot = new HashMap<>();
+        slot.put("date", dto.date().toString());
+        slot.put("time", dto.time().toString());
+        slot.put("start", dto.getStartIso());
+        slot.put("duration", dto.duration());
+        slot.put("end", dto.getEndIso());
+        return slot;
+    }
+
     @PostMapping("/{slug}")
     public String bookAppointment(@PathVariable String slug,
                                   @RequestParam LocalDate date,
@@ -198,7 +188,7 @@ public class PublicController {
     /**
      * Sanitiza input para prevenir XSS y limpiar caracteres peligrosos
      */
-    private String sanitize(String input) {
+    static String sanitize(String input) {
         if (input == null) return null;
         // Escapar HTML y eliminar caracteres de control
         return HtmlUtils.htmlEscape(input.trim())
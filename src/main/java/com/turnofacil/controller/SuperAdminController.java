@@ -1,15 +1,32 @@
 package com.turnofacil.controller;
 
+import com.turnofacil.model.PlatformMetricsSnapshot;
+import com.turnofacil.scheduler.cluster.JobCoordinator;
+import com.turnofacil.service.FlightRecordingService;
+import com.turnofacil.service.PlatformMetricsSnapshotService;
 import com.turnofacil.service.PlatformService;
 import com.turnofacil.service.cache.CacheService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Controlador para la sección de super administrador.
  * Solo accesible por usuarios con rol SUPER_ADMIN.
@@ -21,12 +38,24 @@ public class SuperAdminController {
 
     private static final Logger log = LoggerFactory.getLogger(SuperAdminController.class);
 
+    private static final int MAX_HISTORY_DAYS = 730;
+
     private final PlatformService platformService;
+    private final PlatformMetricsSnapshotService snapshotService;
     private final CacheService cacheService;
+    private final FlightRecordingService flightRecordingService;
+    private final JobCoordinator jobCoordinator;
 
-    public SuperAdminController(PlatformService platformService, CacheService cacheService) {
+    public SuperAdminController(PlatformService platformService,
+                                PlatformMetricsSnapshotService snapshotService,
+                                CacheService cacheService,
+                                FlightRecordingService flightRecordingService,
+                                JobCoordinator jobCoordinator) {
         this.platformService = platformService;
+        this.snapshotService = snapshotService;
         this.cacheService = cacheService;
+        this.flightRecordingService = flightRecordingService;
+        this.jobCoordinator = jobCoordinator;
     }
 
     /**
@@ -44,11 +73,21 @@ public class SuperAdminController {
     }
 
     /**
-     * Lista de todos los negocios registrados.
+     * Lista paginada de negocios registrados, con búsqueda y ordenación en servidor.
      */
     @GetMapping("/businesses")
-    public String listBusinesses(Model model) {
-        model.addAttribute("businesses", platformService.listBusinesses());
+    public String listBusinesses(@RequestParam(required = false) String search,
+                                 @RequestParam(defaultValue = "createdAt") String sort,
+                                 @RequestParam(defaultValue = "desc") String dir,
+                                 @RequestParam(defaultValue = "0") int page,
+                                 Model model) {
+        String sortKey = PlatformService.BUSINESS_SORTS.contains(sort) ? sort : "createdAt";
+        boolean ascending = "asc".equalsIgnoreCase(dir);
+
+        model.addAttribute("businesses", platformService.listBusinesses(search, sortKey, ascending, page));
+        model.addAttribute("search", search);
+        model.addAttribute("sort", sortKey);
+        model.addAttribute("dir", ascending ? "asc" : "desc");
         return "platform/businesses";
     }
 
@@ -90,6 +129,37 @@ public class SuperAdminController {
         return "platform/metrics";
     }
 
+    /**
+     * Serie diaria de las fotos de métricas para el gráfico de evolución.
+     */
+    @GetMapping("/api/metrics/history")
+    @ResponseBody
+    public Map<String, Object> metricsHistory(@RequestParam(defaultValue = "90") int days) {
+        List<PlatformMetricsSnapshot> snapshots =
+                snapshotService.dailyHistory(Math.min(Math.max(days, 1), MAX_HISTORY_DAYS));
+
+        List<String> labels = new ArrayList<>();
+        List<Long> businesses = new ArrayList<>();
+        List<Long> activeBusinesses = new ArrayList<>();
+        List<Long> appointments = new ArrayList<>();
+        List<Object> mrr = new ArrayList<>();
+        for (PlatformMetricsSnapshot snapshot : snapshots) {
+            labels.add(snapshot.getCapturedAt().toLocalDate().toString());
+            businesses.add(snapshot.getTotalBusinesses());
+            activeBusinesses.add(snapshot.getActiveBusinesses());
+            appointments.add(snapshot.getTotalAppointments());
+            mrr.add(snapshot.getMrr());
+        }
+
+        return Map.of(
+                "labels", labels,
+                "businesses", businesses,
+                "activeBusinesses", activeBusinesses,
+                "appointments", appointments,
+                "mrr", mrr
+        );
+    }
+
     /**
      * Página de estado del sistema.
      */
@@ -102,7 +172,50 @@ public class SuperAdminController {
         model.addAttribute("availableProcessors", Runtime.getRuntime().availableProcessors());
         model.addAttribute("maxMemory", Runtime.getRuntime().maxMemory() / 1024 / 1024);
         model.addAttribute("freeMemory", Runtime.getRuntime().freeMemory() / 1024 / 1024);
+        model.addAttribute("jfr", flightRecordingService.status());
+        model.addAttribute("jobNodeId", jobCoordinator.getNodeId());
+        model.addAttribute("jobLocks", jobCoordinator.currentLocks());
+        model.addAttribute("jobRuns", jobCoordinator.recentRuns());
 
         return "platform/system";
     }
+
+    /**
+     * Inicia una grabación JFR acotada (ver FlightRecordingService).
+     */
+    @PostMapping("/system/jfr/start")
+    public String startRecording(@RequestParam(defaultValue = "5") int minutes,
+                                 RedirectAttributes redirectAttributes) {
+        try {
+            flightRecordingService.start(Duration.ofMinutes(minutes));
+            redirectAttributes.addFlashAttribute("success", "Grabación JFR iniciada");
+        } catch (IllegalStateException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        } catch (Exception e) {
+            log.error("Error iniciando grabacion JFR: {}", e.getMessage());
+            redirectAttributes.addFlashAttribute("error", "No se pudo iniciar la grabación JFR");
+        }
+        return "redirect:/platform/system";
+    }
+
+    @PostMapping("/system/jfr/stop")
+    public String stopRecording(RedirectAttributes redirectAttributes) {
+        flightRecordingService.stop();
+        redirectAttributes.addFlashAttribute("success", "Grabación JFR detenida");
+        return "redirect:/platform/system";
+    }
+
+    @GetMapping("/system/jfr/download")
+    public ResponseEntity<Resource> downloadRecording() {
+        Path file = flightRecordingService.download().orElse(null);
+        if (file == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(file.getFileName().toString()).build().toString())
+                .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                .body(new FileSystemResource(file));
+    }
 }
@@ -0,0 +1,28 @@
+package com.turnofacil.dto;
+
+import com.turnofacil.model.enums.AppointmentStatus;
+
+import java.time.LocalDate;
+
+/**
+ * Filtros de exportación de turnos. Cualquier campo null significa "sin filtro".
+ */
+public record AppointmentExportFilter(
+        LocalDate startDate,
+        LocalDate endDate,
+        AppointmentStatus status
+) {
+
+    /**
+     * Construye el filtro desde los parámetros de la petición (fechas ISO, código de estado o "ALL").
+     */
+    public static AppointmentExportFilter of(String startDate, String endDate, String status) {
+        return new AppointmentExportFilter(
+                startDate != null && !startDate.isEmpty() ? LocalDate.parse(startDate) : null,
+                endDate != null && !endDate.isEmpty() ? LocalDate.parse(endDate) : null,
+                status != null && !status.isEmpty() && !status.equals("ALL")
+                        ? AppointmentStatus.fromCode(status.toLowerCase())
+                        : null
+        );
+    }
+}
@@ -0,0 +1,30 @@
+package com.turnofacil.dto;
+
+import com.turnofacil.model.enums.AppointmentStatus;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Proyección de una cita para exportaciones (Excel/CSV).
+ * Solo las columnas exportadas: evita hidratar entidades y sus relaciones.
+ */
+public record AppointmentExportRow(
+        LocalDate date,
+        LocalTime time,
+        String clientName,
+        String clientPhone,
+        String clientEmail,
+        String notes,
+        AppointmentStatus status,
+        Integer duration
+) {
+
+    public String statusLabel() {
+        return status != null ? status.getDisplayName("es") : "Pendiente";
+    }
+
+    public int durationOrZero() {
+        return duration != null ? duration : 0;
+    }
+}
@@ -0,0 +1,22 @@
+package com.turnofacil.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Totales agregados del rollup BUSINESS_DAILY_STATS para un negocio y rango.
+ */
+public record BusinessStatsTotals(
+        long total,
+        long pending,
+        long confirmed,
+        long cancelled,
+        long completed,
+        long noShow,
+        long bookedMinutes,
+        BigDecimal revenue
+) {
+
+    public static BusinessStatsTotals empty() {
+        return new BusinessStatsTotals(0, 0, 0, 0, 0, 0, 0, BigDecimal.ZERO);
+    }
+}
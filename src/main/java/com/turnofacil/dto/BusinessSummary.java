@@ -0,0 +1,17 @@
+package com.turnofacil.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fila del listado de negocios de la plataforma.
+ * Los turnos vienen del rollup BUSINESS_DAILY_STATS en la misma consulta que el usuario.
+ */
+public record BusinessSummary(
+        Long id,
+        String name,
+        String email,
+        LocalDateTime createdAt,
+        LocalDateTime lastLogin,
+        boolean enabled,
+        long totalAppointments
+) {}
@@ -0,0 +1,38 @@
+package com.turnofacil.dto;
+
+import com.turnofacil.model.BlockedSlot;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Bloqueo de horario para el calendario del dashboard.
+ */
+public record CalendarBlockedDto(
+        Long id,
+        String title,
+        String type,
+        String typeDisplay,
+        String color,
+        LocalDate startDate,
+        LocalDate endDate,
+        boolean allDay,
+        LocalTime startTime,
+        LocalTime endTime
+) {
+
+    public static CalendarBlockedDto fromEntity(BlockedSlot slot) {
+        return new CalendarBlockedDto(
+                slot.getId(),
+                slot.getTitle(),
+                slot.getType().name(),
+                slot.getType().getDisplayName(),
+                slot.getType().getColor(),
+                slot.getStartDate(),
+                slot.getEndDate(),
+                slot.isAllDay(),
+                slot.isAllDay() ? null : slot.getStartTime(),
+                slot.isAllDay() ? null : slot.getEndTime()
+        );
+    }
+}
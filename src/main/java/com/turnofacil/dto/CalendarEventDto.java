@@ -0,0 +1,21 @@
+package com.turnofacil.dto;
+
+import com.turnofacil.model.enums.AppointmentStatus;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Proyección mínima de un turno para el calendario del dashboard.
+ * Los datos de contacto y notas se piden al abrir el turno (/admin/api/appointments/{id}).
+ */
+public record CalendarEventDto(
+        Long id,
+        LocalDate date,
+        LocalTime time,
+        Integer duration,
+        AppointmentStatus status,
+        String clientName,
+        String serviceName
+) {
+}
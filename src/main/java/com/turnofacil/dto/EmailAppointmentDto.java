@@ -35,8 +35,9 @@ public record EmailAppointmentDto(
                 appointment.getNotes(),
                 appointment.getCancellationToken(),
                 config.getBusinessName(),
-                appointment.getBusiness().getPhone(),
-                appointment.getBusiness().getEmail()
+                // Datos del negocio desde la config (ya cargada) para no inicializar la asociación LAZY
+                config.getUser().getPhone(),
+                config.getUser().getEmail()
         );
     }
 
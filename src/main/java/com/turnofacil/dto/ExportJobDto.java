@@ -0,0 +1,38 @@
+package com.turnofacil.dto;
+
+import com.turnofacil.service.export.ExportJob;
+
+import java.time.LocalDateTime;
+
+/**
+ * Estado de una exportación para la UI (respuesta JSON y evento SSE "export").
+ * downloadUrl solo se informa cuando el fichero está listo.
+ */
+public record ExportJobDto(
+        String id,
+        String type,
+        String status,
+        long rows,
+        String message,
+        String downloadUrl,
+        LocalDateTime expiresAt
+) {
+
+    public static ExportJobDto from(ExportJob job, String downloadUrl) {
+        String message = switch (job.getStatus()) {
+            case QUEUED -> "Exportación en cola";
+            case RUNNING -> "Exportando... " + job.getRows() + " registros";
+            case COMPLETED -> "Exportación lista: " + job.getRows() + " registros";
+            case FAILED -> "La exportación ha fallado";
+        };
+        return new ExportJobDto(
+                job.getId(),
+                job.getType().getDisplayName(),
+                job.getStatus().name(),
+                job.getRows(),
+                message,
+                downloadUrl,
+                job.getExpiresAt()
+        );
+    }
+}
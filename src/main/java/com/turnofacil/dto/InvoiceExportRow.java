@@ -0,0 +1,23 @@
+package com.turnofacil.dto;
+
+import com.turnofacil.model.enums.InvoiceStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Proyección de una factura para exportación CSV.
+ */
+public record InvoiceExportRow(
+        String invoiceNumber,
+        LocalDate issueDate,
+        LocalDate serviceDate,
+        String clientName,
+        String clientTaxId,
+        BigDecimal taxableBase,
+        BigDecimal vatRate,
+        BigDecimal vatAmount,
+        BigDecimal total,
+        InvoiceStatus status
+) {
+}
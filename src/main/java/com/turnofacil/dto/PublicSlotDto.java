@@ -16,6 +16,13 @@ public record PublicSlotDto(
         int duration,
         boolean occupied
 ) {
+    /**
+     * Constructor para proyecciones JPQL (ver AppointmentRepository.findPublicSlots).
+     */
+    public PublicSlotDto(LocalDate date, LocalTime time, Integer duration) {
+        this(date, time, time.plusMinutes(duration), duration, true);
+    }
+
     /**
      * Crea un PublicSlotDto desde un Appointment.
      * Solo expone fecha, hora y duración - NUNCA datos del cliente.
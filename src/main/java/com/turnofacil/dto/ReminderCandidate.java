@@ -0,0 +1,54 @@
+package com.turnofacil.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Cita pendiente de recordatorio con los datos del negocio necesarios para enviarlo.
+ * Proyección de AppointmentRepository.findReminderBatch: el job no carga entidades.
+ */
+public record ReminderCandidate(
+        Long appointmentId,
+        String clientName,
+        String clientPhone,
+        String clientEmail,
+        LocalDate date,
+        LocalTime time,
+        Integer duration,
+        String notes,
+        String cancellationToken,
+        String serviceName,
+        boolean reminderSent,
+        boolean whatsappReminderSent,
+        String businessName,
+        String businessPhone,
+        String businessEmail,
+        boolean whatsappRemindersEnabled,
+        int emailReminderAttempts,
+        int whatsappReminderAttempts
+) {
+
+    public boolean needsEmail() {
+        return !reminderSent && clientEmail != null;
+    }
+
+    public boolean needsWhatsapp() {
+        return !whatsappReminderSent && whatsappRemindersEnabled && clientPhone != null;
+    }
+
+    public EmailAppointmentDto toEmailDto() {
+        return new EmailAppointmentDto(
+                clientName,
+                clientPhone,
+                clientEmail,
+                date,
+                time,
+                duration,
+                notes,
+                cancellationToken,
+                businessName,
+                businessPhone,
+                businessEmail
+        );
+    }
+}
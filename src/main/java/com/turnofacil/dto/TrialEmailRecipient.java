@@ -0,0 +1,12 @@
+package com.turnofacil.dto;
+
+/**
+ * Destinatario de los emails del ciclo de vida del trial. Proyección de SubscriptionRepository:
+ * negocio, email y nombre comercial en una sola consulta.
+ */
+public record TrialEmailRecipient(
+        Long userId,
+        String email,
+        String businessName
+) {
+}
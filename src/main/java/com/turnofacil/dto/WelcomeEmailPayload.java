@@ -0,0 +1,10 @@
+package com.turnofacil.dto;
+
+/**
+ * Datos del email de bienvenida guardados en el outbox.
+ */
+public record WelcomeEmailPayload(
+        String toEmail,
+        String businessName
+) {
+}
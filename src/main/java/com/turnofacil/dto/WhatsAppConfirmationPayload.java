@@ -0,0 +1,13 @@
+package com.turnofacil.dto;
+
+/**
+ * Datos de la confirmación por WhatsApp guardados en el outbox (fecha ya formateada).
+ */
+public record WhatsAppConfirmationPayload(
+        String phoneNumber,
+        String businessName,
+        String serviceName,
+        String dateTime,
+        String confirmationCode
+) {
+}
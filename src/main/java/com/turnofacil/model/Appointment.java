@@ -3,6 +3,8 @@ package com.turnofacil.model;
 import com.turnofacil.model.enums.AppointmentStatus;
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -37,6 +39,10 @@ public class Appointment {
     @Column(name = "CLIENT_EMAIL", length = 120)
     private String clientEmail;
 
+    // Cliente materializado en CLIENTS (ver ClientService)
+    @Column(name = "CLIENT_ID")
+    private Long clientId;
+
     @Column(name = "NOTES", columnDefinition = "TEXT")
     private String notes;
 
@@ -50,12 +56,17 @@ public class Appointment {
     @Enumerated(EnumType.STRING)
     private AppointmentStatus status = AppointmentStatus.PENDING;
 
-    @ManyToOne
+    // LAZY: los listados solo necesitan el id; usar proyecciones si hace falta más
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "USER_ID", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private User business;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "SERVICE_ID")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Service service;
 
     @Column(name = "REMINDER_SENT", nullable = false)
@@ -64,6 +75,39 @@ public class Appointment {
     @Column(name = "WHATSAPP_REMINDER_SENT", nullable = false)
     private boolean whatsappReminderSent = false;
 
+    // Cuándo toca cada recordatorio, en UTC (ver ReminderScheduleService). NULL = sin recordatorio
+    @Column(name = "EMAIL_REMIND_AT")
+    private LocalDateTime emailRemindAt;
+
+    @Column(name = "WHATSAPP_REMIND_AT")
+    private LocalDateTime whatsappRemindAt;
+
+    // Reclamo del job de recordatorios (ver ReminderScheduler): ejecución dueña y caducidad
+    @Column(name = "REMINDER_CLAIM_TOKEN", length = 36)
+    private String reminderClaimToken;
+
+    @Column(name = "REMINDER_CLAIMED_UNTIL")
+    private LocalDateTime reminderClaimedUntil;
+
+    // Reintentos por canal: fallos acumulados, siguiente intento (UTC) y descartado para siempre
+    @Column(name = "EMAIL_REMINDER_ATTEMPTS", nullable = false)
+    private int emailReminderAttempts = 0;
+
+    @Column(name = "EMAIL_REMINDER_RETRY_AT")
+    private LocalDateTime emailReminderRetryAt;
+
+    @Column(name = "EMAIL_REMINDER_FAILED", nullable = false)
+    private boolean emailReminderFailed = false;
+
+    @Column(name = "WHATSAPP_REMINDER_ATTEMPTS", nullable = false)
+    private int whatsappReminderAttempts = 0;
+
+    @Column(name = "WHATSAPP_REMINDER_RETRY_AT")
+    private LocalDateTime whatsappReminderRetryAt;
+
+    @Column(name = "WHATSAPP_REMINDER_FAILED", nullable = false)
+    private boolean whatsappReminderFailed = false;
+
     // ==================== SNAPSHOT DEL SERVICIO (INMUTABLE) ====================
     // Estos campos se llenan al crear la cita y NO deben modificarse después
 
@@ -94,8 +138,10 @@ public class Appointment {
     @Column(name = "INVOICED")
     private Boolean invoiced = false;
 
-    @OneToOne(mappedBy = "appointment", fetch = FetchType.LAZY)
-    private Invoice invoice;
+    // Factura emitida para la cita. Sustituye al lado inverso @OneToOne(mappedBy),
+    // que Hibernate no puede cargar en diferido y costaba una consulta por cita.
+    @Column(name = "INVOICE_ID")
+    private Long invoiceId;
 
     @PrePersist
     protected void onCreate() {
@@ -139,7 +185,8 @@ public class Appointment {
     /**
      * Marca la cita como facturada
      */
-    public void markAsInvoiced() {
+    public void markAsInvoiced(Long invoiceId) {
         this.invoiced = true;
+        this.invoiceId = invoiceId;
     }
 }
\ No newline at end of file
@@ -3,8 +3,10 @@ package com.turnofacil.model;
 import com.turnofacil.model.enums.BlockedSlotType;
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import lombok.ToString;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -21,8 +23,10 @@ public class BlockedSlot {
     @Column(name = "ID")
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "BUSINESS_ID", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private User business;
 
     @Column(name = "TITLE", nullable = false, length = 100)
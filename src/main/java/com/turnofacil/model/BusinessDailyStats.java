@@ -0,0 +1,59 @@
+package com.turnofacil.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Rollup diario de citas por negocio.
+ * Se mantiene de forma incremental desde AppointmentService (ver BusinessStatsService),
+ * por lo que las métricas leen pocas filas en lugar de escanear APPOINTMENTS.
+ */
+@Entity
+@Table(name = "BUSINESS_DAILY_STATS")
+@Data
+public class BusinessDailyStats {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "ID")
+    private Long id;
+
+    @Column(name = "USER_ID", nullable = false)
+    private Long businessId;
+
+    @Column(name = "STAT_DATE", nullable = false)
+    private LocalDate statDate;
+
+    @Column(name = "TOTAL_COUNT", nullable = false)
+    private int totalCount;
+
+    @Column(name = "PENDING_COUNT", nullable = false)
+    private int pendingCount;
+
+    @Column(name = "CONFIRMED_COUNT", nullable = false)
+    private int confirmedCount;
+
+    @Column(name = "CANCELLED_COUNT", nullable = false)
+    private int cancelledCount;
+
+    @Column(name = "COMPLETED_COUNT", nullable = false)
+    private int completedCount;
+
+    @Column(name = "NO_SHOW_COUNT", nullable = false)
+    private int noShowCount;
+
+    // Minutos reservados (excluye canceladas)
+    @Column(name = "BOOKED_MINUTES", nullable = false)
+    private int bookedMinutes;
+
+    // Ingresos según el snapshot SERVICE_PRICE de las citas completadas
+    @Column(name = "REVENUE", nullable = false, precision = 12, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    @Column(name = "UPDATED_AT")
+    private LocalDateTime updatedAt;
+}
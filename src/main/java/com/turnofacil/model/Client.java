@@ -0,0 +1,81 @@
+package com.turnofacil.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Cliente de un negocio, materializado a partir de sus citas.
+ * Se mantiene de forma incremental desde AppointmentService (ver ClientService).
+ */
+@Entity
+@Table(name = "CLIENTS")
+@Data
+public class Client {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "ID")
+    private Long id;
+
+    @Column(name = "USER_ID", nullable = false)
+    private Long businessId;
+
+    // Ver ClientNormalizer.clientKey()
+    @Column(name = "CLIENT_KEY", nullable = false, length = 130)
+    private String clientKey;
+
+    // Datos de contacto de la cita más reciente
+    @Column(name = "NAME", length = 100)
+    private String name;
+
+    @Column(name = "PHONE", length = 20)
+    private String phone;
+
+    @Column(name = "EMAIL", length = 120)
+    private String email;
+
+    @Column(name = "PHONE_NORMALIZED", length = 20)
+    private String phoneNormalized;
+
+    // Número sin código de país y dígitos al revés, para buscar por número nacional o por
+    // los últimos dígitos (ver ClientNormalizer.nationalPhone / reversedPhone)
+    @Column(name = "PHONE_NATIONAL", length = 20)
+    private String phoneNational;
+
+    @Column(name = "PHONE_REVERSED", length = 20)
+    private String phoneReversed;
+
+    @Column(name = "EMAIL_NORMALIZED", length = 120)
+    private String emailNormalized;
+
+    // Sin acentos y en minúsculas (ver ClientNormalizer.normalizeName)
+    @Column(name = "NAME_NORMALIZED", length = 100)
+    private String nameNormalized;
+
+    @Column(name = "TOTAL_APPOINTMENTS", nullable = false)
+    private int totalAppointments;
+
+    @Column(name = "COMPLETED_COUNT", nullable = false)
+    private int completedAppointments;
+
+    @Column(name = "CANCELLED_COUNT", nullable = false)
+    private int cancelledAppointments;
+
+    @Column(name = "NO_SHOW_COUNT", nullable = false)
+    private int noShowAppointments;
+
+    @Column(name = "FIRST_VISIT")
+    private LocalDate firstVisit;
+
+    @Column(name = "LAST_VISIT")
+    private LocalDate lastVisit;
+
+    @Column(name = "CREATED_AT", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "UPDATED_AT")
+    private LocalDateTime updatedAt;
+}
@@ -2,7 +2,9 @@ package com.turnofacil.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Entity
 @Table(name = "FAQS")
@@ -14,8 +16,10 @@ public class Faq {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "USER_ID", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private User business;
 
     @Column(name = "QUESTION", nullable = false, length = 500)
@@ -147,9 +147,6 @@ public class Invoice {
     @JoinColumn(name = "rectifies_invoice_id")
     private Invoice rectifiesInvoice; // Si es rectificativa, apunta a la original
 
-    @OneToOne(mappedBy = "rectifiesInvoice", fetch = FetchType.LAZY)
-    private Invoice rectifiedBy; // Si fue rectificada, apunta a la rectificativa
-
     // ==================== NOTAS ====================
 
     @Column(name = "notes", length = 1000)
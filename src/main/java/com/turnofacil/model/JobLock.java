@@ -0,0 +1,32 @@
+package com.turnofacil.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lease de un job programado (ver JobCoordinator). Solo se lee desde JPA;
+ * la toma, renovación y liberación son UPDATE/INSERT condicionales.
+ */
+@Entity
+@Table(name = "JOB_LOCKS")
+@Data
+public class JobLock {
+
+    @Id
+    @Column(name = "JOB_NAME", length = 100)
+    private String jobName;
+
+    @Column(name = "LOCKED_BY", nullable = false, length = 100)
+    private String lockedBy;
+
+    @Column(name = "LOCKED_AT", nullable = false)
+    private LocalDateTime lockedAt;
+
+    @Column(name = "LOCK_UNTIL", nullable = false)
+    private LocalDateTime lockUntil;
+
+    @Column(name = "HEARTBEAT_AT", nullable = false)
+    private LocalDateTime heartbeatAt;
+}
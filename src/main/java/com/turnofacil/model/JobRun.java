@@ -0,0 +1,51 @@
+package com.turnofacil.model;
+
+import com.turnofacil.model.enums.JobRunStatus;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Una ejecución de un job programado en un nodo.
+ */
+@Entity
+@Table(name = "JOB_RUNS")
+@Data
+public class JobRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "ID")
+    private Long id;
+
+    @Column(name = "JOB_NAME", nullable = false, length = 100)
+    private String jobName;
+
+    @Column(name = "NODE_ID", nullable = false, length = 100)
+    private String nodeId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "STATUS", nullable = false, length = 10)
+    private JobRunStatus status;
+
+    @Column(name = "STARTED_AT", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "FINISHED_AT")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "ITEMS_PROCESSED", nullable = false)
+    private int itemsProcessed;
+
+    @Column(name = "FAILURES", nullable = false)
+    private int failures;
+
+    @Column(name = "ERROR_MESSAGE", length = 500)
+    private String errorMessage;
+
+    public Long getDurationMillis() {
+        return finishedAt != null ? Duration.between(startedAt, finishedAt).toMillis() : null;
+    }
+}
@@ -3,8 +3,10 @@ package com.turnofacil.model;
 import com.turnofacil.model.enums.NotificationType;
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 
@@ -20,8 +22,10 @@ public class Notification {
     @Column(name = "ID")
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "BUSINESS_ID", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private User business;
 
     @Enumerated(EnumType.STRING)
@@ -46,7 +50,9 @@ public class Notification {
     @Column(name = "READ_AT")
     private LocalDateTime readAt;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "APPOINTMENT_ID")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Appointment appointment;
 }
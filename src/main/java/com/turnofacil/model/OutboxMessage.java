@@ -0,0 +1,70 @@
+package com.turnofacil.model;
+
+import com.turnofacil.model.enums.OutboxMessageType;
+import com.turnofacil.model.enums.OutboxStatus;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Mensaje saliente (email, WhatsApp, SSE) escrito en la misma transacción que el cambio
+ * que lo origina. Lo entrega OutboxDispatcher; PAYLOAD es el JSON del DTO del tipo.
+ */
+@Entity
+@Table(name = "OUTBOX_MESSAGES")
+@Data
+public class OutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "ID")
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "MESSAGE_TYPE", nullable = false, length = 40)
+    private OutboxMessageType type;
+
+    @Column(name = "BUSINESS_ID")
+    private Long businessId;
+
+    @Column(name = "IDEMPOTENCY_KEY", nullable = false, unique = true, length = 150)
+    private String idempotencyKey;
+
+    @Column(name = "PAYLOAD", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "STATUS", nullable = false, length = 10)
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    @Column(name = "ATTEMPTS", nullable = false)
+    private int attempts = 0;
+
+    @Column(name = "NEXT_ATTEMPT_AT", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "LAST_ERROR", length = 500)
+    private String lastError;
+
+    // Reclamo del dispatcher, igual que en los recordatorios
+    @Column(name = "CLAIM_TOKEN", length = 36)
+    private String claimToken;
+
+    @Column(name = "CLAIMED_UNTIL")
+    private LocalDateTime claimedUntil;
+
+    @Column(name = "CREATED_AT", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "SENT_AT")
+    private LocalDateTime sentAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+}
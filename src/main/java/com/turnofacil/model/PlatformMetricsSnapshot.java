@@ -0,0 +1,66 @@
+package com.turnofacil.model;
+
+import com.turnofacil.model.enums.SnapshotGranularity;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Foto de las métricas de plataforma en un instante (hora o día en punto).
+ * La escribe PlatformMetricsSnapshotService con un INSERT ... SELECT; aquí solo se lee.
+ */
+@Entity
+@Table(name = "PLATFORM_METRICS_SNAPSHOTS")
+@Data
+public class PlatformMetricsSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "ID")
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "GRANULARITY", nullable = false, length = 10)
+    private SnapshotGranularity granularity;
+
+    @Column(name = "CAPTURED_AT", nullable = false)
+    private LocalDateTime capturedAt;
+
+    @Column(name = "TOTAL_BUSINESSES", nullable = false)
+    private long totalBusinesses;
+
+    @Column(name = "ACTIVE_BUSINESSES", nullable = false)
+    private long activeBusinesses;
+
+    @Column(name = "NEW_BUSINESSES_THIS_MONTH", nullable = false)
+    private long newBusinessesThisMonth;
+
+    @Column(name = "NEW_BUSINESSES_LAST_MONTH", nullable = false)
+    private long newBusinessesLastMonth;
+
+    @Column(name = "TOTAL_APPOINTMENTS", nullable = false)
+    private long totalAppointments;
+
+    @Column(name = "ACTIVE_SUBSCRIPTIONS", nullable = false)
+    private long activeSubscriptions;
+
+    @Column(name = "TRIAL_SUBSCRIPTIONS", nullable = false)
+    private long trialSubscriptions;
+
+    @Column(name = "CANCELLED_SUBSCRIPTIONS", nullable = false)
+    private long cancelledSubscriptions;
+
+    @Column(name = "FREE_PLAN", nullable = false)
+    private long freePlan;
+
+    @Column(name = "PRO_PLAN", nullable = false)
+    private long proPlan;
+
+    @Column(name = "BUSINESS_PLAN", nullable = false)
+    private long businessPlan;
+
+    @Column(name = "MRR", nullable = false, precision = 12, scale = 2)
+    private BigDecimal mrr = BigDecimal.ZERO;
+}
@@ -2,8 +2,10 @@ package com.turnofacil.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import lombok.ToString;
 
 import java.math.BigDecimal;
 
@@ -19,8 +21,10 @@ public class Service {
     @Column(name = "ID")
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "BUSINESS_ID", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private User business;
 
     @Column(name = "NAME", nullable = false, length = 100)
@@ -176,7 +176,9 @@ public class Subscription {
     /**
      * Expira el trial y pasa a plan gratuito.
      * Llamado cuando termina el período de prueba sin conversión.
-     * Transición: TRIAL → ACTIVE (con plan FREE)
+     * Transición: TRIAL → ACTIVE (con plan FREE). trialEndsAt se conserva como fecha
+     * de fin de la prueba (aviso del día siguiente); el job diario usa
+     * SubscriptionRepository.expireTrialsEndedBefore con el mismo efecto.
      */
     public void expireTrial() {
         if (status != SubscriptionStatus.TRIAL) {
@@ -184,7 +186,6 @@ public class Subscription {
         }
         this.status = SubscriptionStatus.ACTIVE;
         this.plan = Plan.FREE;
-        this.trialEndsAt = null;
     }
 
     /**
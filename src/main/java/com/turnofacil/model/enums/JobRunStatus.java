@@ -0,0 +1,10 @@
+package com.turnofacil.model.enums;
+
+/**
+ * Estado de una ejecución en JOB_RUNS.
+ */
+public enum JobRunStatus {
+    RUNNING,
+    SUCCESS,
+    FAILED
+}
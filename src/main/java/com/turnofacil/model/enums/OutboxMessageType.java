@@ -0,0 +1,24 @@
+package com.turnofacil.model.enums;
+
+/**
+ * Tipos de mensaje saliente que pasan por el outbox, con el canal por el que se entregan.
+ */
+public enum OutboxMessageType {
+    BOOKING_CONFIRMATION_EMAIL(Channel.EMAIL),
+    BUSINESS_NOTIFICATION_EMAIL(Channel.EMAIL),
+    WELCOME_EMAIL(Channel.EMAIL),
+    WHATSAPP_CONFIRMATION(Channel.WHATSAPP),
+    SSE_NOTIFICATION(Channel.SSE);
+
+    public enum Channel { EMAIL, WHATSAPP, SSE }
+
+    private final Channel channel;
+
+    OutboxMessageType(Channel channel) {
+        this.channel = channel;
+    }
+
+    public Channel getChannel() {
+        return channel;
+    }
+}
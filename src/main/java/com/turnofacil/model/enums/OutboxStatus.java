@@ -0,0 +1,11 @@
+package com.turnofacil.model.enums;
+
+/**
+ * Estado de un mensaje en OUTBOX_MESSAGES.
+ * DEAD: agotó los reintentos y queda para revisión manual.
+ */
+public enum OutboxStatus {
+    PENDING,
+    SENT,
+    DEAD
+}
@@ -3,6 +3,8 @@ package com.turnofacil.model.enums;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
+import java.math.BigDecimal;
+
 @Getter
 @RequiredArgsConstructor
 public enum Plan {
@@ -16,6 +18,13 @@ public enum Plan {
     private final int maxAppointmentsPerMonth; // -1 = ilimitado
     private final int maxServices;             // -1 = ilimitado
 
+    /**
+     * Precio mensual en euros.
+     */
+    public BigDecimal getMonthlyPrice() {
+        return BigDecimal.valueOf(priceCents, 2);
+    }
+
     /**
      * Verifica si el plan tiene límite de citas por mes.
      */
@@ -0,0 +1,9 @@
+package com.turnofacil.model.enums;
+
+/**
+ * Resolución de PLATFORM_METRICS_SNAPSHOTS: una foto por hora o una por día.
+ */
+public enum SnapshotGranularity {
+    HOURLY,
+    DAILY
+}
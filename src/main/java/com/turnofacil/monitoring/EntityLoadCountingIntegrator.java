@@ -0,0 +1,30 @@
+package com.turnofacil.monitoring;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.integrator.spi.Integrator;
+
+/**
+ * Registra un PostLoadEventListener que cuenta las entidades cargadas en el SqlScope activo.
+ */
+public class EntityLoadCountingIntegrator implements Integrator {
+
+    @Override
+    public void integrate(Metadata metadata,
+                          BootstrapContext bootstrapContext,
+                          SessionFactoryImplementor sessionFactory) {
+        PostLoadEventListener listener = event -> {
+            SqlScope scope = SqlMetricsContext.current();
+            if (scope != null) {
+                scope.recordEntityLoad();
+            }
+        };
+        sessionFactory.getServiceRegistry()
+                .requireService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_LOAD, listener);
+    }
+}
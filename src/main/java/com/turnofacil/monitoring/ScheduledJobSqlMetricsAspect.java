@@ -0,0 +1,34 @@
+package com.turnofacil.monitoring;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Abre un SqlScope por cada ejecución de un método @Scheduled (ReminderScheduler.sendReminders...).
+ */
+@Aspect
+public class ScheduledJobSqlMetricsAspect {
+
+    private final SqlMetricsRecorder recorder;
+
+    public ScheduledJobSqlMetricsAspect(SqlMetricsRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @Around("@annotation(org.springframework.scheduling.annotation.Scheduled)")
+    public Object measureJob(ProceedingJoinPoint joinPoint) throws Throwable {
+        String name = joinPoint.getSignature().getDeclaringType().getSimpleName()
+                + "." + joinPoint.getSignature().getName();
+        SqlScope scope = SqlMetricsContext.begin(name, SqlMetricsContext.KIND_JOB);
+        if (scope == null) {
+            return joinPoint.proceed();
+        }
+        try {
+            return joinPoint.proceed();
+        } finally {
+            SqlMetricsContext.end();
+            recorder.record(scope);
+        }
+    }
+}
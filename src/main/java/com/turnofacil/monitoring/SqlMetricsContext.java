@@ -0,0 +1,36 @@
+package com.turnofacil.monitoring;
+
+/**
+ * ThreadLocal con el SqlScope activo del hilo.
+ * Lo abren SqlMetricsFilter (peticiones) y ScheduledJobSqlMetricsAspect (jobs);
+ * los hooks de Hibernate solo cuentan si hay un scope abierto.
+ */
+public final class SqlMetricsContext {
+
+    public static final String KIND_HTTP = "http";
+    public static final String KIND_JOB = "job";
+
+    private static final ThreadLocal<SqlScope> CURRENT_SCOPE = new ThreadLocal<>();
+
+    private SqlMetricsContext() {}
+
+    /**
+     * Abre un scope. Devuelve null si el hilo ya tiene uno (el exterior sigue contando).
+     */
+    public static SqlScope begin(String name, String kind) {
+        if (CURRENT_SCOPE.get() != null) {
+            return null;
+        }
+        SqlScope scope = new SqlScope(name, kind);
+        CURRENT_SCOPE.set(scope);
+        return scope;
+    }
+
+    public static SqlScope current() {
+        return CURRENT_SCOPE.get();
+    }
+
+    public static void end() {
+        CURRENT_SCOPE.remove();
+    }
+}
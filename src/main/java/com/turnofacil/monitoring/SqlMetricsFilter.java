@@ -0,0 +1,130 @@
+package com.turnofacil.monitoring;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Abre un SqlScope por petición y lo publica al terminar, etiquetado con el handler
+ * de Spring MVC que la atendió (Controller.metodo).
+ * Se registra antes de Spring Security para contar también las consultas de autenticación.
+ *
+ * Con app.sql-metrics.server-timing=true añade la cabecera Server-Timing justo antes
+ * de escribir el cuerpo de la respuesta.
+ */
+public class SqlMetricsFilter extends OncePerRequestFilter {
+
+    private static final String OTHER_HANDLER = "other";
+
+    private final SqlMetricsRecorder recorder;
+    private final boolean serverTiming;
+
+    public SqlMetricsFilter(SqlMetricsRecorder recorder, boolean serverTiming) {
+        this.recorder = recorder;
+        this.serverTiming = serverTiming;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        SqlScope scope = SqlMetricsContext.begin(OTHER_HANDLER, SqlMetricsContext.KIND_HTTP);
+        if (scope == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        try {
+            HttpServletResponse target = serverTiming ? new ServerTimingResponse(response, scope) : response;
+            filterChain.doFilter(request, target);
+        } finally {
+            SqlMetricsContext.end();
+            String handler = resolveHandler(request);
+            // Recursos estáticos y rutas sin handler solo se registran si tocaron la BD
+            if (handler != null || scope.getStatements() > 0) {
+                scope.rename(handler != null ? handler : OTHER_HANDLER);
+                recorder.record(scope);
+            }
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        // Las conexiones SSE no deben dejar un scope abierto en el hilo
+        return true;
+    }
+
+    private String resolveHandler(HttpServletRequest request) {
+        Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (handler instanceof HandlerMethod method) {
+            return method.getBeanType().getSimpleName() + "." + method.getMethod().getName();
+        }
+        return null;
+    }
+
+    /**
+     * Añade Server-Timing antes del primer byte del cuerpo, cuando las consultas ya se han hecho.
+     */
+    private static class ServerTimingResponse extends HttpServletResponseWrapper {
+
+        private final SqlScope scope;
+        private boolean headerWritten;
+
+        ServerTimingResponse(HttpServletResponse response, SqlScope scope) {
+            super(response);
+            this.scope = scope;
+        }
+
+        private void writeHeader() {
+            if (!headerWritten && !isCommitted()) {
+                headerWritten = true;
+                setHeader("Server-Timing", scope.toServerTiming());
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeader();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeHeader();
+            super.sendRedirect(location);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeader();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeader();
+            super.sendError(sc, msg);
+        }
+    }
+}
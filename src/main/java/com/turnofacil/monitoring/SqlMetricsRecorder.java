@@ -0,0 +1,145 @@
+package com.turnofacil.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Publica los contadores de cada SqlScope cerrado.
+ *
+ * Micrometer recibe sentencias, tiempo JDBC, entidades cargadas y detecciones N+1
+ * etiquetados por handler (AdminController.dashboard, ReminderScheduler.sendReminders...).
+ * Además se guarda un agregado en memoria por handler para el endpoint /actuator/sqlstats.
+ */
+public class SqlMetricsRecorder {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlMetricsRecorder.class);
+
+    // Longitud máxima del SQL de ejemplo que se guarda y se loguea
+    private static final int SQL_SAMPLE_LENGTH = 300;
+
+    private final MeterRegistry meterRegistry;
+    private final int nPlusOneThreshold;
+    private final Map<String, HandlerStats> statsByHandler = new ConcurrentHashMap<>();
+
+    public SqlMetricsRecorder(MeterRegistry meterRegistry, int nPlusOneThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+
+    public void record(SqlScope scope) {
+        String handler = scope.getName();
+        String kind = scope.getKind();
+
+        DistributionSummary.builder("turnofacil.sql.statements")
+                .description("Sentencias SQL por petición o ejecución de job")
+                .tags("handler", handler, "kind", kind)
+                .register(meterRegistry)
+                .record(scope.getStatements());
+        Timer.builder("turnofacil.sql.jdbc.time")
+                .description("Tiempo JDBC por petición o ejecución de job")
+                .tags("handler", handler, "kind", kind)
+                .register(meterRegistry)
+                .record(scope.getJdbcNanos(), TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("turnofacil.sql.entity.loads")
+                .description("Entidades cargadas por petición o ejecución de job")
+                .tags("handler", handler, "kind", kind)
+                .register(meterRegistry)
+                .record(scope.getEntityLoads());
+
+        HandlerStats stats = statsByHandler.computeIfAbsent(handler, k -> new HandlerStats(kind));
+        stats.add(scope);
+
+        Map.Entry<String, Integer> repeated = scope.mostRepeated(nPlusOneThreshold);
+        if (repeated != null) {
+            Counter.builder("turnofacil.sql.n_plus_one")
+                    .description("Ejecuciones con la misma sentencia repetida por encima del umbral")
+                    .tags("handler", handler, "kind", kind)
+                    .register(meterRegistry)
+                    .increment();
+            String sample = abbreviate(repeated.getKey());
+            stats.recordNPlusOne(repeated.getValue(), sample);
+            log.warn("Posible N+1 en {}: sentencia repetida {} veces ({} en total): {}",
+                    handler, repeated.getValue(), scope.getStatements(), sample);
+        }
+    }
+
+    /**
+     * Agregado por handler ordenado por sentencias totales (para el endpoint de actuator).
+     */
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        statsByHandler.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, HandlerStats> e) ->
+                        e.getValue().statements.sum()).reversed())
+                .forEach(e -> result.put(e.getKey(), e.getValue().toMap()));
+        return result;
+    }
+
+    public void reset() {
+        statsByHandler.clear();
+    }
+
+    private static String abbreviate(String sql) {
+        return sql.length() > SQL_SAMPLE_LENGTH ? sql.substring(0, SQL_SAMPLE_LENGTH) + "..." : sql;
+    }
+
+    private static class HandlerStats {
+        private final String kind;
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final LongAdder jdbcNanos = new LongAdder();
+        private final LongAdder entityLoads = new LongAdder();
+        private final LongAdder nPlusOneDetections = new LongAdder();
+        private final AtomicLong maxStatements = new AtomicLong();
+        private volatile String lastRepeatedSql;
+        private volatile int lastRepeatedCount;
+
+        HandlerStats(String kind) {
+            this.kind = kind;
+        }
+
+        void add(SqlScope scope) {
+            executions.increment();
+            statements.add(scope.getStatements());
+            jdbcNanos.add(scope.getJdbcNanos());
+            entityLoads.add(scope.getEntityLoads());
+            maxStatements.accumulateAndGet(scope.getStatements(), Math::max);
+        }
+
+        void recordNPlusOne(int count, String sql) {
+            nPlusOneDetections.increment();
+            lastRepeatedCount = count;
+            lastRepeatedSql = sql;
+        }
+
+        Map<String, Object> toMap() {
+            long runs = Math.max(1, executions.sum());
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("kind", kind);
+            map.put("executions", executions.sum());
+            map.put("statements", statements.sum());
+            map.put("avgStatements", Math.round(statements.sum() * 10.0 / runs) / 10.0);
+            map.put("maxStatements", maxStatements.get());
+            map.put("jdbcTimeMs", TimeUnit.NANOSECONDS.toMillis(jdbcNanos.sum()));
+            map.put("entityLoads", entityLoads.sum());
+            map.put("nPlusOneDetections", nPlusOneDetections.sum());
+            if (lastRepeatedSql != null) {
+                map.put("lastRepeatedCount", lastRepeatedCount);
+                map.put("lastRepeatedSql", lastRepeatedSql);
+            }
+            return map;
+        }
+    }
+}
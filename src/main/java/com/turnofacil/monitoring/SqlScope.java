@@ -0,0 +1,90 @@
+package com.turnofacil.monitoring;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Contadores SQL de una unidad de trabajo (una petición HTTP o una ejecución de job).
+ * Solo lo usa el hilo que la abrió, por eso no necesita sincronización.
+ */
+public class SqlScope {
+
+    // Límite de sentencias distintas que se guardan para detectar N+1
+    private static final int MAX_DISTINCT_STATEMENTS = 500;
+
+    private final String kind;
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Integer> statementCounts = new HashMap<>();
+
+    private String name;
+    private int statements;
+    private long jdbcNanos;
+    private int entityLoads;
+
+    SqlScope(String name, String kind) {
+        this.name = name;
+        this.kind = kind;
+    }
+
+    void recordStatement(String sql) {
+        statements++;
+        if (statementCounts.size() < MAX_DISTINCT_STATEMENTS || statementCounts.containsKey(sql)) {
+            statementCounts.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    void addJdbcTime(long nanos) {
+        jdbcNanos += nanos;
+    }
+
+    void recordEntityLoad() {
+        entityLoads++;
+    }
+
+    /**
+     * Sentencia idéntica más repetida del scope, o null si ninguna alcanza el umbral.
+     * Hibernate parametriza los valores, así que un N+1 aparece como el mismo SQL repetido.
+     */
+    public Map.Entry<String, Integer> mostRepeated(int threshold) {
+        Map.Entry<String, Integer> worst = null;
+        for (Map.Entry<String, Integer> entry : statementCounts.entrySet()) {
+            if (entry.getValue() >= threshold && (worst == null || entry.getValue() > worst.getValue())) {
+                worst = entry;
+            }
+        }
+        return worst;
+    }
+
+    /**
+     * Valor para la cabecera Server-Timing (duraciones en milisegundos).
+     */
+    public String toServerTiming() {
+        return String.format(Locale.ROOT, "db;dur=%.1f;desc=\"%d queries\", app;dur=%.1f",
+                jdbcNanos / 1_000_000.0, statements, (System.nanoTime() - startNanos) / 1_000_000.0);
+    }
+
+    void rename(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getJdbcNanos() {
+        return jdbcNanos;
+    }
+
+    public int getEntityLoads() {
+        return entityLoads;
+    }
+}
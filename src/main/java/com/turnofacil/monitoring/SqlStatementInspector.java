@@ -0,0 +1,19 @@
+package com.turnofacil.monitoring;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Cuenta cada sentencia que Hibernate prepara dentro de un SqlScope.
+ * No modifica el SQL.
+ */
+public class SqlStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        SqlScope scope = SqlMetricsContext.current();
+        if (scope != null) {
+            scope.recordStatement(sql);
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,31 @@
+package com.turnofacil.monitoring;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.Map;
+
+/**
+ * /actuator/sqlstats: sentencias, tiempo JDBC, entidades cargadas y N+1 por handler.
+ * DELETE reinicia los agregados (por ejemplo tras un despliegue o una prueba de carga).
+ */
+@Endpoint(id = "sqlstats")
+public class SqlStatsEndpoint {
+
+    private final SqlMetricsRecorder recorder;
+
+    public SqlStatsEndpoint(SqlMetricsRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> sqlStats() {
+        return recorder.snapshot();
+    }
+
+    @DeleteOperation
+    public void reset() {
+        recorder.reset();
+    }
+}
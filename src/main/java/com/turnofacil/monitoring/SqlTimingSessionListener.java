@@ -0,0 +1,40 @@
+package com.turnofacil.monitoring;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Mide el tiempo JDBC de ejecución (sentencias y batches) y lo suma al SqlScope activo.
+ * Hibernate crea una instancia por sesión (hibernate.session.events.auto).
+ */
+public class SqlTimingSessionListener implements SessionEventListener {
+
+    private long executeStart;
+    private long batchStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executeStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        addElapsed(executeStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        addElapsed(batchStart);
+    }
+
+    private void addElapsed(long start) {
+        SqlScope scope = SqlMetricsContext.current();
+        if (scope != null && start > 0) {
+            scope.addJdbcTime(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.turnofacil.monitoring.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Consulta de BlockedSlotService.isBlocked (solo las lentas, ver @Threshold).
+ */
+@Name("turnofacil.BlockedSlotCheck")
+@Label("Blocked Slot Check")
+@Category({"TurnoFacil", "Availability"})
+@Threshold("5 ms")
+public class BlockedSlotCheckEvent extends Event {
+
+    @Label("Business Id")
+    public long businessId;
+
+    @Label("Date")
+    public String date;
+
+    @Label("Blocked")
+    public boolean blocked;
+}
@@ -0,0 +1,33 @@
+package com.turnofacil.monitoring.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Lock de reservas de un negocio: la duración del evento es el tiempo con el lock tomado,
+ * waitTime lo que se esperó para conseguirlo.
+ */
+@Name("turnofacil.BookingLock")
+@Label("Booking Lock")
+@Category({"TurnoFacil", "Booking"})
+@Description("Lock por negocio de AppointmentService (espera y tiempo retenido)")
+public class BookingLockEvent extends Event {
+
+    @Label("Business Id")
+    public long businessId;
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Wait Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long waitTime;
+
+    @Label("Queued Threads")
+    @Description("Hilos esperando el mismo lock al adquirirlo")
+    public int queuedThreads;
+}
@@ -0,0 +1,29 @@
+package com.turnofacil.monitoring.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Llamada saliente a un proveedor externo (SMTP o WhatsApp).
+ */
+@Name("turnofacil.OutboundCall")
+@Label("Outbound Call")
+@Category({"TurnoFacil", "Outbound"})
+public class OutboundCallEvent extends Event {
+
+    @Label("Channel")
+    public String channel;
+
+    @Label("Type")
+    public String type;
+
+    @Label("Success")
+    public boolean success;
+
+    public OutboundCallEvent(String channel, String type) {
+        this.channel = channel;
+        this.type = type;
+    }
+}
@@ -0,0 +1,29 @@
+package com.turnofacil.monitoring.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Comprobación de solapamientos de AppointmentService (solo las lentas, ver @Threshold).
+ */
+@Name("turnofacil.OverlapCheck")
+@Label("Overlap Check")
+@Category({"TurnoFacil", "Availability"})
+@Threshold("5 ms")
+public class OverlapCheckEvent extends Event {
+
+    @Label("Business Id")
+    public long businessId;
+
+    @Label("Date")
+    public String date;
+
+    @Label("Appointments Scanned")
+    public int appointmentsScanned;
+
+    @Label("Overlap")
+    public boolean overlap;
+}
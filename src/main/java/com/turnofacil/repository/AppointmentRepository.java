@@ -1,100 +1,215 @@
 package com.turnofacil.repository;
 
+import com.turnofacil.dto.AppointmentExportRow;
+import com.turnofacil.dto.CalendarEventDto;
+import com.turnofacil.dto.PublicSlotDto;
+import com.turnofacil.dto.ReminderCandidate;
 import com.turnofacil.model.Appointment;
 import com.turnofacil.model.enums.AppointmentStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
 
     // Token de cancelación
     Optional<Appointment> findByCancellationToken(String cancellationToken);
 
-    // Historial de cliente por teléfono o email
-    @Query("SELECT a FROM Appointment a WHERE a.business.id = :businessId " +
-           "AND (LOWER(a.clientPhone) LIKE LOWER(CONCAT('%', :search, '%')) " +
-           "OR LOWER(a.clientEmail) LIKE LOWER(CONCAT('%', :search, '%')) " +
-           "OR LOWER(a.clientName) LIKE LOWER(CONCAT('%', :search, '%'))) " +
-           "ORDER BY a.date DESC, a.time DESC")
-    List<Appointment> findByClientSearch(@Param("businessId") Long businessId, @Param("search") String search);
+    // Historial de los clientes encontrados por ClientService.search (usa idx_appointments_client)
+    @Query(value = "SELECT a FROM Appointment a WHERE a.business.id = :businessId " +
+           "AND a.clientId IN :clientIds ORDER BY a.date DESC, a.time DESC",
+           countQuery = "SELECT COUNT(a) FROM Appointment a WHERE a.business.id = :businessId " +
+           "AND a.clientId IN :clientIds")
+    Page<Appointment> findClientHistory(@Param("businessId") Long businessId,
+                                        @Param("clientIds") Collection<Long> clientIds,
+                                        Pageable pageable);
 
     // 1. Turnos de hoy (ordenados por hora)
     List<Appointment> findByDateAndBusinessIdOrderByTimeAsc(LocalDate date, Long businessId);
 
-    // 2. Todos los turnos del negocio (para FullCalendar)
-    List<Appointment> findByBusinessId(Long businessId);
+    // 2. Huecos ocupados para la página pública: proyección sin datos del cliente ni asociaciones
+    @Query("SELECT new com.turnofacil.dto.PublicSlotDto(a.date, a.time, a.duration) " +
+           "FROM Appointment a WHERE a.business.id = :businessId " +
+           "AND a.date >= :from " +
+           "AND a.status <> com.turnofacil.model.enums.AppointmentStatus.CANCELLED " +
+           "AND (:excludeId IS NULL OR a.id <> :excludeId) " +
+           "ORDER BY a.date ASC, a.time ASC")
+    List<PublicSlotDto> findPublicSlots(@Param("businessId") Long businessId,
+                                        @Param("from") LocalDate from,
+                                        @Param("excludeId") Long excludeId);
 
     // 2.1 Contar todos los turnos del negocio
     long countByBusinessId(Long businessId);
 
-    // 2a. Todos los turnos ordenados por fecha desc (para tabla del dashboard con paginación client-side)
+    // 2a. Últimos turnos ordenados por fecha desc (tabla del dashboard con paginación client-side)
     @Query("SELECT a FROM Appointment a WHERE a.business.id = :businessId ORDER BY a.date DESC, a.time DESC")
-    List<Appointment> findByBusinessIdOrderByDateDescTimeDesc(@Param("businessId") Long businessId);
-
-    // 2b. Clientes recientes (últimas citas agrupadas por teléfono)
-    @Query("SELECT a.clientName, a.clientPhone, a.clientEmail, MAX(a.date), COUNT(a) " +
+    List<Appointment> findByBusinessIdOrderByDateDescTimeDesc(@Param("businessId") Long businessId,
+                                                              Pageable pageable);
+
+    // 2d. Exportación: proyección filtrada y ordenada en BD, leída en streaming.
+    // Fetch size Integer.MIN_VALUE hace que el driver de MySQL entregue fila a fila
+    // en lugar de cargar todo el resultado en memoria. Requiere transacción abierta
+    // y cerrar el Stream (try-with-resources).
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.turnofacil.dto.AppointmentExportRow(" +
+           "a.date, a.time, a.clientName, a.clientPhone, a.clientEmail, a.notes, a.status, a.duration) " +
            "FROM Appointment a WHERE a.business.id = :businessId " +
-           "GROUP BY a.clientPhone, a.clientName, a.clientEmail " +
-           "ORDER BY MAX(a.date) DESC")
-    List<Object[]> findRecentClients(@Param("businessId") Long businessId);
-
-    // 2c. Clientes frecuentes (más citas)
-    @Query("SELECT a.clientName, a.clientPhone, a.clientEmail, COUNT(a) as totalCitas, " +
-           "SUM(CASE WHEN a.status = 'COMPLETED' THEN 1 ELSE 0 END) as completadas " +
+           "AND (:startDate IS NULL OR a.date >= :startDate) " +
+           "AND (:endDate IS NULL OR a.date <= :endDate) " +
+           "AND (:status IS NULL OR a.status = :status) " +
+           "ORDER BY a.date ASC, a.time ASC")
+    Stream<AppointmentExportRow> streamForExport(@Param("businessId") Long businessId,
+                                                 @Param("startDate") LocalDate startDate,
+                                                 @Param("endDate") LocalDate endDate,
+                                                 @Param("status") AppointmentStatus status);
+
+    // 2e. Calendario del dashboard: proyección del rango visible (usa idx_appointments_user_date_time)
+    @Query("SELECT new com.turnofacil.dto.CalendarEventDto(" +
+           "a.id, a.date, a.time, a.duration, a.status, a.clientName, a.serviceName) " +
            "FROM Appointment a WHERE a.business.id = :businessId " +
-           "GROUP BY a.clientPhone, a.clientName, a.clientEmail " +
-           "ORDER BY COUNT(a) DESC")
-    List<Object[]> findTopClients(@Param("businessId") Long businessId);
-
-    // KPIs: counts por estado sin cargar entidades
-    @Query("SELECT COUNT(a) FROM Appointment a WHERE a.business.id = :businessId AND a.date BETWEEN :start AND :end")
-    long countByBusinessIdAndDateBetween(@Param("businessId") Long businessId, @Param("start") LocalDate start, @Param("end") LocalDate end);
-
-    @Query("SELECT COUNT(a) FROM Appointment a WHERE a.business.id = :businessId AND a.status = :status")
-    long countByBusinessIdAndStatus(@Param("businessId") Long businessId, @Param("status") AppointmentStatus status);
-
-    @Query("SELECT COUNT(a) FROM Appointment a WHERE a.business.id = :businessId AND a.date >= :start")
-    long countByBusinessIdAndDateFrom(@Param("businessId") Long businessId, @Param("start") LocalDate start);
-
-    @Query("SELECT COUNT(a) FROM Appointment a WHERE a.business.id = :businessId " +
-           "AND (a.date < :today OR (a.date = :today AND a.time < :now))")
-    long countPastAppointments(@Param("businessId") Long businessId, @Param("today") LocalDate today, @Param("now") LocalTime now);
-
-    @Query("SELECT COUNT(a) FROM Appointment a WHERE a.business.id = :businessId " +
-           "AND a.status = 'NO_SHOW' AND (a.date < :today OR (a.date = :today AND a.time < :now))")
-    long countNoShowPastAppointments(@Param("businessId") Long businessId, @Param("today") LocalDate today, @Param("now") LocalTime now);
-
-    // Tendencia: citas por día en un rango
-    @Query("SELECT a.date, COUNT(a) FROM Appointment a WHERE a.business.id = :businessId " +
-           "AND a.date BETWEEN :start AND :end GROUP BY a.date ORDER BY a.date")
-    List<Object[]> countByDayBetween(@Param("businessId") Long businessId, @Param("start") LocalDate start, @Param("end") LocalDate end);
+           "AND a.date BETWEEN :start AND :end ORDER BY a.date ASC, a.time ASC")
+    List<CalendarEventDto> findCalendarEvents(@Param("businessId") Long businessId,
+                                              @Param("start") LocalDate start,
+                                              @Param("end") LocalDate end);
 
     // 3. Busqueda por rango (muy util cuando tengas miles de turnos)
     List<Appointment> findByDateBetweenAndBusinessId(LocalDate start, LocalDate end, Long businessId);
 
+    // 3a. Recordatorios vencidos por canal (usan idx_appointments_email_remind / _whatsapp_remind).
+    // remindAt en (:oldest, :now]; paginado por id y saltando las citas reclamadas por otra ejecución,
+    // las que esperan su siguiente reintento y las descartadas (V22).
+    // [:fromBusinessId, :toBusinessId] es el tramo de negocios del shard (todos con un solo shard).
+    String REMINDER_CANDIDATE_SELECT = "SELECT new com.turnofacil.dto.ReminderCandidate(" +
+           "a.id, a.clientName, a.clientPhone, a.clientEmail, a.date, a.time, a.duration, a.notes, " +
+           "a.cancellationToken, a.serviceName, a.reminderSent, a.whatsappReminderSent, " +
+           "bc.businessName, u.phone, u.email, bc.enableWhatsappReminders, " +
+           "a.emailReminderAttempts, a.whatsappReminderAttempts) " +
+           "FROM Appointment a JOIN BusinessConfig bc ON bc.user.id = a.business.id JOIN bc.user u ";
+    String REMINDER_CANDIDATE_FILTER = "AND a.status IN (com.turnofacil.model.enums.AppointmentStatus.PENDING, " +
+           "com.turnofacil.model.enums.AppointmentStatus.CONFIRMED) " +
+           "AND (a.reminderClaimedUntil IS NULL OR a.reminderClaimedUntil < :now) " +
+           "AND a.business.id BETWEEN :fromBusinessId AND :toBusinessId " +
+           "AND a.id > :afterId ORDER BY a.id ASC";
+
+    @Query(REMINDER_CANDIDATE_SELECT +
+           "WHERE a.reminderSent = false AND a.emailRemindAt > :oldest AND a.emailRemindAt <= :now " +
+           "AND a.emailReminderFailed = false " +
+           "AND (a.emailReminderRetryAt IS NULL OR a.emailReminderRetryAt <= :now) " +
+           REMINDER_CANDIDATE_FILTER)
+    List<ReminderCandidate> findDueEmailReminders(@Param("now") LocalDateTime now,
+                                                  @Param("oldest") LocalDateTime oldest,
+                                                  @Param("fromBusinessId") Long fromBusinessId,
+                                                  @Param("toBusinessId") Long toBusinessId,
+                                                  @Param("afterId") Long afterId,
+                                                  Pageable pageable);
+
+    @Query(REMINDER_CANDIDATE_SELECT +
+           "WHERE a.whatsappReminderSent = false AND a.whatsappRemindAt > :oldest AND a.whatsappRemindAt <= :now " +
+           "AND a.whatsappReminderFailed = false " +
+           "AND (a.whatsappReminderRetryAt IS NULL OR a.whatsappReminderRetryAt <= :now) " +
+           REMINDER_CANDIDATE_FILTER)
+    List<ReminderCandidate> findDueWhatsappReminders(@Param("now") LocalDateTime now,
+                                                     @Param("oldest") LocalDateTime oldest,
+                                                     @Param("fromBusinessId") Long fromBusinessId,
+                                                     @Param("toBusinessId") Long toBusinessId,
+                                                     @Param("afterId") Long afterId,
+                                                     Pageable pageable);
+
+    // Citas a las que recalcular el momento del recordatorio (cambio de configuración del negocio)
+    @Query("SELECT a FROM Appointment a WHERE a.business.id = :businessId AND a.date >= :from " +
+           "AND a.status IN (com.turnofacil.model.enums.AppointmentStatus.PENDING, " +
+           "com.turnofacil.model.enums.AppointmentStatus.CONFIRMED)")
+    List<Appointment> findUpcomingForReminderSchedule(@Param("businessId") Long businessId,
+                                                      @Param("from") LocalDate from);
+
+    // Negocios con citas futuras aún sin momento de recordatorio (anteriores a V19). Solo cuentan
+    // los negocios con recordatorios activos y las citas con algún canal que programar: el resto
+    // se queda sin momento a propósito y volvería a salir en cada arranque.
+    @Query("SELECT DISTINCT a.business.id FROM Appointment a " +
+           "JOIN BusinessConfig bc ON bc.user.id = a.business.id " +
+           "WHERE a.date >= :from AND bc.enableReminders = true " +
+           "AND (a.clientEmail IS NOT NULL OR (bc.enableWhatsappReminders = true AND a.clientPhone IS NOT NULL)) " +
+           "AND a.emailRemindAt IS NULL AND a.whatsappRemindAt IS NULL " +
+           "AND a.reminderSent = false AND a.whatsappReminderSent = false " +
+           "AND a.status IN (com.turnofacil.model.enums.AppointmentStatus.PENDING, " +
+           "com.turnofacil.model.enums.AppointmentStatus.CONFIRMED)")
+    List<Long> findBusinessIdsMissingReminderSchedule(@Param("from") LocalDate from);
+
+    // 3b. Reclamo de un lote: solo se quedan las citas sin reclamo vigente
+    @Modifying
+    @Query("UPDATE Appointment a SET a.reminderClaimToken = :token, a.reminderClaimedUntil = :until " +
+           "WHERE a.id IN :ids AND (a.reminderClaimedUntil IS NULL OR a.reminderClaimedUntil < :now)")
+    int claimReminders(@Param("ids") Collection<Long> ids,
+                       @Param("token") String token,
+                       @Param("until") LocalDateTime until,
+                       @Param("now") LocalDateTime now);
+
+    @Query("SELECT a.id FROM Appointment a WHERE a.id IN :ids AND a.reminderClaimToken = :token")
+    List<Long> findClaimedReminderIds(@Param("ids") Collection<Long> ids, @Param("token") String token);
+
+    @Modifying
+    @Query("UPDATE Appointment a SET a.reminderSent = true WHERE a.id IN :ids")
+    int markEmailRemindersSent(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Appointment a SET a.whatsappReminderSent = true WHERE a.id IN :ids")
+    int markWhatsappRemindersSent(@Param("ids") Collection<Long> ids);
+
+    // 3c. Fallos: reintento con el contador ya incrementado, o descarte definitivo
+    @Modifying
+    @Query("UPDATE Appointment a SET a.emailReminderAttempts = :attempts, a.emailReminderRetryAt = :retryAt " +
+           "WHERE a.id IN :ids")
+    int scheduleEmailReminderRetry(@Param("ids") Collection<Long> ids,
+                                   @Param("attempts") int attempts,
+                                   @Param("retryAt") LocalDateTime retryAt);
+
+    @Modifying
+    @Query("UPDATE Appointment a SET a.whatsappReminderAttempts = :attempts, a.whatsappReminderRetryAt = :retryAt " +
+           "WHERE a.id IN :ids")
+    int scheduleWhatsappReminderRetry(@Param("ids") Collection<Long> ids,
+                                      @Param("attempts") int attempts,
+                                      @Param("retryAt") LocalDateTime retryAt);
+
+    @Modifying
+    @Query("UPDATE Appointment a SET a.emailReminderFailed = true, " +
+           "a.emailReminderAttempts = a.emailReminderAttempts + 1, a.emailReminderRetryAt = null " +
+           "WHERE a.id IN :ids")
+    int markEmailRemindersFailed(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Appointment a SET a.whatsappReminderFailed = true, " +
+           "a.whatsappReminderAttempts = a.whatsappReminderAttempts + 1, a.whatsappReminderRetryAt = null " +
+           "WHERE a.id IN :ids")
+    int markWhatsappRemindersFailed(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Appointment a SET a.reminderClaimToken = null, a.reminderClaimedUntil = null " +
+           "WHERE a.id IN :ids AND a.reminderClaimToken = :token")
+    int releaseReminderClaims(@Param("ids") Collection<Long> ids, @Param("token") String token);
+
     // 4. Turnos futuros para recordatorios
     List<Appointment> findByDateGreaterThanEqualAndStatusOrderByDateAscTimeAsc(
             LocalDate date, AppointmentStatus status);
 
     boolean existsByDateAndTimeAndBusinessId(LocalDate date, LocalTime time, Long businessId);
 
-    // 5. Query para recordatorios pendientes - turnos en ventana de tiempo sin recordatorio enviado
-    @Query("SELECT a FROM Appointment a WHERE a.reminderSent = false " +
-           "AND a.status IN :statuses " +
-           "AND a.business.id IN (SELECT bc.user.id FROM BusinessConfig bc WHERE bc.enableReminders = true) " +
-           "AND CONCAT(a.date, 'T', a.time) BETWEEN :startDateTime AND :endDateTime")
-    List<Appointment> findAppointmentsNeedingReminder(
-            @Param("statuses") List<AppointmentStatus> statuses,
-            @Param("startDateTime") String startDateTime,
-            @Param("endDateTime") String endDateTime);
-
     // 6. Query para validar solapamientos (native query para usar funciones MySQL)
     @Query(value = "SELECT COUNT(*) > 0 FROM APPOINTMENTS a WHERE a.USER_ID = :businessId " +
            "AND a.DATE = :date " +
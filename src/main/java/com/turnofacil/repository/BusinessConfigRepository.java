@@ -1,14 +1,21 @@
 package com.turnofacil.repository;
 
 import com.turnofacil.model.BusinessConfig;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
-import java.util.List;
 import java.util.Optional;
 
 public interface BusinessConfigRepository extends JpaRepository<BusinessConfig, Long> {
     Optional<BusinessConfig> findByUserId(Long userId);
     Optional<BusinessConfig> findByUserUsername(String username); // para URL amigable
+
+    // Página pública: el usuario se trae en el mismo SELECT (evita la carga EAGER por separado)
+    @EntityGraph(attributePaths = "user")
     Optional<BusinessConfig> findBySlug(String slug);
-    List<BusinessConfig> findByEnableRemindersTrue();
+
+    // Límite superior para repartir jobs por tramos de ids de negocio
+    @Query("SELECT COALESCE(MAX(bc.user.id), 0) FROM BusinessConfig bc")
+    long findMaxBusinessId();
 }
@@ -0,0 +1,113 @@
+package com.turnofacil.repository;
+
+import com.turnofacil.dto.BusinessStatsTotals;
+import com.turnofacil.model.BusinessDailyStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface BusinessDailyStatsRepository extends JpaRepository<BusinessDailyStats, Long> {
+
+    // ==================== LECTURAS ====================
+
+    List<BusinessDailyStats> findByBusinessIdAndStatDateBetweenOrderByStatDateAsc(
+            Long businessId, LocalDate start, LocalDate end);
+
+    @Query("SELECT COALESCE(SUM(s.totalCount), 0) FROM BusinessDailyStats s " +
+           "WHERE s.businessId = :businessId AND s.statDate BETWEEN :start AND :end")
+    long sumTotalBetween(@Param("businessId") Long businessId,
+                         @Param("start") LocalDate start,
+                         @Param("end") LocalDate end);
+
+    @Query("SELECT COALESCE(SUM(s.totalCount), 0) FROM BusinessDailyStats s " +
+           "WHERE s.businessId = :businessId AND s.statDate >= :start")
+    long sumTotalFrom(@Param("businessId") Long businessId, @Param("start") LocalDate start);
+
+    @Query("SELECT COALESCE(SUM(s.totalCount), 0) FROM BusinessDailyStats s WHERE s.businessId = :businessId")
+    long sumTotalByBusinessId(@Param("businessId") Long businessId);
+
+    @Query("SELECT COALESCE(SUM(s.totalCount), 0) FROM BusinessDailyStats s")
+    long sumTotal();
+
+    @Query("SELECT new com.turnofacil.dto.BusinessStatsTotals(" +
+           "COALESCE(SUM(s.totalCount), 0), COALESCE(SUM(s.pendingCount), 0), " +
+           "COALESCE(SUM(s.confirmedCount), 0), COALESCE(SUM(s.cancelledCount), 0), " +
+           "COALESCE(SUM(s.completedCount), 0), COALESCE(SUM(s.noShowCount), 0), " +
+           "COALESCE(SUM(s.bookedMinutes), 0), COALESCE(SUM(s.revenue), 0)) " +
+           "FROM BusinessDailyStats s WHERE s.businessId = :businessId")
+    BusinessStatsTotals totalsByBusinessId(@Param("businessId") Long businessId);
+
+    @Query("SELECT new com.turnofacil.dto.BusinessStatsTotals(" +
+           "COALESCE(SUM(s.totalCount), 0), COALESCE(SUM(s.pendingCount), 0), " +
+           "COALESCE(SUM(s.confirmedCount), 0), COALESCE(SUM(s.cancelledCount), 0), " +
+           "COALESCE(SUM(s.completedCount), 0), COALESCE(SUM(s.noShowCount), 0), " +
+           "COALESCE(SUM(s.bookedMinutes), 0), COALESCE(SUM(s.revenue), 0)) " +
+           "FROM BusinessDailyStats s WHERE s.businessId = :businessId AND s.statDate < :before")
+    BusinessStatsTotals totalsBefore(@Param("businessId") Long businessId, @Param("before") LocalDate before);
+
+    // ==================== MANTENIMIENTO INCREMENTAL ====================
+
+    /**
+     * Suma un delta a la fila (negocio, fecha), creándola si no existe.
+     * Los deltas pueden ser negativos (cambio de estado o de fecha).
+     */
+    @Modifying
+    @Query(value = "INSERT INTO BUSINESS_DAILY_STATS (USER_ID, STAT_DATE, TOTAL_COUNT, PENDING_COUNT, " +
+           "CONFIRMED_COUNT, CANCELLED_COUNT, COMPLETED_COUNT, NO_SHOW_COUNT, BOOKED_MINUTES, REVENUE, UPDATED_AT) " +
+           "VALUES (:businessId, :date, :total, :pending, :confirmed, :cancelled, :completed, :noShow, " +
+           ":minutes, :revenue, NOW()) " +
+           "ON DUPLICATE KEY UPDATE " +
+           "TOTAL_COUNT = TOTAL_COUNT + :total, " +
+           "PENDING_COUNT = PENDING_COUNT + :pending, " +
+           "CONFIRMED_COUNT = CONFIRMED_COUNT + :confirmed, " +
+           "CANCELLED_COUNT = CANCELLED_COUNT + :cancelled, " +
+           "COMPLETED_COUNT = COMPLETED_COUNT + :completed, " +
+           "NO_SHOW_COUNT = NO_SHOW_COUNT + :noShow, " +
+           "BOOKED_MINUTES = BOOKED_MINUTES + :minutes, " +
+           "REVENUE = REVENUE + :revenue, " +
+           "UPDATED_AT = NOW()",
+           nativeQuery = true)
+    int applyDelta(@Param("businessId") Long businessId,
+                   @Param("date") LocalDate date,
+                   @Param("total") int total,
+                   @Param("pending") int pending,
+                   @Param("confirmed") int confirmed,
+                   @Param("cancelled") int cancelled,
+                   @Param("completed") int completed,
+                   @Param("noShow") int noShow,
+                   @Param("minutes") int minutes,
+                   @Param("revenue") BigDecimal revenue);
+
+    // ==================== RECONSTRUCCIÓN (BACKFILL) ====================
+
+    @Modifying
+    @Query(value = "DELETE FROM BUSINESS_DAILY_STATS WHERE USER_ID = :businessId", nativeQuery = true)
+    int deleteByBusinessId(@Param("businessId") Long businessId);
+
+    @Modifying
+    @Query(value = "INSERT INTO BUSINESS_DAILY_STATS (USER_ID, STAT_DATE, TOTAL_COUNT, PENDING_COUNT, " +
+           "CONFIRMED_COUNT, CANCELLED_COUNT, COMPLETED_COUNT, NO_SHOW_COUNT, BOOKED_MINUTES, REVENUE, UPDATED_AT) " +
+           "SELECT a.USER_ID, a.DATE, COUNT(*), " +
+           "SUM(CASE WHEN a.STATUS = 'PENDING' THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN a.STATUS = 'CONFIRMED' THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN a.STATUS = 'CANCELLED' THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN a.STATUS = 'COMPLETED' THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN a.STATUS = 'NO_SHOW' THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN a.STATUS <> 'CANCELLED' THEN a.DURATION ELSE 0 END), " +
+           "COALESCE(SUM(CASE WHEN a.STATUS = 'COMPLETED' THEN a.SERVICE_PRICE ELSE 0 END), 0), " +
+           "NOW() " +
+           "FROM APPOINTMENTS a WHERE a.USER_ID = :businessId " +
+           "GROUP BY a.USER_ID, a.DATE",
+           nativeQuery = true)
+    int rebuildForBusiness(@Param("businessId") Long businessId);
+
+    @Query(value = "SELECT DISTINCT a.USER_ID FROM APPOINTMENTS a", nativeQuery = true)
+    List<Long> findBusinessIdsWithAppointments();
+}
@@ -0,0 +1,155 @@
+package com.turnofacil.repository;
+
+import com.turnofacil.model.Client;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ClientRepository extends JpaRepository<Client, Long> {
+
+    // ==================== LECTURAS ====================
+
+    List<Client> findTop10ByBusinessIdOrderByLastVisitDesc(Long businessId);
+
+    List<Client> findTop5ByBusinessIdOrderByTotalAppointmentsDesc(Long businessId);
+
+    long countByBusinessId(Long businessId);
+
+    @Query(value = "SELECT ID FROM CLIENTS WHERE USER_ID = :businessId AND CLIENT_KEY = :clientKey",
+           nativeQuery = true)
+    Long findIdByBusinessIdAndClientKey(@Param("businessId") Long businessId,
+                                        @Param("clientKey") String clientKey);
+
+    // ==================== BÚSQUEDA ====================
+    // Ver V14__client_search.sql: cada modo usa su propio índice
+
+    /**
+     * Teléfono por prefijo del número completo, prefijo del número nacional (sin código de país)
+     * o últimos dígitos (prefijo de los dígitos al revés); cada rama usa su índice (V23).
+     */
+    @Query(value = "SELECT * FROM CLIENTS WHERE USER_ID = :businessId " +
+           "AND (PHONE_NORMALIZED LIKE CONCAT(:prefix, '%') OR PHONE_NATIONAL LIKE CONCAT(:national, '%') " +
+           "OR PHONE_REVERSED LIKE CONCAT(:reversed, '%')) ORDER BY LAST_VISIT DESC",
+           countQuery = "SELECT COUNT(*) FROM CLIENTS WHERE USER_ID = :businessId " +
+           "AND (PHONE_NORMALIZED LIKE CONCAT(:prefix, '%') OR PHONE_NATIONAL LIKE CONCAT(:national, '%') " +
+           "OR PHONE_REVERSED LIKE CONCAT(:reversed, '%'))",
+           nativeQuery = true)
+    Page<Client> searchByPhone(@Param("businessId") Long businessId,
+                               @Param("prefix") String prefix,
+                               @Param("national") String national,
+                               @Param("reversed") String reversed,
+                               Pageable pageable);
+
+    @Query(value = "SELECT * FROM CLIENTS WHERE USER_ID = :businessId " +
+           "AND EMAIL_NORMALIZED LIKE CONCAT(:prefix, '%') ORDER BY LAST_VISIT DESC",
+           countQuery = "SELECT COUNT(*) FROM CLIENTS WHERE USER_ID = :businessId " +
+           "AND EMAIL_NORMALIZED LIKE CONCAT(:prefix, '%')",
+           nativeQuery = true)
+    Page<Client> searchByEmailPrefix(@Param("businessId") Long businessId,
+                                     @Param("prefix") String prefix,
+                                     Pageable pageable);
+
+    @Query(value = "SELECT * FROM CLIENTS WHERE USER_ID = :businessId " +
+           "AND NAME_NORMALIZED LIKE CONCAT(:prefix, '%') ORDER BY LAST_VISIT DESC",
+           countQuery = "SELECT COUNT(*) FROM CLIENTS WHERE USER_ID = :businessId " +
+           "AND NAME_NORMALIZED LIKE CONCAT(:prefix, '%')",
+           nativeQuery = true)
+    Page<Client> searchByNamePrefix(@Param("businessId") Long businessId,
+                                    @Param("prefix") String prefix,
+                                    Pageable pageable);
+
+    /**
+     * Búsqueda por subcadena en nombre o email con el índice FULLTEXT ngram.
+     * :phrase debe venir entre comillas dobles y sin operadores booleanos.
+     */
+    @Query(value = "SELECT * FROM CLIENTS WHERE USER_ID = :businessId " +
+           "AND MATCH(NAME_NORMALIZED, EMAIL_NORMALIZED) AGAINST (:phrase IN BOOLEAN MODE) " +
+           "ORDER BY LAST_VISIT DESC",
+           countQuery = "SELECT COUNT(*) FROM CLIENTS WHERE USER_ID = :businessId " +
+           "AND MATCH(NAME_NORMALIZED, EMAIL_NORMALIZED) AGAINST (:phrase IN BOOLEAN MODE)",
+           nativeQuery = true)
+    Page<Client> searchByText(@Param("businessId") Long businessId,
+                              @Param("phrase") String phrase,
+                              Pageable pageable);
+
+    // ==================== MANTENIMIENTO INCREMENTAL ====================
+
+    /**
+     * Registra una nueva cita del cliente, creándolo si no existe.
+     * Los datos de contacto se actualizan con los de la cita más reciente.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO CLIENTS (USER_ID, CLIENT_KEY, NAME, PHONE, EMAIL, PHONE_NORMALIZED, " +
+           "PHONE_NATIONAL, PHONE_REVERSED, EMAIL_NORMALIZED, NAME_NORMALIZED, TOTAL_APPOINTMENTS, COMPLETED_COUNT, CANCELLED_COUNT, NO_SHOW_COUNT, " +
+           "FIRST_VISIT, LAST_VISIT, CREATED_AT, UPDATED_AT) " +
+           "VALUES (:businessId, :clientKey, :name, :phone, :email, :phoneNormalized, :phoneNational, " +
+           ":phoneReversed, :emailNormalized, " +
+           ":nameNormalized, 1, :completed, :cancelled, :noShow, :date, :date, NOW(), NOW()) " +
+           "ON DUPLICATE KEY UPDATE " +
+           "NAME = IF(:date >= LAST_VISIT, COALESCE(:name, NAME), NAME), " +
+           "PHONE = IF(:date >= LAST_VISIT, COALESCE(:phone, PHONE), PHONE), " +
+           "EMAIL = IF(:date >= LAST_VISIT, COALESCE(:email, EMAIL), EMAIL), " +
+           "NAME_NORMALIZED = IF(:date >= LAST_VISIT, COALESCE(:nameNormalized, NAME_NORMALIZED), NAME_NORMALIZED), " +
+           "PHONE_NATIONAL = IF(PHONE_NORMALIZED IS NULL, :phoneNational, PHONE_NATIONAL), " +
+           "PHONE_REVERSED = IF(PHONE_NORMALIZED IS NULL, :phoneReversed, PHONE_REVERSED), " +
+           "PHONE_NORMALIZED = COALESCE(PHONE_NORMALIZED, :phoneNormalized), " +
+           "EMAIL_NORMALIZED = COALESCE(EMAIL_NORMALIZED, :emailNormalized), " +
+           "TOTAL_APPOINTMENTS = TOTAL_APPOINTMENTS + 1, " +
+           "COMPLETED_COUNT = COMPLETED_COUNT + :completed, " +
+           "CANCELLED_COUNT = CANCELLED_COUNT + :cancelled, " +
+           "NO_SHOW_COUNT = NO_SHOW_COUNT + :noShow, " +
+           "FIRST_VISIT = LEAST(COALESCE(FIRST_VISIT, :date), :date), " +
+           "LAST_VISIT = GREATEST(COALESCE(LAST_VISIT, :date), :date), " +
+           "UPDATED_AT = NOW()",
+           nativeQuery = true)
+    int upsertVisit(@Param("businessId") Long businessId,
+                    @Param("clientKey") String clientKey,
+                    @Param("name") String name,
+                    @Param("phone") String phone,
+                    @Param("email") String email,
+                    @Param("phoneNormalized") String phoneNormalized,
+                    @Param("phoneNational") String phoneNational,
+                    @Param("phoneReversed") String phoneReversed,
+                    @Param("emailNormalized") String emailNormalized,
+                    @Param("nameNormalized") String nameNormalized,
+                    @Param("completed") int completed,
+                    @Param("cancelled") int cancelled,
+                    @Param("noShow") int noShow,
+                    @Param("date") LocalDate date);
+
+    /**
+     * Suma deltas de estado a un cliente existente (cambio de estado de una de sus citas).
+     */
+    @Modifying
+    @Query(value = "UPDATE CLIENTS SET " +
+           "COMPLETED_COUNT = COMPLETED_COUNT + :completed, " +
+           "CANCELLED_COUNT = CANCELLED_COUNT + :cancelled, " +
+           "NO_SHOW_COUNT = NO_SHOW_COUNT + :noShow, " +
+           "UPDATED_AT = NOW() " +
+           "WHERE ID = :clientId",
+           nativeQuery = true)
+    int applyStatusDelta(@Param("clientId") Long clientId,
+                         @Param("completed") int completed,
+                         @Param("cancelled") int cancelled,
+                         @Param("noShow") int noShow);
+
+    /**
+     * Recalcula primera y última visita tras mover una cita de fecha.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE CLIENTS c SET " +
+           "c.FIRST_VISIT = (SELECT MIN(a.DATE) FROM APPOINTMENTS a WHERE a.CLIENT_ID = c.ID), " +
+           "c.LAST_VISIT = (SELECT MAX(a.DATE) FROM APPOINTMENTS a WHERE a.CLIENT_ID = c.ID), " +
+           "c.UPDATED_AT = NOW() " +
+           "WHERE c.ID = :clientId",
+           nativeQuery = true)
+    int refreshVisitDates(@Param("clientId") Long clientId);
+}
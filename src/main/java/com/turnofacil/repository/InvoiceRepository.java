@@ -1,9 +1,13 @@
 package com.turnofacil.repository;
 
+import com.turnofacil.dto.InvoiceExportRow;
 import com.turnofacil.model.Invoice;
 import com.turnofacil.model.enums.InvoiceStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -11,6 +15,7 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
@@ -19,6 +24,20 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
 
     Optional<Invoice> findByInvoiceNumber(String invoiceNumber);
 
+    // ==================== EXPORTACIÓN ====================
+
+    // Streaming fila a fila con el driver de MySQL (ver AppointmentRepository.streamForExport)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.turnofacil.dto.InvoiceExportRow(" +
+           "i.invoiceNumber, i.issueDate, i.serviceDate, i.clientName, i.clientTaxId, " +
+           "i.taxableBase, i.vatRate, i.vatAmount, i.total, i.status) " +
+           "FROM Invoice i WHERE i.business.id = :businessId " +
+           "ORDER BY i.issueDate ASC, i.invoiceNumber ASC")
+    Stream<InvoiceExportRow> streamForExport(@Param("businessId") Long businessId);
+
     List<Invoice> findByBusinessIdOrderByIssueDateDesc(Long businessId);
 
     List<Invoice> findByBusinessIdAndStatus(Long businessId, InvoiceStatus status);
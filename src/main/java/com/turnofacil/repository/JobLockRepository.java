@@ -0,0 +1,56 @@
+package com.turnofacil.repository;
+
+import com.turnofacil.model.JobLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface JobLockRepository extends JpaRepository<JobLock, String> {
+
+    List<JobLock> findAllByOrderByJobNameAsc();
+
+    /**
+     * Toma un lease existente que ya caducó. Devuelve 1 si lo tomó este nodo.
+     */
+    @Modifying
+    @Query("UPDATE JobLock l SET l.lockedBy = :owner, l.lockedAt = :now, l.lockUntil = :until, " +
+           "l.heartbeatAt = :now WHERE l.jobName = :name AND l.lockUntil <= :now")
+    int takeExpired(@Param("name") String name,
+                    @Param("owner") String owner,
+                    @Param("now") LocalDateTime now,
+                    @Param("until") LocalDateTime until);
+
+    /**
+     * Primera vez que corre el job: si otro nodo inserta antes, falla por clave duplicada.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO JOB_LOCKS (JOB_NAME, LOCKED_BY, LOCKED_AT, LOCK_UNTIL, HEARTBEAT_AT) " +
+           "VALUES (:name, :owner, :now, :until, :now)", nativeQuery = true)
+    int insertLease(@Param("name") String name,
+                    @Param("owner") String owner,
+                    @Param("now") LocalDateTime now,
+                    @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Query("UPDATE JobLock l SET l.lockUntil = :until, l.heartbeatAt = :now " +
+           "WHERE l.jobName = :name AND l.lockedBy = :owner AND l.lockedAt = :lockedAt")
+    int heartbeat(@Param("name") String name,
+                  @Param("owner") String owner,
+                  @Param("lockedAt") LocalDateTime lockedAt,
+                  @Param("now") LocalDateTime now,
+                  @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Query("UPDATE JobLock l SET l.lockUntil = :until " +
+           "WHERE l.jobName = :name AND l.lockedBy = :owner AND l.lockedAt = :lockedAt")
+    int release(@Param("name") String name,
+                @Param("owner") String owner,
+                @Param("lockedAt") LocalDateTime lockedAt,
+                @Param("until") LocalDateTime until);
+}
@@ -0,0 +1,33 @@
+package com.turnofacil.repository;
+
+import com.turnofacil.model.JobRun;
+import com.turnofacil.model.enums.JobRunStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface JobRunRepository extends JpaRepository<JobRun, Long> {
+
+    List<JobRun> findTop50ByOrderByStartedAtDesc();
+
+    @Modifying
+    @Query("UPDATE JobRun r SET r.status = :status, r.finishedAt = :finishedAt, " +
+           "r.itemsProcessed = :items, r.failures = :failures, r.errorMessage = :error " +
+           "WHERE r.id = :id")
+    int finish(@Param("id") Long id,
+               @Param("status") JobRunStatus status,
+               @Param("finishedAt") LocalDateTime finishedAt,
+               @Param("items") int items,
+               @Param("failures") int failures,
+               @Param("error") String error);
+
+    @Modifying
+    @Query("DELETE FROM JobRun r WHERE r.startedAt < :before")
+    int deleteStartedBefore(@Param("before") LocalDateTime before);
+}
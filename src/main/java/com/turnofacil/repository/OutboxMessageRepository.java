@@ -0,0 +1,75 @@
+package com.turnofacil.repository;
+
+import com.turnofacil.model.OutboxMessage;
+import com.turnofacil.model.enums.OutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    boolean existsByIdempotencyKey(String idempotencyKey);
+
+    long countByStatus(OutboxStatus status);
+
+    // ==================== DISPATCHER ====================
+
+    /**
+     * Ids pendientes cuyo siguiente intento ya llegó y que nadie tiene reclamados
+     * (usa idx_outbox_status_next_attempt).
+     */
+    @Query("SELECT m.id FROM OutboxMessage m " +
+           "WHERE m.status = com.turnofacil.model.enums.OutboxStatus.PENDING " +
+           "AND m.nextAttemptAt <= :now " +
+           "AND (m.claimedUntil IS NULL OR m.claimedUntil < :now) " +
+           "ORDER BY m.nextAttemptAt, m.id")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.claimToken = :token, m.claimedUntil = :until " +
+           "WHERE m.id IN :ids AND m.status = com.turnofacil.model.enums.OutboxStatus.PENDING " +
+           "AND (m.claimedUntil IS NULL OR m.claimedUntil < :now)")
+    int claim(@Param("ids") Collection<Long> ids,
+              @Param("token") String token,
+              @Param("until") LocalDateTime until,
+              @Param("now") LocalDateTime now);
+
+    @Query("SELECT m FROM OutboxMessage m WHERE m.id IN :ids AND m.claimToken = :token ORDER BY m.id")
+    List<OutboxMessage> findClaimed(@Param("ids") Collection<Long> ids, @Param("token") String token);
+
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.status = com.turnofacil.model.enums.OutboxStatus.SENT, " +
+           "m.sentAt = :sentAt, m.attempts = m.attempts + 1, m.lastError = NULL, " +
+           "m.claimToken = NULL, m.claimedUntil = NULL " +
+           "WHERE m.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+
+    /**
+     * Registra un intento fallido: nuevo estado (PENDING o DEAD), siguiente intento y error.
+     */
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.status = :status, m.attempts = :attempts, " +
+           "m.nextAttemptAt = :nextAttemptAt, m.lastError = :error, " +
+           "m.claimToken = NULL, m.claimedUntil = NULL " +
+           "WHERE m.id = :id")
+    int markFailed(@Param("id") Long id,
+                   @Param("status") OutboxStatus status,
+                   @Param("attempts") int attempts,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                   @Param("error") String error);
+
+    // ==================== LIMPIEZA ====================
+
+    @Modifying
+    @Query("DELETE FROM OutboxMessage m WHERE m.status = com.turnofacil.model.enums.OutboxStatus.SENT " +
+           "AND m.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+}
@@ -17,7 +17,7 @@ public interface PasswordResetTokenRepository extends JpaRepository<PasswordRese
 
     @Modifying
     @Query("DELETE FROM PasswordResetToken t WHERE t.expiryDate < ?1")
-    void deleteExpiredTokens(LocalDateTime now);
+    int deleteExpiredTokens(LocalDateTime now);
 
     @Modifying
     @Query("DELETE FROM PasswordResetToken t WHERE t.user = ?1")
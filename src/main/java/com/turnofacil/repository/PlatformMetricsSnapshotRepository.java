@@ -0,0 +1,78 @@
+package com.turnofacil.repository;
+
+import com.turnofacil.model.PlatformMetricsSnapshot;
+import com.turnofacil.model.enums.SnapshotGranularity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PlatformMetricsSnapshotRepository extends JpaRepository<PlatformMetricsSnapshot, Long> {
+
+    // ==================== LECTURAS ====================
+
+    Optional<PlatformMetricsSnapshot> findFirstByGranularityOrderByCapturedAtDesc(SnapshotGranularity granularity);
+
+    Optional<PlatformMetricsSnapshot> findFirstByGranularityAndCapturedAtOrderByIdDesc(
+            SnapshotGranularity granularity, LocalDateTime capturedAt);
+
+    List<PlatformMetricsSnapshot> findByGranularityAndCapturedAtGreaterThanEqualOrderByCapturedAtAsc(
+            SnapshotGranularity granularity, LocalDateTime from);
+
+    // ==================== CAPTURA ====================
+
+    /**
+     * Calcula y guarda una foto en una sola sentencia: un agregado sobre USERS, otro sobre
+     * SUBSCRIPTIONS y la suma del rollup BUSINESS_DAILY_STATS (sin escanear APPOINTMENTS).
+     */
+    @Modifying
+    @Query(value = "INSERT INTO PLATFORM_METRICS_SNAPSHOTS (GRANULARITY, CAPTURED_AT, TOTAL_BUSINESSES, " +
+           "ACTIVE_BUSINESSES, NEW_BUSINESSES_THIS_MONTH, NEW_BUSINESSES_LAST_MONTH, TOTAL_APPOINTMENTS, " +
+           "ACTIVE_SUBSCRIPTIONS, TRIAL_SUBSCRIPTIONS, CANCELLED_SUBSCRIPTIONS, FREE_PLAN, PRO_PLAN, " +
+           "BUSINESS_PLAN, MRR) " +
+           "SELECT :granularity, :capturedAt, u.TOTAL, u.ACTIVE, u.NEW_THIS_MONTH, u.NEW_LAST_MONTH, " +
+           "(SELECT COALESCE(SUM(d.TOTAL_COUNT), 0) FROM BUSINESS_DAILY_STATS d), " +
+           "s.ACTIVE, s.TRIAL, s.CANCELLED, s.FREE_PLAN, s.PRO_PLAN, s.BUSINESS_PLAN, " +
+           "ROUND(s.PRO_PLAN * :proPrice + s.BUSINESS_PLAN * :businessPrice, 2) " +
+           "FROM (SELECT COUNT(*) AS TOTAL, " +
+           "COALESCE(SUM(CASE WHEN LAST_LOGIN > :activeSince THEN 1 ELSE 0 END), 0) AS ACTIVE, " +
+           "COALESCE(SUM(CASE WHEN CREATED_AT > :startOfThisMonth THEN 1 ELSE 0 END), 0) AS NEW_THIS_MONTH, " +
+           "COALESCE(SUM(CASE WHEN CREATED_AT BETWEEN :startOfLastMonth AND :startOfThisMonth " +
+           "THEN 1 ELSE 0 END), 0) AS NEW_LAST_MONTH " +
+           "FROM USERS WHERE ROLE = 'ADMIN') u " +
+           "CROSS JOIN (SELECT " +
+           "COALESCE(SUM(CASE WHEN STATUS = 'ACTIVE' THEN 1 ELSE 0 END), 0) AS ACTIVE, " +
+           "COALESCE(SUM(CASE WHEN STATUS = 'TRIAL' THEN 1 ELSE 0 END), 0) AS TRIAL, " +
+           "COALESCE(SUM(CASE WHEN STATUS = 'CANCELLED' THEN 1 ELSE 0 END), 0) AS CANCELLED, " +
+           "COALESCE(SUM(CASE WHEN STATUS = 'ACTIVE' AND PLAN = 'FREE' THEN 1 ELSE 0 END), 0) AS FREE_PLAN, " +
+           "COALESCE(SUM(CASE WHEN STATUS = 'ACTIVE' AND PLAN = 'PRO' THEN 1 ELSE 0 END), 0) AS PRO_PLAN, " +
+           "COALESCE(SUM(CASE WHEN STATUS = 'ACTIVE' AND PLAN = 'BUSINESS' THEN 1 ELSE 0 END), 0) AS BUSINESS_PLAN " +
+           "FROM SUBSCRIPTIONS) s",
+           nativeQuery = true)
+    int capture(@Param("granularity") String granularity,
+                @Param("capturedAt") LocalDateTime capturedAt,
+                @Param("activeSince") LocalDateTime activeSince,
+                @Param("startOfThisMonth") LocalDateTime startOfThisMonth,
+                @Param("startOfLastMonth") LocalDateTime startOfLastMonth,
+                @Param("proPrice") BigDecimal proPrice,
+                @Param("businessPrice") BigDecimal businessPrice);
+
+    // ==================== MANTENIMIENTO ====================
+
+    @Modifying
+    @Query("DELETE FROM PlatformMetricsSnapshot s WHERE s.granularity = :granularity AND s.capturedAt = :capturedAt")
+    int deleteSlot(@Param("granularity") SnapshotGranularity granularity,
+                   @Param("capturedAt") LocalDateTime capturedAt);
+
+    @Modifying
+    @Query("DELETE FROM PlatformMetricsSnapshot s WHERE s.granularity = :granularity AND s.capturedAt < :before")
+    int deleteOlderThan(@Param("granularity") SnapshotGranularity granularity,
+                        @Param("before") LocalDateTime before);
+}
@@ -1,11 +1,16 @@
 package com.turnofacil.repository;
 
+import com.turnofacil.dto.TrialEmailRecipient;
 import com.turnofacil.model.Subscription;
 import com.turnofacil.model.enums.Plan;
 import com.turnofacil.model.enums.SubscriptionStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,9 +22,39 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, Long
 
     Optional<Subscription> findByStripeSubscriptionId(String stripeSubscriptionId);
 
-    List<Subscription> findByStatusAndTrialEndsAtBefore(SubscriptionStatus status, LocalDate date);
-
-    List<Subscription> findByStatusAndTrialEndsAtBetween(SubscriptionStatus status, LocalDate from, LocalDate to);
+    /**
+     * Expira en un solo UPDATE los trials vencidos antes de today: pasan a ACTIVE con plan FREE
+     * (mismo efecto que Subscription.expireTrial). Sin @PreUpdate, por eso fija UPDATED_AT.
+     */
+    @Modifying
+    @Query("UPDATE Subscription s SET s.status = com.turnofacil.model.enums.SubscriptionStatus.ACTIVE, " +
+           "s.plan = com.turnofacil.model.enums.Plan.FREE, s.updatedAt = :now " +
+           "WHERE s.status = com.turnofacil.model.enums.SubscriptionStatus.TRIAL AND s.trialEndsAt < :today")
+    int expireTrialsEndedBefore(@Param("today") LocalDate today, @Param("now") LocalDateTime now);
+
+    String TRIAL_RECIPIENT_SELECT = "SELECT new com.turnofacil.dto.TrialEmailRecipient(" +
+           "u.id, u.email, COALESCE(bc.businessName, u.name)) " +
+           "FROM Subscription s JOIN s.user u LEFT JOIN BusinessConfig bc ON bc.user.id = u.id ";
+
+    /**
+     * Trials en curso que terminan en trialEndsAt.
+     */
+    @Query(TRIAL_RECIPIENT_SELECT +
+           "WHERE s.status = com.turnofacil.model.enums.SubscriptionStatus.TRIAL AND s.trialEndsAt = :trialEndsAt " +
+           "ORDER BY u.id")
+    List<TrialEmailRecipient> findTrialEndingRecipients(@Param("trialEndsAt") LocalDate trialEndsAt);
+
+    /**
+     * Trials que terminaron en trialEndsAt sin pasar a pago: ya expirados (ACTIVE + FREE, que
+     * conservan la fecha) o aún en TRIAL si la expiración no ha corrido. Al activar un plan de
+     * pago trialEndsAt se pone a null, así que no entran.
+     */
+    @Query(TRIAL_RECIPIENT_SELECT +
+           "WHERE s.trialEndsAt = :trialEndsAt " +
+           "AND (s.status = com.turnofacil.model.enums.SubscriptionStatus.TRIAL " +
+           "OR (s.status = com.turnofacil.model.enums.SubscriptionStatus.ACTIVE AND s.plan = com.turnofacil.model.enums.Plan.FREE)) " +
+           "ORDER BY u.id")
+    List<TrialEmailRecipient> findTrialExpiredRecipients(@Param("trialEndsAt") LocalDate trialEndsAt);
 
     // Métodos para métricas de plataforma
     List<Subscription> findByStatus(SubscriptionStatus status);
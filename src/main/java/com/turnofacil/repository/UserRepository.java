@@ -1,9 +1,14 @@
 // src/main/java/com/turnofacil/repository/UserRepository.java
 package com.turnofacil.repository;
 
+import com.turnofacil.dto.BusinessSummary;
 import com.turnofacil.model.User;
 import com.turnofacil.model.enums.Role;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -43,4 +48,20 @@ public interface UserRepository extends JpaRepository<User, Long> {
     long countByRoleAndLastLoginAfter(Role role, LocalDateTime after);
     long countByRoleAndCreatedAtAfter(Role role, LocalDateTime after);
     long countByRoleAndCreatedAtBetween(Role role, LocalDateTime start, LocalDateTime end);
-}
\ No newline at end of file
+
+    /**
+     * Listado paginado de negocios con su total de turnos en una sola consulta
+     * (LEFT JOIN al rollup agrupado por usuario). :pattern es null o '%texto%' en minúsculas.
+     */
+    @Query(value = "SELECT new com.turnofacil.dto.BusinessSummary(" +
+           "u.id, u.name, u.email, u.createdAt, u.lastLogin, u.enabled, COALESCE(SUM(s.totalCount), 0)) " +
+           "FROM User u LEFT JOIN BusinessDailyStats s ON s.businessId = u.id " +
+           "WHERE u.role = :role " +
+           "AND (:pattern IS NULL OR LOWER(u.name) LIKE :pattern OR LOWER(u.email) LIKE :pattern) " +
+           "GROUP BY u.id, u.name, u.email, u.createdAt, u.lastLogin, u.enabled",
+           countQuery = "SELECT COUNT(u) FROM User u WHERE u.role = :role " +
+           "AND (:pattern IS NULL OR LOWER(u.name) LIKE :pattern OR LOWER(u.email) LIKE :pattern)")
+    Page<BusinessSummary> findBusinessSummaries(@Param("role") Role role,
+                                                @Param("pattern") String pattern,
+                                                Pageable pageable);
+}
@@ -1,79 +1,63 @@
 package com.turnofacil.scheduler;
 
-import com.turnofacil.model.Subscription;
-import com.turnofacil.model.enums.SubscriptionStatus;
-import com.turnofacil.repository.BusinessConfigRepository;
+import com.turnofacil.dto.TrialEmailRecipient;
 import com.turnofacil.repository.SubscriptionRepository;
+import com.turnofacil.scheduler.batch.BatchDispatcher;
+import com.turnofacil.scheduler.cluster.ClusterJob;
 import com.turnofacil.service.EmailService;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
 import java.util.List;
 
+/**
+ * Emails del ciclo de vida del trial. Cada job hace una sola consulta (suscripción, usuario y
+ * nombre del negocio juntos) y reparte los envíos en lotes con BatchDispatcher, así el número
+ * de consultas no crece con el de negocios.
+ */
 @Component
 public class OnboardingScheduler {
 
-    private static final Logger log = LoggerFactory.getLogger(OnboardingScheduler.class);
+    private static final int TRIAL_ENDING_NOTICE_DAYS = 4;
 
     private final SubscriptionRepository subscriptionRepo;
-    private final BusinessConfigRepository businessConfigRepo;
     private final EmailService emailService;
+    private final BatchDispatcher batchDispatcher;
 
     public OnboardingScheduler(SubscriptionRepository subscriptionRepo,
-                               BusinessConfigRepository businessConfigRepo,
-                               EmailService emailService) {
+                               EmailService emailService,
+                               BatchDispatcher batchDispatcher) {
         this.subscriptionRepo = subscriptionRepo;
-        this.businessConfigRepo = businessConfigRepo;
         this.emailService = emailService;
+        this.batchDispatcher = batchDispatcher;
     }
 
     /**
      * Envía email "tu trial termina en 4 días" (día 10 del trial).
      * Se ejecuta diariamente a las 10am.
      */
+    @ClusterJob("trial-ending-reminders")
     @Scheduled(cron = "0 0 10 * * *")
     public void sendTrialEndingReminders() {
-        LocalDate fourDaysFromNow = LocalDate.now().plusDays(4);
-        // Buscar trials que terminan en exactamente 4 días
-        List<Subscription> ending = subscriptionRepo
-                .findByStatusAndTrialEndsAtBetween(SubscriptionStatus.TRIAL, fourDaysFromNow, fourDaysFromNow);
+        List<TrialEmailRecipient> ending = subscriptionRepo
+                .findTrialEndingRecipients(LocalDate.now().plusDays(TRIAL_ENDING_NOTICE_DAYS));
 
-        for (Subscription sub : ending) {
-            String businessName = businessConfigRepo.findByUserId(sub.getUser().getId())
-                    .map(bc -> bc.getBusinessName())
-                    .orElse(sub.getUser().getName());
-
-            emailService.sendTrialEndingEmail(sub.getUser().getEmail(), businessName, 4);
-        }
-
-        if (!ending.isEmpty()) {
-            log.info("Trial ending emails enviados: {}", ending.size());
-        }
+        batchDispatcher.dispatch("trial-ending-reminders", ending,
+                chunk -> emailService.sendTrialEndingEmails(chunk, TRIAL_ENDING_NOTICE_DAYS));
     }
 
     /**
      * Envía email "tu trial expiró" el día después de expirar.
      * Se ejecuta diariamente a las 10am.
      */
+    @ClusterJob("trial-expired-notifications")
     @Scheduled(cron = "0 5 10 * * *")
     public void sendTrialExpiredNotifications() {
-        LocalDate yesterday = LocalDate.now().minusDays(1);
-        List<Subscription> expired = subscriptionRepo
-                .findByStatusAndTrialEndsAtBetween(SubscriptionStatus.TRIAL, yesterday, yesterday);
-
-        for (Subscription sub : expired) {
-            String businessName = businessConfigRepo.findByUserId(sub.getUser().getId())
-                    .map(bc -> bc.getBusinessName())
-                    .orElse(sub.getUser().getName());
-
-            emailService.sendTrialExpiredEmail(sub.getUser().getEmail(), businessName);
-        }
+        // A esta hora SubscriptionService.expireTrials (1am) ya los ha pasado a FREE
+        List<TrialEmailRecipient> expired = subscriptionRepo
+                .findTrialExpiredRecipients(LocalDate.now().minusDays(1));
 
-        if (!expired.isEmpty()) {
-            log.info("Trial expired emails enviados: {}", expired.size());
-        }
+        batchDispatcher.dispatch("trial-expired-notifications", expired, emailService::sendTrialExpiredEmails);
     }
 }
@@ -1,25 +1,68 @@
 package com.turnofacil.scheduler;
 
-import com.turnofacil.dto.EmailAppointmentDto;
-import com.turnofacil.model.Appointment;
-import com.turnofacil.model.BusinessConfig;
-import com.turnofacil.model.enums.AppointmentStatus;
+import com.turnofacil.config.AsyncConfiguration;
+import com.turnofacil.dto.ReminderCandidate;
 import com.turnofacil.repository.AppointmentRepository;
 import com.turnofacil.repository.BusinessConfigRepository;
+import com.turnofacil.scheduler.cluster.BusinessIdRange;
+import com.turnofacil.scheduler.cluster.JobCoordinator;
+import com.turnofacil.scheduler.cluster.JobRunContext;
 import com.turnofacil.service.EmailService;
+import com.turnofacil.service.ReminderScheduleService;
+import com.turnofacil.service.mail.DeliveryOutcome;
 import com.turnofacil.service.whatsapp.WhatsAppService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
 
+/**
+ * Job de recordatorios por email y WhatsApp, por lotes y sin transacción larga.
+ *
+ * 1. Cada minuto, una consulta por canal trae los recordatorios vencidos
+ *    (EMAIL_REMIND_AT / WHATSAPP_REMIND_AT <= ahora, ver ReminderScheduleService)
+ *    en páginas ordenadas por id, ya proyectadas a ReminderCandidate.
+ * 2. Cada página se reclama en una transacción corta (token de la ejecución + caducidad),
+ *    así dos instancias o dos ejecuciones solapadas no envían lo mismo.
+ * 3. Los envíos salen fuera de toda transacción, sin retener conexiones mientras esperan:
+ *    los emails en email-concurrency trozos en el executor de email masivo (cada trozo en un solo
+ *    envío que reutiliza una conexión SMTP del pool), los WhatsApp como un lote del cliente asíncrono
+ *    (que aplica su propio límite de peticiones y ritmo por número).
+ * 4. Los resultados se escriben con UPDATE masivos por lote y se liberan los reclamos.
+ *    Un fallo transitorio se reintenta con backoff exponencial (retry-base-minutes * 2^(intento-1),
+ *    en *_REMINDER_RETRY_AT) hasta max-attempts intentos y mientras no supere max-delay-minutes;
+ *    un rechazo definitivo del proveedor (dirección inválida, 4xx de WhatsApp) o el último
+ *    intento marcan el recordatorio como fallido y ya no se vuelve a seleccionar.
+ *
+ * Con app.reminders.shards > 1 cada pasada se reparte por tramos de ids de negocio, cada uno
+ * con su lease en JobCoordinator: los nodos del clúster procesan tramos distintos en paralelo.
+ */
 @Component
 public class ReminderScheduler {
 
@@ -29,183 +72,354 @@ public class ReminderScheduler {
 
     private final AppointmentRepository appointmentRepository;
     private final BusinessConfigRepository businessConfigRepository;
+    private final JobCoordinator jobCoordinator;
     private final EmailService emailService;
     private final WhatsAppService whatsAppService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+    private final int shards;
+    private final long claimTtlMinutes;
+    private final long maxDelayMinutes;
+    private final int emailConcurrency;
+    private final int maxAttempts;
+    private final long retryBaseMinutes;
+    private final Executor bulkEmailExecutor;
+
+    private final Timer runTimer;
+    private final Counter emailSentCounter;
+    private final Counter emailFailedCounter;
+    private final Counter whatsappSentCounter;
+    private final Counter whatsappFailedCounter;
+    private final Counter emailDiscardedCounter;
+    private final Counter whatsappDiscardedCounter;
 
     public ReminderScheduler(AppointmentRepository appointmentRepository,
                              BusinessConfigRepository businessConfigRepository,
+                             JobCoordinator jobCoordinator,
                              EmailService emailService,
-                             WhatsAppService whatsAppService) {
+                             WhatsAppService whatsAppService,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Qualifier(AsyncConfiguration.BULK_EMAIL_EXECUTOR) Executor bulkEmailExecutor,
+                             @Value("${app.reminders.batch-size:200}") int batchSize,
+                             @Value("${app.reminders.shards:1}") int shards,
+                             @Value("${app.reminders.claim-ttl-minutes:15}") long claimTtlMinutes,
+                             @Value("${app.reminders.max-delay-minutes:120}") long maxDelayMinutes,
+                             @Value("${app.reminders.email-concurrency:4}") int emailConcurrency,
+                             @Value("${app.reminders.max-attempts:5}") int maxAttempts,
+                             @Value("${app.reminders.retry-base-minutes:2}") long retryBaseMinutes) {
         this.appointmentRepository = appointmentRepository;
         this.businessConfigRepository = businessConfigRepository;
+        this.jobCoordinator = jobCoordinator;
         this.emailService = emailService;
         this.whatsAppService = whatsAppService;
-        log.info("ReminderScheduler inicializado con WhatsApp provider: {}", whatsAppService.getProviderName());
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.shards = shards;
+        this.claimTtlMinutes = claimTtlMinutes;
+        this.maxDelayMinutes = maxDelayMinutes;
+        this.emailConcurrency = Math.max(1, emailConcurrency);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBaseMinutes = Math.max(1, retryBaseMinutes);
+        this.bulkEmailExecutor = bulkEmailExecutor;
+        this.runTimer = Timer.builder("turnofacil.reminders.run")
+                .description("Duración de cada ejecución del job de recordatorios")
+                .register(meterRegistry);
+        this.emailSentCounter = reminderCounter(meterRegistry, "turnofacil.reminders.sent", "email");
+        this.emailFailedCounter = reminderCounter(meterRegistry, "turnofacil.reminders.failed", "email");
+        this.whatsappSentCounter = reminderCounter(meterRegistry, "turnofacil.reminders.sent", "whatsapp");
+        this.whatsappFailedCounter = reminderCounter(meterRegistry, "turnofacil.reminders.failed", "whatsapp");
+        this.emailDiscardedCounter = reminderCounter(meterRegistry, "turnofacil.reminders.discarded", "email");
+        this.whatsappDiscardedCounter = reminderCounter(meterRegistry, "turnofacil.reminders.discarded", "whatsapp");
+        log.info("ReminderScheduler inicializado con WhatsApp provider: {} (lotes de {}, {} tramos, email x{})",
+                whatsAppService.getProviderName(), batchSize, shards, emailConcurrency);
     }
 
     /**
-     * Ejecuta cada hora para enviar recordatorios de turnos.
-     * Busca turnos pendientes/confirmados dentro de la ventana de tiempo configurada.
+     * Ejecuta cada minuto y envía los recordatorios cuyo momento ya llegó.
      */
-    @Scheduled(cron = "0 0 * * * *") // Cada hora en punto
-    @Transactional
+    @Scheduled(cron = "0 * * * * *") // Cada minuto
     public void sendReminders() {
-        log.info("Iniciando proceso de envio de recordatorios...");
+        // El lease se retiene al menos 30 s: otro nodo con el reloj atrasado no repite el mismo minuto
+        runTimer.record(() -> jobCoordinator.runSharded("reminders", shards,
+                businessConfigRepository::findMaxBusinessId, Duration.ofSeconds(30), this::processReminders));
+    }
 
-        // Obtener negocios con recordatorios habilitados
-        List<BusinessConfig> businessesWithReminders = businessConfigRepository.findByEnableRemindersTrue();
+    private void processReminders(BusinessIdRange range) {
+        String runToken = UUID.randomUUID().toString();
+        RunStats stats = new RunStats();
 
-        if (businessesWithReminders.isEmpty()) {
-            log.info("No hay negocios con recordatorios habilitados");
-            return;
+        processChannel(Channel.EMAIL, range, runToken, stats);
+        if (whatsAppService.isAvailable()) {
+            processChannel(Channel.WHATSAPP, range, runToken, stats);
         }
 
-        int emailsSent = 0;
-        int whatsappSent = 0;
+        JobRunContext.addProcessed(stats.emailsSent + stats.whatsappSent);
+        JobRunContext.addFailures(stats.emailsFailed + stats.whatsappFailed);
+        if (stats.batches > 0) {
+            log.info("Recordatorios enviados (tramo {}/{}). Lotes: {}, Emails: {} ({} fallidos), WhatsApp: {} ({} fallidos)",
+                    range.shard() + 1, range.shards(), stats.batches,
+                    stats.emailsSent, stats.emailsFailed, stats.whatsappSent, stats.whatsappFailed);
+        }
+    }
+
+    /**
+     * Recorre por páginas los recordatorios vencidos de un canal. Los que llevan más de
+     * max-delay-minutes vencidos (p. ej. tras una caída larga) ya no se envían.
+     */
+    private void processChannel(Channel channel, BusinessIdRange range, String runToken, RunStats stats) {
+        LocalDateTime now = ReminderScheduleService.nowUtc();
+        LocalDateTime oldest = now.minusMinutes(maxDelayMinutes);
 
-        for (BusinessConfig config : businessesWithReminders) {
+        long afterId = 0;
+        while (true) {
+            PageRequest page = PageRequest.of(0, batchSize);
+            List<ReminderCandidate> due;
             try {
-                ReminderStats stats = processBusinessReminders(config);
-                emailsSent += stats.emailsSent();
-                whatsappSent += stats.whatsappSent();
+                due = channel == Channel.EMAIL
+                        ? appointmentRepository.findDueEmailReminders(now, oldest, range.fromId(), range.toId(), afterId, page)
+                        : appointmentRepository.findDueWhatsappReminders(now, oldest, range.fromId(), range.toId(), afterId, page);
             } catch (Exception e) {
-                log.error("Error procesando recordatorios para negocio {}: {}",
-                        config.getBusinessName(), e.getMessage());
+                log.error("Error buscando recordatorios {} vencidos: {}", channel, e.getMessage());
+                return;
             }
-        }
+            if (due.isEmpty()) {
+                return;
+            }
+            afterId = due.get(due.size() - 1).appointmentId();
 
-        log.info("Proceso de recordatorios finalizado. Emails: {}, WhatsApp: {}", emailsSent, whatsappSent);
-    }
+            processBatch(channel, due, runToken, stats);
 
-    private ReminderStats processBusinessReminders(BusinessConfig config) {
-        int hoursBeforeMin = config.getReminderHoursBefore();
-        int hoursBeforeMax = hoursBeforeMin + 1; // Ventana de 1 hora
+            if (due.size() < batchSize) {
+                return;
+            }
+        }
+    }
 
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime windowStart = now.plusHours(hoursBeforeMin);
-        LocalDateTime windowEnd = now.plusHours(hoursBeforeMax);
+    private void processBatch(Channel channel, List<ReminderCandidate> page, String runToken, RunStats stats) {
+        List<ReminderCandidate> claimed = claim(page, runToken);
+        if (claimed.isEmpty()) {
+            return;
+        }
+        stats.batches++;
 
-        log.debug("Buscando turnos para {} entre {} y {}",
-                config.getBusinessName(), windowStart, windowEnd);
+        BatchOutcome outcome = new BatchOutcome();
+        if (channel == Channel.EMAIL) {
+            // email-concurrency trozos en paralelo: cada uno sale en un solo envío por una conexión SMTP del pool
+            int chunkSize = Math.max(1, (claimed.size() + emailConcurrency - 1) / emailConcurrency);
+            List<CompletableFuture<Void>> sends = new ArrayList<>();
+            for (int from = 0; from < claimed.size(); from += chunkSize) {
+                List<ReminderCandidate> chunk = claimed.subList(from, Math.min(from + chunkSize, claimed.size()));
+                sends.add(CompletableFuture.runAsync(() -> sendEmailReminders(chunk, outcome), bulkEmailExecutor));
+            }
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).join();
+        } else {
+            sendWhatsAppReminders(claimed, outcome);
+        }
 
-        // Buscar turnos en la ventana de tiempo
-        List<Appointment> appointmentsToRemind = findAppointmentsInWindow(
-                config.getUser().getId(), windowStart, windowEnd);
+        int discarded = writeBack(channel, claimed, outcome, runToken);
 
-        int emailsSent = 0;
-        int whatsappSent = 0;
+        int sent = outcome.sent.size();
+        int failures = outcome.retry.size() + outcome.rejected.size();
+        if (channel == Channel.EMAIL) {
+            stats.emailsSent += sent;
+            stats.emailsFailed += failures;
+            emailSentCounter.increment(sent);
+            emailFailedCounter.increment(failures);
+            emailDiscardedCounter.increment(discarded);
+        } else {
+            stats.whatsappSent += sent;
+            stats.whatsappFailed += failures;
+            whatsappSentCounter.increment(sent);
+            whatsappFailedCounter.increment(failures);
+            whatsappDiscardedCounter.increment(discarded);
+        }
+    }
 
-        for (Appointment appointment : appointmentsToRemind) {
-            boolean needsEmail = !appointment.isReminderSent() && appointment.getClientEmail() != null;
-            boolean needsWhatsapp = !appointment.isWhatsappReminderSent()
-                    && config.isEnableWhatsappReminders()
-                    && appointment.getClientPhone() != null
-                    && whatsAppService.isAvailable();
+    /**
+     * Reclama el lote en una transacción corta y devuelve solo las citas que quedaron a nombre de esta ejecución.
+     */
+    private List<ReminderCandidate> claim(List<ReminderCandidate> page, String runToken) {
+        List<Long> ids = page.stream().map(ReminderCandidate::appointmentId).toList();
+        Set<Long> claimedIds = transactionTemplate.execute(status -> {
+            LocalDateTime now = ReminderScheduleService.nowUtc();
+            appointmentRepository.claimReminders(ids, runToken, now.plusMinutes(claimTtlMinutes), now);
+            return new HashSet<>(appointmentRepository.findClaimedReminderIds(ids, runToken));
+        });
+        if (claimedIds.size() < page.size()) {
+            log.debug("{} citas del lote ya reclamadas por otra ejecucion", page.size() - claimedIds.size());
+        }
+        return page.stream().filter(c -> claimedIds.contains(c.appointmentId())).toList();
+    }
 
-            // Enviar email
-            if (needsEmail) {
-                if (sendEmailReminder(appointment, config)) {
-                    appointment.setReminderSent(true);
-                    emailsSent++;
-                }
+    /**
+     * Marca enviados, programa el siguiente intento de los fallos transitorios (agrupados por
+     * número de intento, un UPDATE por grupo) y descarta los rechazados o sin intentos, todo
+     * en una transacción que además libera el reclamo del lote. Devuelve los descartados.
+     */
+    private int writeBack(Channel channel, List<ReminderCandidate> claimed, BatchOutcome outcome, String runToken) {
+        List<Long> claimedIds = claimed.stream().map(ReminderCandidate::appointmentId).toList();
+        List<Long> discarded = new ArrayList<>(outcome.rejected);
+        Map<Integer, List<Long>> retriesByAttempt = new TreeMap<>();
+        for (ReminderCandidate candidate : outcome.retry) {
+            int attempts = channel.attempts(candidate) + 1;
+            if (attempts >= maxAttempts) {
+                discarded.add(candidate.appointmentId());
+            } else {
+                retriesByAttempt.computeIfAbsent(attempts, k -> new ArrayList<>()).add(candidate.appointmentId());
             }
+        }
 
-            // Enviar WhatsApp
-            if (needsWhatsapp) {
-                if (sendWhatsAppReminder(appointment, config)) {
-                    appointment.setWhatsappReminderSent(true);
-                    whatsappSent++;
+        LocalDateTime now = ReminderScheduleService.nowUtc();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!outcome.sent.isEmpty()) {
+                if (channel == Channel.EMAIL) {
+                    appointmentRepository.markEmailRemindersSent(List.copyOf(outcome.sent));
+                } else {
+                    appointmentRepository.markWhatsappRemindersSent(List.copyOf(outcome.sent));
                 }
             }
-
-            // Guardar cambios si hubo algún envío
-            if (needsEmail || needsWhatsapp) {
-                appointmentRepository.save(appointment);
+            retriesByAttempt.forEach((attempts, ids) -> {
+                LocalDateTime retryAt = now.plus(retryDelay(attempts));
+                if (channel == Channel.EMAIL) {
+                    appointmentRepository.scheduleEmailReminderRetry(ids, attempts, retryAt);
+                } else {
+                    appointmentRepository.scheduleWhatsappReminderRetry(ids, attempts, retryAt);
+                }
+            });
+            if (!discarded.isEmpty()) {
+                if (channel == Channel.EMAIL) {
+                    appointmentRepository.markEmailRemindersFailed(discarded);
+                } else {
+                    appointmentRepository.markWhatsappRemindersFailed(discarded);
+                }
             }
+            appointmentRepository.releaseReminderClaims(claimedIds, runToken);
+        });
+        if (!discarded.isEmpty()) {
+            log.warn("{} recordatorios {} descartados (rechazo definitivo o {} intentos): {}",
+                    discarded.size(), channel, maxAttempts, discarded);
         }
+        return discarded.size();
+    }
 
-        return new ReminderStats(emailsSent, whatsappSent);
+    /**
+     * retry-base-minutes * 2^(intento-1): con los valores por defecto 2, 4, 8 y 16 minutos.
+     */
+    Duration retryDelay(int attempts) {
+        return Duration.ofMinutes(retryBaseMinutes << Math.min(attempts - 1, 16));
     }
 
-    private boolean sendEmailReminder(Appointment appointment, BusinessConfig config) {
+    private void sendEmailReminders(List<ReminderCandidate> chunk, BatchOutcome outcome) {
+        List<DeliveryOutcome> results;
         try {
-            EmailAppointmentDto emailDto = EmailAppointmentDto.from(appointment, config);
-            emailService.sendReminder(emailDto);
-            log.info("Recordatorio EMAIL enviado para turno {} - {} {} {}",
-                    appointment.getId(),
-                    appointment.getClientName(),
-                    appointment.getDate(),
-                    appointment.getTime());
-            return true;
+            results = emailService.sendReminders(chunk.stream().map(ReminderCandidate::toEmailDto).toList());
         } catch (Exception e) {
-            log.error("Error enviando recordatorio EMAIL para turno {}: {}",
-                    appointment.getId(), e.getMessage());
-            return false;
+            log.error("Error enviando lote de {} recordatorios EMAIL: {}", chunk.size(), e.getMessage());
+            outcome.retry.addAll(chunk);
+            return;
+        }
+
+        for (int i = 0; i < chunk.size(); i++) {
+            ReminderCandidate candidate = chunk.get(i);
+            DeliveryOutcome result = results.get(i);
+            if (result == DeliveryOutcome.SENT) {
+                outcome.sent.add(candidate.appointmentId());
+                log.info("Recordatorio EMAIL enviado para turno {} - {} {} {}",
+                        candidate.appointmentId(),
+                        candidate.clientName(),
+                        candidate.date(),
+                        candidate.time());
+            } else if (result == DeliveryOutcome.REJECTED) {
+                outcome.rejected.add(candidate.appointmentId());
+                log.error("Recordatorio EMAIL rechazado para turno {}, no se reintenta", candidate.appointmentId());
+            } else {
+                outcome.retry.add(candidate);
+                log.error("Error enviando recordatorio EMAIL para turno {}", candidate.appointmentId());
+            }
         }
     }
 
-    private boolean sendWhatsAppReminder(Appointment appointment, BusinessConfig config) {
+    /**
+     * Envía el lote entero al cliente de WhatsApp y espera a que terminen todos.
+     */
+    private void sendWhatsAppReminders(List<ReminderCandidate> claimed, BatchOutcome outcome) {
+        List<WhatsAppService.ReminderMessage> messages = claimed.stream()
+                .map(candidate -> new WhatsAppService.ReminderMessage(
+                        candidate.clientPhone(),
+                        candidate.businessName(),
+                        candidate.serviceName() != null ? candidate.serviceName() : "tu cita",
+                        formatDateTime(candidate.date(), candidate.time())))
+                .toList();
+
+        List<WhatsAppService.SendResult> results;
         try {
-            String dateTime = formatDateTime(appointment.getDate(), appointment.getTime());
-            String serviceName = appointment.getServiceName() != null
-                    ? appointment.getServiceName()
-                    : "tu cita";
-
-            WhatsAppService.SendResult result = whatsAppService.sendAppointmentReminder(
-                    appointment.getClientPhone(),
-                    config.getBusinessName(),
-                    serviceName,
-                    dateTime
-            );
+            results = whatsAppService.sendAppointmentReminders(messages).join();
+        } catch (Exception e) {
+            log.error("Error enviando lote de {} recordatorios WHATSAPP: {}", claimed.size(), e.getMessage());
+            outcome.retry.addAll(claimed);
+            return;
+        }
 
+        for (int i = 0; i < claimed.size(); i++) {
+            ReminderCandidate candidate = claimed.get(i);
+            WhatsAppService.SendResult result = results.get(i);
             if (result.success()) {
+                outcome.sent.add(candidate.appointmentId());
                 log.info("Recordatorio WHATSAPP enviado para turno {} - {} {} {} (msgId: {})",
-                        appointment.getId(),
-                        appointment.getClientName(),
-                        appointment.getDate(),
-                        appointment.getTime(),
+                        candidate.appointmentId(),
+                        candidate.clientName(),
+                        candidate.date(),
+                        candidate.time(),
                         result.messageId());
-                return true;
+            } else if (!result.retryable()) {
+                outcome.rejected.add(candidate.appointmentId());
+                log.warn("WhatsApp rechazó el recordatorio para turno {}, no se reintenta: {}",
+                        candidate.appointmentId(), result.errorMessage());
             } else {
+                outcome.retry.add(candidate);
                 log.warn("WhatsApp no pudo enviar recordatorio para turno {}: {}",
-                        appointment.getId(), result.errorMessage());
-                return false;
+                        candidate.appointmentId(), result.errorMessage());
             }
-        } catch (Exception e) {
-            log.error("Error enviando recordatorio WHATSAPP para turno {}: {}",
-                    appointment.getId(), e.getMessage());
-            return false;
         }
     }
 
-    private List<Appointment> findAppointmentsInWindow(Long businessId,
-                                                       LocalDateTime windowStart,
-                                                       LocalDateTime windowEnd) {
-        LocalDate startDate = windowStart.toLocalDate();
-        LocalDate endDate = windowEnd.toLocalDate();
-
-        // Obtener turnos en el rango de fechas
-        List<Appointment> appointments = appointmentRepository
-                .findByDateBetweenAndBusinessId(startDate, endDate, businessId);
-
-        // Filtrar por hora y estado
-        return appointments.stream()
-                .filter(a -> !a.isReminderSent() || !a.isWhatsappReminderSent())
-                .filter(a -> a.getStatus() == AppointmentStatus.PENDING ||
-                             a.getStatus() == AppointmentStatus.CONFIRMED)
-                .filter(a -> {
-                    LocalDateTime appointmentDateTime = LocalDateTime.of(a.getDate(), a.getTime());
-                    return !appointmentDateTime.isBefore(windowStart) &&
-                           !appointmentDateTime.isAfter(windowEnd);
-                })
-                .toList();
-    }
-
-    private String formatDateTime(LocalDate date, java.time.LocalTime time) {
+    private String formatDateTime(LocalDate date, LocalTime time) {
         String formattedDate = date.format(DATE_FORMATTER);
         String formattedTime = time.format(TIME_FORMATTER);
         return formattedDate + " a las " + formattedTime;
     }
 
-    private record ReminderStats(int emailsSent, int whatsappSent) {}
+    private static Counter reminderCounter(MeterRegistry registry, String name, String channel) {
+        return Counter.builder(name)
+                .description("Recordatorios por canal")
+                .tag("channel", channel)
+                .register(registry);
+    }
+
+    private enum Channel {
+        EMAIL, WHATSAPP;
+
+        int attempts(ReminderCandidate candidate) {
+            return this == EMAIL ? candidate.emailReminderAttempts() : candidate.whatsappReminderAttempts();
+        }
+    }
+
+    /**
+     * Resultado de los envíos de un lote (los trozos de email lo rellenan en paralelo).
+     */
+    private static final class BatchOutcome {
+        final Queue<Long> sent = new ConcurrentLinkedQueue<>();
+        final Queue<ReminderCandidate> retry = new ConcurrentLinkedQueue<>();
+        final Queue<Long> rejected = new ConcurrentLinkedQueue<>();
+    }
+
+    private static final class RunStats {
+        int batches;
+        int emailsSent;
+        int emailsFailed;
+        int whatsappSent;
+        int whatsappFailed;
+    }
 }
@@ -0,0 +1,92 @@
+package com.turnofacil.scheduler.batch;
+
+import com.turnofacil.config.AsyncConfiguration;
+import com.turnofacil.scheduler.cluster.JobRunContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Envío por lotes para los jobs diarios (avisos de trial, etc.).
+ *
+ * El job selecciona los destinatarios con una sola consulta y los entrega aquí: se parten en
+ * trozos de chunkSize que salen en paralelo por el executor de email masivo (no el de las
+ * confirmaciones), cada uno con un único envío (p. ej. EmailService.sendTrialEndingEmails, una
+ * conexión SMTP por trozo). Espera a que terminen todos, suma entregados y fallidos en JobRunContext (JOB_RUNS) y en
+ * turnofacil.jobs.batch.items{job, outcome}, y devuelve el informe.
+ */
+@Component
+public class BatchDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchDispatcher.class);
+
+    private final Executor bulkEmailExecutor;
+    private final MeterRegistry meterRegistry;
+    private final int chunkSize;
+
+    public BatchDispatcher(@Qualifier(AsyncConfiguration.BULK_EMAIL_EXECUTOR) Executor bulkEmailExecutor,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.jobs.batch.chunk-size:50}") int chunkSize) {
+        this.bulkEmailExecutor = bulkEmailExecutor;
+        this.meterRegistry = meterRegistry;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * @param sender envía un trozo y devuelve, en el mismo orden, si cada elemento quedó entregado
+     */
+    public <T> BatchReport dispatch(String job, List<T> items, Function<List<T>, List<Boolean>> sender) {
+        if (items.isEmpty()) {
+            return BatchReport.empty(job);
+        }
+
+        long start = System.nanoTime();
+        AtomicInteger sent = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += chunkSize) {
+            List<T> chunk = items.subList(from, Math.min(from + chunkSize, items.size()));
+            chunks.add(CompletableFuture.runAsync(() -> send(job, chunk, sender, sent, failed), bulkEmailExecutor));
+        }
+        CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new)).join();
+
+        BatchReport report = new BatchReport(job, items.size(), chunks.size(), sent.get(), failed.get(),
+                (System.nanoTime() - start) / 1_000_000);
+        JobRunContext.addProcessed(report.sent());
+        JobRunContext.addFailures(report.failed());
+        meterRegistry.counter("turnofacil.jobs.batch.items", "job", job, "outcome", "sent").increment(report.sent());
+        meterRegistry.counter("turnofacil.jobs.batch.items", "job", job, "outcome", "failed").increment(report.failed());
+        log.info("Job {}: {} seleccionados en {} lotes, {} enviados, {} fallidos ({} ms)",
+                job, report.selected(), report.chunks(), report.sent(), report.failed(), report.elapsedMillis());
+        return report;
+    }
+
+    private static <T> void send(String job, List<T> chunk, Function<List<T>, List<Boolean>> sender,
+                                 AtomicInteger sent, AtomicInteger failed) {
+        List<Boolean> results;
+        try {
+            results = sender.apply(chunk);
+        } catch (RuntimeException e) {
+            log.error("Job {}: lote de {} no enviado: {}", job, chunk.size(), e.getMessage());
+            failed.addAndGet(chunk.size());
+            return;
+        }
+        for (Boolean delivered : results) {
+            if (Boolean.TRUE.equals(delivered)) {
+                sent.incrementAndGet();
+            } else {
+                failed.incrementAndGet();
+            }
+        }
+    }
+}
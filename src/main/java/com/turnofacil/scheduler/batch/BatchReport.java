@@ -0,0 +1,11 @@
+package com.turnofacil.scheduler.batch;
+
+/**
+ * Resultado de un envío por lotes: elementos seleccionados, entregados y fallidos.
+ */
+public record BatchReport(String job, int selected, int chunks, int sent, int failed, long elapsedMillis) {
+
+    static BatchReport empty(String job) {
+        return new BatchReport(job, 0, 0, 0, 0, 0);
+    }
+}
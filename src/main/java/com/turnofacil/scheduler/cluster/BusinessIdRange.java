@@ -0,0 +1,30 @@
+package com.turnofacil.scheduler.cluster;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rango de ids de negocio [fromId, toId] que procesa un shard de un job.
+ */
+public record BusinessIdRange(int shard, int shards, long fromId, long toId) {
+
+    public static final BusinessIdRange ALL = new BusinessIdRange(0, 1, 0, Long.MAX_VALUE);
+
+    /**
+     * Parte [1, maxBusinessId] en tramos iguales. El último queda abierto por arriba
+     * para incluir los negocios dados de alta después de leer el máximo.
+     */
+    public static List<BusinessIdRange> split(int shards, long maxBusinessId) {
+        if (shards <= 1) {
+            return List.of(ALL);
+        }
+        long size = Math.max(1, (maxBusinessId + shards - 1) / shards);
+        List<BusinessIdRange> ranges = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            long from = i == 0 ? 0 : i * size + 1;
+            long to = i == shards - 1 ? Long.MAX_VALUE : (i + 1) * size;
+            ranges.add(new BusinessIdRange(i, shards, from, to));
+        }
+        return ranges;
+    }
+}
@@ -0,0 +1,24 @@
+package com.turnofacil.scheduler.cluster;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca un método @Scheduled que debe ejecutarse en un solo nodo a la vez (ver JobCoordinator).
+ * Si otro nodo tiene el lease, la ejecución de este nodo se omite.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ClusterJob {
+
+    /** Nombre del lease y del job en JOB_RUNS. */
+    String value();
+
+    /**
+     * Tiempo mínimo que el lease sigue tomado tras terminar, para que un nodo con el reloj
+     * algo atrasado no repita un job que ya corrió en esta misma franja.
+     */
+    long lockAtLeastForSeconds() default 300;
+}
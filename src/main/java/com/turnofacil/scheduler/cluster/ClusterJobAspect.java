@@ -0,0 +1,44 @@
+package com.turnofacil.scheduler.cluster;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Ejecuta los métodos @ClusterJob a través de JobCoordinator.
+ * Va por fuera de @Transactional: el lease se toma antes de abrir la transacción del job
+ * y se libera después de su commit.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ClusterJobAspect {
+
+    private final JobCoordinator jobCoordinator;
+
+    public ClusterJobAspect(JobCoordinator jobCoordinator) {
+        this.jobCoordinator = jobCoordinator;
+    }
+
+    @Around("@annotation(clusterJob)")
+    public Object runExclusive(ProceedingJoinPoint joinPoint, ClusterJob clusterJob) {
+        jobCoordinator.runExclusive(clusterJob.value(),
+                Duration.ofSeconds(clusterJob.lockAtLeastForSeconds()),
+                () -> {
+                    try {
+                        joinPoint.proceed();
+                    } catch (RuntimeException | Error e) {
+                        throw e;
+                    } catch (Throwable t) {
+                        throw new IllegalStateException(t);
+                    }
+                });
+        // Los jobs programados no devuelven nada
+        return null;
+    }
+}
@@ -0,0 +1,262 @@
+package com.turnofacil.scheduler.cluster;
+
+import com.turnofacil.model.JobLock;
+import com.turnofacil.model.JobRun;
+import com.turnofacil.model.enums.JobRunStatus;
+import com.turnofacil.repository.JobLockRepository;
+import com.turnofacil.repository.JobRunRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Coordina los jobs programados entre nodos con un lease en JOB_LOCKS.
+ *
+ * Cada nodo dispara los mismos @Scheduled; el que toma el lease (UPDATE condicional sobre
+ * un lease caducado o INSERT la primera vez) ejecuta y el resto lo omite. Mientras corre,
+ * un heartbeat alarga LOCK_UNTIL cada lease/3; si el nodo cae, el lease caduca solo.
+ * Cada ejecución queda en JOB_RUNS con sus elementos procesados y fallos.
+ *
+ * Las horas son UTC para que nodos en zonas distintas comparen lo mismo.
+ */
+@Service
+public class JobCoordinator {
+
+    private static final Logger log = LoggerFactory.getLogger(JobCoordinator.class);
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final JobLockRepository lockRepository;
+    private final JobRunRepository runRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final String nodeId;
+    private final Duration lease;
+    private final int runRetentionDays;
+    private final ScheduledExecutorService heartbeats;
+
+    public JobCoordinator(JobLockRepository lockRepository,
+                          JobRunRepository runRepository,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.jobs.node-id:}") String nodeId,
+                          @Value("${app.jobs.lease-seconds:120}") long leaseSeconds,
+                          @Value("${app.jobs.run-retention-days:30}") int runRetentionDays) {
+        this.lockRepository = lockRepository;
+        this.runRepository = runRepository;
+        // Transacción propia: el lease se confirma aunque quien llame ya tenga una abierta
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.meterRegistry = meterRegistry;
+        this.nodeId = nodeId == null || nodeId.isBlank() ? defaultNodeId() : nodeId;
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.runRetentionDays = runRetentionDays;
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "job-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        log.info("JobCoordinator: nodo {} (lease {}s)", this.nodeId, leaseSeconds);
+    }
+
+    /**
+     * Ejecuta el job si este nodo consigue el lease. Devuelve false si lo tenía otro nodo.
+     * Una excepción del job se registra como FAILED y se relanza.
+     */
+    public boolean runExclusive(String jobName, Duration lockAtLeastFor, Runnable job) {
+        LocalDateTime lockedAt = tryAcquire(jobName);
+        if (lockedAt == null) {
+            log.debug("Job {} omitido: el lease lo tiene otro nodo", jobName);
+            meterRegistry.counter("turnofacil.jobs.runs", "job", jobName, "outcome", "skipped").increment();
+            return false;
+        }
+
+        Long runId = startRun(jobName, lockedAt);
+        long period = Math.max(1, lease.toMillis() / 3);
+        ScheduledFuture<?> heartbeat = heartbeats.scheduleAtFixedRate(
+                () -> heartbeat(jobName, lockedAt), period, period, TimeUnit.MILLISECONDS);
+        JobRunContext.Counts counts = JobRunContext.begin();
+        JobRunStatus status = JobRunStatus.FAILED;
+        String error = null;
+        try {
+            job.run();
+            status = JobRunStatus.SUCCESS;
+            return true;
+        } catch (RuntimeException | Error e) {
+            error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            JobRunContext.end();
+            heartbeat.cancel(false);
+            finish(jobName, runId, lockedAt, lockAtLeastFor, status, counts, error);
+        }
+    }
+
+    /**
+     * Reparte un job por tramos de ids de negocio; cada tramo tiene su propio lease
+     * ("nombre#n"), así varios nodos procesan tramos distintos a la vez. Cada nodo empieza
+     * por un tramo al azar para no competir todos por el primero.
+     *
+     * @return tramos ejecutados por este nodo
+     */
+    public int runSharded(String jobName, int shards, LongSupplier maxBusinessId,
+                          Duration lockAtLeastFor, Consumer<BusinessIdRange> job) {
+        if (shards <= 1) {
+            return runExclusive(jobName, lockAtLeastFor, () -> job.accept(BusinessIdRange.ALL)) ? 1 : 0;
+        }
+        List<BusinessIdRange> ranges = BusinessIdRange.split(shards, maxBusinessId.getAsLong());
+        int offset = ThreadLocalRandom.current().nextInt(shards);
+        int executed = 0;
+        for (int i = 0; i < shards; i++) {
+            BusinessIdRange range = ranges.get((offset + i) % shards);
+            try {
+                if (runExclusive(jobName + "#" + range.shard(), lockAtLeastFor, () -> job.accept(range))) {
+                    executed++;
+                }
+            } catch (RuntimeException e) {
+                // Un tramo fallido no impide procesar los demás
+                log.error("Error en {} tramo {}/{}: {}", jobName, range.shard(), shards, e.getMessage());
+            }
+        }
+        return executed;
+    }
+
+    public List<JobLock> currentLocks() {
+        return lockRepository.findAllByOrderByJobNameAsc();
+    }
+
+    public List<JobRun> recentRuns() {
+        return runRepository.findTop50ByOrderByStartedAtDesc();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Devuelve el LOCKED_AT con el que se tomó el lease (identifica esta toma), o null si no se pudo.
+     */
+    LocalDateTime tryAcquire(String jobName) {
+        LocalDateTime now = now();
+        LocalDateTime until = now.plus(lease);
+        Integer taken = transactionTemplate.execute(status -> lockRepository.takeExpired(jobName, nodeId, now, until));
+        if (taken != null && taken > 0) {
+            return now;
+        }
+        if (lockRepository.existsById(jobName)) {
+            return null;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> lockRepository.insertLease(jobName, nodeId, now, until));
+            return now;
+        } catch (DataIntegrityViolationException e) {
+            // Otro nodo insertó el lease a la vez
+            return null;
+        }
+    }
+
+    private void heartbeat(String jobName, LocalDateTime lockedAt) {
+        try {
+            LocalDateTime now = now();
+            Integer updated = transactionTemplate.execute(status ->
+                    lockRepository.heartbeat(jobName, nodeId, lockedAt, now, now.plus(lease)));
+            if (updated == null || updated == 0) {
+                log.warn("Job {}: el lease ya no es de este nodo (¿pausa larga?)", jobName);
+            }
+        } catch (Exception e) {
+            log.warn("Job {}: no se pudo renovar el lease: {}", jobName, e.getMessage());
+        }
+    }
+
+    private Long startRun(String jobName, LocalDateTime startedAt) {
+        JobRun run = new JobRun();
+        run.setJobName(jobName);
+        run.setNodeId(nodeId);
+        run.setStatus(JobRunStatus.RUNNING);
+        run.setStartedAt(startedAt);
+        return transactionTemplate.execute(status -> runRepository.save(run).getId());
+    }
+
+    private void finish(String jobName, Long runId, LocalDateTime lockedAt, Duration lockAtLeastFor,
+                        JobRunStatus status, JobRunContext.Counts counts, String error) {
+        LocalDateTime now = now();
+        LocalDateTime minUntil = lockedAt.plus(lockAtLeastFor);
+        LocalDateTime until = minUntil.isAfter(now) ? minUntil : now;
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                runRepository.finish(runId, status, now, counts.processed, counts.failures, truncate(error));
+                lockRepository.release(jobName, nodeId, lockedAt, until);
+            });
+        } catch (Exception e) {
+            // El lease caduca solo en LOCK_UNTIL
+            log.error("Job {}: no se pudo cerrar la ejecución {}: {}", jobName, runId, e.getMessage());
+        }
+        meterRegistry.counter("turnofacil.jobs.runs", "job", jobName,
+                "outcome", status == JobRunStatus.SUCCESS ? "success" : "failed").increment();
+        if (status == JobRunStatus.SUCCESS) {
+            log.debug("Job {} terminado en {} ms ({} elementos, {} fallos)", jobName,
+                    Duration.between(lockedAt, now).toMillis(), counts.processed, counts.failures);
+        } else {
+            log.error("Job {} fallido tras {} ms: {}", jobName, Duration.between(lockedAt, now).toMillis(), error);
+        }
+    }
+
+    @Scheduled(cron = "0 50 3 * * *")
+    public void purgeRuns() {
+        // Llamada directa: @ClusterJob no aplica sobre el propio coordinador
+        runExclusive("job-runs-purge", Duration.ofMinutes(5), () -> {
+            int purged = transactionTemplate.execute(status ->
+                    runRepository.deleteStartedBefore(now().minusDays(runRetentionDays)));
+            JobRunContext.addProcessed(purged);
+            if (purged > 0) {
+                log.info("Historial de jobs purgado: {} ejecuciones", purged);
+            }
+        });
+    }
+
+    private static LocalDateTime now() {
+        // DATETIME guarda segundos: LOCKED_AT tiene que compararse igual al liberar
+        return LocalDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    private static String truncate(String error) {
+        return error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + "-" + ManagementFactory.getRuntimeMXBean().getPid();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+    }
+}
@@ -0,0 +1,42 @@
+package com.turnofacil.scheduler.cluster;
+
+/**
+ * Contadores de la ejecución en curso, que JobCoordinator guarda en JOB_RUNS al terminar.
+ * Los jobs informan desde el hilo del job; fuera de una ejecución coordinada no hace nada.
+ */
+public final class JobRunContext {
+
+    private static final ThreadLocal<Counts> CURRENT = new ThreadLocal<>();
+
+    private JobRunContext() {
+    }
+
+    public static void addProcessed(int items) {
+        Counts counts = CURRENT.get();
+        if (counts != null) {
+            counts.processed += items;
+        }
+    }
+
+    public static void addFailures(int failures) {
+        Counts counts = CURRENT.get();
+        if (counts != null) {
+            counts.failures += failures;
+        }
+    }
+
+    static Counts begin() {
+        Counts counts = new Counts();
+        CURRENT.set(counts);
+        return counts;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    static final class Counts {
+        int processed;
+        int failures;
+    }
+}
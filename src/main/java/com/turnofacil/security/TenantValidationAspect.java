@@ -22,7 +22,8 @@ public class TenantValidationAspect {
             "execution(* com.turnofacil.repository.*.findByDateAndBusinessIdOrderByTimeAsc(..)) || " +
             "execution(* com.turnofacil.repository.*.findByDateBetweenAndBusinessId(..)) || " +
             "execution(* com.turnofacil.repository.*.findActiveAppointmentsByDateAndBusiness(..)) || " +
-            "execution(* com.turnofacil.repository.*.findByClientSearch(..))")
+            "execution(* com.turnofacil.repository.*.findClientHistory(..)) || " +
+            "execution(* com.turnofacil.repository.*.findCalendarEvents(..))")
     public void validateTenantOnBusinessIdQuery(JoinPoint joinPoint) {
         Long tenantId = TenantContext.getTenantId();
         if (tenantId == null) {
@@ -0,0 +1,11 @@
+package com.turnofacil.service;
+
+/**
+ * Publicado por AppointmentService dentro de la transacción del alta; los listeners
+ * lo reciben tras el commit (ver AppointmentCreatedListener).
+ */
+public record AppointmentCreatedEvent(
+        Long appointmentId,
+        Long businessId
+) {
+}
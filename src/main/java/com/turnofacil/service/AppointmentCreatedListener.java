@@ -0,0 +1,46 @@
+package com.turnofacil.service;
+
+import com.turnofacil.config.AsyncConfiguration;
+import com.turnofacil.model.Appointment;
+import com.turnofacil.repository.AppointmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Notificación al admin de una reserva nueva (con su aviso SSE por el outbox). Se crea tras
+ * el commit en el executor de jobs, en su propia transacción. El rollup y la ficha de cliente
+ * no van aquí: AppointmentService los actualiza en la transacción de la reserva.
+ */
+@Component
+public class AppointmentCreatedListener {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentCreatedListener.class);
+
+    private final AppointmentRepository appointmentRepo;
+    private final NotificationService notificationService;
+
+    public AppointmentCreatedListener(AppointmentRepository appointmentRepo,
+                                      NotificationService notificationService) {
+        this.appointmentRepo = appointmentRepo;
+        this.notificationService = notificationService;
+    }
+
+    @Async(AsyncConfiguration.JOBS_EXECUTOR)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onAppointmentCreated(AppointmentCreatedEvent event) {
+        Appointment appointment = appointmentRepo.findById(event.appointmentId()).orElse(null);
+        if (appointment == null) {
+            log.warn("Cita {} no encontrada al procesar su alta", event.appointmentId());
+            return;
+        }
+
+        notificationService.createNewBookingNotification(appointment);
+    }
+}
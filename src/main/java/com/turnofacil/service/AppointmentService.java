@@ -1,26 +1,43 @@
 package com.turnofacil.service;
 
 import com.turnofacil.dto.AppointmentDto;
+import com.turnofacil.dto.CalendarEventDto;
 import com.turnofacil.dto.EmailAppointmentDto;
+import com.turnofacil.dto.PublicSlotDto;
+import com.turnofacil.dto.WhatsAppConfirmationPayload;
+import com.turnofacil.exception.PlanLimitExceededException;
+import com.turnofacil.monitoring.jfr.BookingLockEvent;
+import com.turnofacil.monitoring.jfr.OverlapCheckEvent;
 import com.turnofacil.model.Appointment;
 import com.turnofacil.model.enums.AppointmentStatus;
+import com.turnofacil.model.enums.OutboxMessageType;
 import com.turnofacil.model.BusinessConfig;
 import com.turnofacil.model.User;
 import com.turnofacil.repository.AppointmentRepository;
 import com.turnofacil.repository.BusinessConfigRepository;
 import com.turnofacil.repository.ServiceRepository;
+import com.turnofacil.service.outbox.OutboxService;
 import com.turnofacil.service.whatsapp.WhatsAppService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
@@ -35,35 +52,73 @@ public class AppointmentService {
     private final AppointmentRepository appointmentRepo;
     private final UserService userService;
     private final BlockedSlotService blockedSlotService;
-    private final EmailService emailService;
     private final NotificationService notificationService;
     private final ServiceRepository serviceRepo;
     private final BusinessConfigRepository businessConfigRepo;
     private final PlanLimitsService planLimitsService;
     private final WhatsAppService whatsAppService;
+    private final BusinessStatsService businessStatsService;
+    private final ClientService clientService;
+    private final ReminderScheduleService reminderScheduleService;
+    private final OutboxService outboxService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    // Espera por el lock del negocio frente a tiempo con el lock tomado, por operación
+    private final Timer createLockWait;
+    private final Timer createLockHold;
+    private final Timer rescheduleLockWait;
+    private final Timer rescheduleLockHold;
+    private final Timer overlapCheckTimer;
 
     public AppointmentService(AppointmentRepository appointmentRepo,
                               UserService userService,
                               BlockedSlotService blockedSlotService,
-                              EmailService emailService,
                               NotificationService notificationService,
                               ServiceRepository serviceRepo,
                               BusinessConfigRepository businessConfigRepo,
                               PlanLimitsService planLimitsService,
-                              WhatsAppService whatsAppService) {
+                              WhatsAppService whatsAppService,
+                              BusinessStatsService businessStatsService,
+                              ClientService clientService,
+                              ReminderScheduleService reminderScheduleService,
+                              OutboxService outboxService,
+                              ApplicationEventPublisher eventPublisher,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry) {
         this.appointmentRepo = appointmentRepo;
         this.userService = userService;
         this.blockedSlotService = blockedSlotService;
-        this.emailService = emailService;
         this.notificationService = notificationService;
         this.serviceRepo = serviceRepo;
         this.businessConfigRepo = businessConfigRepo;
         this.planLimitsService = planLimitsService;
         this.whatsAppService = whatsAppService;
+        this.businessStatsService = businessStatsService;
+        this.clientService = clientService;
+        this.reminderScheduleService = reminderScheduleService;
+        this.outboxService = outboxService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.createLockWait = lockTimer("turnofacil.booking.lock.wait", "create");
+        this.createLockHold = lockTimer("turnofacil.booking.lock.hold", "create");
+        this.rescheduleLockWait = lockTimer("turnofacil.booking.lock.wait", "reschedule");
+        this.rescheduleLockHold = lockTimer("turnofacil.booking.lock.hold", "reschedule");
+        this.overlapCheckTimer = Timer.builder("turnofacil.booking.overlap.check")
+                .description("Consulta y cálculo de solapamientos de un turno")
+                .register(meterRegistry);
+    }
+
+    private Timer lockTimer(String name, String operation) {
+        return Timer.builder(name)
+                .description("Lock por negocio contra double-booking")
+                .tag("operation", operation)
+                .register(meterRegistry);
     }
 
     // CREAR TURNO DESDE PAGINA PUBLICA
-    @Transactional
     public Appointment createAppointment(User business,
                                          LocalDate date,
                                          LocalTime time,
@@ -75,7 +130,11 @@ public class AppointmentService {
         return createAppointment(business, date, time, duration, null, clientName, clientPhone, clientEmail, notes);
     }
 
-    @Transactional
+    /**
+     * Crea la cita. La transacción empieza y termina dentro del lock del negocio: valida
+     * solapamientos, inserta, actualiza rollup y ficha de cliente y encola los mensajes;
+     * la notificación al admin va en AppointmentCreatedEvent.
+     */
     public Appointment createAppointment(User business,
                                          LocalDate date,
                                          LocalTime time,
@@ -85,107 +144,168 @@ public class AppointmentService {
                                          String clientPhone,
                                          String clientEmail,
                                          String notes) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            Appointment created = doCreateAppointment(business, date, time, duration, serviceId,
+                    clientName, clientPhone, clientEmail, notes);
+            outcome = "created";
+            return created;
+        } catch (IllegalStateException | PlanLimitExceededException e) {
+            // Hueco ocupado, bloqueado o límite del plan
+            outcome = "rejected";
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer("turnofacil.booking.create", "outcome", outcome));
+        }
+    }
+
+    private Appointment doCreateAppointment(User business,
+                                            LocalDate date,
+                                            LocalTime time,
+                                            Integer duration,
+                                            Long serviceId,
+                                            String clientName,
+                                            String clientPhone,
+                                            String clientEmail,
+                                            String notes) {
+
+        // ---- Fuera del lock: lecturas que no dependen de otras reservas en curso ----
 
         // Validación de límites del plan
         if (!planLimitsService.canCreateAppointment(business.getId())) {
-            throw new com.turnofacil.exception.PlanLimitExceededException(
+            throw new PlanLimitExceededException(
                     "Has alcanzado el límite de 30 citas/mes del plan gratuito. Actualiza tu plan para citas ilimitadas.");
         }
 
         int appointmentDuration = duration != null ? duration : 30;
         LocalTime endTime = time.plusMinutes(appointmentDuration);
 
-        // Adquirir lock por negocio para evitar double-booking
+        // Validacion 1: Verificar si el horario esta bloqueado (las reservas no crean bloqueos)
+        if (blockedSlotService.isBlocked(business.getId(), date, time)) {
+            throw new IllegalStateException("Este horario no esta disponible (bloqueado)");
+        }
+
+        Appointment appointment = new Appointment();
+        appointment.setBusiness(business);
+        appointment.setDate(date);
+        appointment.setTime(time);
+        appointment.setDuration(appointmentDuration);
+        appointment.setClientName(clientName);
+        appointment.setClientPhone(clientPhone);
+        appointment.setClientEmail(clientEmail);
+        appointment.setNotes(notes);
+        appointment.setStatus(AppointmentStatus.PENDING);
+        appointment.setReminderSent(false);
+        appointment.setCancellationToken(UUID.randomUUID().toString());
+
+        // ============ LLENAR SNAPSHOTS (INMUTABLES) ============
+        // Snapshot del servicio
+        if (serviceId != null) {
+            serviceRepo.findById(serviceId).ifPresent(service -> {
+                appointment.setService(service);
+                appointment.setServiceName(service.getName());
+                appointment.setServicePrice(service.getPrice());
+                appointment.setServiceDuration(service.getDurationMinutes());
+            });
+        }
+
+        // Snapshot del negocio (una sola lectura de la config para todo el alta)
+        BusinessConfig config = businessConfigRepo.findByUserId(business.getId()).orElse(null);
+        if (config != null) {
+            appointment.setBusinessName(config.getBusinessName());
+        }
+        // ========================================================
+
+        reminderScheduleService.apply(appointment, config);
+        int bufferMinutes = config != null ? config.getBufferTimeMinutes() : 0;
+
+        // ---- Dentro del lock: validar solapamientos, insertar y confirmar ----
+        // La transacción se abre con el lock ya tomado y confirma antes de soltarlo, así la
+        // siguiente reserva del negocio ve esta cita al comprobar solapamientos.
         ReentrantLock lock = businessLocks.computeIfAbsent(business.getId(), id -> new ReentrantLock());
-        lock.lock();
+        BookingLockEvent lockEvent = new BookingLockEvent();
+        long lockedAt = lock(lock, createLockWait, lockEvent);
         try {
-            // Validacion 1: Verificar si el horario esta bloqueado
-            if (blockedSlotService.isBlocked(business.getId(), date, time)) {
-                throw new IllegalStateException("Este horario no esta disponible (bloqueado)");
-            }
+            return transactionTemplate.execute(status -> {
+                // Validacion 2: Verificar solapamientos con otros turnos
+                if (hasOverlappingAppointment(business.getId(), date, time, endTime, null, bufferMinutes)) {
+                    throw new IllegalStateException("Este horario se solapa con otro turno existente");
+                }
 
-            // Validacion 2: Verificar solapamientos con otros turnos
-            if (hasOverlappingAppointment(business.getId(), date, time, endTime, null)) {
-                throw new IllegalStateException("Este horario se solapa con otro turno existente");
-            }
+                Appointment savedAppointment = appointmentRepo.save(appointment);
+                // Rollup y ficha de cliente en la misma transacción: un cambio de estado posterior
+                // los encuentra ya aplicados y no hay que repararlos si algo falla después
+                businessStatsService.recordCreated(savedAppointment);
+                clientService.recordCreated(savedAppointment);
+                enqueueBookingMessages(savedAppointment, business, config);
 
-            Appointment appointment = new Appointment();
-            appointment.setBusiness(business);
-            appointment.setDate(date);
-            appointment.setTime(time);
-            appointment.setDuration(appointmentDuration);
-            appointment.setClientName(clientName);
-            appointment.setClientPhone(clientPhone);
-            appointment.setClientEmail(clientEmail);
-            appointment.setNotes(notes);
-            appointment.setStatus(AppointmentStatus.PENDING);
-            appointment.setReminderSent(false);
-            appointment.setCancellationToken(UUID.randomUUID().toString());
-
-            // ============ LLENAR SNAPSHOTS (INMUTABLES) ============
-            // Snapshot del servicio
-            if (serviceId != null) {
-                serviceRepo.findById(serviceId).ifPresent(service -> {
-                    appointment.setService(service);
-                    appointment.setServiceName(service.getName());
-                    appointment.setServicePrice(service.getPrice());
-                    appointment.setServiceDuration(service.getDurationMinutes());
-                });
-            }
-
-            // Snapshot del negocio
-            businessConfigRepo.findByUserId(business.getId()).ifPresent(config -> {
-                appointment.setBusinessName(config.getBusinessName());
+                // Notificación al admin tras el commit, en otro hilo
+                eventPublisher.publishEvent(new AppointmentCreatedEvent(savedAppointment.getId(), business.getId()));
+                return savedAppointment;
             });
-            // ========================================================
-
-            Appointment savedAppointment = appointmentRepo.save(appointment);
-
-            // Construir DTO con todos los datos antes de pasar al hilo async
-            BusinessConfig config = businessConfigRepo.findByUserId(business.getId()).orElse(null);
-            EmailAppointmentDto emailDto = config != null
-                    ? EmailAppointmentDto.from(savedAppointment, config)
-                    : EmailAppointmentDto.from(savedAppointment, business.getName());
-
-            // Enviar emails de confirmacion (async - no bloquea la respuesta)
-            try {
-                emailService.sendBookingConfirmation(emailDto);
-                boolean receiveNotifications = config != null && config.isReceiveEmailNotifications();
-                emailService.sendBusinessNotification(emailDto, receiveNotifications);
-            } catch (Exception e) {
-                log.error("Error enviando emails de confirmacion: {}", e.getMessage());
-            }
+        } finally {
+            unlock(lock, lockedAt, createLockHold, lockEvent, business.getId(), "create");
+        }
+    }
 
-            // Enviar confirmación por WhatsApp si está habilitado
-            if (config != null && config.isEnableWhatsappConfirmations()
-                    && clientPhone != null && !clientPhone.isBlank()
-                    && whatsAppService.isAvailable()) {
-                try {
-                    String formattedDateTime = date.format(java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy"))
-                            + " a las " + time.format(java.time.format.DateTimeFormatter.ofPattern("HH:mm"));
-                    whatsAppService.sendAppointmentConfirmation(
+    /**
+     * Mensajes al cliente y al negocio, en el outbox de la misma transacción que la cita:
+     * si la reserva hace rollback no sale ninguno, y si confirma OutboxDispatcher los entrega.
+     */
+    private void enqueueBookingMessages(Appointment savedAppointment, User business, BusinessConfig config) {
+        EmailAppointmentDto emailDto = config != null
+                ? EmailAppointmentDto.from(savedAppointment, config)
+                : EmailAppointmentDto.from(savedAppointment, business.getName());
+        Long appointmentId = savedAppointment.getId();
+
+        outboxService.enqueue(OutboxMessageType.BOOKING_CONFIRMATION_EMAIL, business.getId(),
+                "booking-confirmation:" + appointmentId, emailDto);
+        if (config != null && config.isReceiveEmailNotifications()) {
+            outboxService.enqueue(OutboxMessageType.BUSINESS_NOTIFICATION_EMAIL, business.getId(),
+                    "business-notification:" + appointmentId, emailDto);
+        }
+
+        // Confirmación por WhatsApp si está habilitado
+        String clientPhone = savedAppointment.getClientPhone();
+        if (config != null && config.isEnableWhatsappConfirmations()
+                && clientPhone != null && !clientPhone.isBlank()
+                && whatsAppService.isAvailable()) {
+            String formattedDateTime = savedAppointment.getDate().format(java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy"))
+                    + " a las " + savedAppointment.getTime().format(java.time.format.DateTimeFormatter.ofPattern("HH:mm"));
+            outboxService.enqueue(OutboxMessageType.WHATSAPP_CONFIRMATION, business.getId(),
+                    "whatsapp-confirmation:" + appointmentId,
+                    new WhatsAppConfirmationPayload(
                             clientPhone,
                             config.getBusinessName(),
                             savedAppointment.getServiceName(),
                             formattedDateTime,
-                            savedAppointment.getCancellationToken()
-                    );
-                    log.info("Confirmación WhatsApp enviada al cliente: {}", clientPhone);
-                } catch (Exception e) {
-                    log.warn("Error enviando WhatsApp de confirmacion: {}", e.getMessage());
-                }
-            }
+                            savedAppointment.getCancellationToken()));
+        }
+    }
 
-            // Crear notificacion para el admin
-            try {
-                notificationService.createNewBookingNotification(savedAppointment);
-            } catch (Exception e) {
-                log.error("Error creando notificacion: {}", e.getMessage());
-            }
+    private long lock(ReentrantLock lock, Timer waitTimer, BookingLockEvent event) {
+        int queued = lock.getQueueLength();
+        long start = System.nanoTime();
+        lock.lock();
+        long lockedAt = System.nanoTime();
+        waitTimer.record(lockedAt - start, TimeUnit.NANOSECONDS);
+        // El evento JFR cubre el tiempo retenido; la espera va como campo
+        event.begin();
+        event.waitTime = lockedAt - start;
+        event.queuedThreads = queued;
+        return lockedAt;
+    }
 
-            return savedAppointment;
-        } finally {
-            lock.unlock();
+    private void unlock(ReentrantLock lock, long lockedAt, Timer holdTimer,
+                        BookingLockEvent event, Long businessId, String operation) {
+        holdTimer.record(System.nanoTime() - lockedAt, TimeUnit.NANOSECONDS);
+        lock.unlock();
+        event.end();
+        if (event.shouldCommit()) {
+            event.businessId = businessId;
+            event.operation = operation;
+            event.commit();
         }
     }
 
@@ -197,14 +317,43 @@ public class AppointmentService {
     public boolean hasOverlappingAppointment(Long businessId, LocalDate date,
                                              LocalTime startTime, LocalTime endTime,
                                              Long excludeId) {
-        List<Appointment> existingAppointments = appointmentRepo
-                .findActiveAppointmentsByDateAndBusiness(businessId, date);
-
         // Obtener buffer time del negocio
         int bufferMinutes = businessConfigRepo.findByUserId(businessId)
                 .map(BusinessConfig::getBufferTimeMinutes)
                 .orElse(0);
+        return hasOverlappingAppointment(businessId, date, startTime, endTime, excludeId, bufferMinutes);
+    }
 
+    private boolean hasOverlappingAppointment(Long businessId, LocalDate date,
+                                              LocalTime startTime, LocalTime endTime,
+                                              Long excludeId, int bufferMinutes) {
+        long start = System.nanoTime();
+        OverlapCheckEvent event = new OverlapCheckEvent();
+        event.begin();
+        try {
+            List<Appointment> existingAppointments = appointmentRepo
+                    .findActiveAppointmentsByDateAndBusiness(businessId, date);
+
+            boolean overlap = overlapsAny(existingAppointments, startTime, endTime, bufferMinutes, excludeId);
+            event.appointmentsScanned = existingAppointments.size();
+            event.overlap = overlap;
+            return overlap;
+        } finally {
+            overlapCheckTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            event.end();
+            if (event.shouldCommit()) {
+                event.businessId = businessId;
+                event.date = date.toString();
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Parte en memoria de hasOverlappingAppointment (sin acceso a BD, ver OverlapDetectionBenchmark).
+     */
+    static boolean overlapsAny(List<Appointment> existingAppointments, LocalTime startTime, LocalTime endTime,
+                               int bufferMinutes, Long excludeId) {
         return existingAppointments.stream()
                 .filter(a -> excludeId == null || !a.getId().equals(excludeId))
                 .anyMatch(a -> {
@@ -224,8 +373,14 @@ public class AppointmentService {
 
     // Obtener todos los turnos de un negocio
     @Transactional(readOnly = true)
-    public List<Appointment> getAllByBusiness(User business) {
-        return appointmentRepo.findByBusinessId(business.getId());
+    public List<PublicSlotDto> getPublicSlots(Long businessId, Long excludeId) {
+        return appointmentRepo.findPublicSlots(businessId, LocalDate.now(), excludeId);
+    }
+
+    // Calendario del dashboard (rango visible)
+    @Transactional(readOnly = true)
+    public List<CalendarEventDto> getCalendarEvents(Long businessId, LocalDate start, LocalDate end) {
+        return appointmentRepo.findCalendarEvents(businessId, start, end);
     }
 
     @Transactional(readOnly = true)
@@ -241,8 +396,11 @@ public class AppointmentService {
         if (!appt.getBusiness().getId().equals(business.getId())) {
             throw new SecurityException("No tienes permiso");
         }
+        BusinessStatsService.StatsSnapshot before = BusinessStatsService.StatsSnapshot.of(appt);
         appt.setStatus(AppointmentStatus.CANCELLED);
         appointmentRepo.save(appt);
+        businessStatsService.recordChanged(before, appt);
+        clientService.recordChanged(before, appt);
 
         // Crear notificacion de cancelacion
         try {
@@ -265,8 +423,11 @@ public class AppointmentService {
             throw new IllegalStateException("No se puede cancelar un turno completado");
         }
 
+        BusinessStatsService.StatsSnapshot before = BusinessStatsService.StatsSnapshot.of(appt);
         appt.setStatus(AppointmentStatus.CANCELLED);
         appointmentRepo.save(appt);
+        businessStatsService.recordChanged(before, appt);
+        clientService.recordChanged(before, appt);
 
         try {
             notificationService.createCancellationNotification(appt);
@@ -284,38 +445,53 @@ public class AppointmentService {
                 .orElseThrow(() -> new RuntimeException("Turno no encontrado"));
     }
 
-    // Reagendar turno por token (cliente)
-    @Transactional
+    /**
+     * Reagenda el turno (cliente). Como en createAppointment, la transacción se abre con el lock
+     * del negocio ya tomado y confirma antes de soltarlo: la siguiente reserva o reagendado del
+     * negocio ve la nueva hora al comprobar solapamientos.
+     */
     public Appointment rescheduleByToken(String token, LocalDate newDate, LocalTime newTime) {
-        Appointment appt = appointmentRepo.findByCancellationToken(token)
+        // Fuera del lock solo se averigua de qué negocio es; el turno se relee y valida dentro
+        Long businessId = appointmentRepo.findByCancellationToken(token)
+                .map(appt -> appt.getBusiness().getId())
                 .orElseThrow(() -> new RuntimeException("Turno no encontrado"));
 
-        if (appt.getStatus() == AppointmentStatus.CANCELLED) {
-            throw new IllegalStateException("No se puede reagendar un turno cancelado");
-        }
-        if (appt.getStatus() == AppointmentStatus.COMPLETED) {
-            throw new IllegalStateException("No se puede reagendar un turno completado");
-        }
-
-        int duration = appt.getDuration() != null ? appt.getDuration() : 30;
-        LocalTime endTime = newTime.plusMinutes(duration);
-        Long businessId = appt.getBusiness().getId();
-
         ReentrantLock lock = businessLocks.computeIfAbsent(businessId, id -> new ReentrantLock());
-        lock.lock();
+        BookingLockEvent lockEvent = new BookingLockEvent();
+        long lockedAt = lock(lock, rescheduleLockWait, lockEvent);
         try {
-            if (blockedSlotService.isBlocked(businessId, newDate, newTime)) {
-                throw new IllegalStateException("Este horario no esta disponible (bloqueado)");
-            }
-            if (hasOverlappingAppointment(businessId, newDate, newTime, endTime, appt.getId())) {
-                throw new IllegalStateException("Este horario se solapa con otro turno existente");
-            }
+            return transactionTemplate.execute(status -> {
+                Appointment appt = appointmentRepo.findByCancellationToken(token)
+                        .orElseThrow(() -> new RuntimeException("Turno no encontrado"));
+
+                if (appt.getStatus() == AppointmentStatus.CANCELLED) {
+                    throw new IllegalStateException("No se puede reagendar un turno cancelado");
+                }
+                if (appt.getStatus() == AppointmentStatus.COMPLETED) {
+                    throw new IllegalStateException("No se puede reagendar un turno completado");
+                }
+
+                int duration = appt.getDuration() != null ? appt.getDuration() : 30;
+                LocalTime endTime = newTime.plusMinutes(duration);
 
-            appt.setDate(newDate);
-            appt.setTime(newTime);
-            return appointmentRepo.save(appt);
+                if (blockedSlotService.isBlocked(businessId, newDate, newTime)) {
+                    throw new IllegalStateException("Este horario no esta disponible (bloqueado)");
+                }
+                if (hasOverlappingAppointment(businessId, newDate, newTime, endTime, appt.getId())) {
+                    throw new IllegalStateException("Este horario se solapa con otro turno existente");
+                }
+
+                BusinessStatsService.StatsSnapshot before = BusinessStatsService.StatsSnapshot.of(appt);
+                appt.setDate(newDate);
+                appt.setTime(newTime);
+                rescheduleReminders(appt, businessId);
+                Appointment saved = appointmentRepo.save(appt);
+                businessStatsService.recordChanged(before, saved);
+                clientService.recordChanged(before, saved);
+                return saved;
+            });
         } finally {
-            lock.unlock();
+            unlock(lock, lockedAt, rescheduleLockHold, lockEvent, businessId, "reschedule");
         }
     }
 
@@ -330,6 +506,8 @@ public class AppointmentService {
             throw new SecurityException("No tienes permiso");
         }
 
+        BusinessStatsService.StatsSnapshot before = BusinessStatsService.StatsSnapshot.of(appt);
+
         // Validar solapamiento si cambió fecha/hora
         if (!appt.getDate().equals(date) || !appt.getTime().equals(time)) {
             int duration = appt.getDuration() != null ? appt.getDuration() : 30;
@@ -341,6 +519,7 @@ public class AppointmentService {
 
             appt.setDate(date);
             appt.setTime(time);
+            rescheduleReminders(appt, business.getId());
         }
 
         if (serviceId != null && (appt.getService() == null || !appt.getService().getId().equals(serviceId))) {
@@ -353,13 +532,28 @@ public class AppointmentService {
         appt.setNotes(notes);
         appt.setInternalNotes(internalNotes);
 
-        return appointmentRepo.save(appt);
+        Appointment saved = appointmentRepo.save(appt);
+        businessStatsService.recordChanged(before, saved);
+        clientService.recordChanged(before, saved);
+        return saved;
+    }
+
+    /**
+     * Tras cambiar fecha/hora el recordatorio vuelve a quedar pendiente para el nuevo momento.
+     */
+    private void rescheduleReminders(Appointment appt, Long businessId) {
+        appt.setReminderSent(false);
+        appt.setWhatsappReminderSent(false);
+        reminderScheduleService.apply(appt, businessConfigRepo.findByUserId(businessId).orElse(null));
     }
 
     // Historial de cliente (admin)
     @Transactional(readOnly = true)
-    public List<Appointment> getClientHistory(User business, String search) {
-        return appointmentRepo.findByClientSearch(business.getId(), search);
+    public Page<Appointment> getClientHistory(User business, Collection<Long> clientIds, Pageable pageable) {
+        if (clientIds.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        return appointmentRepo.findClientHistory(business.getId(), clientIds, pageable);
     }
 
     /**
@@ -385,8 +579,11 @@ public class AppointmentService {
                             newStatus.getDisplayName("es")));
         }
 
+        BusinessStatsService.StatsSnapshot before = BusinessStatsService.StatsSnapshot.of(appointment);
         appointment.setStatus(newStatus);
         Appointment saved = appointmentRepo.save(appointment);
+        businessStatsService.recordChanged(before, saved);
+        clientService.recordChanged(before, saved);
 
         log.info("Estado actualizado - Turno ID: {} | {} -> {}",
                 appointmentId,
@@ -6,6 +6,7 @@ import com.turnofacil.exception.ResourceNotFoundException;
 import com.turnofacil.model.BlockedSlot;
 import com.turnofacil.model.User;
 import com.turnofacil.model.enums.BlockedSlotType;
+import com.turnofacil.monitoring.jfr.BlockedSlotCheckEvent;
 import com.turnofacil.repository.BlockedSlotRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -44,7 +45,16 @@ public class BlockedSlotService {
 
     @Transactional(readOnly = true)
     public boolean isBlocked(Long businessId, LocalDate date, LocalTime time) {
+        BlockedSlotCheckEvent event = new BlockedSlotCheckEvent();
+        event.begin();
         List<BlockedSlot> conflicts = blockedSlotRepository.findConflictingBlocks(businessId, date, time);
+        event.end();
+        if (event.shouldCommit()) {
+            event.businessId = businessId;
+            event.date = date.toString();
+            event.blocked = !conflicts.isEmpty();
+            event.commit();
+        }
         return !conflicts.isEmpty();
     }
 
@@ -7,15 +7,19 @@ import com.turnofacil.util.SlugUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
 public class BusinessConfigService {
 
     private final BusinessConfigRepository configRepo;
+    private final ReminderScheduleService reminderScheduleService;
 
-    public BusinessConfigService(BusinessConfigRepository configRepo) {
+    public BusinessConfigService(BusinessConfigRepository configRepo,
+                                 ReminderScheduleService reminderScheduleService) {
         this.configRepo = configRepo;
+        this.reminderScheduleService = reminderScheduleService;
     }
 
     @Transactional
@@ -54,6 +58,9 @@ public class BusinessConfigService {
     @Transactional
     public BusinessConfig updateConfig(Long userId, BusinessConfig updatedConfig) {
         BusinessConfig existing = getByUserId(userId);
+        boolean remindersChanged = existing.isEnableReminders() != updatedConfig.isEnableReminders()
+                || existing.getReminderHoursBefore() != updatedConfig.getReminderHoursBefore()
+                || !Objects.equals(existing.getTimezone(), updatedConfig.getTimezone());
 
         existing.setBusinessName(updatedConfig.getBusinessName());
         existing.setOpeningTime(updatedConfig.getOpeningTime());
@@ -83,7 +90,11 @@ public class BusinessConfigService {
         existing.setBackgroundColor(updatedConfig.getBackgroundColor());
         existing.setTextColor(updatedConfig.getTextColor());
 
-        return configRepo.save(existing);
+        BusinessConfig saved = configRepo.save(existing);
+        if (remindersChanged) {
+            reminderScheduleService.recomputeForBusiness(userId);
+        }
+        return saved;
     }
 
     /**
@@ -0,0 +1,188 @@
+package com.turnofacil.service;
+
+import com.turnofacil.dto.BusinessStatsTotals;
+import com.turnofacil.model.Appointment;
+import com.turnofacil.model.BusinessDailyStats;
+import com.turnofacil.model.enums.AppointmentStatus;
+import com.turnofacil.repository.BusinessDailyStatsRepository;
+import com.turnofacil.scheduler.cluster.ClusterJob;
+import com.turnofacil.scheduler.cluster.JobRunContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Mantiene el rollup diario BUSINESS_DAILY_STATS.
+ * AppointmentService registra cada alta o cambio de una cita dentro de la misma transacción
+ * que la escribe (el alta incluida, bajo el lock del negocio), de modo que el rollup nunca
+ * diverge de APPOINTMENTS tras un commit.
+ * La reconstrucción nocturna corrige cualquier deriva (cargas manuales, borrados).
+ */
+@Service
+public class BusinessStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(BusinessStatsService.class);
+
+    private final BusinessDailyStatsRepository statsRepo;
+    private final TransactionTemplate transactionTemplate;
+
+    public BusinessStatsService(BusinessDailyStatsRepository statsRepo,
+                                PlatformTransactionManager transactionManager) {
+        this.statsRepo = statsRepo;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // ==================== MANTENIMIENTO INCREMENTAL ====================
+
+    /**
+     * Registra una cita recién creada.
+     */
+    @Transactional
+    public void recordCreated(Appointment appointment) {
+        apply(appointment.getBusiness().getId(), StatsSnapshot.of(appointment), 1);
+    }
+
+    /**
+     * Registra un cambio de estado, fecha o duración.
+     * Resta la contribución anterior y suma la nueva; no hace nada si no cambió nada relevante.
+     */
+    @Transactional
+    public void recordChanged(StatsSnapshot before, Appointment after) {
+        StatsSnapshot now = StatsSnapshot.of(after);
+        if (before.equals(now)) {
+            return;
+        }
+        Long businessId = after.getBusiness().getId();
+        apply(businessId, before, -1);
+        apply(businessId, now, 1);
+    }
+
+    private void apply(Long businessId, StatsSnapshot snapshot, int sign) {
+        AppointmentStatus status = snapshot.status() != null ? snapshot.status() : AppointmentStatus.PENDING;
+        int minutes = status != AppointmentStatus.CANCELLED ? snapshot.duration() : 0;
+        BigDecimal revenue = status == AppointmentStatus.COMPLETED && snapshot.price() != null
+                ? snapshot.price()
+                : BigDecimal.ZERO;
+
+        statsRepo.applyDelta(
+                businessId,
+                snapshot.date(),
+                sign,
+                status == AppointmentStatus.PENDING ? sign : 0,
+                status == AppointmentStatus.CONFIRMED ? sign : 0,
+                status == AppointmentStatus.CANCELLED ? sign : 0,
+                status == AppointmentStatus.COMPLETED ? sign : 0,
+                status == AppointmentStatus.NO_SHOW ? sign : 0,
+                sign * minutes,
+                sign > 0 ? revenue : revenue.negate()
+        );
+    }
+
+    // ==================== LECTURAS ====================
+
+    @Transactional(readOnly = true)
+    public List<BusinessDailyStats> getDailyStats(Long businessId, LocalDate start, LocalDate end) {
+        return statsRepo.findByBusinessIdAndStatDateBetweenOrderByStatDateAsc(businessId, start, end);
+    }
+
+    @Transactional(readOnly = true)
+    public long countBetween(Long businessId, LocalDate start, LocalDate end) {
+        return statsRepo.sumTotalBetween(businessId, start, end);
+    }
+
+    @Transactional(readOnly = true)
+    public long countFrom(Long businessId, LocalDate start) {
+        return statsRepo.sumTotalFrom(businessId, start);
+    }
+
+    @Transactional(readOnly = true)
+    public long countByBusiness(Long businessId) {
+        return statsRepo.sumTotalByBusinessId(businessId);
+    }
+
+    @Transactional(readOnly = true)
+    public long countAll() {
+        return statsRepo.sumTotal();
+    }
+
+    @Transactional(readOnly = true)
+    public BusinessStatsTotals getTotals(Long businessId) {
+        BusinessStatsTotals totals = statsRepo.totalsByBusinessId(businessId);
+        return totals != null ? totals : BusinessStatsTotals.empty();
+    }
+
+    @Transactional(readOnly = true)
+    public BusinessStatsTotals getTotalsBefore(Long businessId, LocalDate before) {
+        BusinessStatsTotals totals = statsRepo.totalsBefore(businessId, before);
+        return totals != null ? totals : BusinessStatsTotals.empty();
+    }
+
+    // ==================== RECONSTRUCCIÓN ====================
+
+    /**
+     * Recalcula el rollup de un negocio desde APPOINTMENTS.
+     */
+    @Transactional
+    public int rebuildBusiness(Long businessId) {
+        statsRepo.deleteByBusinessId(businessId);
+        return statsRepo.rebuildForBusiness(businessId);
+    }
+
+    /**
+     * Scheduler diario: reconstruye el rollup de todos los negocios.
+     * Cada negocio se procesa en su propia transacción para no retener locks largos.
+     */
+    @ClusterJob("business-stats-rebuild")
+    @Scheduled(cron = "0 30 3 * * *") // 3:30am diario
+    public void rebuildAll() {
+        List<Long> businessIds = statsRepo.findBusinessIdsWithAppointments();
+        int rows = 0;
+        int failures = 0;
+
+        for (Long businessId : businessIds) {
+            try {
+                Integer rebuilt = transactionTemplate.execute(status -> {
+                    statsRepo.deleteByBusinessId(businessId);
+                    return statsRepo.rebuildForBusiness(businessId);
+                });
+                rows += rebuilt != null ? rebuilt : 0;
+            } catch (Exception e) {
+                failures++;
+                log.error("Error reconstruyendo estadisticas del negocio {}: {}", businessId, e.getMessage());
+            }
+        }
+
+        JobRunContext.addProcessed(businessIds.size() - failures);
+        JobRunContext.addFailures(failures);
+        log.info("Estadisticas diarias reconstruidas - Negocios: {} | Filas: {} | Errores: {}",
+                businessIds.size(), rows, failures);
+    }
+
+    /**
+     * Valores de una cita que afectan al rollup.
+     * Se captura antes de modificar la cita para poder restar su contribución anterior.
+     */
+    public record StatsSnapshot(
+            LocalDate date,
+            AppointmentStatus status,
+            int duration,
+            BigDecimal price
+    ) {
+        public static StatsSnapshot of(Appointment appointment) {
+            return new StatsSnapshot(
+                    appointment.getDate(),
+                    appointment.getStatus(),
+                    appointment.getDuration() != null ? appointment.getDuration() : 0,
+                    appointment.getServicePrice()
+            );
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.turnofacil.service;
+
+import com.turnofacil.model.Appointment;
+import com.turnofacil.model.Client;
+import com.turnofacil.model.enums.AppointmentStatus;
+import com.turnofacil.repository.ClientRepository;
+import com.turnofacil.service.BusinessStatsService.StatsSnapshot;
+import com.turnofacil.util.ClientNormalizer;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * Mantiene la tabla CLIENTS.
+ * AppointmentService registra cada alta o cambio de una cita dentro de su propia
+ * transacción, igual que con BusinessStatsService.
+ */
+@Service
+public class ClientService {
+
+    // Solo caracteres típicos de un teléfono (dígitos, +, paréntesis, espacios, puntos, guiones)
+    private static final Pattern PHONE_SEARCH = Pattern.compile("^[0-9+()\\s.-]*[0-9][0-9+()\\s.-]*$");
+    // Operadores del modo booleano de FULLTEXT
+    private static final Pattern FULLTEXT_OPERATORS = Pattern.compile("[\"+\\-<>()~*@]");
+    // Tamaño de token del parser ngram de MySQL (ngram_token_size por defecto)
+    private static final int NGRAM_TOKEN_SIZE = 2;
+
+    private final ClientRepository clientRepo;
+
+    public ClientService(ClientRepository clientRepo) {
+        this.clientRepo = clientRepo;
+    }
+
+    // ==================== MANTENIMIENTO INCREMENTAL ====================
+
+    /**
+     * Registra una cita recién creada y la vincula a su cliente.
+     */
+    @Transactional
+    public void recordCreated(Appointment appointment) {
+        Long businessId = appointment.getBusiness().getId();
+        String clientKey = ClientNormalizer.clientKey(
+                appointment.getClientName(), appointment.getClientPhone(), appointment.getClientEmail());
+        AppointmentStatus status = appointment.getStatus();
+
+        clientRepo.upsertVisit(
+                businessId,
+                clientKey,
+                blankToNull(appointment.getClientName()),
+                blankToNull(appointment.getClientPhone()),
+                blankToNull(appointment.getClientEmail()),
+                ClientNormalizer.normalizePhone(appointment.getClientPhone()),
+                ClientNormalizer.nationalPhone(appointment.getClientPhone()),
+                ClientNormalizer.reversedPhone(appointment.getClientPhone()),
+                ClientNormalizer.normalizeEmail(appointment.getClientEmail()),
+                ClientNormalizer.normalizeName(appointment.getClientName()),
+                status == AppointmentStatus.COMPLETED ? 1 : 0,
+                status == AppointmentStatus.CANCELLED ? 1 : 0,
+                status == AppointmentStatus.NO_SHOW ? 1 : 0,
+                appointment.getDate()
+        );
+        appointment.setClientId(clientRepo.findIdByBusinessIdAndClientKey(businessId, clientKey));
+    }
+
+    /**
+     * Registra un cambio de estado o de fecha de una cita ya vinculada.
+     */
+    @Transactional
+    public void recordChanged(StatsSnapshot before, Appointment after) {
+        if (after.getClientId() == null) {
+            // Cita sin cliente (no debería ocurrir tras el backfill): se cuenta como nueva
+            recordCreated(after);
+            return;
+        }
+
+        AppointmentStatus oldStatus = before.status();
+        AppointmentStatus newStatus = after.getStatus();
+        if (oldStatus != newStatus) {
+            clientRepo.applyStatusDelta(
+                    after.getClientId(),
+                    delta(oldStatus, newStatus, AppointmentStatus.COMPLETED),
+                    delta(oldStatus, newStatus, AppointmentStatus.CANCELLED),
+                    delta(oldStatus, newStatus, AppointmentStatus.NO_SHOW)
+            );
+        }
+        if (!Objects.equals(before.date(), after.getDate())) {
+            clientRepo.refreshVisitDates(after.getClientId());
+        }
+    }
+
+    private int delta(AppointmentStatus oldStatus, AppointmentStatus newStatus, AppointmentStatus counted) {
+        return (newStatus == counted ? 1 : 0) - (oldStatus == counted ? 1 : 0);
+    }
+
+    private String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    // ==================== LECTURAS ====================
+
+    @Transactional(readOnly = true)
+    public List<Client> getRecentClients(Long businessId) {
+        return clientRepo.findTop10ByBusinessIdOrderByLastVisitDesc(businessId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Client> getTopClients(Long businessId) {
+        return clientRepo.findTop5ByBusinessIdOrderByTotalAppointmentsDesc(businessId);
+    }
+
+    /**
+     * Busca clientes por teléfono, email o nombre usando el índice adecuado a cada caso:
+     * para teléfonos, prefijo del número completo o del nacional (así "600123" encuentra
+     * "+34 600 123 456") y últimos dígitos; prefijo de email si contiene '@' y subcadena
+     * (FULLTEXT ngram) sobre nombre y email en otro caso.
+     */
+    @Transactional(readOnly = true)
+    public Page<Client> search(Long businessId, String search, Pageable pageable) {
+        String term = search != null ? search.trim() : "";
+        if (term.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        String digits = ClientNormalizer.normalizePhone(term);
+        if (digits != null && digits.length() >= 3 && PHONE_SEARCH.matcher(term).matches()) {
+            return clientRepo.searchByPhone(businessId, digits,
+                    ClientNormalizer.nationalPhone(term), ClientNormalizer.reversedPhone(term), pageable);
+        }
+
+        if (term.contains("@")) {
+            return clientRepo.searchByEmailPrefix(businessId, ClientNormalizer.normalizeEmail(term), pageable);
+        }
+
+        String name = ClientNormalizer.normalizeName(FULLTEXT_OPERATORS.matcher(term).replaceAll(" "));
+        if (name == null) {
+            return Page.empty(pageable);
+        }
+        if (name.length() < NGRAM_TOKEN_SIZE) {
+            return clientRepo.searchByNamePrefix(businessId, name, pageable);
+        }
+        return clientRepo.searchByText(businessId, "\"" + name + "\"", pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public long countByBusiness(Long businessId) {
+        return clientRepo.countByBusinessId(businessId);
+    }
+}
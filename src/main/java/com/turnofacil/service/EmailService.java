@@ -1,20 +1,35 @@
 package com.turnofacil.service;
 
 import com.turnofacil.dto.EmailAppointmentDto;
+import com.turnofacil.dto.TrialEmailRecipient;
+import com.turnofacil.monitoring.jfr.OutboundCallEvent;
+import com.turnofacil.service.mail.DeliveryOutcome;
+import com.turnofacil.service.mail.EmailTemplateRenderer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
 import jakarta.mail.internet.MimeMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
 
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
 
 @Service
 public class EmailService {
@@ -23,6 +38,8 @@ public class EmailService {
 
     private final JavaMailSender mailSender;
     private final TemplateEngine templateEngine;
+    private final EmailTemplateRenderer templateRenderer;
+    private final MeterRegistry meterRegistry;
 
     @Value("${spring.mail.username:}")
     private String fromEmail;
@@ -37,13 +54,19 @@ public class EmailService {
     private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
 
     public EmailService(JavaMailSender mailSender,
-                        TemplateEngine templateEngine) {
+                        TemplateEngine templateEngine,
+                        EmailTemplateRenderer templateRenderer,
+                        MeterRegistry meterRegistry) {
         this.mailSender = mailSender;
         this.templateEngine = templateEngine;
+        this.templateRenderer = templateRenderer;
+        this.meterRegistry = meterRegistry;
     }
 
-    @Async
-    public void sendBookingConfirmation(EmailAppointmentDto dto) {
+    /**
+     * Confirmación al cliente. Síncrono: lo llama OutboxDispatcher, que reintenta si lanza.
+     */
+    public void sendBookingConfirmation(EmailAppointmentDto dto) throws MessagingException {
         if (!emailEnabled || fromEmail == null || fromEmail.isBlank()) {
             log.info("Email de confirmacion no enviado - Email deshabilitado o remitente no configurado");
             return;
@@ -53,164 +76,266 @@ public class EmailService {
             return;
         }
 
-        try {
-            Context context = new Context();
-            context.setVariable("businessName", dto.businessName());
-            context.setVariable("clientName", dto.clientName());
-            context.setVariable("date", dto.date().format(DATE_FORMATTER));
-            context.setVariable("time", dto.time().format(TIME_FORMATTER));
-            context.setVariable("duration", dto.duration());
-            context.setVariable("notes", dto.notes());
-            context.setVariable("businessPhone", dto.businessPhone());
-            context.setVariable("businessEmail", dto.businessEmail());
-
-            // Link de cancelación
-            if (dto.cancellationToken() != null) {
-                String cancelUrl = baseUrl + "/public/appointment/" + dto.cancellationToken();
-                context.setVariable("manageUrl", cancelUrl);
-            }
+        Map<String, Object> recipient = appointmentVars(dto);
+        recipient.put("clientName", dto.clientName());
+        recipient.put("notes", dto.notes());
+        // Link de cancelación
+        recipient.put("manageUrl", dto.cancellationToken() != null
+                ? baseUrl + "/public/appointment/" + dto.cancellationToken()
+                : null);
 
-            String htmlContent = templateEngine.process("email/booking-confirmation", context);
+        String htmlContent = templateRenderer.render("email/booking-confirmation", businessVars(dto), recipient);
 
-            sendHtmlEmail(
-                    dto.clientEmail(),
-                    "Confirmacion de tu turno en " + dto.businessName(),
-                    htmlContent
-            );
+        sendHtmlEmail("booking-confirmation",
+                dto.clientEmail(),
+                "Confirmacion de tu turno en " + dto.businessName(),
+                htmlContent
+        );
 
-            log.info("Email de confirmacion enviado a {}", dto.clientEmail());
-
-        } catch (Exception e) {
-            log.error("Error al enviar email de confirmacion: {}", e.getMessage(), e);
-        }
+        log.info("Email de confirmacion enviado a {}", dto.clientEmail());
     }
 
-    @Async
-    public void sendBusinessNotification(EmailAppointmentDto dto, boolean receiveEmailNotifications) {
+    /**
+     * Aviso de nueva reserva al negocio. Solo se encola si el negocio tiene activadas
+     * las notificaciones por email; síncrono como sendBookingConfirmation.
+     */
+    public void sendBusinessNotification(EmailAppointmentDto dto) throws MessagingException {
         if (!emailEnabled) {
             log.info("Email de notificacion no enviado - Email deshabilitado globalmente");
             return;
         }
 
-        if (!receiveEmailNotifications) {
-            log.info("Email de notificacion no enviado - Negocio tiene notificaciones desactivadas");
-            return;
-        }
+        Map<String, Object> recipient = appointmentVars(dto);
+        recipient.put("clientName", dto.clientName());
+        recipient.put("clientPhone", dto.clientPhone());
+        recipient.put("clientEmail", dto.clientEmail());
+        recipient.put("notes", dto.notes());
 
-        try {
-            Context context = new Context();
-            context.setVariable("businessName", dto.businessName());
-            context.setVariable("clientName", dto.clientName());
-            context.setVariable("clientPhone", dto.clientPhone());
-            context.setVariable("clientEmail", dto.clientEmail());
-            context.setVariable("date", dto.date().format(DATE_FORMATTER));
-            context.setVariable("time", dto.time().format(TIME_FORMATTER));
-            context.setVariable("duration", dto.duration());
-            context.setVariable("notes", dto.notes());
-
-            String htmlContent = templateEngine.process("email/business-notification", context);
-
-            sendHtmlEmail(
-                    dto.businessEmail(),
-                    "Nueva reserva: " + dto.clientName() + " - " + dto.date(),
-                    htmlContent
-            );
-
-            log.info("Email de notificacion enviado al negocio {}", dto.businessEmail());
-
-        } catch (Exception e) {
-            log.error("Error al enviar email de notificacion al negocio: {}", e.getMessage(), e);
-        }
+        String htmlContent = templateRenderer.render("email/business-notification", businessVars(dto), recipient);
+
+        sendHtmlEmail("business-notification",
+                dto.businessEmail(),
+                "Nueva reserva: " + dto.clientName() + " - " + dto.date(),
+                htmlContent
+        );
+
+        log.info("Email de notificacion enviado al negocio {}", dto.businessEmail());
     }
 
-    @Async
-    public void sendReminder(EmailAppointmentDto dto) {
-        if (!emailEnabled || dto.clientEmail() == null || dto.clientEmail().isBlank()) {
-            log.info("Recordatorio no enviado - Email deshabilitado o cliente sin email");
-            return;
-        }
+    /**
+     * Recordatorios en lote por una misma conexión SMTP (ver sendEach). Devuelve, en el
+     * orden recibido, el resultado de cada uno; ReminderScheduler reintenta los RETRY.
+     */
+    public List<DeliveryOutcome> sendReminders(List<EmailAppointmentDto> dtos) {
+        return sendEach("reminder", dtos, EmailAppointmentDto::clientEmail,
+                dto -> createHtmlMessage(dto.clientEmail(), reminderSubject(dto), renderReminder(dto)));
+    }
 
-        try {
-            Context context = new Context();
-            context.setVariable("businessName", dto.businessName());
-            context.setVariable("clientName", dto.clientName());
-            context.setVariable("date", dto.date().format(DATE_FORMATTER));
-            context.setVariable("time", dto.time().format(TIME_FORMATTER));
-            context.setVariable("duration", dto.duration());
-            context.setVariable("businessPhone", dto.businessPhone());
-            context.setVariable("businessEmail", dto.businessEmail());
-
-            String htmlContent = templateEngine.process("email/reminder", context);
-
-            sendHtmlEmail(
-                    dto.clientEmail(),
-                    "Recordatorio: Tu turno en " + dto.businessName() + " es pronto",
-                    htmlContent
-            );
-
-            log.info("Recordatorio enviado a {}", dto.clientEmail());
-
-        } catch (Exception e) {
-            log.error("Error al enviar recordatorio: {}", e.getMessage(), e);
-        }
+    private String renderReminder(EmailAppointmentDto dto) {
+        Map<String, Object> recipient = appointmentVars(dto);
+        recipient.put("clientName", dto.clientName());
+        return templateRenderer.render("email/reminder", businessVars(dto), recipient);
+    }
+
+    /**
+     * Parte común a todos los emails del negocio (cabecera y bloque de contacto), que
+     * EmailTemplateRenderer deja ya resuelta en la plantilla.
+     */
+    private static Map<String, Object> businessVars(EmailAppointmentDto dto) {
+        Map<String, Object> vars = new HashMap<>();
+        vars.put("businessName", dto.businessName());
+        vars.put("businessPhone", dto.businessPhone());
+        vars.put("businessEmail", dto.businessEmail());
+        return vars;
+    }
+
+    private static Map<String, Object> appointmentVars(EmailAppointmentDto dto) {
+        Map<String, Object> vars = new HashMap<>();
+        vars.put("date", dto.date().format(DATE_FORMATTER));
+        vars.put("time", dto.time().format(TIME_FORMATTER));
+        vars.put("duration", dto.duration());
+        return vars;
+    }
+
+    private static String reminderSubject(EmailAppointmentDto dto) {
+        return "Recordatorio: Tu turno en " + dto.businessName() + " es pronto";
     }
 
     // ==================== ONBOARDING EMAILS ====================
 
-    @Async
-    public void sendWelcomeEmail(String toEmail, String businessName) {
+    /**
+     * Bienvenida tras el registro, entregada por OutboxDispatcher (síncrono).
+     */
+    public void sendWelcomeEmail(String toEmail, String businessName) throws MessagingException {
         if (!emailEnabled || fromEmail == null || fromEmail.isBlank()) return;
 
-        try {
-            Context context = new Context(new Locale("es", "ES"));
-            context.setVariable("businessName", businessName);
-            context.setVariable("baseUrl", baseUrl);
-            context.setVariable("billingUrl", baseUrl + "/admin/billing");
+        Context context = new Context(new Locale("es", "ES"));
+        context.setVariable("businessName", businessName);
+        context.setVariable("baseUrl", baseUrl);
+        context.setVariable("billingUrl", baseUrl + "/admin/billing");
 
-            String htmlContent = templateEngine.process("email/welcome", context);
-            sendHtmlEmail(toEmail, "Bienvenido a TurnoFácil, " + businessName, htmlContent);
-            log.info("Email de bienvenida enviado a {}", toEmail);
-        } catch (Exception e) {
-            log.error("Error al enviar email de bienvenida: {}", e.getMessage());
-        }
+        String htmlContent = templateEngine.process("email/welcome", context);
+        sendHtmlEmail("welcome", toEmail, "Bienvenido a TurnoFácil, " + businessName, htmlContent);
+        log.info("Email de bienvenida enviado a {}", toEmail);
     }
 
-    @Async
-    public void sendTrialEndingEmail(String toEmail, String businessName, int daysLeft) {
-        if (!emailEnabled || fromEmail == null || fromEmail.isBlank()) return;
-
-        try {
+    /**
+     * Aviso "tu prueba termina en daysLeft días" a un lote de negocios, con un único envío
+     * SMTP como sendReminders. Lo reparte en lotes BatchDispatcher desde OnboardingScheduler.
+     */
+    public List<Boolean> sendTrialEndingEmails(List<TrialEmailRecipient> recipients, int daysLeft) {
+        if (fromEmail == null || fromEmail.isBlank()) {
+            return Collections.nCopies(recipients.size(), true);
+        }
+        return sent(sendEach("trial-ending", recipients, TrialEmailRecipient::email, recipient -> {
             Context context = new Context(new Locale("es", "ES"));
-            context.setVariable("businessName", businessName);
+            context.setVariable("businessName", recipient.businessName());
             context.setVariable("daysLeft", daysLeft);
             context.setVariable("billingUrl", baseUrl + "/admin/billing");
+            return createHtmlMessage(recipient.email(),
+                    recipient.businessName() + ", tu prueba gratuita termina en " + daysLeft + " días",
+                    templateEngine.process("email/trial-ending", context));
+        }));
+    }
 
-            String htmlContent = templateEngine.process("email/trial-ending", context);
-            sendHtmlEmail(toEmail, businessName + ", tu prueba gratuita termina en " + daysLeft + " días", htmlContent);
-            log.info("Email trial ending enviado a {} ({} días)", toEmail, daysLeft);
-        } catch (Exception e) {
-            log.error("Error al enviar email trial ending: {}", e.getMessage());
+    /**
+     * Aviso "tu prueba ha terminado" a un lote de negocios; ver sendTrialEndingEmails.
+     */
+    public List<Boolean> sendTrialExpiredEmails(List<TrialEmailRecipient> recipients) {
+        if (fromEmail == null || fromEmail.isBlank()) {
+            return Collections.nCopies(recipients.size(), true);
         }
+        return sent(sendEach("trial-expired", recipients, TrialEmailRecipient::email, recipient -> {
+            Context context = new Context(new Locale("es", "ES"));
+            context.setVariable("businessName", recipient.businessName());
+            context.setVariable("billingUrl", baseUrl + "/admin/billing");
+            return createHtmlMessage(recipient.email(),
+                    recipient.businessName() + ", tu prueba gratuita ha terminado",
+                    templateEngine.process("email/trial-expired", context));
+        }));
     }
 
-    @Async
-    public void sendTrialExpiredEmail(String toEmail, String businessName) {
-        if (!emailEnabled || fromEmail == null || fromEmail.isBlank()) return;
+    /**
+     * Envía un email por elemento en un único mailSender.send(...), para que viajen por la
+     * misma conexión SMTP (ver PooledJavaMailSender). Devuelve, en el orden recibido, el
+     * resultado de cada uno; con el email deshabilitado o sin dirección no hay nada que enviar
+     * y cuenta como enviado. Un mensaje que no se puede construir (dirección mal formada) es
+     * un rechazo permanente.
+     */
+    private <T> List<DeliveryOutcome> sendEach(String type, List<T> items, Function<T, String> recipient,
+                                               MessageBuilder<T> builder) {
+        DeliveryOutcome[] delivered = new DeliveryOutcome[items.size()];
+        List<MimeMessage> messages = new ArrayList<>(items.size());
+        List<Integer> positions = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            T item = items.get(i);
+            String to = recipient.apply(item);
+            if (!emailEnabled || to == null || to.isBlank()) {
+                delivered[i] = DeliveryOutcome.SENT;
+                continue;
+            }
+            try {
+                messages.add(builder.build(item));
+                positions.add(i);
+            } catch (MessagingException e) {
+                log.error("Email {} no enviado a {}: {}", type, to, e.getMessage());
+                delivered[i] = DeliveryOutcome.REJECTED;
+            }
+        }
+        if (messages.isEmpty()) {
+            return Arrays.asList(delivered);
+        }
 
+        Map<Object, DeliveryOutcome> failed = sendBatch(type, messages);
+        for (int j = 0; j < messages.size(); j++) {
+            delivered[positions.get(j)] = failed.getOrDefault(messages.get(j), DeliveryOutcome.SENT);
+        }
+        log.info("Lote de emails {}: {} enviados, {} fallidos", type, messages.size() - failed.size(), failed.size());
+        return Arrays.asList(delivered);
+    }
+
+    private static List<Boolean> sent(List<DeliveryOutcome> outcomes) {
+        return outcomes.stream().map(DeliveryOutcome::sent).toList();
+    }
+
+    @FunctionalInterface
+    private interface MessageBuilder<T> {
+        MimeMessage build(T item) throws MessagingException;
+    }
+
+    /**
+     * Envía por SMTP midiendo latencia y errores por tipo de email (turnofacil.email.send).
+     */
+    private void sendHtmlEmail(String type, String to, String subject, String htmlContent) throws MessagingException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        OutboundCallEvent event = new OutboundCallEvent("smtp", type);
+        event.begin();
+        String outcome = "error";
         try {
-            Context context = new Context(new Locale("es", "ES"));
-            context.setVariable("businessName", businessName);
-            context.setVariable("billingUrl", baseUrl + "/admin/billing");
+            mailSender.send(createHtmlMessage(to, subject, htmlContent));
+            outcome = "success";
+        } finally {
+            sample.stop(meterRegistry.timer("turnofacil.email.send", "type", type, "outcome", outcome));
+            event.success = "success".equals(outcome);
+            event.commit();
+        }
+    }
 
-            String htmlContent = templateEngine.process("email/trial-expired", context);
-            sendHtmlEmail(toEmail, businessName + ", tu prueba gratuita ha terminado", htmlContent);
-            log.info("Email trial expired enviado a {}", toEmail);
-        } catch (Exception e) {
-            log.error("Error al enviar email trial expired: {}", e.getMessage());
+    /**
+     * Envía los mensajes en una sola llamada y devuelve los que fallaron con su resultado.
+     * Si el envío falla entero (sin conexión libre, servidor caído) se dan todos por fallidos
+     * y reintentables; un destinatario que el servidor rechaza (SendFailedException con
+     * direcciones inválidas, p. ej. 550) no se reintenta.
+     */
+    private Map<Object, DeliveryOutcome> sendBatch(String type, List<MimeMessage> messages) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        OutboundCallEvent event = new OutboundCallEvent("smtp", type + "-batch");
+        event.begin();
+        Map<Object, DeliveryOutcome> failed = Map.of();
+        try {
+            mailSender.send(messages.toArray(MimeMessage[]::new));
+        } catch (MailSendException e) {
+            failed = new HashMap<>();
+            if (e.getFailedMessages().isEmpty()) {
+                for (MimeMessage message : messages) {
+                    failed.put(message, DeliveryOutcome.RETRY);
+                }
+            } else {
+                for (Map.Entry<Object, Exception> entry : e.getFailedMessages().entrySet()) {
+                    failed.put(entry.getKey(), permanent(entry.getValue())
+                            ? DeliveryOutcome.REJECTED : DeliveryOutcome.RETRY);
+                }
+            }
+            log.warn("Lote de emails {} con {} fallos: {}", type, failed.size(), e.getMessage());
+        } catch (MailException e) {
+            failed = new HashMap<>();
+            for (MimeMessage message : messages) {
+                failed.put(message, DeliveryOutcome.RETRY);
+            }
+            log.error("Lote de emails {} no enviado: {}", type, e.getMessage());
+        } finally {
+            sample.stop(meterRegistry.timer("turnofacil.email.send", "type", type + "-batch",
+                    "outcome", failed.isEmpty() ? "success" : "error"));
+            meterRegistry.counter("turnofacil.email.batch.messages", "type", type,
+                    "outcome", "success").increment(messages.size() - failed.size());
+            meterRegistry.counter("turnofacil.email.batch.messages", "type", type,
+                    "outcome", "error").increment(failed.size());
+            event.success = failed.isEmpty();
+            event.commit();
         }
+        return failed;
     }
 
-    private void sendHtmlEmail(String to, String subject, String htmlContent) throws MessagingException {
+    /**
+     * El servidor rechazó alguna dirección del mensaje (respuesta 5xx al RCPT TO).
+     */
+    private static boolean permanent(Exception e) {
+        return e instanceof SendFailedException sendFailed
+                && sendFailed.getInvalidAddresses() != null
+                && sendFailed.getInvalidAddresses().length > 0;
+    }
+
+    private MimeMessage createHtmlMessage(String to, String subject, String htmlContent) throws MessagingException {
         MimeMessage message = mailSender.createMimeMessage();
         MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
 
@@ -218,7 +343,6 @@ public class EmailService {
         helper.setTo(to);
         helper.setSubject(subject);
         helper.setText(htmlContent, true);
-
-        mailSender.send(message);
+        return message;
     }
 }
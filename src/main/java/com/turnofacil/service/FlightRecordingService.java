@@ -0,0 +1,174 @@
+package com.turnofacil.service;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+
+/**
+ * Grabaciones de Java Flight Recorder bajo demanda desde /platform/system.
+ *
+ * Solo hay una grabación a la vez, acotada en duración y tamaño: se detiene sola al
+ * cumplir max-duration y el fichero .jfr queda en disco para descargarlo hasta la
+ * siguiente grabación. Usa la configuración "profile" de la JVM; los eventos propios
+ * turnofacil.* (lock de reservas, disponibilidad lenta y llamadas SMTP/WhatsApp)
+ * vienen habilitados por defecto con los umbrales de sus anotaciones.
+ */
+@Service
+public class FlightRecordingService {
+
+    private static final Logger log = LoggerFactory.getLogger(FlightRecordingService.class);
+
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path recordingDir;
+    private final Duration maxDuration;
+    private final long maxSizeBytes;
+
+    private Recording recording;
+    private Path recordingFile;
+
+    public FlightRecordingService(
+            @Value("${app.jfr.dir:${java.io.tmpdir}/turnofacil-jfr}") String recordingDir,
+            @Value("${app.jfr.max-duration-minutes:10}") long maxDurationMinutes,
+            @Value("${app.jfr.max-size-mb:100}") long maxSizeMb) throws IOException {
+        this.recordingDir = Files.createDirectories(Path.of(recordingDir));
+        this.maxDuration = Duration.ofMinutes(maxDurationMinutes);
+        this.maxSizeBytes = maxSizeMb * 1024 * 1024;
+    }
+
+    /**
+     * Inicia una grabación nueva. La duración pedida se limita a max-duration.
+     *
+     * @throws IllegalStateException si ya hay una grabación en curso
+     */
+    public synchronized RecordingStatus start(Duration requested) throws IOException, ParseException {
+        if (isRunning()) {
+            throw new IllegalStateException("Ya hay una grabación en curso");
+        }
+        discardPrevious();
+
+        Duration duration = requested == null || requested.isNegative() || requested.isZero()
+                || requested.compareTo(maxDuration) > 0 ? maxDuration : requested;
+        Path file = recordingDir.resolve("turnofacil-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".jfr");
+
+        Recording newRecording = new Recording(Configuration.getConfiguration("profile"));
+        newRecording.setName("turnofacil-platform");
+        newRecording.setDuration(duration);
+        newRecording.setMaxSize(maxSizeBytes);
+        newRecording.setToDisk(true);
+        // Al parar (a mano o por duración) JFR vuelca la grabación en este fichero
+        newRecording.setDestination(file);
+        newRecording.start();
+
+        recording = newRecording;
+        recordingFile = file;
+        log.info("Grabacion JFR iniciada ({} min como maximo) -> {}", duration.toMinutes(), file);
+        return status();
+    }
+
+    /**
+     * Detiene la grabación en curso; el fichero queda listo para descargar.
+     */
+    public synchronized RecordingStatus stop() {
+        if (isRunning()) {
+            recording.stop();
+            log.info("Grabacion JFR detenida -> {}", recordingFile);
+        }
+        return status();
+    }
+
+    /**
+     * Fichero de la última grabación terminada, si existe.
+     */
+    public synchronized Optional<Path> download() {
+        if (recording == null || isRunning() || !Files.exists(recordingFile)) {
+            return Optional.empty();
+        }
+        return Optional.of(recordingFile);
+    }
+
+    public synchronized RecordingStatus status() {
+        if (recording == null) {
+            return new RecordingStatus(false, false, null, null, null, 0, maxDuration.toMinutes());
+        }
+        long size = 0;
+        try {
+            size = Files.exists(recordingFile) ? Files.size(recordingFile) : 0;
+        } catch (IOException e) {
+            log.debug("No se pudo leer el tamaño de {}", recordingFile);
+        }
+        return new RecordingStatus(
+                isRunning(),
+                !isRunning() && size > 0,
+                toLocal(recording.getStartTime()),
+                toLocal(endsAt()),
+                recordingFile.getFileName().toString(),
+                size,
+                maxDuration.toMinutes());
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    private boolean isRunning() {
+        return recording != null
+                && (recording.getState() == RecordingState.RUNNING || recording.getState() == RecordingState.DELAYED);
+    }
+
+    /**
+     * Hora de parada real o, si sigue grabando, la programada por la duración máxima.
+     */
+    private Instant endsAt() {
+        if (recording.getStopTime() != null) {
+            return recording.getStopTime();
+        }
+        Instant start = recording.getStartTime();
+        return start == null || recording.getDuration() == null ? null : start.plus(recording.getDuration());
+    }
+
+    private void discardPrevious() throws IOException {
+        if (recording != null) {
+            recording.close();
+            Files.deleteIfExists(recordingFile);
+            recording = null;
+            recordingFile = null;
+        }
+    }
+
+    private static LocalDateTime toLocal(Instant instant) {
+        return instant == null ? null : LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+
+    /**
+     * Estado de la grabación para la página de sistema.
+     */
+    public record RecordingStatus(
+            boolean running,
+            boolean downloadable,
+            LocalDateTime startedAt,
+            LocalDateTime endsAt,
+            String fileName,
+            long sizeBytes,
+            long maxDurationMinutes
+    ) {}
+}
@@ -234,7 +234,7 @@ public class InvoiceService {
 
         // Marcar la cita como facturada si existe
         if (invoice.getAppointment() != null) {
-            invoice.getAppointment().markAsInvoiced();
+            invoice.getAppointment().markAsInvoiced(invoice.getId());
             appointmentRepo.save(invoice.getAppointment());
         }
 
@@ -4,7 +4,9 @@ import com.turnofacil.dto.NotificationDto;
 import com.turnofacil.model.Appointment;
 import com.turnofacil.model.Notification;
 import com.turnofacil.model.enums.NotificationType;
+import com.turnofacil.model.enums.OutboxMessageType;
 import com.turnofacil.repository.NotificationRepository;
+import com.turnofacil.service.outbox.OutboxService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -24,12 +26,12 @@ public class NotificationService {
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("d 'de' MMMM", new Locale("es", "ES"));
 
     private final NotificationRepository notificationRepo;
-    private final NotificationSseService sseService;
+    private final OutboxService outboxService;
 
     public NotificationService(NotificationRepository notificationRepo,
-                               NotificationSseService sseService) {
+                               OutboxService outboxService) {
         this.notificationRepo = notificationRepo;
-        this.sseService = sseService;
+        this.outboxService = outboxService;
     }
 
     @Transactional
@@ -50,12 +52,9 @@ public class NotificationService {
         Notification saved = notificationRepo.save(notification);
         log.info("Notificacion guardada con ID: {}", saved.getId());
 
-        // Enviar notificacion en tiempo real via SSE
-        try {
-            sseService.sendNotification(appointment.getBusiness().getId(), toDto(saved));
-        } catch (Exception e) {
-            log.error("Error enviando notificacion SSE: {}", e.getMessage());
-        }
+        // Aviso en tiempo real via SSE, entregado por el outbox tras el commit
+        outboxService.enqueue(OutboxMessageType.SSE_NOTIFICATION, appointment.getBusiness().getId(),
+                "sse-notification:" + saved.getId(), toDto(saved));
 
         return saved;
     }
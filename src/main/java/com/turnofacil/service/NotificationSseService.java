@@ -1,24 +1,67 @@
 package com.turnofacil.service;
 
+import com.turnofacil.config.AsyncConfiguration;
 import com.turnofacil.dto.NotificationDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Conexiones SSE por negocio. Los envíos se escriben en el executor de SSE: un navegador
+ * lento no retiene el hilo que genera la notificación.
+ *
+ * Cada negocio tiene su cola de eventos pendientes y como mucho una tarea en el executor que
+ * la vacía, así sus eventos llegan en el orden en que se enviaron (p. ej. QUEUED, RUNNING y
+ * COMPLETED de una exportación) aunque el executor tenga varios hilos. Si la cola del negocio
+ * o la del executor se llenan los avisos se descartan (turnofacil.sse.dropped): son avisos en vivo.
+ */
 @Service
 public class NotificationSseService {
 
     private static final Logger log = LoggerFactory.getLogger(NotificationSseService.class);
     private static final long SSE_TIMEOUT = 30 * 60 * 1000L; // 30 minutos
+    static final int MAX_PENDING_EVENTS = 100;
 
     // Map de businessId -> lista de emitters (un usuario puede tener varias pestanas abiertas)
     private final Map<Long, CopyOnWriteArrayList<SseEmitter>> emitters = new ConcurrentHashMap<>();
+    // Eventos pendientes por negocio; se conservan mientras viva la aplicación (uno por negocio conectado alguna vez)
+    private final Map<Long, EventQueue> queues = new ConcurrentHashMap<>();
+
+    private final Executor sseExecutor;
+    private final Counter sendFailures;
+    private final Counter dropped;
+
+    public NotificationSseService(MeterRegistry meterRegistry,
+                                  @Qualifier(AsyncConfiguration.SSE_EXECUTOR) Executor sseExecutor) {
+        this.sseExecutor = sseExecutor;
+        Gauge.builder("turnofacil.sse.connections", this, NotificationSseService::connectionCount)
+                .description("Conexiones SSE abiertas")
+                .register(meterRegistry);
+        Gauge.builder("turnofacil.sse.businesses", emitters, Map::size)
+                .description("Negocios con al menos una conexion SSE")
+                .register(meterRegistry);
+        this.sendFailures = Counter.builder("turnofacil.sse.send.failures")
+                .description("Envios SSE fallidos (conexion cerrada por el cliente)")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("turnofacil.sse.dropped")
+                .description("Eventos SSE descartados con la cola del negocio o del executor llena")
+                .register(meterRegistry);
+    }
 
     public SseEmitter subscribe(Long businessId) {
         SseEmitter emitter = new SseEmitter(SSE_TIMEOUT);
@@ -50,18 +93,84 @@ public class NotificationSseService {
 
         log.info("Enviando notificacion SSE al negocio {} ({} conexiones)", businessId, businessEmitters.size());
 
+        enqueue(businessId, "notification", notification);
+    }
+
+    /**
+     * Envía un evento con nombre propio (p. ej. "export") a todas las pestañas del negocio.
+     */
+    public void sendEvent(Long businessId, String eventName, Object data) {
+        CopyOnWriteArrayList<SseEmitter> businessEmitters = emitters.get(businessId);
+        if (businessEmitters == null || businessEmitters.isEmpty()) {
+            return;
+        }
+
+        enqueue(businessId, eventName, data);
+    }
+
+    private void enqueue(Long businessId, String eventName, Object data) {
+        EventQueue queue = queues.computeIfAbsent(businessId, id -> new EventQueue());
+        if (!queue.offer(new PendingEvent(eventName, data))) {
+            log.debug("Cola SSE del negocio {} llena: evento '{}' descartado", businessId, eventName);
+            dropped.increment();
+            return;
+        }
+        schedule(businessId, queue);
+    }
+
+    // Encola la tarea que vacía la cola del negocio salvo que ya haya una en marcha
+    private void schedule(Long businessId, EventQueue queue) {
+        if (!queue.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            sseExecutor.execute(() -> drain(businessId, queue));
+        } catch (RejectedExecutionException e) {
+            int discarded = queue.clear();
+            queue.draining.set(false);
+            log.debug("Executor SSE lleno: {} eventos del negocio {} descartados", discarded, businessId);
+            dropped.increment(discarded);
+        }
+    }
+
+    private void drain(Long businessId, EventQueue queue) {
+        try {
+            PendingEvent event;
+            while ((event = queue.poll()) != null) {
+                write(businessId, event);
+            }
+        } finally {
+            queue.draining.set(false);
+        }
+        // Un evento encolado entre el último poll y set(false) no tendría quién lo escribiera
+        if (!queue.isEmpty()) {
+            schedule(businessId, queue);
+        }
+    }
+
+    private void write(Long businessId, PendingEvent event) {
+        CopyOnWriteArrayList<SseEmitter> businessEmitters = emitters.get(businessId);
+        if (businessEmitters == null) {
+            return;
+        }
         for (SseEmitter emitter : businessEmitters) {
             try {
                 emitter.send(SseEmitter.event()
-                        .name("notification")
-                        .data(notification));
-            } catch (IOException e) {
-                log.debug("Error enviando SSE, removiendo emitter");
+                        .name(event.name())
+                        .data(event.data()));
+            } catch (IOException | IllegalStateException e) {
+                // IllegalStateException: el emitter ya se había completado
+                log.debug("Error enviando SSE '{}', removiendo emitter", event.name());
+                sendFailures.increment();
                 removeEmitter(businessId, emitter);
             }
         }
     }
 
+    private double connectionCount() {
+        return emitters.values().stream().mapToInt(CopyOnWriteArrayList::size).sum();
+    }
+
     private void removeEmitter(Long businessId, SseEmitter emitter) {
         CopyOnWriteArrayList<SseEmitter> businessEmitters = emitters.get(businessId);
         if (businessEmitters != null) {
@@ -71,4 +180,46 @@ public class NotificationSseService {
             }
         }
     }
+
+    private record PendingEvent(String name, Object data) {
+    }
+
+    /**
+     * Cola acotada de eventos de un negocio; draining indica que ya hay una tarea vaciándola.
+     */
+    private static final class EventQueue {
+
+        private final ConcurrentLinkedQueue<PendingEvent> events = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        boolean offer(PendingEvent event) {
+            if (size.incrementAndGet() > MAX_PENDING_EVENTS) {
+                size.decrementAndGet();
+                return false;
+            }
+            events.add(event);
+            return true;
+        }
+
+        PendingEvent poll() {
+            PendingEvent event = events.poll();
+            if (event != null) {
+                size.decrementAndGet();
+            }
+            return event;
+        }
+
+        boolean isEmpty() {
+            return events.isEmpty();
+        }
+
+        int clear() {
+            int discarded = 0;
+            while (poll() != null) {
+                discarded++;
+            }
+            return discarded;
+        }
+    }
 }
@@ -1,10 +1,13 @@
 package com.turnofacil.service;
 
+import com.turnofacil.config.AsyncConfiguration;
 import com.turnofacil.model.PasswordResetToken;
 import com.turnofacil.model.User;
 import com.turnofacil.repository.PasswordResetTokenRepository;
 import com.turnofacil.repository.UserRepository;
 import jakarta.mail.MessagingException;
+import com.turnofacil.scheduler.cluster.ClusterJob;
+import com.turnofacil.scheduler.cluster.JobRunContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -121,7 +124,7 @@ public class PasswordResetService {
         return resetToken.getUser();
     }
 
-    @Async
+    @Async(AsyncConfiguration.EMAIL_EXECUTOR)
     public void sendPasswordResetEmail(User user, String token) {
         if (!emailEnabled || fromEmail == null || fromEmail.isBlank()) {
             log.warn("Email de reset no enviado - Email deshabilitado o remitente no configurado");
@@ -154,10 +157,12 @@ public class PasswordResetService {
         }
     }
 
+    @ClusterJob("password-reset-cleanup")
     @Scheduled(cron = "0 0 3 * * ?")
     @Transactional
     public void cleanupExpiredTokens() {
-        tokenRepository.deleteExpiredTokens(LocalDateTime.now());
-        log.info("Tokens de reset expirados eliminados");
+        int deleted = tokenRepository.deleteExpiredTokens(LocalDateTime.now());
+        JobRunContext.addProcessed(deleted);
+        log.info("Tokens de reset expirados eliminados: {}", deleted);
     }
 }
@@ -3,7 +3,6 @@ package com.turnofacil.service;
 import com.turnofacil.model.Subscription;
 import com.turnofacil.model.enums.Feature;
 import com.turnofacil.model.enums.Plan;
-import com.turnofacil.repository.AppointmentRepository;
 import com.turnofacil.repository.ServiceRepository;
 import com.turnofacil.repository.SubscriptionRepository;
 import org.springframework.stereotype.Service;
@@ -19,15 +18,15 @@ import java.time.YearMonth;
 public class PlanLimitsService {
 
     private final SubscriptionRepository subscriptionRepo;
-    private final AppointmentRepository appointmentRepo;
     private final ServiceRepository serviceRepo;
+    private final BusinessStatsService businessStatsService;
 
     public PlanLimitsService(SubscriptionRepository subscriptionRepo,
-                             AppointmentRepository appointmentRepo,
-                             ServiceRepository serviceRepo) {
+                             ServiceRepository serviceRepo,
+                             BusinessStatsService businessStatsService) {
         this.subscriptionRepo = subscriptionRepo;
-        this.appointmentRepo = appointmentRepo;
         this.serviceRepo = serviceRepo;
+        this.businessStatsService = businessStatsService;
     }
 
     public Plan getEffectivePlan(Long userId) {
@@ -68,6 +67,7 @@ public class PlanLimitsService {
         YearMonth now = YearMonth.now();
         LocalDate start = now.atDay(1);
         LocalDate end = now.atEndOfMonth();
-        return appointmentRepo.countByBusinessIdAndDateBetween(businessId, start, end);
+        // Lee del rollup diario (máx. 31 filas) en lugar de contar APPOINTMENTS
+        return businessStatsService.countBetween(businessId, start, end);
     }
 }
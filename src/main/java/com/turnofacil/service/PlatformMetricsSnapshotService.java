@@ -0,0 +1,115 @@
+package com.turnofacil.service;
+
+import com.turnofacil.model.PlatformMetricsSnapshot;
+import com.turnofacil.model.enums.Plan;
+import com.turnofacil.model.enums.SnapshotGranularity;
+import com.turnofacil.repository.PlatformMetricsSnapshotRepository;
+import com.turnofacil.scheduler.cluster.ClusterJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Fotos periódicas de las métricas de plataforma (PLATFORM_METRICS_SNAPSHOTS).
+ * Cada foto es un único INSERT ... SELECT agregado; los paneles de /platform leen la
+ * última fila en lugar de recalcular los conteos en cada visita.
+ */
+@Service
+public class PlatformMetricsSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(PlatformMetricsSnapshotService.class);
+
+    private static final int ACTIVE_DAYS = 30;
+
+    private final PlatformMetricsSnapshotRepository snapshotRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final int hourlyRetentionDays;
+
+    public PlatformMetricsSnapshotService(PlatformMetricsSnapshotRepository snapshotRepo,
+                                          PlatformTransactionManager transactionManager,
+                                          @Value("${app.platform-metrics.hourly-retention-days:14}") int hourlyRetentionDays) {
+        this.snapshotRepo = snapshotRepo;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.hourlyRetentionDays = hourlyRetentionDays;
+    }
+
+    /**
+     * Foto horaria. Minuto 2 para no coincidir con ReminderScheduler.
+     */
+    @ClusterJob("platform-metrics-hourly")
+    @Scheduled(cron = "0 2 * * * *")
+    public void captureHourly() {
+        LocalDateTime slot = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        capture(SnapshotGranularity.HOURLY, slot);
+
+        int purged = transactionTemplate.execute(status -> snapshotRepo.deleteOlderThan(
+                SnapshotGranularity.HOURLY, slot.minusDays(hourlyRetentionDays)));
+        if (purged > 0) {
+            log.info("Fotos horarias de plataforma purgadas: {}", purged);
+        }
+    }
+
+    /**
+     * Foto diaria a las 00:10. Las diarias no se purgan: son el histórico de crecimiento.
+     */
+    @ClusterJob("platform-metrics-daily")
+    @Scheduled(cron = "0 10 0 * * *")
+    public void captureDaily() {
+        capture(SnapshotGranularity.DAILY, LocalDate.now().atStartOfDay());
+    }
+
+    /**
+     * Última foto disponible. En un despliegue nuevo, sin fotos todavía, captura una al momento.
+     */
+    public PlatformMetricsSnapshot latest() {
+        return snapshotRepo.findFirstByGranularityOrderByCapturedAtDesc(SnapshotGranularity.HOURLY)
+                .or(() -> snapshotRepo.findFirstByGranularityOrderByCapturedAtDesc(SnapshotGranularity.DAILY))
+                .orElseGet(() -> capture(SnapshotGranularity.HOURLY,
+                        LocalDateTime.now().truncatedTo(ChronoUnit.HOURS)));
+    }
+
+    /**
+     * Serie diaria desde hace {@code days} días, en orden cronológico.
+     */
+    @Transactional(readOnly = true)
+    public List<PlatformMetricsSnapshot> dailyHistory(int days) {
+        return snapshotRepo.findByGranularityAndCapturedAtGreaterThanEqualOrderByCapturedAtAsc(
+                SnapshotGranularity.DAILY, LocalDate.now().minusDays(days).atStartOfDay());
+    }
+
+    /**
+     * Sustituye la foto del hueco (hora o día) para que relanzar el job sea idempotente y
+     * devuelve la fila de ese hueco, no la última de la tabla. El MRR usa los precios de Plan.
+     */
+    PlatformMetricsSnapshot capture(SnapshotGranularity granularity, LocalDateTime slot) {
+        long start = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime startOfThisMonth = now.toLocalDate().withDayOfMonth(1).atStartOfDay();
+
+        PlatformMetricsSnapshot snapshot = transactionTemplate.execute(status -> {
+            snapshotRepo.deleteSlot(granularity, slot);
+            snapshotRepo.capture(granularity.name(), slot,
+                    now.minusDays(ACTIVE_DAYS),
+                    startOfThisMonth,
+                    startOfThisMonth.minusMonths(1),
+                    Plan.PRO.getMonthlyPrice(),
+                    Plan.BUSINESS.getMonthlyPrice());
+            return snapshotRepo.findFirstByGranularityAndCapturedAtOrderByIdDesc(granularity, slot).orElseThrow();
+        });
+
+        log.info("Foto de metricas de plataforma {} {} en {}ms",
+                granularity, slot, System.currentTimeMillis() - start);
+        return snapshot;
+    }
+}
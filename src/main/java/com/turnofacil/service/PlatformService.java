@@ -1,24 +1,24 @@
 package com.turnofacil.service;
 
+import com.turnofacil.dto.BusinessSummary;
+import com.turnofacil.model.PlatformMetricsSnapshot;
 import com.turnofacil.model.User;
-import com.turnofacil.model.enums.Plan;
 import com.turnofacil.model.enums.Role;
-import com.turnofacil.model.enums.SubscriptionStatus;
-import com.turnofacil.repository.AppointmentRepository;
-import com.turnofacil.repository.SubscriptionRepository;
 import com.turnofacil.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.JpaSort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.Set;
 
 /**
  * Servicio para métricas y operaciones a nivel de plataforma.
@@ -29,52 +29,68 @@ public class PlatformService {
 
     private static final Logger log = LoggerFactory.getLogger(PlatformService.class);
 
+    public static final int BUSINESS_PAGE_SIZE = 25;
+
+    // Columnas ordenables del listado; "appointments" ordena por el agregado del rollup
+    public static final Set<String> BUSINESS_SORTS = Set.of("name", "email", "createdAt", "lastLogin", "appointments");
+
     private final UserRepository userRepository;
-    private final AppointmentRepository appointmentRepository;
-    private final SubscriptionRepository subscriptionRepository;
+    private final BusinessStatsService businessStatsService;
+    private final PlatformMetricsSnapshotService snapshotService;
 
     public PlatformService(UserRepository userRepository,
-                          AppointmentRepository appointmentRepository,
-                          SubscriptionRepository subscriptionRepository) {
+                          BusinessStatsService businessStatsService,
+                          PlatformMetricsSnapshotService snapshotService) {
         this.userRepository = userRepository;
-        this.appointmentRepository = appointmentRepository;
-        this.subscriptionRepository = subscriptionRepository;
+        this.businessStatsService = businessStatsService;
+        this.snapshotService = snapshotService;
     }
 
     /**
-     * Obtiene métricas generales de la plataforma.
+     * Métricas generales de la plataforma desde la última foto (ver PlatformMetricsSnapshotService).
      */
-    @Transactional(readOnly = true)
     public PlatformMetrics getMetrics() {
-        long totalBusinesses = userRepository.countByRole(Role.ADMIN);
-        long activeBusinesses = countActiveBusinesses();
-        long totalAppointments = appointmentRepository.count();
-
-        // Métricas de suscripciones
-        SubscriptionMetrics subscriptionMetrics = calculateSubscriptionMetrics();
+        PlatformMetricsSnapshot snapshot = snapshotService.latest();
+
+        SubscriptionMetrics subscriptionMetrics = new SubscriptionMetrics(
+                snapshot.getActiveSubscriptions(),
+                snapshot.getTrialSubscriptions(),
+                snapshot.getCancelledSubscriptions(),
+                snapshot.getFreePlan(),
+                snapshot.getProPlan(),
+                snapshot.getBusinessPlan(),
+                snapshot.getMrr()
+        );
 
         // Crecimiento
-        GrowthMetrics growth = calculateGrowthMetrics();
+        long newThisMonth = snapshot.getNewBusinessesThisMonth();
+        long newLastMonth = snapshot.getNewBusinessesLastMonth();
+        double growthRate = 0.0;
+        if (newLastMonth > 0) {
+            growthRate = ((double) (newThisMonth - newLastMonth) / newLastMonth) * 100;
+        }
 
         return new PlatformMetrics(
-                totalBusinesses,
-                activeBusinesses,
-                totalAppointments,
+                snapshot.getTotalBusinesses(),
+                snapshot.getActiveBusinesses(),
+                snapshot.getTotalAppointments(),
                 subscriptionMetrics,
-                growth
+                new GrowthMetrics(newThisMonth, newLastMonth, growthRate),
+                snapshot.getCapturedAt()
         );
     }
 
     /**
-     * Lista todos los negocios con información resumida.
+     * Página del listado de negocios con búsqueda por nombre o email.
+     * Una consulta agrupada para la página (más el COUNT), sin importar cuántos negocios haya.
      */
     @Transactional(readOnly = true)
-    public List<BusinessSummary> listBusinesses() {
-        List<User> businesses = userRepository.findByRole(Role.ADMIN);
+    public Page<BusinessSummary> listBusinesses(String search, String sort, boolean ascending, int page) {
+        String term = search != null ? search.trim().toLowerCase(Locale.ROOT) : "";
+        String pattern = term.isEmpty() ? null : "%" + term + "%";
 
-        return businesses.stream()
-                .map(this::toBusinessSummary)
-                .collect(Collectors.toList());
+        PageRequest pageable = PageRequest.of(Math.max(page, 0), BUSINESS_PAGE_SIZE, businessSort(sort, ascending));
+        return userRepository.findBusinessSummaries(Role.ADMIN, pattern, pageable);
     }
 
     /**
@@ -85,7 +101,7 @@ public class PlatformService {
         User business = userRepository.findById(businessId)
                 .orElseThrow(() -> new RuntimeException("Negocio no encontrado"));
 
-        long totalAppointments = appointmentRepository.countByBusinessId(businessId);
+        long totalAppointments = businessStatsService.countByBusiness(businessId);
         long appointmentsThisMonth = countAppointmentsThisMonth(businessId);
 
         return new BusinessDetails(
@@ -118,93 +134,20 @@ public class PlatformService {
 
     // === Métodos auxiliares ===
 
-    private long countActiveBusinesses() {
-        LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
-        return userRepository.countByRoleAndLastLoginAfter(Role.ADMIN, thirtyDaysAgo);
-    }
-
     private long countAppointmentsThisMonth(Long businessId) {
         LocalDate startOfMonth = LocalDate.now().withDayOfMonth(1);
         LocalDate endOfMonth = startOfMonth.plusMonths(1).minusDays(1);
-        return appointmentRepository.countByBusinessIdAndDateBetween(businessId, startOfMonth, endOfMonth);
+        return businessStatsService.countBetween(businessId, startOfMonth, endOfMonth);
     }
 
-    private SubscriptionMetrics calculateSubscriptionMetrics() {
-        // Contar por estado
-        long activeSubscriptions = subscriptionRepository.countByStatus(SubscriptionStatus.ACTIVE);
-        long trialSubscriptions = subscriptionRepository.countByStatus(SubscriptionStatus.TRIAL);
-        long cancelledSubscriptions = subscriptionRepository.countByStatus(SubscriptionStatus.CANCELLED);
-
-        // Contar por plan
-        Map<Plan, Long> byPlan = subscriptionRepository.findByStatus(SubscriptionStatus.ACTIVE)
-                .stream()
-                .collect(Collectors.groupingBy(s -> s.getPlan(), Collectors.counting()));
-
-        long freePlan = byPlan.getOrDefault(Plan.FREE, 0L);
-        long proPlan = byPlan.getOrDefault(Plan.PRO, 0L);
-        long businessPlan = byPlan.getOrDefault(Plan.BUSINESS, 0L);
-
-        // Calcular MRR (Monthly Recurring Revenue)
-        BigDecimal mrr = calculateMRR();
-
-        return new SubscriptionMetrics(
-                activeSubscriptions,
-                trialSubscriptions,
-                cancelledSubscriptions,
-                freePlan,
-                proPlan,
-                businessPlan,
-                mrr
-        );
-    }
-
-    private BigDecimal calculateMRR() {
-        // Precios mensuales (ajustar según configuración real)
-        BigDecimal proPriceMonthly = new BigDecimal("9.99");
-        BigDecimal businessPriceMonthly = new BigDecimal("24.99");
-
-        long proCount = subscriptionRepository.countByPlanAndStatus(Plan.PRO, SubscriptionStatus.ACTIVE);
-        long businessCount = subscriptionRepository.countByPlanAndStatus(Plan.BUSINESS, SubscriptionStatus.ACTIVE);
-
-        BigDecimal proMRR = proPriceMonthly.multiply(BigDecimal.valueOf(proCount));
-        BigDecimal businessMRR = businessPriceMonthly.multiply(BigDecimal.valueOf(businessCount));
-
-        return proMRR.add(businessMRR).setScale(2, RoundingMode.HALF_UP);
-    }
-
-    private GrowthMetrics calculateGrowthMetrics() {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime startOfThisMonth = now.withDayOfMonth(1).withHour(0).withMinute(0);
-        LocalDateTime startOfLastMonth = startOfThisMonth.minusMonths(1);
-
-        long newBusinessesThisMonth = userRepository.countByRoleAndCreatedAtAfter(Role.ADMIN, startOfThisMonth);
-        long newBusinessesLastMonth = userRepository.countByRoleAndCreatedAtBetween(
-                Role.ADMIN, startOfLastMonth, startOfThisMonth);
-
-        // Calcular porcentaje de crecimiento
-        double growthRate = 0.0;
-        if (newBusinessesLastMonth > 0) {
-            growthRate = ((double) (newBusinessesThisMonth - newBusinessesLastMonth) / newBusinessesLastMonth) * 100;
-        }
-
-        return new GrowthMetrics(
-                newBusinessesThisMonth,
-                newBusinessesLastMonth,
-                growthRate
-        );
-    }
-
-    private BusinessSummary toBusinessSummary(User business) {
-        long appointments = appointmentRepository.countByBusinessId(business.getId());
-        return new BusinessSummary(
-                business.getId(),
-                business.getName(),
-                business.getEmail(),
-                business.getCreatedAt(),
-                business.getLastLogin(),
-                business.isEnabled(),
-                appointments
-        );
+    private Sort businessSort(String sort, boolean ascending) {
+        Sort.Direction direction = ascending ? Sort.Direction.ASC : Sort.Direction.DESC;
+        String property = BUSINESS_SORTS.contains(sort) ? sort : "createdAt";
+        Sort primary = property.equals("appointments")
+                ? JpaSort.unsafe(direction, "COALESCE(SUM(s.totalCount), 0)")
+                : Sort.by(direction, property);
+        // Desempate estable para que la paginación no repita ni salte filas
+        return primary.and(Sort.by(Sort.Direction.ASC, "id"));
     }
 
     // === Records para respuestas ===
@@ -214,7 +157,8 @@ public class PlatformService {
             long activeBusinesses,
             long totalAppointments,
             SubscriptionMetrics subscriptions,
-            GrowthMetrics growth
+            GrowthMetrics growth,
+            LocalDateTime capturedAt
     ) {}
 
     public record SubscriptionMetrics(
@@ -233,16 +177,6 @@ public class PlatformService {
             double growthRatePercent
     ) {}
 
-    public record BusinessSummary(
-            Long id,
-            String name,
-            String email,
-            LocalDateTime createdAt,
-            LocalDateTime lastLogin,
-            boolean enabled,
-            long totalAppointments
-    ) {}
-
     public record BusinessDetails(
             Long id,
             String name,
@@ -2,6 +2,7 @@ package com.turnofacil.service;
 
 import com.turnofacil.exception.RateLimitExceededException;
 import com.turnofacil.service.cache.CacheService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -18,9 +19,11 @@ public class RateLimiterService {
     private static final Logger log = LoggerFactory.getLogger(RateLimiterService.class);
 
     private final CacheService cacheService;
+    private final MeterRegistry meterRegistry;
 
-    public RateLimiterService(CacheService cacheService) {
+    public RateLimiterService(CacheService cacheService, MeterRegistry meterRegistry) {
         this.cacheService = cacheService;
+        this.meterRegistry = meterRegistry;
         log.info("RateLimiterService inicializado con provider: {}", cacheService.getProviderName());
     }
 
@@ -41,17 +44,29 @@ public class RateLimiterService {
             if (currentCount > maxRequests) {
                 log.warn("Rate limit excedido para key: {} (count: {}, max: {})",
                         key, currentCount, maxRequests);
+                recordDecision(key, "denied");
                 return false;
             }
 
+            recordDecision(key, "allowed");
             return true;
         } catch (Exception e) {
             log.error("Error en rate limiting, permitiendo por defecto: {}", e.getMessage());
+            recordDecision(key, "error");
             // En caso de error, permitimos la operación para no bloquear usuarios
             return true;
         }
     }
 
+    /**
+     * Cuenta la decisión por bucket (prefijo de la key: booking, login...), nunca por IP o email.
+     */
+    private void recordDecision(String key, String result) {
+        int separator = key.indexOf(':');
+        String bucket = separator > 0 ? key.substring(0, separator) : "other";
+        meterRegistry.counter("turnofacil.ratelimit.decisions", "bucket", bucket, "result", result).increment();
+    }
+
     /**
      * Verifica y lanza excepción si se excede el límite.
      */
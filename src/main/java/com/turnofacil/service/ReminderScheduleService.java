@@ -0,0 +1,138 @@
+package com.turnofacil.service;
+
+import com.turnofacil.model.Appointment;
+import com.turnofacil.model.BusinessConfig;
+import com.turnofacil.repository.AppointmentRepository;
+import com.turnofacil.repository.BusinessConfigRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Calcula cuándo toca cada recordatorio (EMAIL_REMIND_AT / WHATSAPP_REMIND_AT, en UTC).
+ *
+ * El momento es la fecha y hora de la cita en la zona horaria del negocio menos
+ * reminderHoursBefore. Se calcula al crear la cita, al reagendarla o editarla, y para
+ * todas las citas futuras del negocio cuando cambia su configuración. Si el momento cambia,
+ * los reintentos de ese canal (ver ReminderScheduler) vuelven a cero.
+ */
+@Service
+public class ReminderScheduleService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReminderScheduleService.class);
+
+    private final AppointmentRepository appointmentRepo;
+    private final BusinessConfigRepository businessConfigRepo;
+    private final TransactionTemplate transactionTemplate;
+
+    public ReminderScheduleService(AppointmentRepository appointmentRepo,
+                                   BusinessConfigRepository businessConfigRepo,
+                                   PlatformTransactionManager transactionManager) {
+        this.appointmentRepo = appointmentRepo;
+        this.businessConfigRepo = businessConfigRepo;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Momento UTC del recordatorio de una cita dada en hora local del negocio.
+     */
+    public static LocalDateTime remindAt(LocalDate date, LocalTime time, ZoneId zone, int hoursBefore) {
+        return ZonedDateTime.of(date, time, zone)
+                .minusHours(hoursBefore)
+                .withZoneSameInstant(ZoneOffset.UTC)
+                .toLocalDateTime();
+    }
+
+    /**
+     * Hora actual en UTC, la referencia con la que se comparan las columnas *_REMIND_AT.
+     */
+    public static LocalDateTime nowUtc() {
+        return LocalDateTime.now(ZoneOffset.UTC);
+    }
+
+    /**
+     * Rellena los momentos de recordatorio de la cita (no guarda).
+     */
+    public void apply(Appointment appointment, BusinessConfig config) {
+        LocalDateTime emailAt = null;
+        LocalDateTime whatsappAt = null;
+        if (config != null && config.isEnableReminders()) {
+            LocalDateTime at = remindAt(appointment.getDate(), appointment.getTime(),
+                    zoneOf(config), config.getReminderHoursBefore());
+            if (appointment.getClientEmail() != null) {
+                emailAt = at;
+            }
+            if (config.isEnableWhatsappReminders() && appointment.getClientPhone() != null) {
+                whatsappAt = at;
+            }
+        }
+        // Un recordatorio con otro momento (cita reagendada) vuelve a tener todos sus intentos
+        if (!Objects.equals(emailAt, appointment.getEmailRemindAt())) {
+            appointment.setEmailReminderAttempts(0);
+            appointment.setEmailReminderRetryAt(null);
+            appointment.setEmailReminderFailed(false);
+        }
+        if (!Objects.equals(whatsappAt, appointment.getWhatsappRemindAt())) {
+            appointment.setWhatsappReminderAttempts(0);
+            appointment.setWhatsappReminderRetryAt(null);
+            appointment.setWhatsappReminderFailed(false);
+        }
+        appointment.setEmailRemindAt(emailAt);
+        appointment.setWhatsappRemindAt(whatsappAt);
+    }
+
+    /**
+     * Recalcula las citas futuras de un negocio (cambio de zona horaria, antelación o canales).
+     */
+    @Transactional
+    public int recomputeForBusiness(Long businessId) {
+        BusinessConfig config = businessConfigRepo.findByUserId(businessId).orElse(null);
+        // Desde ayer: en zonas adelantadas a UTC una cita de "hoy" puede seguir pendiente
+        List<Appointment> appointments = appointmentRepo.findUpcomingForReminderSchedule(
+                businessId, LocalDate.now().minusDays(1));
+        appointments.forEach(appointment -> apply(appointment, config));
+        log.info("Recordatorios recalculados para negocio {}: {} citas", businessId, appointments.size());
+        return appointments.size();
+    }
+
+    /**
+     * Rellena al arrancar las citas futuras creadas antes de existir las columnas *_REMIND_AT.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillMissing() {
+        List<Long> businessIds = appointmentRepo.findBusinessIdsMissingReminderSchedule(LocalDate.now().minusDays(1));
+        for (Long businessId : businessIds) {
+            try {
+                // Llamada interna: la transacción la abre la plantilla, no el proxy
+                transactionTemplate.executeWithoutResult(status -> recomputeForBusiness(businessId));
+            } catch (Exception e) {
+                log.error("Error rellenando recordatorios del negocio {}: {}", businessId, e.getMessage());
+            }
+        }
+    }
+
+    private static ZoneId zoneOf(BusinessConfig config) {
+        try {
+            return ZoneId.of(config.getTimezone());
+        } catch (DateTimeException | NullPointerException e) {
+            log.warn("Zona horaria invalida '{}' en negocio {}, usando la del servidor",
+                    config.getTimezone(), config.getId());
+            return ZoneId.systemDefault();
+        }
+    }
+}
@@ -2,8 +2,9 @@ package com.turnofacil.service;
 
 import com.turnofacil.model.Subscription;
 import com.turnofacil.model.User;
-import com.turnofacil.model.enums.SubscriptionStatus;
 import com.turnofacil.repository.SubscriptionRepository;
+import com.turnofacil.scheduler.cluster.ClusterJob;
+import com.turnofacil.scheduler.cluster.JobRunContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -11,7 +12,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.util.List;
+import java.time.LocalDateTime;
 
 @Service
 public class SubscriptionService {
@@ -36,22 +37,17 @@ public class SubscriptionService {
 
     /**
      * Scheduler diario: expira trials vencidos.
-     * Cambia estado a ACTIVE con plan FREE.
+     * Cambia estado a ACTIVE con plan FREE en un único UPDATE, sin cargar las suscripciones.
      */
+    @ClusterJob("trial-expiry")
     @Scheduled(cron = "0 0 1 * * *") // 1am diario
     @Transactional
     public void expireTrials() {
-        List<Subscription> expired = subscriptionRepo
-                .findByStatusAndTrialEndsAtBefore(SubscriptionStatus.TRIAL, LocalDate.now());
+        int expired = subscriptionRepo.expireTrialsEndedBefore(LocalDate.now(), LocalDateTime.now());
 
-        for (Subscription sub : expired) {
-            sub.expireTrial();
-            subscriptionRepo.save(sub);
-            log.info("Trial expirado: userId={}", sub.getUser().getId());
-        }
-
-        if (!expired.isEmpty()) {
-            log.info("Trials expirados procesados: {}", expired.size());
+        JobRunContext.addProcessed(expired);
+        if (expired > 0) {
+            log.info("Trials expirados procesados: {}", expired);
         }
     }
 }
@@ -1,9 +1,12 @@
 package com.turnofacil.service;
 
+import com.turnofacil.dto.WelcomeEmailPayload;
 import com.turnofacil.model.BusinessConfig;
 import com.turnofacil.model.User;
+import com.turnofacil.model.enums.OutboxMessageType;
 import com.turnofacil.repository.BusinessConfigRepository;
 import com.turnofacil.repository.UserRepository;
+import com.turnofacil.service.outbox.OutboxService;
 import com.turnofacil.util.SlugUtils;
 import org.jspecify.annotations.NonNull;
 import org.springframework.context.annotation.Lazy;
@@ -22,20 +25,20 @@ public class UserService implements UserDetailsService {
     private final BusinessConfigRepository businessConfigRepository;
     private final ServiceService serviceService;
     private final SubscriptionService subscriptionService;
-    private final EmailService emailService;
+    private final OutboxService outboxService;
 
     public UserService(UserRepository userRepository,
                        PasswordEncoder passwordEncoder,
                        BusinessConfigRepository businessConfigRepository,
                        @Lazy ServiceService serviceService,
                        @Lazy SubscriptionService subscriptionService,
-                       @Lazy EmailService emailService) {
+                       @Lazy OutboxService outboxService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.businessConfigRepository = businessConfigRepository;
         this.serviceService = serviceService;
         this.subscriptionService = subscriptionService;
-        this.emailService = emailService;
+        this.outboxService = outboxService;
     }
 
     // Registro de nuevo negocio (admin)
@@ -61,8 +64,10 @@ public class UserService implements UserDetailsService {
         // CREAR SUSCRIPCIÓN CON TRIAL DE 14 DÍAS
         subscriptionService.createTrialSubscription(savedUser);
 
-        // EMAIL DE BIENVENIDA (async)
-        emailService.sendWelcomeEmail(savedUser.getEmail(), config.getBusinessName());
+        // EMAIL DE BIENVENIDA (outbox, se envía tras el commit)
+        outboxService.enqueue(OutboxMessageType.WELCOME_EMAIL, savedUser.getId(),
+                "welcome:" + savedUser.getId(),
+                new WelcomeEmailPayload(savedUser.getEmail(), config.getBusinessName()));
 
         return savedUser;
     }
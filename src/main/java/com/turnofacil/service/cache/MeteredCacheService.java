@@ -0,0 +1,108 @@
+package com.turnofacil.service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Decorador que publica latencia por operación (turnofacil.cache.operation)
+ * y aciertos/fallos de lectura (turnofacil.cache.gets) etiquetados por proveedor.
+ */
+public class MeteredCacheService implements CacheService {
+
+    private final CacheService delegate;
+    private final MeterRegistry meterRegistry;
+    private final Counter hits;
+    private final Counter misses;
+
+    public MeteredCacheService(CacheService delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+        this.hits = getsCounter("hit");
+        this.misses = getsCounter("miss");
+    }
+
+    @Override
+    public void set(String key, Object value, Duration ttl) {
+        timer("set").record(() -> delegate.set(key, value, ttl));
+    }
+
+    @Override
+    public void set(String key, Object value) {
+        timer("set").record(() -> delegate.set(key, value));
+    }
+
+    @Override
+    public Optional<Object> get(String key) {
+        return countHit(timer("get").record(() -> delegate.get(key)));
+    }
+
+    @Override
+    public <T> Optional<T> get(String key, Class<T> type) {
+        return countHit(timer("get").record(() -> delegate.get(key, type)));
+    }
+
+    @Override
+    public void delete(String key) {
+        timer("delete").record(() -> delegate.delete(key));
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return timer("exists").record(() -> delegate.exists(key));
+    }
+
+    @Override
+    public long increment(String key) {
+        return timer("increment").record(() -> delegate.increment(key));
+    }
+
+    @Override
+    public long increment(String key, Duration ttl) {
+        return timer("increment").record(() -> delegate.increment(key, ttl));
+    }
+
+    @Override
+    public long getCounter(String key) {
+        return timer("get_counter").record(() -> delegate.getCounter(key));
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return delegate.isAvailable();
+    }
+
+    @Override
+    public String getProviderName() {
+        return delegate.getProviderName();
+    }
+
+    private <T> Optional<T> countHit(Optional<T> value) {
+        (value.isPresent() ? hits : misses).increment();
+        return value;
+    }
+
+    private Timer timer(String operation) {
+        return Timer.builder("turnofacil.cache.operation")
+                .description("Latencia de operaciones de cache")
+                .tag("provider", delegate.getProviderName())
+                .tag("op", operation)
+                .register(meterRegistry);
+    }
+
+    private Counter getsCounter(String result) {
+        return Counter.builder("turnofacil.cache.gets")
+                .description("Lecturas de cache por resultado")
+                .tag("provider", delegate.getProviderName())
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,167 @@
+package com.turnofacil.service.export;
+
+import com.turnofacil.dto.AppointmentExportFilter;
+import com.turnofacil.dto.AppointmentExportRow;
+import com.turnofacil.repository.AppointmentRepository;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Exportación de turnos en streaming.
+ * Las filas se leen de BD en streaming como proyección y se escriben sin
+ * acumularlas, de modo que la memoria no depende del número de turnos.
+ */
+@Service
+public class AppointmentExportService {
+
+    static final String[] COLUMNS = {"Fecha", "Hora", "Cliente", "Telefono", "Email", "Notas", "Estado", "Duracion (min)"};
+
+    // Cada cuántas filas se informa el progreso
+    static final int PROGRESS_EVERY = 5_000;
+
+    // Filas que SXSSF mantiene en memoria; el resto se vuelca a un fichero temporal
+    private static final int EXCEL_ROW_WINDOW = 100;
+
+    // Anchos fijos en caracteres (autoSizeColumn recorre todas las filas y no escala)
+    private static final int[] EXCEL_COLUMN_WIDTHS = {12, 8, 28, 16, 30, 45, 14, 14};
+
+    private final AppointmentRepository appointmentRepo;
+
+    public AppointmentExportService(AppointmentRepository appointmentRepo) {
+        this.appointmentRepo = appointmentRepo;
+    }
+
+    /**
+     * Escribe el Excel de turnos en el OutputStream y devuelve el número de filas exportadas.
+     */
+    @Transactional(readOnly = true)
+    public long writeExcel(Long businessId, AppointmentExportFilter filter, OutputStream out) throws IOException {
+        return writeExcel(businessId, filter, out, rows -> {});
+    }
+
+    /**
+     * Igual que {@link #writeExcel(Long, AppointmentExportFilter, OutputStream)} informando el progreso
+     * cada {@value #PROGRESS_EVERY} filas (usado por las exportaciones en segundo plano).
+     */
+    @Transactional(readOnly = true)
+    public long writeExcel(Long businessId, AppointmentExportFilter filter, OutputStream out,
+                           LongConsumer progress) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(EXCEL_ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+
+        try (Stream<AppointmentExportRow> rows = streamRows(businessId, filter)) {
+            SXSSFSheet sheet = workbook.createSheet("Turnos");
+            for (int i = 0; i < EXCEL_COLUMN_WIDTHS.length; i++) {
+                sheet.setColumnWidth(i, EXCEL_COLUMN_WIDTHS[i] * 256);
+            }
+
+            Row headerRow = sheet.createRow(0);
+            CellStyle headerStyle = createHeaderStyle(workbook);
+            for (int i = 0; i < COLUMNS.length; i++) {
+                Cell cell = headerRow.createCell(i);
+                cell.setCellValue(COLUMNS[i]);
+                cell.setCellStyle(headerStyle);
+            }
+
+            int rowNum = 1;
+            Iterator<AppointmentExportRow> it = rows.iterator();
+            while (it.hasNext()) {
+                AppointmentExportRow apt = it.next();
+                Row row = sheet.createRow(rowNum++);
+                row.createCell(0).setCellValue(apt.date().toString());
+                row.createCell(1).setCellValue(apt.time().toString());
+                row.createCell(2).setCellValue(apt.clientName());
+                row.createCell(3).setCellValue(apt.clientPhone());
+                row.createCell(4).setCellValue(apt.clientEmail() != null ? apt.clientEmail() : "");
+                row.createCell(5).setCellValue(apt.notes() != null ? apt.notes() : "");
+                row.createCell(6).setCellValue(apt.statusLabel());
+                row.createCell(7).setCellValue(apt.durationOrZero());
+                if ((rowNum - 1) % PROGRESS_EVERY == 0) {
+                    progress.accept(rowNum - 1L);
+                }
+            }
+
+            workbook.write(out);
+            return rowNum - 1L;
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    /**
+     * Escribe el CSV de turnos en el OutputStream y devuelve el número de filas exportadas.
+     */
+    @Transactional(readOnly = true)
+    public long writeCsv(Long businessId, AppointmentExportFilter filter, OutputStream out) throws IOException {
+        return writeCsv(businessId, filter, out, rows -> {});
+    }
+
+    /**
+     * Igual que {@link #writeCsv(Long, AppointmentExportFilter, OutputStream)} informando el progreso.
+     */
+    @Transactional(readOnly = true)
+    public long writeCsv(Long businessId, AppointmentExportFilter filter, OutputStream out,
+                         LongConsumer progress) throws IOException {
+        try (Stream<AppointmentExportRow> rows = streamRows(businessId, filter)) {
+            return writeCsvRows(rows, out, progress);
+        }
+    }
+
+    /**
+     * Escritura CSV desacoplada del origen de las filas (ver AppointmentCsvExportBenchmarkTest).
+     */
+    long writeCsvRows(Stream<AppointmentExportRow> rows, OutputStream out) throws IOException {
+        return writeCsvRows(rows, out, count -> {});
+    }
+
+    long writeCsvRows(Stream<AppointmentExportRow> rows, OutputStream out, LongConsumer progress) throws IOException {
+        CsvWriter csv = new CsvWriter(out).bom();
+        csv.header(COLUMNS);
+
+        long count = 0;
+        Iterator<AppointmentExportRow> it = rows.iterator();
+        while (it.hasNext()) {
+            AppointmentExportRow apt = it.next();
+            csv.value(apt.date())
+                    .value(apt.time())
+                    .quoted(apt.clientName())
+                    .quoted(apt.clientPhone())
+                    .quoted(apt.clientEmail())
+                    .quoted(apt.notes())
+                    .value(apt.statusLabel())
+                    .value(apt.durationOrZero())
+                    .endRow();
+            if (++count % PROGRESS_EVERY == 0) {
+                progress.accept(count);
+            }
+        }
+        csv.flush();
+        return count;
+    }
+
+    private Stream<AppointmentExportRow> streamRows(Long businessId, AppointmentExportFilter filter) {
+        return appointmentRepo.streamForExport(businessId, filter.startDate(), filter.endDate(), filter.status());
+    }
+
+    private CellStyle createHeaderStyle(Workbook workbook) {
+        CellStyle headerStyle = workbook.createCellStyle();
+        Font headerFont = workbook.createFont();
+        headerFont.setBold(true);
+        headerFont.setColor(IndexedColors.WHITE.getIndex());
+        headerStyle.setFont(headerFont);
+        headerStyle.setFillForegroundColor(IndexedColors.DARK_BLUE.getIndex());
+        headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        headerStyle.setAlignment(HorizontalAlignment.CENTER);
+        return headerStyle;
+    }
+}
@@ -0,0 +1,102 @@
+package com.turnofacil.service.export;
+
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Escritor CSV con buffer y reutilizable entre filas.
+ * Escribe cada campo directamente sobre el buffer, sin formatear cadenas intermedias.
+ * No cierra el OutputStream subyacente (normalmente el de la respuesta HTTP).
+ */
+public final class CsvWriter implements Flushable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final char SEPARATOR = ',';
+    private static final char QUOTE = '"';
+
+    private final Writer out;
+    private boolean firstInRow = true;
+
+    public CsvWriter(OutputStream outputStream) {
+        this.out = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    /**
+     * BOM UTF-8 para que Excel detecte la codificación.
+     */
+    public CsvWriter bom() throws IOException {
+        out.write('\uFEFF');
+        return this;
+    }
+
+    /**
+     * Campo sin comillas (fechas, horas, números, etiquetas fijas).
+     */
+    public CsvWriter value(Object value) throws IOException {
+        separator();
+        if (value != null) {
+            out.write(value.toString());
+        }
+        return this;
+    }
+
+    public CsvWriter value(int value) throws IOException {
+        separator();
+        out.write(Integer.toString(value));
+        return this;
+    }
+
+    /**
+     * Campo de texto libre entre comillas, duplicando las comillas internas.
+     */
+    public CsvWriter quoted(String value) throws IOException {
+        separator();
+        out.write(QUOTE);
+        if (value != null) {
+            int start = 0;
+            int quote;
+            while ((quote = value.indexOf(QUOTE, start)) >= 0) {
+                out.write(value, start, quote - start + 1);
+                out.write(QUOTE);
+                start = quote + 1;
+            }
+            out.write(value, start, value.length() - start);
+        }
+        out.write(QUOTE);
+        return this;
+    }
+
+    /**
+     * Cabecera: una fila de campos sin comillas.
+     */
+    public CsvWriter header(String... columns) throws IOException {
+        for (String column : columns) {
+            value(column);
+        }
+        return endRow();
+    }
+
+    public CsvWriter endRow() throws IOException {
+        out.write('\n');
+        firstInRow = true;
+        return this;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private void separator() throws IOException {
+        if (firstInRow) {
+            firstInRow = false;
+        } else {
+            out.write(SEPARATOR);
+        }
+    }
+}
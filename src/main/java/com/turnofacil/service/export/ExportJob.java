@@ -0,0 +1,74 @@
+package com.turnofacil.service.export;
+
+import com.turnofacil.dto.AppointmentExportFilter;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Estado de un trabajo de exportación.
+ * Lo escribe el hilo del executor y lo leen los controladores, por eso los campos mutables son volatile.
+ */
+public class ExportJob {
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    private final String id;
+    private final Long businessId;
+    private final ExportType type;
+    private final AppointmentExportFilter filter;
+    private final String downloadToken;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile long rows;
+    private volatile Path file;
+    private volatile LocalDateTime finishedAt;
+    private volatile LocalDateTime expiresAt;
+    private volatile String error;
+
+    ExportJob(String id, Long businessId, ExportType type, AppointmentExportFilter filter, String downloadToken) {
+        this.id = id;
+        this.businessId = businessId;
+        this.type = type;
+        this.filter = filter;
+        this.downloadToken = downloadToken;
+    }
+
+    public String getFileName() {
+        return type.getFilePrefix() + "_" + createdAt.toLocalDate() + "." + type.getExtension();
+    }
+
+    public boolean isExpired(LocalDateTime now) {
+        return expiresAt != null && now.isAfter(expiresAt);
+    }
+
+    // ==================== GETTERS / SETTERS ====================
+
+    public String getId() { return id; }
+    public Long getBusinessId() { return businessId; }
+    public ExportType getType() { return type; }
+    public AppointmentExportFilter getFilter() { return filter; }
+    String getDownloadToken() { return downloadToken; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDate getCreatedDate() { return createdAt.toLocalDate(); }
+
+    public Status getStatus() { return status; }
+    void setStatus(Status status) { this.status = status; }
+
+    public long getRows() { return rows; }
+    void setRows(long rows) { this.rows = rows; }
+
+    public Path getFile() { return file; }
+    void setFile(Path file) { this.file = file; }
+
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+
+    public String getError() { return error; }
+    void setError(String error) { this.error = error; }
+}
@@ -0,0 +1,247 @@
+package com.turnofacil.service.export;
+
+import com.turnofacil.config.AsyncConfiguration;
+import com.turnofacil.dto.AppointmentExportFilter;
+import com.turnofacil.dto.ExportJobDto;
+import com.turnofacil.service.NotificationSseService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+/**
+ * Exportaciones en segundo plano.
+ *
+ * Las peticiones de exportación solo encolan el trabajo y responden al momento.
+ * El executor de exportaciones (acotado, ver AsyncConfiguration) escribe el fichero en disco, el progreso se notifica por SSE
+ * (evento "export") y al terminar se ofrece un enlace de descarga con token que caduca.
+ * Cada negocio tiene un máximo de exportaciones activas para que uno solo no acapare el pool.
+ *
+ * El registro de trabajos es en memoria (igual que los emitters SSE): un reinicio
+ * descarta los trabajos pendientes y los ficheros se limpian al caducar.
+ */
+@Service
+public class ExportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportJobService.class);
+
+    // Mínimo intervalo entre eventos SSE de progreso de un mismo trabajo
+    private static final long PROGRESS_NOTIFY_INTERVAL_MS = 2_000;
+
+    private final AppointmentExportService appointmentExportService;
+    private final InvoiceExportService invoiceExportService;
+    private final NotificationSseService sseService;
+
+    private final Path exportDir;
+    private final int maxPerBusiness;
+    private final Duration linkTtl;
+    private final Executor executor;
+
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicInteger> activeByBusiness = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+
+    public ExportJobService(AppointmentExportService appointmentExportService,
+                            InvoiceExportService invoiceExportService,
+                            NotificationSseService sseService,
+                            @Qualifier(AsyncConfiguration.EXPORT_EXECUTOR) Executor executor,
+                            @Value("${app.export.dir:${java.io.tmpdir}/turnofacil-exports}") String exportDir,
+                            @Value("${app.export.max-per-business:1}") int maxPerBusiness,
+                            @Value("${app.export.link-ttl-minutes:30}") long linkTtlMinutes) throws IOException {
+        this.appointmentExportService = appointmentExportService;
+        this.invoiceExportService = invoiceExportService;
+        this.sseService = sseService;
+        this.exportDir = Files.createDirectories(Path.of(exportDir));
+        this.maxPerBusiness = maxPerBusiness;
+        this.linkTtl = Duration.ofMinutes(linkTtlMinutes);
+
+        this.executor = executor;
+    }
+
+    // ==================== ENCOLAR ====================
+
+    /**
+     * Encola una exportación para el negocio.
+     *
+     * @throws IllegalStateException si el negocio ya tiene el máximo de exportaciones activas
+     *                               o la cola global está llena
+     */
+    public ExportJob enqueue(Long businessId, ExportType type, AppointmentExportFilter filter) {
+        AtomicInteger active = activeByBusiness.computeIfAbsent(businessId, k -> new AtomicInteger());
+        if (active.incrementAndGet() > maxPerBusiness) {
+            active.decrementAndGet();
+            throw new IllegalStateException(
+                    "Ya tienes una exportación en curso. Espera a que termine para lanzar otra.");
+        }
+
+        ExportJob job = new ExportJob(UUID.randomUUID().toString(), businessId, type, filter, newToken());
+        jobs.put(job.getId(), job);
+        // QUEUED sale antes de entregar el trabajo al executor: si no, el hilo de la
+        // exportación podría publicar RUNNING primero
+        notify(job);
+
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            active.decrementAndGet();
+            job.setStatus(ExportJob.Status.FAILED);
+            job.setError("Cola de exportaciones llena");
+            notify(job);
+            log.warn("Cola de exportaciones llena - Negocio: {} | Tipo: {}", businessId, type);
+            throw new IllegalStateException(
+                    "Hay demasiadas exportaciones en curso. Inténtalo de nuevo en unos minutos.");
+        }
+
+        log.info("Exportacion encolada - Negocio: {} | Tipo: {} | Job: {}", businessId, type, job.getId());
+        return job;
+    }
+
+    // ==================== EJECUCIÓN ====================
+
+    private void run(ExportJob job) {
+        long start = System.currentTimeMillis();
+        Path partial = exportDir.resolve(job.getId() + ".part");
+        job.setStatus(ExportJob.Status.RUNNING);
+        notify(job);
+
+        try {
+            long rows;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial))) {
+                rows = write(job, out, progressListener(job));
+            }
+            Path target = exportDir.resolve(job.getId() + "." + job.getType().getExtension());
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+
+            job.setRows(rows);
+            job.setFile(target);
+            job.setStatus(ExportJob.Status.COMPLETED);
+            log.info("Exportacion completada - Negocio: {} | Tipo: {} | Filas: {} | {} ms",
+                    job.getBusinessId(), job.getType(), rows, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            job.setStatus(ExportJob.Status.FAILED);
+            job.setError(e.getMessage());
+            deleteQuietly(partial);
+            log.error("Error en exportacion - Negocio: {} | Tipo: {} | Job: {}: {}",
+                    job.getBusinessId(), job.getType(), job.getId(), e.getMessage());
+        } finally {
+            LocalDateTime now = LocalDateTime.now();
+            job.setFinishedAt(now);
+            job.setExpiresAt(now.plus(linkTtl));
+            activeByBusiness.get(job.getBusinessId()).decrementAndGet();
+            notify(job);
+        }
+    }
+
+    private long write(ExportJob job, OutputStream out, LongConsumer progress) throws IOException {
+        Long businessId = job.getBusinessId();
+        return switch (job.getType()) {
+            case APPOINTMENTS_XLSX -> appointmentExportService.writeExcel(businessId, job.getFilter(), out, progress);
+            case APPOINTMENTS_CSV -> appointmentExportService.writeCsv(businessId, job.getFilter(), out, progress);
+            case INVOICES_CSV -> invoiceExportService.writeCsv(businessId, out, progress);
+        };
+    }
+
+    private LongConsumer progressListener(ExportJob job) {
+        long[] lastNotified = {0};
+        return rows -> {
+            job.setRows(rows);
+            long now = System.currentTimeMillis();
+            if (now - lastNotified[0] >= PROGRESS_NOTIFY_INTERVAL_MS) {
+                lastNotified[0] = now;
+                notify(job);
+            }
+        };
+    }
+
+    private void notify(ExportJob job) {
+        sseService.sendEvent(job.getBusinessId(), "export", toDto(job));
+    }
+
+    // ==================== CONSULTA Y DESCARGA ====================
+
+    public Optional<ExportJob> getJob(Long businessId, String jobId) {
+        return Optional.ofNullable(jobs.get(jobId))
+                .filter(job -> job.getBusinessId().equals(businessId));
+    }
+
+    /**
+     * Devuelve el fichero si el trabajo es del negocio, está completado, el token coincide y no ha caducado.
+     */
+    public Optional<ExportJob> getDownloadable(Long businessId, String jobId, String token) {
+        LocalDateTime now = LocalDateTime.now();
+        return getJob(businessId, jobId)
+                .filter(job -> job.getStatus() == ExportJob.Status.COMPLETED)
+                .filter(job -> !job.isExpired(now))
+                .filter(job -> token != null && MessageDigest.isEqual(
+                        job.getDownloadToken().getBytes(StandardCharsets.UTF_8),
+                        token.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public ExportJobDto toDto(ExportJob job) {
+        String downloadUrl = job.getStatus() == ExportJob.Status.COMPLETED
+                ? "/admin/exports/" + job.getId() + "/download?token=" + job.getDownloadToken()
+                : null;
+        return ExportJobDto.from(job, downloadUrl);
+    }
+
+    // ==================== LIMPIEZA ====================
+
+    /**
+     * Borra ficheros y trabajos cuyo enlace de descarga ha caducado.
+     */
+    @Scheduled(fixedDelay = 10 * 60 * 1000)
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int purged = 0;
+        for (ExportJob job : jobs.values()) {
+            if (job.isExpired(now)) {
+                if (job.getFile() != null) {
+                    deleteQuietly(job.getFile());
+                }
+                jobs.remove(job.getId());
+                purged++;
+            }
+        }
+        if (purged > 0) {
+            log.info("Exportaciones caducadas eliminadas: {}", purged);
+        }
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[24];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("No se pudo borrar el fichero de exportacion {}: {}", path, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.turnofacil.service.export;
+
+/**
+ * Tipos de exportación que se pueden encolar como trabajo en segundo plano.
+ */
+public enum ExportType {
+    APPOINTMENTS_XLSX("Turnos (Excel)", "turnos", "xlsx",
+            "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"),
+    APPOINTMENTS_CSV("Turnos (CSV)", "turnos", "csv", "text/csv; charset=UTF-8"),
+    INVOICES_CSV("Facturas (CSV)", "facturas", "csv", "text/csv; charset=UTF-8");
+
+    private final String displayName;
+    private final String filePrefix;
+    private final String extension;
+    private final String contentType;
+
+    ExportType(String displayName, String filePrefix, String extension, String contentType) {
+        this.displayName = displayName;
+        this.filePrefix = filePrefix;
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public String getFilePrefix() {
+        return filePrefix;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+}
@@ -0,0 +1,58 @@
+package com.turnofacil.service.export;
+
+import com.turnofacil.dto.InvoiceExportRow;
+import com.turnofacil.repository.InvoiceRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Exportación CSV del libro de facturas en streaming (mismo esquema que AppointmentExportService).
+ */
+@Service
+public class InvoiceExportService {
+
+    private static final String[] COLUMNS = {"Numero", "Fecha emision", "Fecha servicio", "Cliente", "NIF cliente",
+            "Base imponible", "IVA %", "Cuota IVA", "Total", "Estado"};
+
+    private final InvoiceRepository invoiceRepo;
+
+    public InvoiceExportService(InvoiceRepository invoiceRepo) {
+        this.invoiceRepo = invoiceRepo;
+    }
+
+    @Transactional(readOnly = true)
+    public long writeCsv(Long businessId, OutputStream out, LongConsumer progress) throws IOException {
+        try (Stream<InvoiceExportRow> rows = invoiceRepo.streamForExport(businessId)) {
+            CsvWriter csv = new CsvWriter(out).bom();
+            csv.header(COLUMNS);
+
+            long count = 0;
+            Iterator<InvoiceExportRow> it = rows.iterator();
+            while (it.hasNext()) {
+                InvoiceExportRow invoice = it.next();
+                csv.value(invoice.invoiceNumber())
+                        .value(invoice.issueDate())
+                        .value(invoice.serviceDate())
+                        .quoted(invoice.clientName())
+                        .quoted(invoice.clientTaxId())
+                        .value(invoice.taxableBase())
+                        .value(invoice.vatRate())
+                        .value(invoice.vatAmount())
+                        .value(invoice.total())
+                        .value(invoice.status() != null ? invoice.status().getDisplayName() : "")
+                        .endRow();
+                if (++count % AppointmentExportService.PROGRESS_EVERY == 0) {
+                    progress.accept(count);
+                }
+            }
+            csv.flush();
+            return count;
+        }
+    }
+}
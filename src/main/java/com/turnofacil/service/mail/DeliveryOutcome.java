@@ -0,0 +1,17 @@
+package com.turnofacil.service.mail;
+
+/**
+ * Resultado de cada email de un lote (ver EmailService.sendReminders).
+ */
+public enum DeliveryOutcome {
+    /** Enviado, o nada que enviar (email deshabilitado, sin dirección) */
+    SENT,
+    /** Fallo transitorio (conexión, servidor caído, 4xx): se puede reintentar */
+    RETRY,
+    /** Rechazo permanente (dirección inválida, 5xx del destinatario): no se reintenta */
+    REJECTED;
+
+    public boolean sent() {
+        return this == SENT;
+    }
+}
@@ -0,0 +1,170 @@
+package com.turnofacil.service.mail;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.unbescape.html.HtmlEscape;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Render de emails que procesa cada plantilla con Thymeleaf una vez por negocio y luego solo
+ * rellena los datos de cada destinatario.
+ *
+ * La primera vez, la plantilla se procesa con los datos del negocio (nombre, contacto) y un
+ * marcador en lugar de cada dato del destinatario; el HTML resultante se parte en trozos fijos
+ * y huecos. Los siguientes envíos concatenan los trozos con los valores escapados igual que
+ * th:text / th:href (HtmlEscape.escapeHtml4Xml). Como los th:if dependen de qué datos faltan,
+ * cada combinación de campos nulos tiene su propia versión; si un valor es uno de los que
+ * Thymeleaf evalúa como falso ("false", "no", 0...) se procesa la plantilla sin caché.
+ *
+ * Con spring.thymeleaf.cache=false (desarrollo) siempre se procesa la plantilla, para ver los
+ * cambios al momento. Métricas: turnofacil.email.render{cache=hit|miss|bypass}.
+ */
+@Component
+public class EmailTemplateRenderer {
+
+    private static final int MAX_COMPILED = 2_000;
+
+    private final TemplateEngine templateEngine;
+    private final boolean cacheEnabled;
+    // Alfanumérico: el escapado HTML no lo altera y no puede aparecer por casualidad
+    private final String marker = "tfslot" + Long.toHexString(ThreadLocalRandom.current().nextLong()) + "x";
+    private final Map<Key, CompiledTemplate> compiled = Collections.synchronizedMap(
+            new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, CompiledTemplate> eldest) {
+                    return size() > MAX_COMPILED;
+                }
+            });
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter bypasses;
+
+    public EmailTemplateRenderer(TemplateEngine templateEngine,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${spring.thymeleaf.cache:true}") boolean cacheEnabled) {
+        this.templateEngine = templateEngine;
+        this.cacheEnabled = cacheEnabled;
+        this.hits = meterRegistry.counter("turnofacil.email.render", "cache", "hit");
+        this.misses = meterRegistry.counter("turnofacil.email.render", "cache", "miss");
+        this.bypasses = meterRegistry.counter("turnofacil.email.render", "cache", "bypass");
+    }
+
+    /**
+     * @param template  nombre de la plantilla (p. ej. "email/reminder")
+     * @param shared    datos comunes a todos los emails del negocio
+     * @param recipient datos propios de cada destinatario; admite nulos
+     */
+    public String render(String template, Map<String, ?> shared, Map<String, ?> recipient) {
+        if (!cacheEnabled || !recipient.values().stream().allMatch(EmailTemplateRenderer::truthy)) {
+            bypasses.increment();
+            return process(template, shared, recipient);
+        }
+
+        Set<String> absent = new TreeSet<>();
+        recipient.forEach((name, value) -> {
+            if (value == null) {
+                absent.add(name);
+            }
+        });
+        Key key = new Key(template, shared, absent);
+        CompiledTemplate compiledTemplate = compiled.get(key);
+        if (compiledTemplate == null) {
+            misses.increment();
+            compiledTemplate = compile(template, shared, recipient);
+            // Copia de los datos del negocio: la clave no debe cambiar si quien llama reutiliza el mapa
+            compiled.put(new Key(template, new HashMap<>(shared), absent), compiledTemplate);
+        } else {
+            hits.increment();
+        }
+        return compiledTemplate.render(recipient);
+    }
+
+    int compiledTemplates() {
+        return compiled.size();
+    }
+
+    private String process(String template, Map<String, ?> shared, Map<String, ?> recipient) {
+        Context context = new Context();
+        context.setVariables(new HashMap<>(shared));
+        recipient.forEach(context::setVariable);
+        return templateEngine.process(template, context);
+    }
+
+    private CompiledTemplate compile(String template, Map<String, ?> shared, Map<String, ?> recipient) {
+        List<String> names = new ArrayList<>(recipient.keySet());
+        Map<String, Object> placeholders = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i);
+            placeholders.put(name, recipient.get(name) == null ? null : marker + i + "_");
+        }
+        String html = process(template, shared, placeholders);
+
+        List<String> literals = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+        int from = 0;
+        int at;
+        while ((at = html.indexOf(marker, from)) >= 0) {
+            int end = html.indexOf('_', at + marker.length());
+            literals.add(html.substring(from, at));
+            slots.add(names.get(Integer.parseInt(html.substring(at + marker.length(), end))));
+            from = end + 1;
+        }
+        literals.add(html.substring(from));
+        return new CompiledTemplate(literals.toArray(String[]::new), slots.toArray(String[]::new),
+                literals.stream().mapToInt(String::length).sum());
+    }
+
+    /**
+     * Mismo criterio que Thymeleaf para th:if (EvaluationUtils.evaluateAsBoolean), salvo nulos,
+     * que se resuelven con la clave de la caché.
+     */
+    private static boolean truthy(Object value) {
+        if (value == null) {
+            return true;
+        }
+        if (value instanceof Boolean bool) {
+            return bool;
+        }
+        if (value instanceof Number number) {
+            return number.doubleValue() != 0;
+        }
+        if (value instanceof Character character) {
+            return character != 0;
+        }
+        if (value instanceof String text) {
+            return !"false".equalsIgnoreCase(text) && !"off".equalsIgnoreCase(text) && !"no".equalsIgnoreCase(text);
+        }
+        return true;
+    }
+
+    private record Key(String template, Map<String, ?> shared, Set<String> absent) {
+    }
+
+    /**
+     * literals[0] + slots[0] + literals[1] + ... + literals[n]
+     */
+    private record CompiledTemplate(String[] literals, String[] slots, int fixedLength) {
+
+        String render(Map<String, ?> recipient) {
+            StringBuilder html = new StringBuilder(fixedLength + 32 * slots.length);
+            for (int i = 0; i < slots.length; i++) {
+                html.append(literals[i]);
+                html.append(HtmlEscape.escapeHtml4Xml(String.valueOf(recipient.get(slots[i]))));
+            }
+            return html.append(literals[slots.length]).toString();
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.turnofacil.service.mail;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * JavaMailSender que reutiliza las sesiones SMTP ya autenticadas en lugar de abrir
+ * conexión, TLS y AUTH por cada envío.
+ *
+ * - Como mucho maxConnections conexiones; el que llega sin conexión libre espera hasta borrowTimeout.
+ * - send(MimeMessage...) manda todo el lote por la misma conexión.
+ * - Una conexión se cierra tras maxMessagesPerConnection mensajes (límite típico de los
+ *   servidores) o al pasar idleTimeout sin uso.
+ * - Si el envío falla por la conexión (el servidor la cerró, red...), se reconecta y se
+ *   reintenta una vez; un destinatario rechazado (SendFailedException) no se reintenta.
+ */
+public class PooledJavaMailSender extends JavaMailSenderImpl implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PooledJavaMailSender.class);
+
+    private final Duration idleTimeout;
+    private final int maxMessagesPerConnection;
+    private final Duration borrowTimeout;
+
+    private final Semaphore slots;
+    // LIFO: se reutiliza la conexión más reciente y las del fondo caducan por inactividad
+    private final Deque<PooledTransport> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger open = new AtomicInteger();
+    private final ScheduledExecutorService evictor;
+
+    private final Counter connects;
+    private final Counter reconnects;
+    private final Counter messages;
+
+    public PooledJavaMailSender(int maxConnections, Duration idleTimeout, int maxMessagesPerConnection,
+                                Duration borrowTimeout, MeterRegistry meterRegistry) {
+        this.idleTimeout = idleTimeout;
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.borrowTimeout = borrowTimeout;
+        this.slots = new Semaphore(maxConnections, true);
+
+        this.connects = Counter.builder("turnofacil.email.smtp.connects")
+                .description("Conexiones SMTP abiertas (incluye reconexiones)")
+                .register(meterRegistry);
+        this.reconnects = Counter.builder("turnofacil.email.smtp.reconnects")
+                .description("Reconexiones tras un fallo de una conexión reutilizada")
+                .register(meterRegistry);
+        this.messages = Counter.builder("turnofacil.email.smtp.messages")
+                .description("Mensajes entregados al servidor SMTP")
+                .register(meterRegistry);
+        Gauge.builder("turnofacil.email.smtp.connections", open, AtomicInteger::get)
+                .description("Conexiones SMTP abiertas")
+                .tag("state", "open")
+                .register(meterRegistry);
+        Gauge.builder("turnofacil.email.smtp.connections", idle, Deque::size)
+                .description("Conexiones SMTP abiertas")
+                .tag("state", "idle")
+                .register(meterRegistry);
+
+        long sweepMillis = Math.max(1000, idleTimeout.toMillis() / 2);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "smtp-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        this.evictor.scheduleWithFixedDelay(this::evictIdle, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) throws MailException {
+        Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+        try {
+            if (!slots.tryAcquire(borrowTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new MailSendException("Sin conexión SMTP libre tras " + borrowTimeout.toMillis() + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MailSendException("Interrumpido esperando una conexión SMTP", e);
+        }
+
+        PooledTransport connection = null;
+        try {
+            for (int i = 0; i < mimeMessages.length; i++) {
+                MimeMessage message = mimeMessages[i];
+                Object original = originalMessages != null ? originalMessages[i] : message;
+                connection = deliver(connection, message, original, failedMessages);
+            }
+        } finally {
+            if (connection != null) {
+                release(connection);
+            }
+            slots.release();
+        }
+
+        if (!failedMessages.isEmpty()) {
+            throw new MailSendException(failedMessages);
+        }
+    }
+
+    /**
+     * Envía un mensaje por la conexión dada (o una del pool) y devuelve la conexión con la
+     * que seguir el lote, o null si se cerró. Los fallos quedan en failedMessages.
+     */
+    private PooledTransport deliver(PooledTransport connection, MimeMessage message, Object original,
+                                    Map<Object, Exception> failedMessages) {
+        Address[] recipients;
+        try {
+            prepare(message);
+            Address[] addresses = message.getAllRecipients();
+            recipients = addresses != null ? addresses : new Address[0];
+        } catch (MessagingException e) {
+            failedMessages.put(original, e);
+            return connection;
+        }
+
+        PooledTransport current = connection;
+        try {
+            if (current == null) {
+                current = borrow();
+            }
+            try {
+                current.transport.sendMessage(message, recipients);
+            } catch (MessagingException e) {
+                if (!connectionLost(current, e) || !current.reused()) {
+                    throw e;
+                }
+                // El servidor cerró una conexión reutilizada (timeout, reinicio...): se abre otra y se reintenta
+                log.debug("Conexión SMTP reutilizada caída ({}), reconectando", e.getMessage());
+                close(current);
+                current = null;
+                reconnects.increment();
+                current = connect();
+                current.transport.sendMessage(message, recipients);
+            }
+            current.sent++;
+            messages.increment();
+            return keepOrClose(current);
+        } catch (MessagingException e) {
+            failedMessages.put(original, e);
+            if (current != null && connectionLost(current, e)) {
+                close(current);
+                return null;
+            }
+            // Destinatario rechazado: la conexión sigue sirviendo para el resto del lote
+            return current;
+        }
+    }
+
+    /**
+     * El proveedor informa como SendFailedException tanto un destinatario rechazado como una
+     * conexión cortada a mitad de comando; isConnected() (un NOOP) distingue los dos casos.
+     */
+    private static boolean connectionLost(PooledTransport connection, MessagingException e) {
+        return !(e instanceof SendFailedException) || !connection.transport.isConnected();
+    }
+
+    private PooledTransport keepOrClose(PooledTransport connection) {
+        if (connection.sent >= maxMessagesPerConnection) {
+            close(connection);
+            return null;
+        }
+        return connection;
+    }
+
+    private PooledTransport borrow() throws MessagingException {
+        PooledTransport connection;
+        while ((connection = idle.pollFirst()) != null) {
+            if (!connection.expired(idleTimeout)) {
+                return connection;
+            }
+            close(connection);
+        }
+        return connect();
+    }
+
+    private PooledTransport connect() throws MessagingException {
+        Transport transport = connectTransport();
+        open.incrementAndGet();
+        connects.increment();
+        return new PooledTransport(transport);
+    }
+
+    private void release(PooledTransport connection) {
+        connection.lastUsedNanos = System.nanoTime();
+        idle.offerFirst(connection);
+    }
+
+    private void close(PooledTransport connection) {
+        open.decrementAndGet();
+        try {
+            connection.transport.close();
+        } catch (MessagingException e) {
+            log.debug("Error cerrando conexión SMTP: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Cierra desde el fondo de la pila las conexiones que llevan idleTimeout sin usarse.
+     */
+    void evictIdle() {
+        PooledTransport oldest;
+        while ((oldest = idle.pollLast()) != null) {
+            if (!oldest.expired(idleTimeout)) {
+                idle.offerLast(oldest);
+                return;
+            }
+            close(oldest);
+        }
+    }
+
+    private static void prepare(MimeMessage message) throws MessagingException {
+        // Igual que JavaMailSenderImpl: fecha de envío y Message-ID estables
+        if (message.getSentDate() == null) {
+            message.setSentDate(new Date());
+        }
+        String messageId = message.getMessageID();
+        message.saveChanges();
+        if (messageId != null) {
+            message.setHeader("Message-ID", messageId);
+        }
+    }
+
+    int openConnections() {
+        return open.get();
+    }
+
+    @Override
+    public void destroy() {
+        evictor.shutdownNow();
+        PooledTransport connection;
+        while ((connection = idle.pollFirst()) != null) {
+            close(connection);
+        }
+    }
+
+    private static final class PooledTransport {
+        final Transport transport;
+        final long createdNanos = System.nanoTime();
+        long lastUsedNanos = createdNanos;
+        int sent;
+
+        PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+
+        boolean reused() {
+            return sent > 0 || lastUsedNanos != createdNanos;
+        }
+
+        boolean expired(Duration idleTimeout) {
+            return System.nanoTime() - lastUsedNanos > idleTimeout.toNanos();
+        }
+    }
+}
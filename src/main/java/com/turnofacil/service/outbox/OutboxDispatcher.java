@@ -0,0 +1,290 @@
+package com.turnofacil.service.outbox;
+
+import com.turnofacil.config.AsyncConfiguration;
+import com.turnofacil.dto.EmailAppointmentDto;
+import com.turnofacil.dto.NotificationDto;
+import com.turnofacil.dto.WelcomeEmailPayload;
+import com.turnofacil.dto.WhatsAppConfirmationPayload;
+import com.turnofacil.model.OutboxMessage;
+import com.turnofacil.model.enums.OutboxStatus;
+import com.turnofacil.repository.OutboxMessageRepository;
+import com.turnofacil.scheduler.cluster.ClusterJob;
+import com.turnofacil.scheduler.cluster.JobRunContext;
+import com.turnofacil.service.EmailService;
+import com.turnofacil.service.NotificationSseService;
+import com.turnofacil.service.whatsapp.WhatsAppService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Entrega los mensajes de OUTBOX_MESSAGES.
+ *
+ * Mismo esquema que ReminderScheduler: lote de ids vencidos, reclamo en una transacción
+ * corta, envío fuera de transacción en el executor acotado de cada canal (AsyncConfiguration)
+ * y escritura masiva del resultado.
+ * Un fallo reprograma el mensaje con backoff exponencial (con jitter); al llegar a
+ * max-attempts pasa a DEAD. La entrega es al menos una vez: si la instancia cae entre el
+ * envío y la escritura, el reclamo caduca y el mensaje se reintenta.
+ */
+@Component
+public class OutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final OutboxMessageRepository outboxRepo;
+    private final OutboxService outboxService;
+    private final EmailService emailService;
+    private final WhatsAppService whatsAppService;
+    private final NotificationSseService sseService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final long claimTtlMinutes;
+    private final int maxAttempts;
+    private final Duration backoffBase;
+    private final Duration backoffMax;
+    private final int retentionDays;
+    private final Executor emailExecutor;
+    private final Executor whatsappExecutor;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicBoolean wakeup = new AtomicBoolean();
+
+    public OutboxDispatcher(OutboxMessageRepository outboxRepo,
+                            OutboxService outboxService,
+                            EmailService emailService,
+                            WhatsAppService whatsAppService,
+                            NotificationSseService sseService,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Qualifier(AsyncConfiguration.EMAIL_EXECUTOR) Executor emailExecutor,
+                            @Qualifier(AsyncConfiguration.WHATSAPP_EXECUTOR) Executor whatsappExecutor,
+                            @Value("${app.outbox.batch-size:50}") int batchSize,
+                            @Value("${app.outbox.max-batches-per-run:20}") int maxBatchesPerRun,
+                            @Value("${app.outbox.claim-ttl-minutes:5}") long claimTtlMinutes,
+                            @Value("${app.outbox.max-attempts:8}") int maxAttempts,
+                            @Value("${app.outbox.backoff-base-seconds:30}") long backoffBaseSeconds,
+                            @Value("${app.outbox.backoff-max-minutes:60}") long backoffMaxMinutes,
+                            @Value("${app.outbox.retention-days:7}") int retentionDays) {
+        this.outboxRepo = outboxRepo;
+        this.outboxService = outboxService;
+        this.emailService = emailService;
+        this.whatsAppService = whatsAppService;
+        this.sseService = sseService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.claimTtlMinutes = claimTtlMinutes;
+        this.maxAttempts = maxAttempts;
+        this.backoffBase = Duration.ofSeconds(backoffBaseSeconds);
+        this.backoffMax = Duration.ofMinutes(backoffMaxMinutes);
+        this.retentionDays = retentionDays;
+        this.emailExecutor = emailExecutor;
+        this.whatsappExecutor = whatsappExecutor;
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-delay-ms:2000}")
+    public void dispatchPending() {
+        // Varias llamadas a la vez (pasada programada + avisos tras commit) se agrupan:
+        // si ya hay una pasada en curso, esta repite al terminar en lugar de correr en paralelo
+        wakeup.set(true);
+        while (wakeup.get() && running.compareAndSet(false, true)) {
+            try {
+                wakeup.set(false);
+                drain();
+            } finally {
+                running.set(false);
+            }
+        }
+    }
+
+    /**
+     * Entrega inmediata tras el commit de la transacción que encoló el mensaje.
+     */
+    @Async(AsyncConfiguration.JOBS_EXECUTOR)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onMessageEnqueued(OutboxMessageEnqueuedEvent event) {
+        dispatchPending();
+    }
+
+    private void drain() {
+        String runToken = UUID.randomUUID().toString();
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            int due = dispatchBatch(runToken);
+            if (due < batchSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Procesa un lote y devuelve cuántos mensajes vencidos había (para decidir si seguir).
+     */
+    int dispatchBatch(String runToken) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> dueIds = outboxRepo.findDueIds(now, PageRequest.of(0, batchSize));
+        if (dueIds.isEmpty()) {
+            return 0;
+        }
+
+        List<OutboxMessage> claimed = transactionTemplate.execute(status -> {
+            outboxRepo.claim(dueIds, runToken, now.plusMinutes(claimTtlMinutes), now);
+            return outboxRepo.findClaimed(dueIds, runToken);
+        });
+        if (claimed == null || claimed.isEmpty()) {
+            return dueIds.size();
+        }
+
+        Set<Long> sentIds = ConcurrentHashMap.newKeySet();
+        Map<Long, String> failures = new ConcurrentHashMap<>();
+        List<CompletableFuture<Void>> sends = new ArrayList<>(claimed.size());
+        for (OutboxMessage message : claimed) {
+            sends.add(CompletableFuture.runAsync(() -> {
+                try {
+                    deliver(message);
+                    sentIds.add(message.getId());
+                } catch (Exception e) {
+                    failures.put(message.getId(), e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+                }
+            }, executorFor(message)));
+        }
+        CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).join();
+
+        writeBack(claimed, sentIds, failures);
+        return dueIds.size();
+    }
+
+    private void deliver(OutboxMessage message) throws Exception {
+        switch (message.getType()) {
+            case BOOKING_CONFIRMATION_EMAIL ->
+                    emailService.sendBookingConfirmation(outboxService.readPayload(message, EmailAppointmentDto.class));
+            case BUSINESS_NOTIFICATION_EMAIL ->
+                    emailService.sendBusinessNotification(outboxService.readPayload(message, EmailAppointmentDto.class));
+            case WELCOME_EMAIL -> {
+                WelcomeEmailPayload payload = outboxService.readPayload(message, WelcomeEmailPayload.class);
+                emailService.sendWelcomeEmail(payload.toEmail(), payload.businessName());
+            }
+            case WHATSAPP_CONFIRMATION -> {
+                WhatsAppConfirmationPayload payload = outboxService.readPayload(message, WhatsAppConfirmationPayload.class);
+                WhatsAppService.SendResult result = whatsAppService.sendAppointmentConfirmation(
+                        payload.phoneNumber(), payload.businessName(), payload.serviceName(),
+                        payload.dateTime(), payload.confirmationCode());
+                if (!result.success()) {
+                    throw new IllegalStateException(result.errorMessage());
+                }
+            }
+            case SSE_NOTIFICATION ->
+                    sseService.sendNotification(message.getBusinessId(),
+                            outboxService.readPayload(message, NotificationDto.class));
+        }
+    }
+
+    private void writeBack(List<OutboxMessage> claimed, Set<Long> sentIds, Map<Long, String> failures) {
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!sentIds.isEmpty()) {
+                outboxRepo.markSent(List.copyOf(sentIds), now);
+            }
+            for (OutboxMessage message : claimed) {
+                String error = failures.get(message.getId());
+                if (error == null) {
+                    continue;
+                }
+                int attempts = message.getAttempts() + 1;
+                outboxRepo.markFailed(message.getId(),
+                        attempts >= maxAttempts ? OutboxStatus.DEAD : OutboxStatus.PENDING,
+                        attempts,
+                        now.plus(backoff(attempts, backoffBase, backoffMax)),
+                        truncate(error));
+            }
+        });
+
+        for (OutboxMessage message : claimed) {
+            String outcome;
+            if (sentIds.contains(message.getId())) {
+                outcome = "sent";
+            } else if (message.getAttempts() + 1 >= maxAttempts) {
+                outcome = "dead";
+                log.error("Mensaje {} ({}) descartado tras {} intentos: {}",
+                        message.getIdempotencyKey(), message.getType(), maxAttempts, failures.get(message.getId()));
+            } else {
+                outcome = "retry";
+                log.warn("Error entregando {} ({}), intento {}: {}",
+                        message.getIdempotencyKey(), message.getType(), message.getAttempts() + 1, failures.get(message.getId()));
+            }
+            meterRegistry.counter("turnofacil.outbox.messages",
+                    "type", message.getType().name(), "outcome", outcome).increment();
+        }
+    }
+
+    /**
+     * Espera antes del intento siguiente: base * 2^(intentos - 1), con tope y hasta un 10% de jitter
+     * para que los mensajes que fallaron juntos no se reintenten todos a la vez.
+     */
+    static Duration backoff(int attempts, Duration base, Duration max) {
+        long factor = 1L << Math.min(attempts - 1, 20);
+        Duration delay = base.multipliedBy(factor);
+        if (delay.compareTo(max) > 0) {
+            delay = max;
+        }
+        long jitterMillis = ThreadLocalRandom.current().nextLong(delay.toMillis() / 10 + 1);
+        return delay.plusMillis(jitterMillis);
+    }
+
+    /**
+     * Borra cada noche los mensajes entregados con más de retention-days; los DEAD se conservan.
+     */
+    @ClusterJob("outbox-purge")
+    @Scheduled(cron = "0 40 3 * * *")
+    public void purgeSent() {
+        int purged = transactionTemplate.execute(status ->
+                outboxRepo.deleteSentBefore(LocalDateTime.now().minusDays(retentionDays)));
+        JobRunContext.addProcessed(purged);
+        if (purged > 0) {
+            log.info("Mensajes de outbox entregados purgados: {}", purged);
+        }
+    }
+
+    private static String truncate(String error) {
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+
+    /**
+     * Cada canal en su executor: un pico de emails no retrasa los WhatsApp. Los avisos SSE
+     * solo encolan el evento en el executor de SSE, así que se entregan en el hilo del lote.
+     */
+    private Executor executorFor(OutboxMessage message) {
+        return switch (message.getType()) {
+            case BOOKING_CONFIRMATION_EMAIL, BUSINESS_NOTIFICATION_EMAIL, WELCOME_EMAIL -> emailExecutor;
+            case WHATSAPP_CONFIRMATION -> whatsappExecutor;
+            case SSE_NOTIFICATION -> Runnable::run;
+        };
+    }
+}
@@ -0,0 +1,10 @@
+package com.turnofacil.service.outbox;
+
+/**
+ * Publicado al encolar un mensaje; tras el commit despierta a OutboxDispatcher
+ * para no esperar a la siguiente pasada programada.
+ */
+public record OutboxMessageEnqueuedEvent(
+        Long messageId
+) {
+}
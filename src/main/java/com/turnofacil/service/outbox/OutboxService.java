@@ -0,0 +1,60 @@
+package com.turnofacil.service.outbox;
+
+import com.turnofacil.model.OutboxMessage;
+import com.turnofacil.model.enums.OutboxMessageType;
+import com.turnofacil.repository.OutboxMessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Escritura en el outbox transaccional (OUTBOX_MESSAGES).
+ *
+ * Se llama dentro de la transacción que crea la reserva o el negocio: si esa transacción
+ * hace rollback el mensaje desaparece con ella, y si confirma OutboxDispatcher lo entrega.
+ */
+@Service
+public class OutboxService {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxService.class);
+
+    private final OutboxMessageRepository outboxRepo;
+    private final JsonMapper jsonMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public OutboxService(OutboxMessageRepository outboxRepo,
+                         JsonMapper jsonMapper,
+                         ApplicationEventPublisher eventPublisher) {
+        this.outboxRepo = outboxRepo;
+        this.jsonMapper = jsonMapper;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Encola un mensaje. La clave de idempotencia identifica el mensaje de negocio
+     * (p. ej. "booking-confirmation:123"); si ya existe no se vuelve a encolar.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(OutboxMessageType type, Long businessId, String idempotencyKey, Object payload) {
+        if (outboxRepo.existsByIdempotencyKey(idempotencyKey)) {
+            log.debug("Mensaje {} ya encolado, se ignora", idempotencyKey);
+            return;
+        }
+
+        OutboxMessage message = new OutboxMessage();
+        message.setType(type);
+        message.setBusinessId(businessId);
+        message.setIdempotencyKey(idempotencyKey);
+        message.setPayload(jsonMapper.writeValueAsString(payload));
+        outboxRepo.save(message);
+        eventPublisher.publishEvent(new OutboxMessageEnqueuedEvent(message.getId()));
+    }
+
+    <T> T readPayload(OutboxMessage message, Class<T> payloadType) {
+        return jsonMapper.readValue(message.getPayload(), payloadType);
+    }
+}
@@ -0,0 +1,112 @@
+package com.turnofacil.service.whatsapp;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Limita los envíos aceptados y las llamadas asíncronas en vuelo sin bloquear al que envía.
+ *
+ * Un envío entra con tryAccept (como mucho maxInFlight + maxQueued a la vez; con todo ocupado
+ * se rechaza) y deja su plaza con finish al terminar, reintentos incluidos. Cada llamada de un
+ * envío aceptado pasa por call: ocupa uno de los maxInFlight permisos solo mientras dura y, si
+ * no hay permiso libre, espera en cola hasta que termine otra. Así las esperas al token bucket
+ * o a un reintento no retienen permisos.
+ */
+final class InFlightLimiter {
+
+    private final Semaphore permits;
+    private final int maxInFlight;
+    private final int maxAccepted;
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger accepted = new AtomicInteger();
+    // Avisos de vaciado pendientes: solo un hilo vacía la cola a la vez (ver drain)
+    private final AtomicInteger drainRequests = new AtomicInteger();
+
+    InFlightLimiter(int maxInFlight, int maxQueued) {
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.permits = new Semaphore(this.maxInFlight);
+        this.maxAccepted = this.maxInFlight + Math.max(0, maxQueued);
+    }
+
+    /**
+     * Reserva plaza para un envío. Devuelve false si ya hay maxInFlight + maxQueued en curso.
+     */
+    boolean tryAccept() {
+        if (accepted.incrementAndGet() > maxAccepted) {
+            accepted.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Libera la plaza de un envío aceptado, haya terminado bien o mal.
+     */
+    void finish() {
+        accepted.decrementAndGet();
+    }
+
+    /**
+     * Ejecuta la llamada cuando haya un permiso libre y lo devuelve al completarse.
+     */
+    <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        waiting.add(() -> {
+            CompletableFuture<T> running;
+            try {
+                running = call.get();
+            } catch (RuntimeException e) {
+                running = CompletableFuture.failedFuture(e);
+            }
+            running.whenComplete((value, error) -> {
+                permits.release();
+                drain();
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        });
+        drain();
+        return result;
+    }
+
+    int inFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    /**
+     * Envíos aceptados sin llamada en vuelo: esperando permiso, token o reintento.
+     */
+    int queued() {
+        return Math.max(0, accepted.get() - inFlight());
+    }
+
+    /**
+     * Arranca llamadas en cola mientras haya permisos. Una llamada que se completa en el mismo
+     * hilo vuelve a pedir drain desde dentro de run(); en vez de anidarse, deja el aviso en
+     * drainRequests y el bucle que ya está en marcha da otra vuelta.
+     */
+    private void drain() {
+        if (drainRequests.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            while (!waiting.isEmpty() && permits.tryAcquire()) {
+                Runnable next = waiting.poll();
+                if (next == null) {
+                    permits.release();
+                    continue;
+                }
+                next.run();
+            }
+            missed = drainRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
+}
@@ -0,0 +1,141 @@
+package com.turnofacil.service.whatsapp;
+
+import com.turnofacil.monitoring.jfr.OutboundCallEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Decorador que mide latencia y resultado de cada envío de WhatsApp (turnofacil.whatsapp.send)
+ * y emite un evento JFR OutboundCall por llamada.
+ * outcome=failure cuando el proveedor devuelve error, outcome=error cuando lanza excepción.
+ * Con la API real publica también las peticiones en vuelo y en cola del cliente asíncrono.
+ */
+public class MeteredWhatsAppService implements WhatsAppService, AutoCloseable {
+
+    private final WhatsAppService delegate;
+    private final MeterRegistry meterRegistry;
+
+    public MeteredWhatsAppService(WhatsAppService delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+        if (delegate instanceof WhatsAppBusinessService client) {
+            Gauge.builder("turnofacil.whatsapp.in_flight", client, WhatsAppBusinessService::inFlight)
+                    .description("Peticiones a la API de WhatsApp en vuelo")
+                    .register(meterRegistry);
+            Gauge.builder("turnofacil.whatsapp.queued", client, WhatsAppBusinessService::queued)
+                    .description("Envíos de WhatsApp esperando turno")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public SendResult sendMessage(String phoneNumber, String message) {
+        return measure("message", () -> delegate.sendMessage(phoneNumber, message));
+    }
+
+    @Override
+    public CompletableFuture<SendResult> sendMessageAsync(String phoneNumber, String message) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        OutboundCallEvent event = new OutboundCallEvent("whatsapp", "message_async");
+        event.begin();
+        return delegate.sendMessageAsync(phoneNumber, message)
+                .whenComplete((result, error) -> record(sample, event, outcome(result, error)));
+    }
+
+    @Override
+    public SendResult sendTemplate(String phoneNumber, String templateName, String... parameters) {
+        return measure("template", () -> delegate.sendTemplate(phoneNumber, templateName, parameters));
+    }
+
+    @Override
+    public SendResult sendAppointmentReminder(String phoneNumber, String businessName,
+                                              String serviceName, String dateTime) {
+        return measure("reminder",
+                () -> delegate.sendAppointmentReminder(phoneNumber, businessName, serviceName, dateTime));
+    }
+
+    @Override
+    public CompletableFuture<SendResult> sendAppointmentReminderAsync(String phoneNumber, String businessName,
+                                                                      String serviceName, String dateTime) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        OutboundCallEvent event = new OutboundCallEvent("whatsapp", "reminder_async");
+        event.begin();
+        return delegate.sendAppointmentReminderAsync(phoneNumber, businessName, serviceName, dateTime)
+                .whenComplete((result, error) -> record(sample, event, outcome(result, error)));
+    }
+
+    @Override
+    public SendResult sendAppointmentConfirmation(String phoneNumber, String businessName,
+                                                  String serviceName, String dateTime,
+                                                  String confirmationCode) {
+        return measure("confirmation", () -> delegate.sendAppointmentConfirmation(
+                phoneNumber, businessName, serviceName, dateTime, confirmationCode));
+    }
+
+    @Override
+    public SendResult sendCancellationNotice(String phoneNumber, String businessName,
+                                             String serviceName, String dateTime) {
+        return measure("cancellation",
+                () -> delegate.sendCancellationNotice(phoneNumber, businessName, serviceName, dateTime));
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return delegate.isAvailable();
+    }
+
+    @Override
+    public String getProviderName() {
+        return delegate.getProviderName();
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (delegate instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private SendResult measure(String type, Supplier<SendResult> call) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        OutboundCallEvent event = new OutboundCallEvent("whatsapp", type);
+        event.begin();
+        SendResult result = null;
+        RuntimeException error = null;
+        try {
+            result = call.get();
+            return result;
+        } catch (RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            record(sample, event, outcome(result, error));
+        }
+    }
+
+    private void record(Timer.Sample sample, OutboundCallEvent event, String outcome) {
+        sample.stop(timer(event.type, outcome));
+        event.success = "success".equals(outcome);
+        event.commit();
+    }
+
+    private static String outcome(SendResult result, Throwable error) {
+        if (error != null || result == null) {
+            return "error";
+        }
+        return result.success() ? "success" : "failure";
+    }
+
+    private Timer timer(String type, String outcome) {
+        return Timer.builder("turnofacil.whatsapp.send")
+                .description("Latencia de envío de mensajes de WhatsApp")
+                .tag("provider", delegate.getProviderName())
+                .tag("type", type)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
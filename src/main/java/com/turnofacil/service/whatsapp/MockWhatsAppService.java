@@ -3,33 +3,66 @@ package com.turnofacil.service.whatsapp;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Implementacion mock del servicio de WhatsApp.
  * Usado para desarrollo y testing sin API key real.
  * Solo logea los mensajes que se enviarian.
+ *
+ * Para pruebas de carga en local puede simular la API (whatsapp.mock.*): latencia fija
+ * mas un jitter aleatorio, y un porcentaje de respuestas 503 y 429. Los mensajes pasan por
+ * el mismo cliente que la API real (WhatsAppBusinessService con whatsapp.client.*), asi que
+ * la simulacion ejercita el limite en vuelo, el token bucket y los reintentos.
  */
-public class MockWhatsAppService implements WhatsAppService {
+public class MockWhatsAppService implements WhatsAppService, AutoCloseable {
 
     private static final Logger log = LoggerFactory.getLogger(MockWhatsAppService.class);
 
+    private final Duration latency;
+    private final Duration latencyJitter;
+    private final double failureRate;
+    private final double throttleRate;
+    private final WhatsAppBusinessService client;
+
     public MockWhatsAppService() {
-        log.info("MockWhatsAppService inicializado (modo desarrollo - mensajes solo se logean)");
+        this(Duration.ZERO, Duration.ZERO, 0, 0, WhatsAppClientSettings.defaults());
+    }
+
+    /**
+     * @param failureRate  fraccion de peticiones que responden 503 (0..1)
+     * @param throttleRate fraccion de peticiones que responden 429 (0..1)
+     * @param settings     limites del cliente, los mismos que usaria la API real
+     */
+    public MockWhatsAppService(Duration latency, Duration latencyJitter, double failureRate, double throttleRate,
+                               WhatsAppClientSettings settings) {
+        this.latency = latency;
+        this.latencyJitter = latencyJitter;
+        this.failureRate = failureRate;
+        this.throttleRate = throttleRate;
+        this.client = new WhatsAppBusinessService("mock", settings, this::simulateApi);
+        if (latency.isZero() && latencyJitter.isZero() && failureRate == 0 && throttleRate == 0) {
+            log.info("MockWhatsAppService inicializado (modo desarrollo - mensajes solo se logean)");
+        } else {
+            log.info("MockWhatsAppService inicializado simulando la API: latencia {} ms (+{} ms), fallos {}%, 429 {}%",
+                    latency.toMillis(), latencyJitter.toMillis(), failureRate * 100, throttleRate * 100);
+        }
     }
 
     @Override
     public SendResult sendMessage(String phoneNumber, String message) {
-        String messageId = generateMockMessageId();
-        log.info("[MOCK WhatsApp] Enviando mensaje a {}: {}", phoneNumber, truncate(message, 100));
-        log.debug("[MOCK WhatsApp] Mensaje completo: {}", message);
-        return SendResult.success(messageId);
+        return sendMessageAsync(phoneNumber, message).join();
     }
 
     @Override
     public CompletableFuture<SendResult> sendMessageAsync(String phoneNumber, String message) {
-        return CompletableFuture.supplyAsync(() -> sendMessage(phoneNumber, message));
+        log.info("[MOCK WhatsApp] Enviando mensaje a {}: {}", phoneNumber, truncate(message, 100));
+        log.debug("[MOCK WhatsApp] Mensaje completo: {}", message);
+        return client.sendMessageAsync(phoneNumber, message);
     }
 
     @Override
@@ -43,12 +76,13 @@ public class MockWhatsAppService implements WhatsAppService {
     @Override
     public SendResult sendAppointmentReminder(String phoneNumber, String businessName,
                                                String serviceName, String dateTime) {
-        String message = String.format(
-                "Recordatorio: Tienes una cita en %s para %s el %s. " +
-                "Si necesitas cancelar o reprogramar, contactanos.",
-                businessName, serviceName, dateTime
-        );
-        return sendMessage(phoneNumber, message);
+        return sendMessage(phoneNumber, reminderText(businessName, serviceName, dateTime));
+    }
+
+    @Override
+    public CompletableFuture<SendResult> sendAppointmentReminderAsync(String phoneNumber, String businessName,
+                                                                      String serviceName, String dateTime) {
+        return sendMessageAsync(phoneNumber, reminderText(businessName, serviceName, dateTime));
     }
 
     @Override
@@ -84,6 +118,53 @@ public class MockWhatsAppService implements WhatsAppService {
         return "Mock";
     }
 
+    @Override
+    public void close() {
+        client.close();
+    }
+
+    /**
+     * API simulada: responde tras la latencia configurada, sin ocupar un hilo mientras espera.
+     */
+    private CompletableFuture<WhatsAppTransport.Response> simulateApi(String payload) {
+        long delayNanos = nextDelayNanos();
+        if (delayNanos == 0) {
+            return CompletableFuture.completedFuture(simulatedResponse());
+        }
+        return CompletableFuture.supplyAsync(this::simulatedResponse,
+                CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS));
+    }
+
+    private WhatsAppTransport.Response simulatedResponse() {
+        double roll = ThreadLocalRandom.current().nextDouble();
+        if (roll < throttleRate) {
+            log.debug("[MOCK WhatsApp] 429 simulado");
+            return new WhatsAppTransport.Response(429, "{\"error\":\"simulado\"}", null);
+        }
+        if (roll < throttleRate + failureRate) {
+            log.debug("[MOCK WhatsApp] Fallo simulado");
+            return new WhatsAppTransport.Response(503, "{\"error\":\"simulado\"}", null);
+        }
+        return new WhatsAppTransport.Response(200,
+                "{\"messages\":[{\"id\":\"" + generateMockMessageId() + "\"}]}", null);
+    }
+
+    private long nextDelayNanos() {
+        long nanos = latency.toNanos();
+        if (!latencyJitter.isZero()) {
+            nanos += ThreadLocalRandom.current().nextLong(latencyJitter.toNanos() + 1);
+        }
+        return nanos;
+    }
+
+    private static String reminderText(String businessName, String serviceName, String dateTime) {
+        return String.format(
+                "Recordatorio: Tienes una cita en %s para %s el %s. " +
+                "Si necesitas cancelar o reprogramar, contactanos.",
+                businessName, serviceName, dateTime
+        );
+    }
+
     private String generateMockMessageId() {
         return "mock_" + UUID.randomUUID().toString().substring(0, 8);
     }
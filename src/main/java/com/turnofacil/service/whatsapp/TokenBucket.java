@@ -0,0 +1,33 @@
+package com.turnofacil.service.whatsapp;
+
+/**
+ * Token bucket con reserva: cada envío toma un token y, si no queda, recibe cuánto debe
+ * esperar para que le toque. No bloquea; el llamador programa el envío con ese retraso.
+ * Los tokens pueden quedar en negativo, así los envíos que esperan salen en orden de llegada.
+ */
+final class TokenBucket {
+
+    private final double nanosPerToken;
+    private final double capacity;
+    private double tokens;
+    private long lastRefillNanos;
+
+    TokenBucket(double tokensPerSecond, int burst, long nowNanos) {
+        this.nanosPerToken = 1_000_000_000d / tokensPerSecond;
+        this.capacity = Math.max(1, burst);
+        this.tokens = capacity;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    /**
+     * Reserva un token y devuelve los nanosegundos a esperar antes de usarlo (0 si ya está disponible).
+     */
+    synchronized long reserve(long nowNanos) {
+        if (nowNanos > lastRefillNanos) {
+            tokens = Math.min(capacity, tokens + (nowNanos - lastRefillNanos) / nanosPerToken);
+            lastRefillNanos = nowNanos;
+        }
+        tokens -= 1;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens * nanosPerToken);
+    }
+}
@@ -3,43 +3,105 @@ package com.turnofacil.service.whatsapp;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Implementacion real del servicio de WhatsApp usando la API de WhatsApp Business.
  * Requiere configurar las credenciales de Meta/Facebook.
  *
+ * Todos los envios van por HttpClient.sendAsync sobre un executor propio (HTTP/2, una
+ * conexion reutilizada para todo el lote). Cada envio pasa por:
+ * - InFlightLimiter: como mucho maxInFlight + maxQueued envios aceptados; el resto se rechaza.
+ * - TokenBucket por phone-number-id: ritmo sostenido por debajo del limite de Meta.
+ * - InFlightLimiter otra vez, solo alrededor de la peticion: como mucho maxInFlight en vuelo.
+ * Un 429, un 5xx o un error de red se reintentan con backoff exponencial y jitter
+ * (respetando Retry-After si viene); el resto de 4xx se devuelve como rechazo definitivo
+ * (SendResult.rejected). Las esperas al token y entre reintentos no ocupan hueco en vuelo,
+ * asi un numero frenado por Meta no bloquea al resto. Los metodos sincronos esperan al asincrono.
+ *
  * Documentacion: https://developers.facebook.com/docs/whatsapp/cloud-api
  */
-public class WhatsAppBusinessService implements WhatsAppService {
+public class WhatsAppBusinessService implements WhatsAppService, AutoCloseable {
 
     private static final Logger log = LoggerFactory.getLogger(WhatsAppBusinessService.class);
     private static final String API_URL = "https://graph.facebook.com/v18.0";
 
     private final String phoneNumberId;
     private final String accessToken;
+    private final String apiUrl;
+    private final WhatsAppClientSettings settings;
+    private final ThreadPoolExecutor executor;
     private final HttpClient httpClient;
+    private final WhatsAppTransport transport;
+    private final InFlightLimiter limiter;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
     private final boolean enabled;
 
     public WhatsAppBusinessService(String phoneNumberId, String accessToken) {
-        this.phoneNumberId = phoneNumberId;
-        this.accessToken = accessToken;
-        this.enabled = phoneNumberId != null && !phoneNumberId.isBlank()
-                && accessToken != null && !accessToken.isBlank();
+        this(phoneNumberId, accessToken, WhatsAppClientSettings.defaults());
+    }
 
-        this.httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(10))
-                .build();
+    public WhatsAppBusinessService(String phoneNumberId, String accessToken, WhatsAppClientSettings settings) {
+        this(phoneNumberId, accessToken, settings, API_URL);
+    }
 
-        if (enabled) {
-            log.info("WhatsAppBusinessService inicializado con phone ID: {}",
-                    maskString(phoneNumberId));
+    WhatsAppBusinessService(String phoneNumberId, String accessToken,
+                            WhatsAppClientSettings settings, String apiUrl) {
+        this(phoneNumberId, accessToken, settings, apiUrl, null);
+    }
+
+    /**
+     * Cliente contra una API simulada (MockWhatsAppService): mismos limites y reintentos, sin HTTP.
+     */
+    WhatsAppBusinessService(String phoneNumberId, WhatsAppClientSettings settings, WhatsAppTransport transport) {
+        this(phoneNumberId, null, settings, null, transport);
+    }
+
+    private WhatsAppBusinessService(String phoneNumberId, String accessToken, WhatsAppClientSettings settings,
+                                    String apiUrl, WhatsAppTransport transport) {
+        this.phoneNumberId = phoneNumberId;
+        this.accessToken = accessToken;
+        this.apiUrl = apiUrl;
+        this.settings = settings;
+        this.enabled = transport != null || (phoneNumberId != null && !phoneNumberId.isBlank()
+                && accessToken != null && !accessToken.isBlank());
+
+        this.executor = newExecutor(settings.threads());
+        if (transport != null) {
+            this.httpClient = null;
+            this.transport = transport;
+        } else {
+            this.httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .executor(executor)
+                    .build();
+            this.transport = this::postHttp;
+        }
+        this.limiter = new InFlightLimiter(settings.maxInFlight(), settings.maxQueued());
+
+        if (transport != null) {
+            log.debug("WhatsAppBusinessService sobre API simulada ({} en vuelo, {} msg/s, rafaga {})",
+                    settings.maxInFlight(), settings.messagesPerSecond(), settings.burst());
+        } else if (enabled) {
+            log.info("WhatsAppBusinessService inicializado con phone ID: {} ({} en vuelo, {} msg/s, rafaga {})",
+                    maskString(phoneNumberId), settings.maxInFlight(), settings.messagesPerSecond(), settings.burst());
         } else {
             log.warn("WhatsAppBusinessService: credenciales no configuradas, servicio deshabilitado");
         }
@@ -47,48 +109,18 @@ public class WhatsAppBusinessService implements WhatsAppService {
 
     @Override
     public SendResult sendMessage(String phoneNumber, String message) {
-        if (!enabled) {
-            log.debug("WhatsApp deshabilitado, mensaje no enviado a {}", phoneNumber);
-            return SendResult.failure("WhatsApp no configurado");
-        }
-
-        try {
-            String cleanPhone = cleanPhoneNumber(phoneNumber);
-            String requestBody = buildTextMessagePayload(cleanPhone, message);
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(API_URL + "/" + phoneNumberId + "/messages"))
-                    .header("Authorization", "Bearer " + accessToken)
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(requestBody))
-                    .build();
-
-            HttpResponse<String> response = httpClient.send(request,
-                    HttpResponse.BodyHandlers.ofString());
-
-            if (response.statusCode() >= 200 && response.statusCode() < 300) {
-                String messageId = extractMessageId(response.body());
-                log.info("Mensaje WhatsApp enviado a {}, ID: {}", cleanPhone, messageId);
-                return SendResult.success(messageId);
-            } else {
-                log.error("Error enviando WhatsApp a {}: {} - {}",
-                        cleanPhone, response.statusCode(), response.body());
-                return SendResult.failure("Error API: " + response.statusCode());
-            }
-        } catch (Exception e) {
-            log.error("Excepcion enviando WhatsApp a {}: {}", phoneNumber, e.getMessage());
-            return SendResult.failure(e.getMessage());
-        }
+        return sendMessageAsync(phoneNumber, message).join();
     }
 
     @Override
     public CompletableFuture<SendResult> sendMessageAsync(String phoneNumber, String message) {
         if (!enabled) {
+            log.debug("WhatsApp deshabilitado, mensaje no enviado a {}", phoneNumber);
             return CompletableFuture.completedFuture(
                     SendResult.failure("WhatsApp no configurado"));
         }
-
-        return CompletableFuture.supplyAsync(() -> sendMessage(phoneNumber, message));
+        String cleanPhone = cleanPhoneNumber(phoneNumber);
+        return send(buildTextMessagePayload(cleanPhone, message), "mensaje", cleanPhone);
     }
 
     @Override
@@ -96,35 +128,9 @@ public class WhatsAppBusinessService implements WhatsAppService {
         if (!enabled) {
             return SendResult.failure("WhatsApp no configurado");
         }
-
-        try {
-            String cleanPhone = cleanPhoneNumber(phoneNumber);
-            String requestBody = buildTemplatePayload(cleanPhone, templateName, parameters);
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(API_URL + "/" + phoneNumberId + "/messages"))
-                    .header("Authorization", "Bearer " + accessToken)
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(requestBody))
-                    .build();
-
-            HttpResponse<String> response = httpClient.send(request,
-                    HttpResponse.BodyHandlers.ofString());
-
-            if (response.statusCode() >= 200 && response.statusCode() < 300) {
-                String messageId = extractMessageId(response.body());
-                log.info("Template WhatsApp '{}' enviado a {}, ID: {}",
-                        templateName, cleanPhone, messageId);
-                return SendResult.success(messageId);
-            } else {
-                log.error("Error enviando template WhatsApp: {} - {}",
-                        response.statusCode(), response.body());
-                return SendResult.failure("Error API: " + response.statusCode());
-            }
-        } catch (Exception e) {
-            log.error("Excepcion enviando template WhatsApp: {}", e.getMessage());
-            return SendResult.failure(e.getMessage());
-        }
+        String cleanPhone = cleanPhoneNumber(phoneNumber);
+        return send(buildTemplatePayload(cleanPhone, templateName, parameters),
+                "template '" + templateName + "'", cleanPhone).join();
     }
 
     @Override
@@ -132,16 +138,13 @@ public class WhatsAppBusinessService implements WhatsAppService {
                                                String serviceName, String dateTime) {
         // Intentar usar template primero (requiere configurar en Meta Business)
         // Fallback a mensaje de texto si no hay template
-        String message = String.format(
-                "🔔 *Recordatorio de Cita*\n\n" +
-                "Tienes una cita programada:\n" +
-                "📍 *%s*\n" +
-                "💇 %s\n" +
-                "📅 %s\n\n" +
-                "Si necesitas cancelar o reprogramar, contactanos con anticipacion.",
-                businessName, serviceName, dateTime
-        );
-        return sendMessage(phoneNumber, message);
+        return sendMessage(phoneNumber, reminderText(businessName, serviceName, dateTime));
+    }
+
+    @Override
+    public CompletableFuture<SendResult> sendAppointmentReminderAsync(String phoneNumber, String businessName,
+                                                                      String serviceName, String dateTime) {
+        return sendMessageAsync(phoneNumber, reminderText(businessName, serviceName, dateTime));
     }
 
     @Override
@@ -186,8 +189,165 @@ public class WhatsAppBusinessService implements WhatsAppService {
         return "WhatsApp Business API";
     }
 
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    // === Envio asincrono ===
+
+    private CompletableFuture<SendResult> send(String payload, String description, String cleanPhone) {
+        if (!limiter.tryAccept()) {
+            log.warn("Cola de envios WhatsApp llena ({}), {} a {} rechazado",
+                    settings.maxQueued(), description, cleanPhone);
+            return CompletableFuture.completedFuture(SendResult.failure("Cola de envios WhatsApp llena"));
+        }
+        CompletableFuture<SendResult> result;
+        try {
+            result = attempt(payload, description, cleanPhone, 0);
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        return result
+                .exceptionally(e -> SendResult.failure(String.valueOf(unwrap(e).getMessage())))
+                .whenComplete((sent, error) -> limiter.finish());
+    }
+
+    /**
+     * Un intento: espera su token, envia con un hueco en vuelo y decide si reintentar.
+     * El hueco se suelta en cuanto llega la respuesta, antes de esperar al reintento.
+     */
+    private CompletableFuture<SendResult> attempt(String payload, String description, String cleanPhone, int retry) {
+        long waitNanos = bucketFor(phoneNumberId).reserve(System.nanoTime());
+        CompletableFuture<Void> ready = waitNanos > 0
+                ? CompletableFuture.runAsync(() -> { },
+                        CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS, executor))
+                : CompletableFuture.completedFuture(null);
+
+        return ready
+                .thenCompose(ignored -> limiter.call(() -> transport.post(payload)))
+                .handle((response, error) -> {
+                    if (error == null && response.statusCode() >= 200 && response.statusCode() < 300) {
+                        String messageId = extractMessageId(response.body());
+                        log.info("WhatsApp enviado a {} ({}), ID: {}", cleanPhone, description, messageId);
+                        return CompletableFuture.completedFuture(SendResult.success(messageId));
+                    }
+
+                    boolean retryable = error != null
+                            ? unwrap(error) instanceof IOException
+                            : response.statusCode() == 429 || response.statusCode() >= 500;
+                    String reason = error != null
+                            ? String.valueOf(unwrap(error).getMessage())
+                            : "Error API: " + response.statusCode();
+
+                    if (retryable && retry < settings.maxRetries()) {
+                        Duration delay = retryDelay(retry, response);
+                        log.warn("WhatsApp a {} ({}) fallido: {}, reintento {} en {} ms",
+                                cleanPhone, description, reason, retry + 1, delay.toMillis());
+                        Executor later = CompletableFuture.delayedExecutor(delay.toMillis(), TimeUnit.MILLISECONDS, executor);
+                        return CompletableFuture.runAsync(() -> { }, later)
+                                .thenCompose(ignored -> attempt(payload, description, cleanPhone, retry + 1));
+                    }
+
+                    if (response != null) {
+                        log.error("Error enviando WhatsApp a {} ({}): {} - {}",
+                                cleanPhone, description, response.statusCode(), response.body());
+                    } else {
+                        log.error("Excepcion enviando WhatsApp a {} ({}): {}", cleanPhone, description, reason);
+                    }
+                    return CompletableFuture.completedFuture(
+                            retryable ? SendResult.failure(reason) : SendResult.rejected(reason));
+                })
+                .thenCompose(next -> next);
+    }
+
+    private CompletableFuture<WhatsAppTransport.Response> postHttp(String payload) {
+        return httpClient.sendAsync(buildRequest(payload), HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> new WhatsAppTransport.Response(response.statusCode(), response.body(),
+                        response.headers().firstValue("Retry-After").orElse(null)));
+    }
+
+    private HttpRequest buildRequest(String payload) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(apiUrl + "/" + phoneNumberId + "/messages"))
+                .timeout(settings.requestTimeout())
+                .header("Authorization", "Bearer " + accessToken)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(payload))
+                .build();
+    }
+
+    private TokenBucket bucketFor(String numberId) {
+        return buckets.computeIfAbsent(numberId,
+                id -> new TokenBucket(settings.messagesPerSecond(), settings.burst(), System.nanoTime()));
+    }
+
+    /**
+     * Retry-After del proveedor si lo manda; si no, base * 2^reintento con jitter completo
+     * para que un lote rechazado a la vez no vuelva a llegar a la vez.
+     */
+    private Duration retryDelay(int retry, WhatsAppTransport.Response response) {
+        if (response != null && response.retryAfter() != null) {
+            Duration retryAfter = parseRetryAfter(response.retryAfter());
+            if (retryAfter != null) {
+                return retryAfter;
+            }
+        }
+        long ceiling = settings.retryBase().toMillis() << Math.min(retry, 10);
+        return Duration.ofMillis(ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1));
+    }
+
+    private static Duration parseRetryAfter(String value) {
+        try {
+            return Duration.ofSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static ThreadPoolExecutor newExecutor(int threads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Cola sin limite: solo recibe tareas cortas del propio HttpClient y los arranques
+        // diferidos (token, reintento); el limite de envios lo pone InFlightLimiter
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads, threads,
+                60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "whatsapp-http-" + threadNumber.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    int inFlight() {
+        return limiter.inFlight();
+    }
+
+    int queued() {
+        return limiter.queued();
+    }
+
     // === Metodos auxiliares ===
 
+    private static String reminderText(String businessName, String serviceName, String dateTime) {
+        return String.format(
+                "🔔 *Recordatorio de Cita*\n\n" +
+                "Tienes una cita programada:\n" +
+                "📍 *%s*\n" +
+                "💇 %s\n" +
+                "📅 %s\n\n" +
+                "Si necesitas cancelar o reprogramar, contactanos con anticipacion.",
+                businessName, serviceName, dateTime
+        );
+    }
+
     private String buildTextMessagePayload(String phoneNumber, String message) {
         return String.format("""
             {
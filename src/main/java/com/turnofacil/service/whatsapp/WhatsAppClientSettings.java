@@ -0,0 +1,32 @@
+package com.turnofacil.service.whatsapp;
+
+import java.time.Duration;
+
+/**
+ * Límites del cliente de la API de WhatsApp Business (ver whatsapp.client.* en application.yml).
+ *
+ * @param maxInFlight       peticiones HTTP simultáneas como máximo
+ * @param maxQueued         envíos esperando turno; por encima se rechazan
+ * @param messagesPerSecond ritmo sostenido por phone-number-id
+ * @param burst             envíos que pueden salir de golpe antes de aplicar el ritmo
+ * @param maxRetries        reintentos ante 429, 5xx o error de red
+ * @param retryBase         espera del primer reintento (se duplica en cada uno, con jitter)
+ * @param requestTimeout    tiempo máximo de cada petición
+ * @param threads           hilos del executor del cliente HTTP
+ */
+public record WhatsAppClientSettings(
+        int maxInFlight,
+        int maxQueued,
+        double messagesPerSecond,
+        int burst,
+        int maxRetries,
+        Duration retryBase,
+        Duration requestTimeout,
+        int threads
+) {
+
+    public static WhatsAppClientSettings defaults() {
+        return new WhatsAppClientSettings(16, 2000, 20, 40, 3,
+                Duration.ofMillis(500), Duration.ofSeconds(15), 4);
+    }
+}
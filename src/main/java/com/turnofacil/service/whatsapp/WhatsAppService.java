@@ -1,5 +1,6 @@
 package com.turnofacil.service.whatsapp;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -44,6 +45,29 @@ public interface WhatsAppService {
     SendResult sendAppointmentReminder(String phoneNumber, String businessName,
                                        String serviceName, String dateTime);
 
+    /**
+     * Envia recordatorio de cita sin bloquear al llamador.
+     * Por defecto envia en el hilo actual; WhatsAppBusinessService usa su cliente asincrono.
+     */
+    default CompletableFuture<SendResult> sendAppointmentReminderAsync(String phoneNumber, String businessName,
+                                                                       String serviceName, String dateTime) {
+        return CompletableFuture.completedFuture(
+                sendAppointmentReminder(phoneNumber, businessName, serviceName, dateTime));
+    }
+
+    /**
+     * Envia un lote de recordatorios de una vez (picos del job de recordatorios).
+     * Los resultados vienen en el mismo orden que el lote; un fallo no corta el resto.
+     */
+    default CompletableFuture<List<SendResult>> sendAppointmentReminders(List<ReminderMessage> reminders) {
+        List<CompletableFuture<SendResult>> sends = reminders.stream()
+                .map(r -> sendAppointmentReminderAsync(r.phoneNumber(), r.businessName(), r.serviceName(), r.dateTime())
+                        .exceptionally(e -> SendResult.failure(e.getMessage())))
+                .toList();
+        return CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                .thenApply(done -> sends.stream().map(CompletableFuture::join).toList());
+    }
+
     /**
      * Envia confirmacion de cita.
      */
@@ -68,19 +92,36 @@ public interface WhatsAppService {
     String getProviderName();
 
     /**
-     * Resultado del envio de mensaje.
+     * Recordatorio de un lote (ver sendAppointmentReminders).
+     */
+    record ReminderMessage(
+            String phoneNumber,
+            String businessName,
+            String serviceName,
+            String dateTime
+    ) {
+    }
+
+    /**
+     * Resultado del envio de mensaje. retryable = false cuando el proveedor rechaza el
+     * mensaje de forma definitiva (4xx distinto de 429): reenviarlo daria el mismo error.
      */
     record SendResult(
             boolean success,
             String messageId,
-            String errorMessage
+            String errorMessage,
+            boolean retryable
     ) {
         public static SendResult success(String messageId) {
-            return new SendResult(true, messageId, null);
+            return new SendResult(true, messageId, null, false);
         }
 
         public static SendResult failure(String errorMessage) {
-            return new SendResult(false, null, errorMessage);
+            return new SendResult(false, null, errorMessage, true);
+        }
+
+        public static SendResult rejected(String errorMessage) {
+            return new SendResult(false, null, errorMessage, false);
         }
     }
 }
@@ -0,0 +1,20 @@
+package com.turnofacil.service.whatsapp;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Envía el payload de un mensaje a la API y devuelve la respuesta sin bloquear.
+ * WhatsAppBusinessService usa HTTP contra Meta; MockWhatsAppService simula la API para que
+ * las pruebas de carga en local pasen por los mismos límites y reintentos.
+ */
+@FunctionalInterface
+interface WhatsAppTransport {
+
+    CompletableFuture<Response> post(String payload);
+
+    /**
+     * @param retryAfter cabecera Retry-After tal cual, o null si no viene
+     */
+    record Response(int statusCode, String body, String retryAfter) {
+    }
+}
@@ -0,0 +1,116 @@
+package com.turnofacil.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normalización de datos de contacto del cliente.
+ * La clave generada debe coincidir con la usada en el backfill de V13__clients.sql.
+ */
+public final class ClientNormalizer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Set<String> TWO_DIGIT_COUNTRY_CODES = Set.of(
+            "20", "27", "30", "31", "32", "33", "34", "36", "39", "40", "41", "43", "44", "45", "46",
+            "47", "48", "49", "51", "52", "53", "54", "55", "56", "57", "58", "60", "61", "62", "63",
+            "64", "65", "66", "81", "82", "84", "86", "90", "91", "92", "93", "94", "95", "98");
+
+    private ClientNormalizer() {}
+
+    /**
+     * Teléfono solo con dígitos, o null si no queda ninguno.
+     */
+    public static String normalizePhone(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        String digits = phone.replaceAll("[^0-9]", "");
+        return digits.isEmpty() ? null : digits;
+    }
+
+    /**
+     * Número nacional: los dígitos sin el prefijo internacional (+ o 00) ni el código de país,
+     * o null si no queda ninguno. Un teléfono sin prefijo internacional ya se toma como nacional.
+     * Los códigos de país E.164 no son prefijo unos de otros: sus primeros dígitos bastan para
+     * saber cuántos ocupa (ver countryCodeLength). Debe coincidir con el backfill de V23.
+     */
+    public static String nationalPhone(String phone) {
+        String digits = normalizePhone(phone);
+        if (digits == null) {
+            return null;
+        }
+        String trimmed = phone.trim();
+        String international;
+        if (trimmed.startsWith("+")) {
+            international = digits;
+        } else if (trimmed.startsWith("00")) {
+            international = digits.substring(2);
+        } else {
+            return digits;
+        }
+        int codeLength = countryCodeLength(international);
+        return international.length() > codeLength ? international.substring(codeLength) : null;
+    }
+
+    /**
+     * Dígitos del teléfono al revés: la búsqueda por los últimos dígitos se convierte en un
+     * prefijo que puede usar índice.
+     */
+    public static String reversedPhone(String phone) {
+        String digits = normalizePhone(phone);
+        return digits != null ? new StringBuilder(digits).reverse().toString() : null;
+    }
+
+    /**
+     * Longitud del código de país al principio de un número internacional: 1 y 7 ocupan un
+     * dígito, los de dos dígitos están en TWO_DIGIT_COUNTRY_CODES y el resto ocupa tres.
+     */
+    static int countryCodeLength(String international) {
+        if (international.startsWith("1") || international.startsWith("7")) {
+            return 1;
+        }
+        if (international.length() >= 2 && TWO_DIGIT_COUNTRY_CODES.contains(international.substring(0, 2))) {
+            return 2;
+        }
+        return 3;
+    }
+
+    /**
+     * Email sin espacios y en minúsculas, o null si está vacío.
+     */
+    public static String normalizeEmail(String email) {
+        if (email == null || email.isBlank()) {
+            return null;
+        }
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Nombre sin acentos, en minúsculas y con espacios colapsados, o null si está vacío.
+     */
+    public static String normalizeName(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        String folded = DIACRITICS.matcher(Normalizer.normalize(name.trim(), Normalizer.Form.NFD)).replaceAll("");
+        return WHITESPACE.matcher(folded).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Clave del cliente dentro de un negocio: teléfono, si no email, si no nombre.
+     */
+    public static String clientKey(String name, String phone, String email) {
+        String normalizedPhone = normalizePhone(phone);
+        if (normalizedPhone != null) {
+            return "p:" + normalizedPhone;
+        }
+        String normalizedEmail = normalizeEmail(email);
+        if (normalizedEmail != null) {
+            return "e:" + normalizedEmail;
+        }
+        return "n:" + (name != null ? name.trim().toLowerCase(Locale.ROOT) : "");
+    }
+}
@@ -0,0 +1,41 @@
+-- V12: Tabla de estadisticas diarias por negocio (rollup incremental)
+-- Fecha: 2026-10-18
+-- Las metricas del dashboard, tendencias y limites de plan leen de aqui
+-- en lugar de escanear APPOINTMENTS. AppointmentService la mantiene en la
+-- misma transaccion que la cita; BusinessStatsService.rebuildAll() la recalcula.
+
+CREATE TABLE IF NOT EXISTS BUSINESS_DAILY_STATS (
+    ID BIGINT AUTO_INCREMENT PRIMARY KEY,
+    USER_ID BIGINT NOT NULL,
+    STAT_DATE DATE NOT NULL,
+    TOTAL_COUNT INT NOT NULL DEFAULT 0,
+    PENDING_COUNT INT NOT NULL DEFAULT 0,
+    CONFIRMED_COUNT INT NOT NULL DEFAULT 0,
+    CANCELLED_COUNT INT NOT NULL DEFAULT 0,
+    COMPLETED_COUNT INT NOT NULL DEFAULT 0,
+    NO_SHOW_COUNT INT NOT NULL DEFAULT 0,
+    BOOKED_MINUTES INT NOT NULL DEFAULT 0,
+    REVENUE DECIMAL(12,2) NOT NULL DEFAULT 0.00,
+    UPDATED_AT DATETIME NULL,
+
+    CONSTRAINT fk_daily_stats_user FOREIGN KEY (USER_ID) REFERENCES USERS(ID) ON DELETE CASCADE,
+    UNIQUE KEY uk_daily_stats_user_date (USER_ID, STAT_DATE)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Backfill desde el historico de citas
+INSERT INTO BUSINESS_DAILY_STATS (USER_ID, STAT_DATE, TOTAL_COUNT, PENDING_COUNT, CONFIRMED_COUNT,
+                                  CANCELLED_COUNT, COMPLETED_COUNT, NO_SHOW_COUNT, BOOKED_MINUTES,
+                                  REVENUE, UPDATED_AT)
+SELECT a.USER_ID,
+       a.DATE,
+       COUNT(*),
+       SUM(CASE WHEN a.STATUS = 'PENDING' THEN 1 ELSE 0 END),
+       SUM(CASE WHEN a.STATUS = 'CONFIRMED' THEN 1 ELSE 0 END),
+       SUM(CASE WHEN a.STATUS = 'CANCELLED' THEN 1 ELSE 0 END),
+       SUM(CASE WHEN a.STATUS = 'COMPLETED' THEN 1 ELSE 0 END),
+       SUM(CASE WHEN a.STATUS = 'NO_SHOW' THEN 1 ELSE 0 END),
+       SUM(CASE WHEN a.STATUS <> 'CANCELLED' THEN a.DURATION ELSE 0 END),
+       COALESCE(SUM(CASE WHEN a.STATUS = 'COMPLETED' THEN a.SERVICE_PRICE ELSE 0 END), 0),
+       CURRENT_TIMESTAMP
+FROM APPOINTMENTS a
+GROUP BY a.USER_ID, a.DATE;
@@ -0,0 +1,90 @@
+-- V13: Tabla de clientes materializada por negocio
+-- Fecha: 2026-10-18
+-- El historial de clientes (recientes, frecuentes, totales) lee de aqui en lugar
+-- de agrupar APPOINTMENTS en cada visita. AppointmentService la mantiene en la
+-- misma transaccion que la cita.
+--
+-- CLIENT_KEY identifica al cliente dentro del negocio:
+--   'p:' + telefono solo digitos, si hay telefono
+--   'e:' + email en minusculas, si no hay telefono
+--   'n:' + nombre en minusculas, en otro caso
+-- Debe coincidir con ClientNormalizer.clientKey().
+-- Misma coleccion que APPOINTMENTS (V1): el backfill compara CLIENT_KEY con una
+-- expresion sobre columnas de APPOINTMENTS.
+
+CREATE TABLE IF NOT EXISTS CLIENTS (
+    ID BIGINT AUTO_INCREMENT PRIMARY KEY,
+    USER_ID BIGINT NOT NULL,
+    CLIENT_KEY VARCHAR(130) NOT NULL,
+    NAME VARCHAR(100) NULL,
+    PHONE VARCHAR(20) NULL,
+    EMAIL VARCHAR(120) NULL,
+    PHONE_NORMALIZED VARCHAR(20) NULL,
+    EMAIL_NORMALIZED VARCHAR(120) NULL,
+    TOTAL_APPOINTMENTS INT NOT NULL DEFAULT 0,
+    COMPLETED_COUNT INT NOT NULL DEFAULT 0,
+    CANCELLED_COUNT INT NOT NULL DEFAULT 0,
+    NO_SHOW_COUNT INT NOT NULL DEFAULT 0,
+    FIRST_VISIT DATE NULL,
+    LAST_VISIT DATE NULL,
+    CREATED_AT DATETIME NULL,
+    UPDATED_AT DATETIME NULL,
+
+    CONSTRAINT fk_clients_user FOREIGN KEY (USER_ID) REFERENCES USERS(ID) ON DELETE CASCADE,
+    UNIQUE KEY uk_clients_user_key (USER_ID, CLIENT_KEY)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE INDEX idx_clients_user_last_visit ON CLIENTS(USER_ID, LAST_VISIT);
+CREATE INDEX idx_clients_user_total ON CLIENTS(USER_ID, TOTAL_APPOINTMENTS);
+
+-- Relacion cita -> cliente
+ALTER TABLE APPOINTMENTS
+    ADD COLUMN CLIENT_ID BIGINT NULL;
+
+CREATE INDEX idx_appointments_client ON APPOINTMENTS(CLIENT_ID, DATE);
+
+-- Backfill desde el historico de citas
+-- Nombre, telefono y email se toman de la cita mas reciente del cliente
+INSERT INTO CLIENTS (USER_ID, CLIENT_KEY, NAME, PHONE, EMAIL, PHONE_NORMALIZED, EMAIL_NORMALIZED,
+                     TOTAL_APPOINTMENTS, COMPLETED_COUNT, CANCELLED_COUNT, NO_SHOW_COUNT,
+                     FIRST_VISIT, LAST_VISIT, CREATED_AT, UPDATED_AT)
+SELECT k.USER_ID,
+       k.CLIENT_KEY,
+       NULLIF(SUBSTRING_INDEX(GROUP_CONCAT(COALESCE(k.CLIENT_NAME, '') ORDER BY k.DATE DESC, k.TIME DESC SEPARATOR '\n'), '\n', 1), ''),
+       NULLIF(SUBSTRING_INDEX(GROUP_CONCAT(COALESCE(k.CLIENT_PHONE, '') ORDER BY k.DATE DESC, k.TIME DESC SEPARATOR '\n'), '\n', 1), ''),
+       NULLIF(SUBSTRING_INDEX(GROUP_CONCAT(COALESCE(k.CLIENT_EMAIL, '') ORDER BY k.DATE DESC, k.TIME DESC SEPARATOR '\n'), '\n', 1), ''),
+       MAX(k.PHONE_NORMALIZED),
+       MAX(k.EMAIL_NORMALIZED),
+       COUNT(*),
+       SUM(CASE WHEN k.STATUS = 'COMPLETED' THEN 1 ELSE 0 END),
+       SUM(CASE WHEN k.STATUS = 'CANCELLED' THEN 1 ELSE 0 END),
+       SUM(CASE WHEN k.STATUS = 'NO_SHOW' THEN 1 ELSE 0 END),
+       MIN(k.DATE),
+       MAX(k.DATE),
+       CURRENT_TIMESTAMP,
+       CURRENT_TIMESTAMP
+FROM (
+    SELECT a.USER_ID, a.DATE, a.TIME, a.STATUS, a.CLIENT_NAME, a.CLIENT_PHONE, a.CLIENT_EMAIL,
+           NULLIF(REGEXP_REPLACE(COALESCE(a.CLIENT_PHONE, ''), '[^0-9]', ''), '') AS PHONE_NORMALIZED,
+           NULLIF(LOWER(TRIM(COALESCE(a.CLIENT_EMAIL, ''))), '') AS EMAIL_NORMALIZED,
+           CASE
+               WHEN REGEXP_REPLACE(COALESCE(a.CLIENT_PHONE, ''), '[^0-9]', '') <> ''
+                   THEN CONCAT('p:', REGEXP_REPLACE(a.CLIENT_PHONE, '[^0-9]', ''))
+               WHEN TRIM(COALESCE(a.CLIENT_EMAIL, '')) <> ''
+                   THEN CONCAT('e:', LOWER(TRIM(a.CLIENT_EMAIL)))
+               ELSE CONCAT('n:', LOWER(TRIM(COALESCE(a.CLIENT_NAME, ''))))
+           END AS CLIENT_KEY
+    FROM APPOINTMENTS a
+) k
+GROUP BY k.USER_ID, k.CLIENT_KEY;
+
+UPDATE APPOINTMENTS a
+JOIN CLIENTS c ON c.USER_ID = a.USER_ID
+    AND c.CLIENT_KEY = CASE
+        WHEN REGEXP_REPLACE(COALESCE(a.CLIENT_PHONE, ''), '[^0-9]', '') <> ''
+            THEN CONCAT('p:', REGEXP_REPLACE(a.CLIENT_PHONE, '[^0-9]', ''))
+        WHEN TRIM(COALESCE(a.CLIENT_EMAIL, '')) <> ''
+            THEN CONCAT('e:', LOWER(TRIM(a.CLIENT_EMAIL)))
+        ELSE CONCAT('n:', LOWER(TRIM(COALESCE(a.CLIENT_NAME, ''))))
+    END
+SET a.CLIENT_ID = c.ID;
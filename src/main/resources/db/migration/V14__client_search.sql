@@ -0,0 +1,22 @@
+-- V14: Busqueda de clientes indexada
+-- Fecha: 2026-10-18
+-- El historial de clientes busca sobre CLIENTS con claves normalizadas en lugar de
+-- LIKE '%x%' sobre APPOINTMENTS:
+--   telefono -> PHONE_NORMALIZED LIKE 'digitos%'      (indice por prefijo)
+--   email    -> EMAIL_NORMALIZED LIKE 'texto%'        (indice por prefijo)
+--   nombre   -> MATCH(NAME_NORMALIZED, EMAIL_NORMALIZED) con parser ngram (subcadenas)
+-- NAME_NORMALIZED se guarda sin acentos y en minusculas desde ClientNormalizer.
+-- El backfill solo pasa a minusculas: la columna hereda utf8mb4_unicode_ci de CLIENTS (V13),
+-- que ya compara sin distinguir acentos. El indice FULLTEXT exige la misma coleccion en
+-- NAME_NORMALIZED y EMAIL_NORMALIZED, por eso ninguna de las dos la redefine.
+
+ALTER TABLE CLIENTS
+    ADD COLUMN NAME_NORMALIZED VARCHAR(100) NULL;
+
+UPDATE CLIENTS SET NAME_NORMALIZED = NULLIF(LOWER(TRIM(NAME)), '');
+
+CREATE INDEX idx_clients_user_phone ON CLIENTS(USER_ID, PHONE_NORMALIZED);
+CREATE INDEX idx_clients_user_email ON CLIENTS(USER_ID, EMAIL_NORMALIZED);
+CREATE INDEX idx_clients_user_name ON CLIENTS(USER_ID, NAME_NORMALIZED);
+
+CREATE FULLTEXT INDEX ft_clients_name_email ON CLIENTS(NAME_NORMALIZED, EMAIL_NORMALIZED) WITH PARSER ngram;
@@ -0,0 +1,6 @@
+-- V15: Indice para recorrer los turnos de un negocio en orden cronologico
+-- Fecha: 2026-10-18
+-- Las exportaciones filtran por negocio y rango de fechas y ordenan por fecha y hora;
+-- con este indice MySQL entrega las filas ya ordenadas y puede hacer streaming sin filesort.
+
+CREATE INDEX idx_appointments_user_date_time ON APPOINTMENTS(USER_ID, DATE, TIME);
@@ -0,0 +1,20 @@
+-- V16: Referencia directa a la factura desde la cita
+-- Fecha: 2026-10-18
+-- El lado inverso @OneToOne(mappedBy = "appointment") no se puede cargar en diferido:
+-- Hibernate lanzaba una consulta a invoices por cada cita cargada. La cita guarda ahora
+-- el id de la factura emitida junto al flag INVOICED.
+
+ALTER TABLE APPOINTMENTS ADD COLUMN INVOICE_ID BIGINT NULL;
+
+-- Backfill: última factura no rectificativa de cada cita ya facturada
+UPDATE APPOINTMENTS a
+JOIN (
+    SELECT i.appointment_id, MAX(i.id) AS invoice_id
+    FROM invoices i
+    WHERE i.appointment_id IS NOT NULL
+      AND i.rectifies_invoice_id IS NULL
+      AND i.status <> 'DRAFT'
+    GROUP BY i.appointment_id
+) last_invoice ON last_invoice.appointment_id = a.ID
+SET a.INVOICE_ID = last_invoice.invoice_id
+WHERE a.INVOICED = 1;
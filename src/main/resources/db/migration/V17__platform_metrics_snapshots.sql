@@ -0,0 +1,25 @@
+-- V17: Fotos periodicas de las metricas de plataforma
+-- Fecha: 2026-10-18
+-- PlatformMetricsSnapshotService inserta una fila por hora y otra por dia con un unico
+-- INSERT ... SELECT agregado. /platform/dashboard y /platform/metrics leen la ultima fila
+-- y la serie diaria alimenta el grafico de evolucion.
+
+CREATE TABLE IF NOT EXISTS PLATFORM_METRICS_SNAPSHOTS (
+    ID BIGINT AUTO_INCREMENT PRIMARY KEY,
+    GRANULARITY VARCHAR(10) NOT NULL,
+    CAPTURED_AT DATETIME NOT NULL,
+    TOTAL_BUSINESSES BIGINT NOT NULL DEFAULT 0,
+    ACTIVE_BUSINESSES BIGINT NOT NULL DEFAULT 0,
+    NEW_BUSINESSES_THIS_MONTH BIGINT NOT NULL DEFAULT 0,
+    NEW_BUSINESSES_LAST_MONTH BIGINT NOT NULL DEFAULT 0,
+    TOTAL_APPOINTMENTS BIGINT NOT NULL DEFAULT 0,
+    ACTIVE_SUBSCRIPTIONS BIGINT NOT NULL DEFAULT 0,
+    TRIAL_SUBSCRIPTIONS BIGINT NOT NULL DEFAULT 0,
+    CANCELLED_SUBSCRIPTIONS BIGINT NOT NULL DEFAULT 0,
+    FREE_PLAN BIGINT NOT NULL DEFAULT 0,
+    PRO_PLAN BIGINT NOT NULL DEFAULT 0,
+    BUSINESS_PLAN BIGINT NOT NULL DEFAULT 0,
+    MRR DECIMAL(12,2) NOT NULL DEFAULT 0.00,
+
+    UNIQUE KEY uk_platform_snapshots_granularity_at (GRANULARITY, CAPTURED_AT)
+);
@@ -0,0 +1,9 @@
+-- V18: Reclamo de recordatorios por lotes
+-- Fecha: 2026-10-18
+-- El job de recordatorios reclama cada lote de citas en una transacción corta
+-- (token de la ejecución + caducidad) y envía fuera de la transacción. Si una
+-- instancia cae a mitad de lote, las citas vuelven a estar disponibles al caducar.
+
+ALTER TABLE APPOINTMENTS
+    ADD COLUMN REMINDER_CLAIM_TOKEN VARCHAR(36) NULL,
+    ADD COLUMN REMINDER_CLAIMED_UNTIL DATETIME NULL;
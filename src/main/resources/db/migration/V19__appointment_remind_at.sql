@@ -0,0 +1,15 @@
+-- V19: Momento exacto de cada recordatorio
+-- Fecha: 2026-10-18
+-- EMAIL_REMIND_AT / WHATSAPP_REMIND_AT guardan en UTC cuándo toca avisar
+-- (fecha y hora de la cita en la zona horaria del negocio menos REMINDER_HOURS_BEFORE).
+-- NULL = ese canal no tiene recordatorio. El job consulta cada minuto lo vencido
+-- por estos índices en lugar de recorrer días enteros por negocio.
+-- Las citas futuras existentes se rellenan al arrancar (ReminderScheduleService),
+-- porque la conversión de zona depende de las tablas de zonas de MySQL.
+
+ALTER TABLE APPOINTMENTS
+    ADD COLUMN EMAIL_REMIND_AT DATETIME NULL,
+    ADD COLUMN WHATSAPP_REMIND_AT DATETIME NULL;
+
+CREATE INDEX idx_appointments_email_remind ON APPOINTMENTS(REMINDER_SENT, EMAIL_REMIND_AT);
+CREATE INDEX idx_appointments_whatsapp_remind ON APPOINTMENTS(WHATSAPP_REMINDER_SENT, WHATSAPP_REMIND_AT);
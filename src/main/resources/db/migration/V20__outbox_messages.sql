@@ -0,0 +1,25 @@
+-- V20: Outbox transaccional de mensajes salientes
+-- Fecha: 2026-10-18
+-- Los emails, WhatsApp y eventos SSE de una reserva o alta se escriben aqui en la misma
+-- transaccion que el cambio de negocio. OutboxDispatcher los reclama por lotes, los envia
+-- fuera de la transaccion y reintenta con backoff exponencial; tras MAX intentos quedan
+-- en DEAD para revision. IDEMPOTENCY_KEY evita encolar dos veces el mismo mensaje.
+
+CREATE TABLE IF NOT EXISTS OUTBOX_MESSAGES (
+    ID BIGINT AUTO_INCREMENT PRIMARY KEY,
+    MESSAGE_TYPE VARCHAR(40) NOT NULL,
+    BUSINESS_ID BIGINT NULL,
+    IDEMPOTENCY_KEY VARCHAR(150) NOT NULL,
+    PAYLOAD TEXT NOT NULL,
+    STATUS VARCHAR(10) NOT NULL DEFAULT 'PENDING',
+    ATTEMPTS INT NOT NULL DEFAULT 0,
+    NEXT_ATTEMPT_AT DATETIME NOT NULL,
+    LAST_ERROR VARCHAR(500) NULL,
+    CLAIM_TOKEN VARCHAR(36) NULL,
+    CLAIMED_UNTIL DATETIME NULL,
+    CREATED_AT DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    SENT_AT DATETIME NULL,
+
+    UNIQUE KEY uk_outbox_idempotency_key (IDEMPOTENCY_KEY),
+    INDEX idx_outbox_status_next_attempt (STATUS, NEXT_ATTEMPT_AT)
+);
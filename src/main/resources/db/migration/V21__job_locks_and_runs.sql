@@ -0,0 +1,29 @@
+-- V21: Coordinacion de jobs programados entre nodos
+-- Fecha: 2026-10-18
+-- JOB_LOCKS: un lease por job (o por shard de job). El nodo que lo toma lo renueva con
+-- un heartbeat mientras corre; si cae, el lease caduca en LOCK_UNTIL y otro nodo lo toma.
+-- JOB_RUNS: historial de ejecuciones (inicio, fin, elementos procesados y fallos),
+-- visible en /platform/system.
+
+CREATE TABLE IF NOT EXISTS JOB_LOCKS (
+    JOB_NAME VARCHAR(100) NOT NULL PRIMARY KEY,
+    LOCKED_BY VARCHAR(100) NOT NULL,
+    LOCKED_AT DATETIME NOT NULL,
+    LOCK_UNTIL DATETIME NOT NULL,
+    HEARTBEAT_AT DATETIME NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS JOB_RUNS (
+    ID BIGINT AUTO_INCREMENT PRIMARY KEY,
+    JOB_NAME VARCHAR(100) NOT NULL,
+    NODE_ID VARCHAR(100) NOT NULL,
+    STATUS VARCHAR(10) NOT NULL,
+    STARTED_AT DATETIME NOT NULL,
+    FINISHED_AT DATETIME NULL,
+    ITEMS_PROCESSED INT NOT NULL DEFAULT 0,
+    FAILURES INT NOT NULL DEFAULT 0,
+    ERROR_MESSAGE VARCHAR(500) NULL,
+
+    INDEX idx_job_runs_started (STARTED_AT),
+    INDEX idx_job_runs_job_started (JOB_NAME, STARTED_AT)
+);
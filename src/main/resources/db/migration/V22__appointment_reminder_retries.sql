@@ -0,0 +1,14 @@
+-- V22: Reintentos acotados de recordatorios
+-- Fecha: 2026-10-18
+-- Por canal: *_REMINDER_ATTEMPTS cuenta los envíos fallidos, *_REMINDER_RETRY_AT es el
+-- siguiente intento (backoff exponencial, ver ReminderScheduler) y *_REMINDER_FAILED marca
+-- los que ya no se reintentan (error permanente del proveedor o máximo de intentos).
+-- El job de recordatorios solo trae lo vencido cuyo RETRY_AT ya pasó y sin FAILED.
+
+ALTER TABLE APPOINTMENTS
+    ADD COLUMN EMAIL_REMINDER_ATTEMPTS INT NOT NULL DEFAULT 0,
+    ADD COLUMN EMAIL_REMINDER_RETRY_AT DATETIME NULL,
+    ADD COLUMN EMAIL_REMINDER_FAILED BOOLEAN NOT NULL DEFAULT FALSE,
+    ADD COLUMN WHATSAPP_REMINDER_ATTEMPTS INT NOT NULL DEFAULT 0,
+    ADD COLUMN WHATSAPP_REMINDER_RETRY_AT DATETIME NULL,
+    ADD COLUMN WHATSAPP_REMINDER_FAILED BOOLEAN NOT NULL DEFAULT FALSE;
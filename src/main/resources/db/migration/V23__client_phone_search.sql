@@ -0,0 +1,38 @@
+-- V23: Busqueda de clientes por numero nacional y por ultimos digitos
+-- Fecha: 2026-10-19
+-- PHONE_NORMALIZED guarda todos los digitos, codigo de pais incluido, asi que el prefijo
+-- "600123" no encontraba a "+34 600 123 456" ni se podia buscar por los ultimos digitos.
+--   PHONE_NATIONAL -> digitos sin + / 00 ni codigo de pais (ClientNormalizer.nationalPhone)
+--   PHONE_REVERSED -> digitos al reves: "termina en 3456" pasa a ser el prefijo '6543%'
+-- Codigo de pais: 1 y 7 ocupan un digito, la lista de dos digitos es la de
+-- ClientNormalizer.TWO_DIGIT_COUNTRY_CODES y el resto ocupa tres.
+
+ALTER TABLE CLIENTS
+    ADD COLUMN PHONE_NATIONAL VARCHAR(20) NULL,
+    ADD COLUMN PHONE_REVERSED VARCHAR(20) NULL;
+
+UPDATE CLIENTS c
+JOIN (
+    SELECT ID,
+           CASE
+               WHEN TRIM(PHONE) LIKE '+%' THEN PHONE_NORMALIZED
+               WHEN TRIM(PHONE) LIKE '00%' THEN SUBSTRING(PHONE_NORMALIZED, 3)
+           END AS INTERNATIONAL
+    FROM CLIENTS
+    WHERE PHONE_NORMALIZED IS NOT NULL
+) p ON p.ID = c.ID
+SET c.PHONE_REVERSED = REVERSE(c.PHONE_NORMALIZED),
+    c.PHONE_NATIONAL = CASE
+        WHEN p.INTERNATIONAL IS NULL THEN c.PHONE_NORMALIZED
+        ELSE NULLIF(SUBSTRING(p.INTERNATIONAL, 1 + CASE
+            WHEN LEFT(p.INTERNATIONAL, 1) IN ('1', '7') THEN 1
+            WHEN LEFT(p.INTERNATIONAL, 2) IN ('20', '27', '30', '31', '32', '33', '34', '36', '39', '40',
+                '41', '43', '44', '45', '46', '47', '48', '49', '51', '52', '53', '54', '55', '56', '57',
+                '58', '60', '61', '62', '63', '64', '65', '66', '81', '82', '84', '86', '90', '91', '92',
+                '93', '94', '95', '98') THEN 2
+            ELSE 3
+        END), '')
+    END;
+
+CREATE INDEX idx_clients_user_phone_national ON CLIENTS(USER_ID, PHONE_NATIONAL);
+CREATE INDEX idx_clients_user_phone_reversed ON CLIENTS(USER_ID, PHONE_REVERSED);
@@ -177,6 +177,11 @@ function connectSSE() {
         }
     });
 
+    // Progreso de exportaciones en segundo plano
+    eventSource.addEventListener('export', function(e) {
+        showExportToast(JSON.parse(e.data));
+    });
+
     eventSource.onerror = function() {
         console.log('SSE: Error, reconectando en 5s...');
         eventSource.close();
@@ -217,6 +222,42 @@ function showToast(notification) {
     }, 5000);
 }
 
+// Un toast por exportacion, actualizado en cada evento hasta que termina
+function showExportToast(job) {
+    const container = document.getElementById('toastContainer');
+    if (!container) return;
+
+    const toastId = 'export-toast-' + job.id;
+    let toast = document.getElementById(toastId);
+    if (!toast) {
+        toast = document.createElement('div');
+        toast.id = toastId;
+        toast.className = 'notification-toast';
+        container.appendChild(toast);
+        requestAnimationFrame(() => toast.classList.add('show'));
+    }
+
+    const failed = job.status === 'FAILED';
+    const color = failed ? '#dc3545' : '#198754';
+    const icon = job.status === 'COMPLETED' ? 'bi-download' : (failed ? 'bi-x-circle' : 'bi-hourglass-split');
+    const link = job.downloadUrl
+        ? `<a href="${escapeHtml(job.downloadUrl)}" class="fw-bold">Descargar</a>`
+        : '';
+
+    toast.innerHTML = `
+        <div class="notification-toast-icon" style="background: ${color}20; color: ${color};">
+            <i class="bi ${icon}"></i>
+        </div>
+        <div class="notification-toast-content">
+            <div class="notification-toast-title">${escapeHtml(job.type)}</div>
+            <div class="notification-toast-message">${escapeHtml(job.message)} ${link}</div>
+        </div>
+        <button class="notification-toast-close" onclick="this.parentElement.remove()">
+            <i class="bi bi-x"></i>
+        </button>
+    `;
+}
+
 function escapeHtml(text) {
     if (!text) return '';
     const div = document.createElement('div');
@@ -0,0 +1,117 @@
+package com.turnofacil.config;
+
+import com.turnofacil.security.TenantContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncConfigurationTest {
+
+    private final AsyncConfiguration configuration = new AsyncConfiguration();
+    private SimpleMeterRegistry registry;
+    private ThreadPoolTaskExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+        MDC.clear();
+        TenantContext.clear();
+    }
+
+    @Test
+    @DisplayName("La tarea ve el MDC y el tenant de quien la encoló, y el hilo queda limpio después")
+    void propagatesMdcAndTenant() throws Exception {
+        executor = initialized(configuration.jobsExecutor(registry, 1, 10));
+        MDC.put("requestId", "req-1");
+        TenantContext.setTenantId(42L);
+
+        CompletableFuture<String> seen = CompletableFuture.supplyAsync(
+                () -> MDC.get("requestId") + "/" + TenantContext.getTenantId(), executor);
+        assertEquals("req-1/42", seen.get(5, TimeUnit.SECONDS));
+
+        // Misma hebra del pool, encolada ahora sin contexto
+        MDC.clear();
+        TenantContext.clear();
+        CompletableFuture<String> clean = CompletableFuture.supplyAsync(
+                () -> MDC.get("requestId") + "/" + TenantContext.getTenantId(), executor);
+        assertEquals("null/null", clean.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Con la cola de email llena, la tarea se ejecuta en el hilo que encola")
+    void emailExecutorRunsInCallerWhenFull() throws Exception {
+        executor = initialized(configuration.emailExecutor(registry, 1, 1));
+        CountDownLatch release = block(executor);
+        executor.execute(() -> { });
+
+        AtomicBoolean ranInCaller = new AtomicBoolean();
+        Thread caller = Thread.currentThread();
+        executor.execute(() -> ranInCaller.set(Thread.currentThread() == caller));
+        release.countDown();
+
+        assertTrue(ranInCaller.get());
+        assertEquals(1, registry.counter("turnofacil.executor.rejected",
+                "executor", "email", "policy", "caller_runs").count());
+    }
+
+    @Test
+    @DisplayName("Con la cola de SSE llena, el evento se descarta y se cuenta")
+    void sseExecutorDropsWhenFull() {
+        executor = initialized(configuration.sseExecutor(registry, 1, 1));
+        CountDownLatch release = block(executor);
+        executor.execute(() -> { });
+
+        AtomicBoolean ran = new AtomicBoolean();
+        executor.execute(() -> ran.set(true));
+        release.countDown();
+
+        assertFalse(ran.get());
+        assertEquals(1, registry.counter("turnofacil.executor.rejected",
+                "executor", "sse", "policy", "discard").count());
+    }
+
+    private static ThreadPoolTaskExecutor initialized(ThreadPoolTaskExecutor executor) {
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Ocupa el único hilo del executor hasta que se abra el latch devuelto.
+     */
+    private static CountDownLatch block(ThreadPoolTaskExecutor executor) {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        try {
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        return release;
+    }
+}
@@ -0,0 +1,175 @@
+package com.turnofacil.controller;
+
+import com.turnofacil.model.Appointment;
+import com.turnofacil.model.BlockedSlot;
+import com.turnofacil.model.User;
+import com.turnofacil.model.enums.AppointmentStatus;
+import com.turnofacil.repository.AppointmentRepository;
+import com.turnofacil.repository.BlockedSlotRepository;
+import com.turnofacil.repository.UserRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * /admin/api/calendar/events: rango de fechas, aislamiento por negocio y ETag / 304.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AdminCalendarEventsTest {
+
+    private static final LocalDate START = LocalDate.of(2026, 3, 2);
+    private static final LocalDate END = LocalDate.of(2026, 3, 8);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private BlockedSlotRepository blockedSlotRepository;
+
+    private User business;
+    private User otherBusiness;
+    private Appointment firstDay;
+
+    @BeforeAll
+    void seed() {
+        business = seedBusiness("calendario-a@example.com");
+        otherBusiness = seedBusiness("calendario-b@example.com");
+
+        // Los extremos del rango son inclusivos; el día anterior y el posterior quedan fuera
+        appointmentRepository.save(appointment(business, START.minusDays(1), "Antes"));
+        firstDay = appointmentRepository.save(appointment(business, START, "Primer dia"));
+        appointmentRepository.save(appointment(business, END, "Ultimo dia"));
+        appointmentRepository.save(appointment(business, END.plusDays(1), "Despues"));
+        // Mismo rango en otro negocio: nunca debe aparecer
+        appointmentRepository.save(appointment(otherBusiness, START.plusDays(2), "Otro negocio"));
+
+        blockedSlotRepository.save(blocked(business, "Vacaciones", END, END.plusDays(3)));
+        blockedSlotRepository.save(blocked(business, "Pasado", START.minusDays(5), START.minusDays(1)));
+        blockedSlotRepository.save(blocked(otherBusiness, "Cierre ajeno", START, END));
+    }
+
+    @Test
+    @DisplayName("Devuelve turnos y bloqueos del rango con extremos inclusivos")
+    void returnsEventsWithinRange() throws Exception {
+        mockMvc.perform(calendar(business, START, END))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.appointments[*].clientName").value(List.of("Primer dia", "Ultimo dia")))
+                .andExpect(jsonPath("$.blocked[*].title").value(List.of("Vacaciones")));
+    }
+
+    @Test
+    @DisplayName("Cada negocio solo ve sus turnos y bloqueos")
+    void isolatesBusinesses() throws Exception {
+        mockMvc.perform(calendar(otherBusiness, START, END))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.appointments[*].clientName").value(List.of("Otro negocio")))
+                .andExpect(jsonPath("$.blocked[*].title").value(List.of("Cierre ajeno")));
+    }
+
+    @Test
+    @DisplayName("Rango invertido o de más de 93 días: 400")
+    void rejectsInvalidRange() throws Exception {
+        mockMvc.perform(calendar(business, END, START))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+        mockMvc.perform(calendar(business, START, START.plusDays(94)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(calendar(business, START, START.plusDays(93)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("200 con ETag; con If-None-Match igual 304 sin cuerpo y, si el rango cambia, 200 con otro ETag")
+    void etagAndNotModified() throws Exception {
+        MvcResult first = mockMvc.perform(calendar(business, START, END))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn();
+        String etag = first.getResponse().getHeader("ETag");
+
+        MvcResult notModified = mockMvc.perform(calendar(business, START, END).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andReturn();
+        assertEquals("", notModified.getResponse().getContentAsString());
+
+        // Mismo negocio, otro rango: otro ETag
+        String otherRange = mockMvc.perform(calendar(business, START, END.plusDays(1)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(etag, otherRange);
+
+        firstDay.setStatus(AppointmentStatus.CANCELLED);
+        firstDay = appointmentRepository.save(firstDay);
+
+        String changed = mockMvc.perform(calendar(business, START, END).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(etag, changed);
+    }
+
+    private static MockHttpServletRequestBuilder calendar(User owner, LocalDate start, LocalDate end) {
+        return get("/admin/api/calendar/events")
+                .param("start", start.toString())
+                .param("end", end.toString())
+                .with(user(owner));
+    }
+
+    private User seedBusiness(String email) {
+        User user = new User();
+        user.setName("Negocio " + email);
+        user.setEmail(email);
+        user.setPhone("600000000");
+        user.setPassword("x");
+        return userRepository.save(user);
+    }
+
+    private static Appointment appointment(User owner, LocalDate date, String clientName) {
+        Appointment appointment = new Appointment();
+        appointment.setBusiness(owner);
+        appointment.setDate(date);
+        appointment.setTime(LocalTime.of(10, 0));
+        appointment.setDuration(30);
+        appointment.setClientName(clientName);
+        appointment.setClientPhone("600000001");
+        appointment.setStatus(AppointmentStatus.CONFIRMED);
+        return appointment;
+    }
+
+    private static BlockedSlot blocked(User owner, String title, LocalDate startDate, LocalDate endDate) {
+        BlockedSlot slot = new BlockedSlot();
+        slot.setBusiness(owner);
+        slot.setTitle(title);
+        slot.setStartDate(startDate);
+        slot.setEndDate(endDate);
+        slot.setAllDay(true);
+        return slot;
+    }
+}
@@ -0,0 +1,307 @@
+package com.turnofacil.controller;
+
+import com.turnofacil.dto.EmailAppointmentDto;
+import com.turnofacil.model.Appointment;
+import com.turnofacil.model.BlockedSlot;
+import com.turnofacil.model.BusinessConfig;
+import com.turnofacil.model.Client;
+import com.turnofacil.model.Faq;
+import com.turnofacil.model.Service;
+import com.turnofacil.model.Testimonial;
+import com.turnofacil.model.User;
+import com.turnofacil.model.enums.AppointmentStatus;
+import com.turnofacil.model.enums.Role;
+import com.turnofacil.repository.AppointmentRepository;
+import com.turnofacil.repository.BlockedSlotRepository;
+import com.turnofacil.repository.BusinessConfigRepository;
+import com.turnofacil.repository.ClientRepository;
+import com.turnofacil.repository.FaqRepository;
+import com.turnofacil.repository.ServiceRepository;
+import com.turnofacil.repository.TestimonialRepository;
+import com.turnofacil.repository.UserRepository;
+import com.turnofacil.scheduler.ReminderScheduler;
+import com.turnofacil.service.EmailService;
+import com.turnofacil.service.ReminderScheduleService;
+import com.turnofacil.service.mail.DeliveryOutcome;
+import com.turnofacil.support.QueryBudget;
+import com.turnofacil.support.QueryBudgetExtension;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Presupuesto de sentencias SQL y filas leídas de las pantallas críticas y del job de recordatorios.
+ *
+ * Los datos se siembran una vez en H2 (perfil test). Los presupuestos son los del código actual:
+ * si un cambio añade consultas por fila (N+1) o vuelve a cargar turnos que la pantalla no muestra,
+ * el test falla listando la SQL ejecutada.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(QueryBudgetExtension.DataSourceConfiguration.class)
+@ExtendWith(QueryBudgetExtension.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CriticalEndpointsQueryBudgetTest {
+
+    private static final String SLUG = "peluqueria-ana";
+    private static final int OTHER_BUSINESSES = 4;
+    private static final int PAST_APPOINTMENTS = 60;
+    // Historial antiguo: con él hay más turnos que la tabla del dashboard, así una carga completa no cabe
+    private static final int OLD_APPOINTMENTS = AdminController.DASHBOARD_TABLE_LIMIT;
+    private static final int FUTURE_APPOINTMENTS = 8;
+    private static final int REMINDER_APPOINTMENTS = 4;
+    private static final int CLIENTS = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ReminderScheduler reminderScheduler;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BusinessConfigRepository businessConfigRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private BlockedSlotRepository blockedSlotRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private TestimonialRepository testimonialRepository;
+
+    @Autowired
+    private FaqRepository faqRepository;
+
+    @MockitoBean
+    private EmailService emailService;
+
+    private User business;
+    private User platformAdmin;
+
+    @BeforeAll
+    void seed() {
+        business = seedBusiness(SLUG);
+        for (int i = 1; i <= OTHER_BUSINESSES; i++) {
+            seedBusiness("negocio-" + i);
+        }
+
+        Service corte = seedService(business, "Corte", true);
+        seedService(business, "Tinte", true);
+        seedService(business, "Peinado", false);
+
+        List<Client> clients = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            Client client = new Client();
+            client.setBusinessId(business.getId());
+            client.setClientKey("p:60011100" + i);
+            client.setName("Cliente " + i);
+            client.setPhone("60011100" + i);
+            client.setPhoneNormalized("60011100" + i);
+            client.setLastVisit(LocalDate.now().minusDays(i + 1));
+            clients.add(clientRepository.save(client));
+        }
+
+        LocalDate today = LocalDate.now();
+        List<Appointment> appointments = new ArrayList<>();
+        for (int i = 1; i <= PAST_APPOINTMENTS; i++) {
+            Appointment past = appointment(corte, today.minusDays(i), LocalTime.of(10, 0), AppointmentStatus.COMPLETED);
+            past.setClientId(clients.get(i % CLIENTS).getId());
+            appointments.add(past);
+        }
+        for (int i = 1; i <= OLD_APPOINTMENTS; i++) {
+            appointments.add(appointment(corte, today.minusDays(PAST_APPOINTMENTS + i), LocalTime.of(10, 0),
+                    AppointmentStatus.COMPLETED));
+        }
+        for (int i = 2; i < 2 + FUTURE_APPOINTMENTS; i++) {
+            appointments.add(appointment(corte, today.plusDays(i), LocalTime.of(12, 0), AppointmentStatus.CONFIRMED));
+        }
+        // Canceladas: no ocupan hueco en la página de reserva
+        appointments.add(appointment(corte, today.plusDays(3), LocalTime.of(16, 0), AppointmentStatus.CANCELLED));
+        appointments.add(appointment(corte, today.plusDays(4), LocalTime.of(16, 0), AppointmentStatus.CANCELLED));
+        // Con el recordatorio por email vencido hace un minuto
+        LocalDateTime reminderSlot = LocalDateTime.now().plusHours(24).minusMinutes(1);
+        for (int i = 0; i < REMINDER_APPOINTMENTS; i++) {
+            Appointment due = appointment(corte, reminderSlot.toLocalDate(),
+                    LocalTime.of(reminderSlot.getHour(), reminderSlot.getMinute()), AppointmentStatus.CONFIRMED);
+            due.setEmailRemindAt(ReminderScheduleService.nowUtc().minusMinutes(1));
+            appointments.add(due);
+        }
+        appointmentRepository.saveAll(appointments);
+
+        BlockedSlot blocked = new BlockedSlot();
+        blocked.setBusiness(business);
+        blocked.setTitle("Vacaciones");
+        blocked.setStartDate(today.plusDays(20));
+        blocked.setEndDate(today.plusDays(22));
+        blocked.setAllDay(true);
+        blockedSlotRepository.save(blocked);
+
+        for (int i = 0; i < 2; i++) {
+            Testimonial testimonial = new Testimonial();
+            testimonial.setBusiness(business);
+            testimonial.setAuthorName("Autor " + i);
+            testimonial.setText("Muy buen servicio");
+            testimonialRepository.save(testimonial);
+
+            Faq faq = new Faq();
+            faq.setBusiness(business);
+            faq.setQuestion("Pregunta " + i);
+            faq.setAnswer("Respuesta " + i);
+            faqRepository.save(faq);
+        }
+
+        platformAdmin = new User();
+        platformAdmin.setName("Plataforma");
+        platformAdmin.setEmail("platform@example.com");
+        platformAdmin.setPassword("x");
+        platformAdmin.setRole(Role.SUPER_ADMIN);
+        platformAdmin = userRepository.save(platformAdmin);
+    }
+
+    @Test
+    @DisplayName("Página de reserva: config, servicios, huecos ocupados y bloqueos")
+    @QueryBudget(maxStatements = 4, maxRows = 20)
+    void bookingPage() throws Exception {
+        mockMvc.perform(get("/public/book/{slug}", SLUG))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Landing pública: config, servicios, portfolio, testimonios y FAQs")
+    @QueryBudget(maxStatements = 5, maxRows = 10)
+    void landingPage() throws Exception {
+        mockMvc.perform(get("/public/{slug}", SLUG))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Dashboard: KPIs desde el rollup y una sentencia limitada para la tabla de turnos")
+    // Filas fuera de la tabla: usuario, config, 4 agregados del rollup y 2 servicios activos
+    @QueryBudget(maxStatements = 10, maxRows = AdminController.DASHBOARD_TABLE_LIMIT + 8)
+    void dashboard() throws Exception {
+        mockMvc.perform(get("/admin/dashboard").with(user(business)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Historial de clientes: búsqueda por teléfono y turnos paginados")
+    @QueryBudget(maxStatements = 9, maxRows = 85)
+    void clientHistory() throws Exception {
+        mockMvc.perform(get("/admin/client-history").param("search", "600111").with(user(business)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Listado de negocios: una consulta agrupada, no una por negocio")
+    @QueryBudget(maxStatements = 2, maxRows = 1 + OTHER_BUSINESSES + 1)
+    void platformBusinesses() throws Exception {
+        mockMvc.perform(get("/platform/businesses").with(user(platformAdmin)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Listado de negocios buscando y ordenando por turnos")
+    @QueryBudget(maxStatements = 2, maxRows = 1 + OTHER_BUSINESSES + 1)
+    void platformBusinessesSearchSortedByAppointments() throws Exception {
+        mockMvc.perform(get("/platform/businesses")
+                        .param("search", "negocio")
+                        .param("sort", "appointments")
+                        .param("dir", "desc")
+                        .with(user(platformAdmin)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Job de recordatorios: un lote global de vencidos, reclamo y escritura masivos por lote")
+    // + lease del job (UPDATE + SELECT + INSERT), alta y cierre en JOB_RUNS y liberación del lease
+    @QueryBudget(maxStatements = 1 + 2 + 2 + 3 + 2 + 1,
+                 maxRows = REMINDER_APPOINTMENTS + REMINDER_APPOINTMENTS + 1)
+    void reminderJob() throws Exception {
+        when(emailService.sendReminders(anyList()))
+                .thenAnswer(inv -> Collections.nCopies(inv.<List<?>>getArgument(0).size(), DeliveryOutcome.SENT));
+
+        reminderScheduler.sendReminders();
+
+        ArgumentCaptor<List<EmailAppointmentDto>> batches = ArgumentCaptor.captor();
+        verify(emailService, atLeastOnce()).sendReminders(batches.capture());
+        assertEquals(REMINDER_APPOINTMENTS, batches.getAllValues().stream().mapToInt(List::size).sum());
+    }
+
+    private User seedBusiness(String slug) {
+        User user = new User();
+        user.setName("Negocio " + slug);
+        user.setEmail(slug + "@example.com");
+        user.setPhone("600000000");
+        user.setPassword("x");
+        user = userRepository.save(user);
+
+        BusinessConfig config = new BusinessConfig();
+        config.setUser(user);
+        config.setBusinessName("Negocio " + slug);
+        config.setSlug(slug);
+        config.setEnableReminders(true);
+        config.setReminderHoursBefore(24);
+        businessConfigRepository.save(config);
+        return user;
+    }
+
+    private Service seedService(User owner, String name, boolean active) {
+        Service service = new Service();
+        service.setBusiness(owner);
+        service.setName(name);
+        service.setPrice(new BigDecimal("15.00"));
+        service.setActive(active);
+        return serviceRepository.save(service);
+    }
+
+    private Appointment appointment(Service service, LocalDate date, LocalTime time, AppointmentStatus status) {
+        Appointment appointment = new Appointment();
+        appointment.setBusiness(business);
+        appointment.setService(service);
+        appointment.setDate(date);
+        appointment.setTime(time);
+        appointment.setDuration(30);
+        appointment.setClientName("Cliente");
+        appointment.setClientEmail("cliente@example.com");
+        appointment.setStatus(status);
+        return appointment;
+    }
+}
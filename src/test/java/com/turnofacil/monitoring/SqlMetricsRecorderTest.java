@@ -0,0 +1,84 @@
+package com.turnofacil.monitoring;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlMetricsRecorderTest {
+
+    private SimpleMeterRegistry registry;
+    private SqlMetricsRecorder recorder;
+    private SqlStatementInspector inspector;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        recorder = new SqlMetricsRecorder(registry, 3);
+        inspector = new SqlStatementInspector();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SqlMetricsContext.end();
+    }
+
+    @Test
+    @DisplayName("Sin scope abierto el inspector no cuenta nada")
+    void inspectorIgnoresStatementsOutsideScope() {
+        assertEquals("select 1", inspector.inspect("select 1"));
+        assertNull(SqlMetricsContext.current());
+    }
+
+    @Test
+    @DisplayName("Un scope anidado no reemplaza al exterior")
+    void nestedScopeKeepsOuter() {
+        SqlScope outer = SqlMetricsContext.begin("AdminController.dashboard", SqlMetricsContext.KIND_HTTP);
+
+        assertNull(SqlMetricsContext.begin("ReminderScheduler.sendReminders", SqlMetricsContext.KIND_JOB));
+        assertSame(outer, SqlMetricsContext.current());
+    }
+
+    @Test
+    @DisplayName("La misma sentencia repetida por encima del umbral se marca como N+1")
+    void detectsRepeatedStatements() {
+        SqlScope scope = SqlMetricsContext.begin("AdminController.dashboard", SqlMetricsContext.KIND_HTTP);
+        inspector.inspect("select a from appointments a where a.user_id=?");
+        for (int i = 0; i < 4; i++) {
+            inspector.inspect("select s from services s where s.id=?");
+        }
+        SqlMetricsContext.end();
+
+        recorder.record(scope);
+
+        Map<String, Object> stats = recorder.snapshot().get("AdminController.dashboard");
+        assertAll(
+                () -> assertEquals(5L, stats.get("statements")),
+                () -> assertEquals(1L, stats.get("nPlusOneDetections")),
+                () -> assertEquals(4, stats.get("lastRepeatedCount")),
+                () -> assertEquals(1.0, registry.get("turnofacil.sql.n_plus_one")
+                        .tag("handler", "AdminController.dashboard").counter().count())
+        );
+    }
+
+    @Test
+    @DisplayName("Consultas distintas no disparan la detección")
+    void distinctStatementsAreNotNPlusOne() {
+        SqlScope scope = SqlMetricsContext.begin("PublicController.showBookingPage", SqlMetricsContext.KIND_HTTP);
+        inspector.inspect("select c from business_config c where c.slug=?");
+        inspector.inspect("select s from services s where s.business_id=?");
+        inspector.inspect("select a from appointments a where a.user_id=?");
+        SqlMetricsContext.end();
+
+        recorder.record(scope);
+
+        Map<String, Object> stats = recorder.snapshot().get("PublicController.showBookingPage");
+        assertEquals(3L, stats.get("statements"));
+        assertEquals(0L, stats.get("nPlusOneDetections"));
+    }
+}
@@ -0,0 +1,263 @@
+package com.turnofacil.repository;
+
+import com.turnofacil.config.AsyncConfiguration;
+import com.turnofacil.dto.EmailAppointmentDto;
+import com.turnofacil.dto.PublicSlotDto;
+import com.turnofacil.dto.ReminderCandidate;
+import com.turnofacil.model.Appointment;
+import com.turnofacil.model.BlockedSlot;
+import com.turnofacil.model.BusinessConfig;
+import com.turnofacil.model.Service;
+import com.turnofacil.model.User;
+import com.turnofacil.model.enums.AppointmentStatus;
+import com.turnofacil.scheduler.ReminderScheduler;
+import com.turnofacil.scheduler.cluster.JobCoordinator;
+import com.turnofacil.service.EmailService;
+import com.turnofacil.service.ReminderScheduleService;
+import com.turnofacil.service.mail.DeliveryOutcome;
+import com.turnofacil.service.whatsapp.WhatsAppService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Número de sentencias SQL de las pantallas y jobs más frecuentes.
+ * Cada caso siembra varias citas y comprueba que las sentencias no crecen con ellas (sin N+1).
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.globally_quoted_identifiers=true",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({ReminderScheduler.class, JobCoordinator.class, AsyncConfiguration.class, SimpleMeterRegistry.class})
+class AppointmentQueryCountTest {
+
+    private static final int APPOINTMENTS = 12;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private BusinessConfigRepository businessConfigRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private BlockedSlotRepository blockedSlotRepository;
+
+    @Autowired
+    private ReminderScheduler reminderScheduler;
+
+    @MockitoBean
+    private EmailService emailService;
+
+    @MockitoBean
+    private WhatsAppService whatsAppService;
+
+    private Statistics statistics;
+    private User business;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        business = seedBusiness("peluqueria-ana");
+        seedBusiness("barberia-luis");
+        em.flush();
+        em.clear();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("Dashboard: una sentencia limitada para la tabla de turnos, sin cargar negocio, servicio ni factura")
+    void dashboardTableIsSingleStatement() {
+        List<Appointment> appointments = appointmentRepository.findByBusinessIdOrderByDateDescTimeDesc(
+                business.getId(), PageRequest.of(0, APPOINTMENTS - 2));
+
+        // La plantilla solo lee el id del servicio, que el proxy resuelve sin ir a BD
+        appointments.forEach(a -> assertNotNull(a.getService().getId()));
+
+        assertEquals(APPOINTMENTS - 2, appointments.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Página de reserva: una sentencia por bloque de datos")
+    void bookingPageUsesOneStatementPerQuery() {
+        BusinessConfig config = businessConfigRepository.findBySlug("peluqueria-ana").orElseThrow();
+        Long businessId = config.getUser().getId();
+
+        List<Service> services = serviceRepository.findByBusinessIdAndActiveOrderByDisplayOrderAsc(businessId, true);
+        List<PublicSlotDto> slots = appointmentRepository.findPublicSlots(businessId, LocalDate.now(), null);
+        List<BlockedSlot> blocked = blockedSlotRepository
+                .findByBusinessIdAndEndDateGreaterThanEqualOrderByStartDateAsc(businessId, LocalDate.now());
+
+        assertAll(
+                () -> assertEquals(1, services.size()),
+                () -> assertEquals(APPOINTMENTS, slots.size()),
+                () -> assertEquals(1, blocked.size()),
+                () -> assertEquals(4, statistics.getPrepareStatementCount())
+        );
+    }
+
+    @Test
+    @DisplayName("Job de recordatorios: un lote de vencidos para todos los negocios, reclamo y escritura masivos")
+    void reminderJobDoesNotLoadPerAppointment() throws Exception {
+        when(emailService.sendReminders(anyList()))
+                .thenAnswer(inv -> Collections.nCopies(inv.<List<?>>getArgument(0).size(), DeliveryOutcome.SENT));
+
+        reminderScheduler.sendReminders();
+
+        ArgumentCaptor<List<EmailAppointmentDto>> batches = ArgumentCaptor.captor();
+        verify(emailService, atLeastOnce()).sendReminders(batches.capture());
+        assertEquals(APPOINTMENTS * 2, batches.getAllValues().stream().mapToInt(List::size).sum());
+        // lote de vencidos + (UPDATE reclamo + SELECT reclamadas) + UPDATE enviados + UPDATE liberar,
+        // más el lease del job en su primera ejecución (UPDATE + SELECT + INSERT), alta y cierre
+        // en JOB_RUNS y liberación del lease
+        assertEquals(1 + 2 + 2 + 3 + 2 + 1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    @DisplayName("Job de recordatorios: un fallo transitorio espera su reintento y un rechazo no vuelve a enviarse")
+    void reminderFailuresAreRetriedWithBackoffOrDiscarded() {
+        when(emailService.sendReminders(anyList())).thenAnswer(inv -> inv.<List<EmailAppointmentDto>>getArgument(0).stream()
+                .map(dto -> switch (dto.clientName()) {
+                    case "Cliente 0" -> DeliveryOutcome.RETRY;
+                    case "Cliente 1" -> DeliveryOutcome.REJECTED;
+                    default -> DeliveryOutcome.SENT;
+                })
+                .toList());
+        LocalDateTime before = ReminderScheduleService.nowUtc();
+
+        reminderScheduler.sendReminders();
+        em.clear();
+
+        List<Appointment> appointments = appointmentRepository.findAll();
+        Appointment retried = appointments.stream().filter(a -> a.getClientName().equals("Cliente 0")).findFirst().orElseThrow();
+        Appointment rejected = appointments.stream().filter(a -> a.getClientName().equals("Cliente 1")).findFirst().orElseThrow();
+        assertAll(
+                () -> assertFalse(retried.isReminderSent()),
+                () -> assertEquals(1, retried.getEmailReminderAttempts()),
+                () -> assertTrue(retried.getEmailReminderRetryAt().isAfter(before.plusMinutes(1))),
+                () -> assertFalse(retried.isEmailReminderFailed()),
+                () -> assertFalse(rejected.isReminderSent()),
+                () -> assertTrue(rejected.isEmailReminderFailed()),
+                () -> assertNull(retried.getReminderClaimToken()),
+                () -> assertEquals(APPOINTMENTS * 2 - 4,
+                        appointments.stream().filter(Appointment::isReminderSent).count())
+        );
+
+        // Ni el que espera su reintento ni el rechazado vuelven a salir en la siguiente pasada
+        LocalDateTime now = ReminderScheduleService.nowUtc();
+        assertTrue(appointmentRepository.findDueEmailReminders(now, now.minusHours(2),
+                0L, Long.MAX_VALUE, 0L, PageRequest.of(0, 100)).isEmpty());
+        // Cuando llega su momento, el transitorio sí (con su intento anterior contado)
+        List<ReminderCandidate> due = appointmentRepository.findDueEmailReminders(retried.getEmailReminderRetryAt(),
+                now.minusHours(2), 0L, Long.MAX_VALUE, 0L, PageRequest.of(0, 100));
+        assertEquals(2, due.size());
+        assertTrue(due.stream().anyMatch(c -> c.appointmentId().equals(retried.getId()) && c.emailReminderAttempts() == 1));
+        assertTrue(due.stream().noneMatch(c -> c.appointmentId().equals(rejected.getId())));
+    }
+
+    @Test
+    @DisplayName("Relleno al arrancar: solo negocios con recordatorios activos y citas con algún canal")
+    void backfillSkipsBusinessesWithoutReminders() {
+        User pending = seedBusiness("sin-programar");
+        User disabled = seedBusiness("sin-recordatorios");
+        User noContact = seedBusiness("sin-contacto");
+        em.getEntityManager().createQuery("UPDATE Appointment a SET a.emailRemindAt = null " +
+                        "WHERE a.business.id IN :ids")
+                .setParameter("ids", List.of(pending.getId(), disabled.getId(), noContact.getId()))
+                .executeUpdate();
+        em.getEntityManager().createQuery("UPDATE Appointment a SET a.clientEmail = null WHERE a.business.id = :id")
+                .setParameter("id", noContact.getId())
+                .executeUpdate();
+        businessConfigRepository.findBySlug("sin-recordatorios").orElseThrow().setEnableReminders(false);
+        em.flush();
+
+        assertEquals(List.of(pending.getId()),
+                appointmentRepository.findBusinessIdsMissingReminderSchedule(LocalDate.now().minusDays(1)));
+    }
+
+    private User seedBusiness(String slug) {
+        User user = new User();
+        user.setName("Negocio " + slug);
+        user.setEmail(slug + "@example.com");
+        user.setPhone("600000000");
+        user.setPassword("x");
+        em.persist(user);
+
+        BusinessConfig config = new BusinessConfig();
+        config.setUser(user);
+        config.setBusinessName("Negocio " + slug);
+        config.setSlug(slug);
+        config.setEnableReminders(true);
+        config.setReminderHoursBefore(24);
+        em.persist(config);
+
+        Service service = new Service();
+        service.setBusiness(user);
+        service.setName("Corte");
+        service.setPrice(new BigDecimal("15.00"));
+        em.persist(service);
+
+        BlockedSlot blocked = new BlockedSlot();
+        blocked.setBusiness(user);
+        blocked.setTitle("Vacaciones");
+        blocked.setStartDate(LocalDate.now().plusDays(10));
+        blocked.setEndDate(LocalDate.now().plusDays(12));
+        blocked.setAllDay(true);
+        em.persist(blocked);
+
+        // Todas con el recordatorio por email vencido hace un minuto
+        LocalDateTime slot = LocalDateTime.now().plusHours(24).minusMinutes(1);
+        LocalDateTime remindAt = ReminderScheduleService.nowUtc().minusMinutes(1);
+        for (int i = 0; i < APPOINTMENTS; i++) {
+            Appointment appointment = new Appointment();
+            appointment.setBusiness(user);
+            appointment.setService(service);
+            appointment.setDate(slot.toLocalDate());
+            appointment.setTime(LocalTime.of(slot.getHour(), slot.getMinute()));
+            appointment.setDuration(30);
+            appointment.setClientName("Cliente " + i);
+            appointment.setClientEmail("cliente" + i + "@example.com");
+            appointment.setStatus(AppointmentStatus.CONFIRMED);
+            appointment.setEmailRemindAt(remindAt);
+            em.persist(appointment);
+        }
+        return user;
+    }
+}
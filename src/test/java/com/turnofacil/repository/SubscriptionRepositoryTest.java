@@ -0,0 +1,157 @@
+package com.turnofacil.repository;
+
+import com.turnofacil.dto.TrialEmailRecipient;
+import com.turnofacil.model.BusinessConfig;
+import com.turnofacil.model.Subscription;
+import com.turnofacil.model.User;
+import com.turnofacil.model.enums.Plan;
+import com.turnofacil.model.enums.SubscriptionStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Consultas del ciclo de vida del trial: expiración masiva y destinatarios de los avisos.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.globally_quoted_identifiers=true"
+})
+class SubscriptionRepositoryTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 10);
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Test
+    @DisplayName("La expiración masiva pasa a ACTIVE + FREE solo los TRIAL vencidos, fija UPDATED_AT y conserva la fecha")
+    void expireTrialsEndedBeforeOnlyTouchesEndedTrials() {
+        Subscription endedYesterday = subscription("ayer", SubscriptionStatus.TRIAL, Plan.PRO, TODAY.minusDays(1));
+        Subscription endedLastWeek = subscription("semana", SubscriptionStatus.TRIAL, Plan.PRO, TODAY.minusDays(7));
+        Subscription endsToday = subscription("hoy", SubscriptionStatus.TRIAL, Plan.PRO, TODAY);
+        Subscription paid = subscription("pago", SubscriptionStatus.ACTIVE, Plan.PRO, null);
+        Subscription cancelled = subscription("baja", SubscriptionStatus.CANCELLED, Plan.FREE, TODAY.minusDays(3));
+        Subscription pastDue = subscription("moroso", SubscriptionStatus.PAST_DUE, Plan.BUSINESS, TODAY.minusDays(3));
+        LocalDateTime now = LocalDateTime.of(2026, 3, 10, 1, 0);
+
+        int expired = subscriptionRepository.expireTrialsEndedBefore(TODAY, now);
+        em.clear();
+
+        assertEquals(2, expired);
+        for (Subscription s : List.of(endedYesterday, endedLastWeek)) {
+            Subscription reloaded = reload(s);
+            assertAll(
+                    () -> assertEquals(SubscriptionStatus.ACTIVE, reloaded.getStatus()),
+                    () -> assertEquals(Plan.FREE, reloaded.getPlan()),
+                    () -> assertEquals(now, reloaded.getUpdatedAt()),
+                    () -> assertEquals(s.getTrialEndsAt(), reloaded.getTrialEndsAt())
+            );
+        }
+        assertUnchanged(endsToday);
+        assertUnchanged(paid);
+        assertUnchanged(cancelled);
+        assertUnchanged(pastDue);
+
+        // Una segunda ejecución el mismo día no encuentra nada
+        assertEquals(0, subscriptionRepository.expireTrialsEndedBefore(TODAY, now.plusMinutes(5)));
+    }
+
+    @Test
+    @DisplayName("Destinatarios del aviso de fin de trial: nombre del negocio o, sin BusinessConfig, el del usuario")
+    void trialEndingRecipientsFallBackToUserName() {
+        LocalDate endsAt = TODAY.plusDays(3);
+        Subscription withConfig = subscription("con-config", SubscriptionStatus.TRIAL, Plan.PRO, endsAt);
+        config(withConfig.getUser(), "Peluquería Ana");
+        Subscription withoutConfig = subscription("sin-config", SubscriptionStatus.TRIAL, Plan.PRO, endsAt);
+        subscription("otro-dia", SubscriptionStatus.TRIAL, Plan.PRO, endsAt.plusDays(1));
+        subscription("ya-pago", SubscriptionStatus.ACTIVE, Plan.PRO, endsAt);
+        em.flush();
+        em.clear();
+
+        List<TrialEmailRecipient> recipients = subscriptionRepository.findTrialEndingRecipients(endsAt);
+
+        assertEquals(List.of(
+                new TrialEmailRecipient(withConfig.getUser().getId(), "con-config@example.com", "Peluquería Ana"),
+                new TrialEmailRecipient(withoutConfig.getUser().getId(), "sin-config@example.com", "Usuario sin-config")
+        ), recipients);
+    }
+
+    @Test
+    @DisplayName("El aviso de trial expirado sale una sola vez, el día siguiente al fin, haya corrido o no la expiración")
+    void trialExpiredRecipientsAreNotifiedOnce() {
+        Subscription withConfig = subscription("expirado", SubscriptionStatus.TRIAL, Plan.PRO, TODAY.minusDays(1));
+        config(withConfig.getUser(), "Barbería Luis");
+        Subscription withoutConfig = subscription("sin-config", SubscriptionStatus.TRIAL, Plan.PRO, TODAY.minusDays(1));
+        // Pasó a pago durante el trial: activate() borra la fecha
+        Subscription converted = subscription("convertido", SubscriptionStatus.TRIAL, Plan.PRO, TODAY.minusDays(1));
+        converted.activate(Plan.PRO, "sub_1", TODAY.minusDays(2), TODAY.plusDays(28));
+        em.persistAndFlush(converted);
+        // Terminó antes de ayer: ya se avisó en su día
+        subscription("anterior", SubscriptionStatus.TRIAL, Plan.PRO, TODAY.minusDays(2));
+        em.clear();
+        List<TrialEmailRecipient> expected = List.of(
+                new TrialEmailRecipient(withConfig.getUser().getId(), "expirado@example.com", "Barbería Luis"),
+                new TrialEmailRecipient(withoutConfig.getUser().getId(), "sin-config@example.com", "Usuario sin-config"));
+
+        // Antes de la expiración de hoy siguen en TRIAL; después están en ACTIVE + FREE
+        assertEquals(expected, subscriptionRepository.findTrialExpiredRecipients(TODAY.minusDays(1)));
+        assertEquals(3, subscriptionRepository.expireTrialsEndedBefore(TODAY, LocalDateTime.now()));
+        em.clear();
+        assertEquals(expected, subscriptionRepository.findTrialExpiredRecipients(TODAY.minusDays(1)));
+
+        // Al día siguiente no queda ninguna transición ni nadie a quien avisar
+        assertEquals(0, subscriptionRepository.expireTrialsEndedBefore(TODAY.plusDays(1), LocalDateTime.now()));
+        assertEquals(List.of(), subscriptionRepository.findTrialExpiredRecipients(TODAY));
+    }
+
+    private Subscription subscription(String name, SubscriptionStatus status, Plan plan, LocalDate trialEndsAt) {
+        User user = new User();
+        user.setName("Usuario " + name);
+        user.setEmail(name + "@example.com");
+        user.setPassword("x");
+        em.persist(user);
+
+        Subscription subscription = new Subscription();
+        subscription.setUser(user);
+        subscription.setStatus(status);
+        subscription.setPlan(plan);
+        subscription.setTrialEndsAt(trialEndsAt);
+        return em.persistAndFlush(subscription);
+    }
+
+    private void config(User user, String businessName) {
+        BusinessConfig config = new BusinessConfig();
+        config.setUser(user);
+        config.setBusinessName(businessName);
+        config.setSlug("slug-" + user.getId());
+        em.persistAndFlush(config);
+    }
+
+    private Subscription reload(Subscription subscription) {
+        return em.find(Subscription.class, subscription.getId());
+    }
+
+    private void assertUnchanged(Subscription original) {
+        Subscription reloaded = reload(original);
+        assertAll(
+                () -> assertEquals(original.getStatus(), reloaded.getStatus()),
+                () -> assertEquals(original.getPlan(), reloaded.getPlan()),
+                () -> assertEquals(original.getTrialEndsAt(), reloaded.getTrialEndsAt()),
+                () -> assertNull(reloaded.getUpdatedAt())
+        );
+    }
+}
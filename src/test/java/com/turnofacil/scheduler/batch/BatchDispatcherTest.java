@@ -0,0 +1,71 @@
+package com.turnofacil.scheduler.batch;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchDispatcherTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private BatchDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        dispatcher = new BatchDispatcher(Runnable::run, meterRegistry, 10);
+    }
+
+    @Test
+    @DisplayName("Parte los elementos en lotes de chunkSize y suma entregados y fallidos")
+    void splitsIntoChunksAndReports() {
+        List<Integer> items = IntStream.range(0, 25).boxed().toList();
+        List<Integer> chunkSizes = Collections.synchronizedList(new ArrayList<>());
+
+        BatchReport report = dispatcher.dispatch("trial-ending-reminders", items, chunk -> {
+            chunkSizes.add(chunk.size());
+            return chunk.stream().map(i -> i % 5 != 0).toList();
+        });
+
+        assertEquals(List.of(10, 10, 5), chunkSizes);
+        assertEquals(25, report.selected());
+        assertEquals(3, report.chunks());
+        assertEquals(20, report.sent());
+        assertEquals(5, report.failed());
+        assertEquals(5, meterRegistry.counter("turnofacil.jobs.batch.items",
+                "job", "trial-ending-reminders", "outcome", "failed").count());
+    }
+
+    @Test
+    @DisplayName("Un lote que lanza cuenta entero como fallido y no impide enviar los demás")
+    void failedChunkDoesNotStopOthers() {
+        List<Integer> items = IntStream.range(0, 30).boxed().toList();
+
+        BatchReport report = dispatcher.dispatch("trial-expired-notifications", items, chunk -> {
+            if (chunk.get(0) == 10) {
+                throw new IllegalStateException("SMTP caído");
+            }
+            return Collections.nCopies(chunk.size(), true);
+        });
+
+        assertEquals(20, report.sent());
+        assertEquals(10, report.failed());
+    }
+
+    @Test
+    @DisplayName("Sin elementos no se envía nada")
+    void emptyListSendsNothing() {
+        BatchReport report = dispatcher.dispatch("trial-ending-reminders", List.<Integer>of(), chunk -> {
+            throw new AssertionError("no debería enviar");
+        });
+
+        assertEquals(0, report.chunks());
+    }
+}
@@ -0,0 +1,112 @@
+package com.turnofacil.scheduler.cluster;
+
+import com.turnofacil.model.JobRun;
+import com.turnofacil.model.enums.JobRunStatus;
+import com.turnofacil.repository.JobLockRepository;
+import com.turnofacil.repository.JobRunRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class JobCoordinatorTest {
+
+    private JobLockRepository lockRepository;
+    private JobRunRepository runRepository;
+    private JobCoordinator coordinator;
+
+    @BeforeEach
+    void setUp() {
+        lockRepository = mock(JobLockRepository.class);
+        runRepository = mock(JobRunRepository.class);
+        when(runRepository.save(any(JobRun.class))).thenAnswer(inv -> {
+            JobRun run = inv.getArgument(0);
+            run.setId(7L);
+            return run;
+        });
+        coordinator = new JobCoordinator(lockRepository, runRepository, mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry(), "nodo-a", 120, 30);
+    }
+
+    @AfterEach
+    void tearDown() {
+        coordinator.shutdown();
+    }
+
+    @Test
+    @DisplayName("Si otro nodo tiene el lease vigente, el job no corre ni deja ejecución")
+    void skipsWhenLeaseIsHeld() {
+        when(lockRepository.takeExpired(eq("trial-expiry"), eq("nodo-a"), any(), any())).thenReturn(0);
+        when(lockRepository.existsById("trial-expiry")).thenReturn(true);
+        AtomicBoolean ran = new AtomicBoolean();
+
+        boolean executed = coordinator.runExclusive("trial-expiry", Duration.ofMinutes(5), () -> ran.set(true));
+
+        assertFalse(executed);
+        assertFalse(ran.get());
+        verify(lockRepository, never()).insertLease(any(), any(), any(), any());
+        verify(runRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("La primera ejecución inserta el lease y guarda los contadores del job")
+    void recordsRunAndHoldsLeaseAtLeastForTheMinimum() {
+        when(lockRepository.takeExpired(any(), any(), any(), any())).thenReturn(0);
+        when(lockRepository.existsById("trial-expiry")).thenReturn(false);
+
+        boolean executed = coordinator.runExclusive("trial-expiry", Duration.ofMinutes(5), () -> {
+            JobRunContext.addProcessed(3);
+            JobRunContext.addFailures(1);
+        });
+
+        assertTrue(executed);
+        ArgumentCaptor<LocalDateTime> lockedAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> until = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(lockRepository).insertLease(eq("trial-expiry"), eq("nodo-a"), lockedAt.capture(), any());
+        verify(runRepository).finish(eq(7L), eq(JobRunStatus.SUCCESS), any(), eq(3), eq(1), isNull());
+        verify(lockRepository).release(eq("trial-expiry"), eq("nodo-a"), eq(lockedAt.getValue()), until.capture());
+        assertEquals(lockedAt.getValue().plusMinutes(5), until.getValue());
+    }
+
+    @Test
+    @DisplayName("Un job que falla queda como FAILED, libera el lease y relanza la excepción")
+    void failedJobIsRecorded() {
+        when(lockRepository.takeExpired(any(), any(), any(), any())).thenReturn(1);
+
+        assertThrows(IllegalStateException.class, () -> coordinator.runExclusive("outbox-purge", Duration.ZERO, () -> {
+            throw new IllegalStateException("sin conexión");
+        }));
+
+        verify(runRepository).finish(eq(7L), eq(JobRunStatus.FAILED), any(), eq(0), eq(0), eq("sin conexión"));
+        verify(lockRepository).release(eq("outbox-purge"), eq("nodo-a"), any(), any());
+    }
+
+    @Test
+    @DisplayName("Los tramos cubren todos los ids de negocio sin solaparse")
+    void splitCoversAllBusinessIds() {
+        List<BusinessIdRange> ranges = BusinessIdRange.split(3, 10);
+
+        assertAll(
+                () -> assertEquals(List.of(BusinessIdRange.ALL), BusinessIdRange.split(1, 10)),
+                () -> assertEquals(3, ranges.size()),
+                () -> assertEquals(0, ranges.get(0).fromId()),
+                () -> assertEquals(4, ranges.get(0).toId()),
+                () -> assertEquals(5, ranges.get(1).fromId()),
+                () -> assertEquals(8, ranges.get(1).toId()),
+                () -> assertEquals(9, ranges.get(2).fromId()),
+                () -> assertEquals(Long.MAX_VALUE, ranges.get(2).toId())
+        );
+    }
+}
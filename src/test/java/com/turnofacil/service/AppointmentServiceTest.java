@@ -5,20 +5,34 @@ import com.turnofacil.model.User;
 import com.turnofacil.model.enums.AppointmentStatus;
 import com.turnofacil.repository.AppointmentRepository;
 import com.turnofacil.repository.BusinessConfigRepository;
+import com.turnofacil.repository.BusinessDailyStatsRepository;
 import com.turnofacil.repository.ServiceRepository;
+import com.turnofacil.service.outbox.OutboxService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 
 /**
@@ -38,7 +52,13 @@ class AppointmentServiceTest {
     private BlockedSlotService blockedSlotService;
 
     @Mock
-    private EmailService emailService;
+    private OutboxService outboxService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
 
     @Mock
     private NotificationService notificationService;
@@ -52,6 +72,18 @@ class AppointmentServiceTest {
     @Mock
     private PlanLimitsService planLimitsService;
 
+    @Mock
+    private BusinessStatsService businessStatsService;
+
+    @Mock
+    private ClientService clientService;
+
+    @Mock
+    private ReminderScheduleService reminderScheduleService;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private AppointmentService appointmentService;
 
@@ -238,4 +270,241 @@ class AppointmentServiceTest {
                     () -> appointmentService.getByIdAndBusiness(999L, business));
         }
     }
+
+    @Nested
+    @DisplayName("createAppointment - Alta de turno")
+    class CreateAppointment {
+
+        @Test
+        @DisplayName("Rollup y ficha de cliente se actualizan en la transacción de la reserva, antes del commit")
+        void recordsStatsAndClientBeforeCommit() {
+            // Given
+            when(planLimitsService.canCreateAppointment(1L)).thenReturn(true);
+            when(appointmentRepo.save(any(Appointment.class))).thenAnswer(inv -> {
+                Appointment saved = inv.getArgument(0);
+                saved.setId(200L);
+                return saved;
+            });
+
+            // When
+            Appointment created = appointmentService.createAppointment(business,
+                    LocalDate.now().plusDays(1), LocalTime.of(10, 0), 30,
+                    "Ana", "600123123", "ana@example.com", null);
+
+            // Then
+            InOrder inOrder = inOrder(appointmentRepo, businessStatsService, clientService, transactionManager);
+            inOrder.verify(appointmentRepo).save(created);
+            inOrder.verify(businessStatsService).recordCreated(created);
+            inOrder.verify(clientService).recordCreated(created);
+            inOrder.verify(transactionManager).commit(any());
+            // Solo la notificación al admin queda para después del commit
+            verify(eventPublisher).publishEvent(new AppointmentCreatedEvent(200L, 1L));
+        }
+    }
+
+    @Nested
+    @DisplayName("rescheduleByToken - Reagendar por token")
+    class RescheduleByToken {
+
+        @Test
+        @DisplayName("Valida y guarda en una transacción que confirma dentro del lock del negocio")
+        void validatesAndSavesInsideTransaction() {
+            // Given
+            appointment.setDate(LocalDate.now().plusDays(1));
+            appointment.setTime(LocalTime.of(10, 0));
+            when(appointmentRepo.findByCancellationToken("tok")).thenReturn(Optional.of(appointment));
+            when(appointmentRepo.save(appointment)).thenReturn(appointment);
+            LocalDate newDate = LocalDate.now().plusDays(2);
+
+            // When
+            Appointment saved = appointmentService.rescheduleByToken("tok", newDate, LocalTime.of(12, 0));
+
+            // Then
+            assertEquals(newDate, saved.getDate());
+            assertEquals(LocalTime.of(12, 0), saved.getTime());
+            InOrder inOrder = inOrder(transactionManager, appointmentRepo, businessStatsService);
+            inOrder.verify(transactionManager).getTransaction(any());
+            inOrder.verify(appointmentRepo).findByCancellationToken("tok");
+            inOrder.verify(appointmentRepo).save(appointment);
+            inOrder.verify(businessStatsService).recordChanged(any(), eq(appointment));
+            inOrder.verify(transactionManager).commit(any());
+        }
+    }
+
+    /**
+     * El rollup se mantiene con deltas; tras cualquier secuencia de operaciones debe coincidir
+     * con un recuento completo de APPOINTMENTS (lo que haría rebuildForBusiness).
+     * Turnos y rollup viven en memoria; BusinessStatsService es el real.
+     */
+    @Nested
+    @DisplayName("Rollup BUSINESS_DAILY_STATS - deltas frente a recuento completo")
+    class StatsRollup {
+
+        private static final LocalDate DAY = LocalDate.of(2026, 3, 2);
+
+        private final Map<Long, Appointment> appointments = new HashMap<>();
+        private final Map<LocalDate, DayTotals> rollup = new HashMap<>();
+        private BusinessDailyStatsRepository statsRepo;
+        private BusinessStatsService stats;
+        private AppointmentService service;
+
+        @BeforeEach
+        void setUp() {
+            statsRepo = mock(BusinessDailyStatsRepository.class);
+            lenient().when(statsRepo.applyDelta(any(), any(), anyInt(), anyInt(), anyInt(), anyInt(), anyInt(),
+                    anyInt(), anyInt(), any())).thenAnswer(inv -> {
+                DayTotals delta = new DayTotals(inv.<Integer>getArgument(2), inv.<Integer>getArgument(3),
+                        inv.<Integer>getArgument(4), inv.<Integer>getArgument(5), inv.<Integer>getArgument(6),
+                        inv.<Integer>getArgument(7), inv.<Integer>getArgument(8), inv.getArgument(9));
+                rollup.merge(inv.getArgument(1), delta, DayTotals::plus);
+                return 1;
+            });
+            lenient().when(statsRepo.deleteByBusinessId(1L)).thenAnswer(inv -> {
+                int rows = rollup.size();
+                rollup.clear();
+                return rows;
+            });
+            lenient().when(statsRepo.rebuildForBusiness(1L)).thenAnswer(inv -> {
+                rollup.putAll(recount());
+                return rollup.size();
+            });
+            stats = new BusinessStatsService(statsRepo, transactionManager);
+
+            lenient().when(planLimitsService.canCreateAppointment(1L)).thenReturn(true);
+            lenient().when(appointmentRepo.save(any(Appointment.class))).thenAnswer(inv -> {
+                Appointment saved = inv.getArgument(0);
+                if (saved.getId() == null) {
+                    saved.setId((long) appointments.size() + 1);
+                }
+                appointments.put(saved.getId(), saved);
+                return saved;
+            });
+            lenient().when(appointmentRepo.findById(any())).thenAnswer(inv ->
+                    Optional.ofNullable(appointments.get(inv.<Long>getArgument(0))));
+            lenient().when(appointmentRepo.findByCancellationToken(any())).thenAnswer(inv ->
+                    appointments.values().stream()
+                            .filter(a -> a.getCancellationToken().equals(inv.getArgument(0)))
+                            .findFirst());
+
+            com.turnofacil.model.Service tinte = new com.turnofacil.model.Service();
+            tinte.setId(7L);
+            tinte.setName("Tinte");
+            tinte.setPrice(new BigDecimal("20.00"));
+            tinte.setDurationMinutes(45);
+            lenient().when(serviceRepo.findById(7L)).thenReturn(Optional.of(tinte));
+
+            service = new AppointmentService(appointmentRepo, userService, blockedSlotService, notificationService,
+                    serviceRepo, businessConfigRepo, planLimitsService, null, stats, clientService,
+                    reminderScheduleService, outboxService, eventPublisher, transactionManager, meterRegistry);
+        }
+
+        @Test
+        @DisplayName("Altas, cambios de estado, cancelaciones y reagendados dejan el rollup igual al recuento")
+        void deltasMatchFullRecount() {
+            Appointment completed = create(DAY, LocalTime.of(9, 0), 7L);
+            Appointment cancelled = create(DAY, LocalTime.of(10, 0), null);
+            Appointment noShow = create(DAY.plusDays(1), LocalTime.of(9, 0), 7L);
+            Appointment moved = create(DAY.plusDays(2), LocalTime.of(9, 0), null);
+            assertEquals(recount(), nonEmptyRollup());
+
+            service.updateStatus(completed.getId(), business, AppointmentStatus.CONFIRMED);
+            service.updateStatus(completed.getId(), business, AppointmentStatus.COMPLETED);
+            service.cancelAppointment(cancelled.getId(), business);
+            service.updateStatus(noShow.getId(), business, AppointmentStatus.NO_SHOW);
+            assertEquals(recount(), nonEmptyRollup());
+
+            // Cambia de día y de duración (servicio de 45 min) y después el cliente lo reagenda y lo cancela
+            service.updateAppointment(moved.getId(), business, DAY.plusDays(3), LocalTime.of(11, 0), 7L, null, null);
+            service.rescheduleByToken(moved.getCancellationToken(), DAY.plusDays(4), LocalTime.of(12, 0));
+            service.cancelByToken(moved.getCancellationToken());
+
+            Map<LocalDate, DayTotals> expected = recount();
+            assertEquals(expected, nonEmptyRollup());
+            assertEquals(new DayTotals(2, 0, 0, 1, 1, 0, 45, new BigDecimal("20")), expected.get(DAY));
+            assertEquals(new DayTotals(1, 0, 0, 0, 0, 1, 30, BigDecimal.ZERO), expected.get(DAY.plusDays(1)));
+            assertEquals(new DayTotals(1, 0, 0, 1, 0, 0, 0, BigDecimal.ZERO), expected.get(DAY.plusDays(4)));
+        }
+
+        @Test
+        @DisplayName("Editar solo notas no genera deltas")
+        void unchangedStatsSkipDeltas() {
+            Appointment appointment = create(DAY, LocalTime.of(9, 0), null);
+            clearInvocations(statsRepo);
+
+            service.updateAppointment(appointment.getId(), business, DAY, LocalTime.of(9, 0), null,
+                    "Trae foto", "VIP");
+
+            verifyNoInteractions(statsRepo);
+            assertEquals(recount(), nonEmptyRollup());
+        }
+
+        @Test
+        @DisplayName("La reconstrucción corrige la deriva de un borrado fuera de AppointmentService")
+        void rebuildMatchesRecountAfterDelete() {
+            create(DAY, LocalTime.of(9, 0), 7L);
+            Appointment deleted = create(DAY, LocalTime.of(10, 0), 7L);
+            service.updateStatus(deleted.getId(), business, AppointmentStatus.COMPLETED);
+            appointments.remove(deleted.getId());
+            assertNotEquals(recount(), nonEmptyRollup());
+
+            stats.rebuildBusiness(1L);
+
+            InOrder inOrder = inOrder(statsRepo);
+            inOrder.verify(statsRepo).deleteByBusinessId(1L);
+            inOrder.verify(statsRepo).rebuildForBusiness(1L);
+            assertEquals(recount(), nonEmptyRollup());
+            assertEquals(new DayTotals(1, 1, 0, 0, 0, 0, 30, BigDecimal.ZERO), rollup.get(DAY));
+        }
+
+        private Appointment create(LocalDate date, LocalTime time, Long serviceId) {
+            return service.createAppointment(business, date, time, 30, serviceId,
+                    "Ana", "600123123", "ana@example.com", null);
+        }
+
+        // Misma agregación que BusinessDailyStatsRepository.rebuildForBusiness
+        private Map<LocalDate, DayTotals> recount() {
+            Map<LocalDate, DayTotals> totals = new HashMap<>();
+            for (Appointment a : appointments.values()) {
+                AppointmentStatus status = a.getStatus();
+                DayTotals row = new DayTotals(1,
+                        status == AppointmentStatus.PENDING ? 1 : 0,
+                        status == AppointmentStatus.CONFIRMED ? 1 : 0,
+                        status == AppointmentStatus.CANCELLED ? 1 : 0,
+                        status == AppointmentStatus.COMPLETED ? 1 : 0,
+                        status == AppointmentStatus.NO_SHOW ? 1 : 0,
+                        status != AppointmentStatus.CANCELLED ? a.getDuration() : 0,
+                        status == AppointmentStatus.COMPLETED && a.getServicePrice() != null
+                                ? a.getServicePrice() : BigDecimal.ZERO);
+                totals.merge(a.getDate(), row, DayTotals::plus);
+            }
+            return totals;
+        }
+
+        // Un día del que se movieron todos los turnos queda en el rollup con contadores a cero
+        private Map<LocalDate, DayTotals> nonEmptyRollup() {
+            Map<LocalDate, DayTotals> rows = new HashMap<>(rollup);
+            rows.values().removeIf(DayTotals::isEmpty);
+            return rows;
+        }
+    }
+
+    private record DayTotals(long total, long pending, long confirmed, long cancelled,
+                             long completed, long noShow, long minutes, BigDecimal revenue) {
+
+        DayTotals {
+            // 20.00 - 20.00 y 0 deben compararse iguales
+            revenue = revenue.stripTrailingZeros();
+        }
+
+        DayTotals plus(DayTotals other) {
+            return new DayTotals(total + other.total, pending + other.pending, confirmed + other.confirmed,
+                    cancelled + other.cancelled, completed + other.completed, noShow + other.noShow,
+                    minutes + other.minutes, revenue.add(other.revenue));
+        }
+
+        boolean isEmpty() {
+            return total == 0 && pending == 0 && confirmed == 0 && cancelled == 0 && completed == 0
+                    && noShow == 0 && minutes == 0 && revenue.signum() == 0;
+        }
+    }
 }
@@ -0,0 +1,94 @@
+package com.turnofacil.service;
+
+import com.turnofacil.model.Client;
+import com.turnofacil.repository.ClientRepository;
+import com.turnofacil.util.ClientNormalizer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Búsqueda de clientes por teléfono sobre CLIENTS (H2): número completo, número nacional
+ * sin código de país y últimos dígitos.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.globally_quoted_identifiers=true"
+})
+@Import(ClientService.class)
+class ClientSearchTest {
+
+    private static final long BUSINESS_ID = 1L;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private ClientService clientService;
+
+    @BeforeEach
+    void setUp() {
+        seedClient(BUSINESS_ID, "Laura", "+34 600 123 456");
+        seedClient(BUSINESS_ID, "Marta", "0034 611 987 654");
+        seedClient(BUSINESS_ID, "Pablo", "622 111 222");
+        // Mismo número en otro negocio: nunca debe aparecer
+        seedClient(2L, "Laura", "+34 600 123 456");
+    }
+
+    @Test
+    @DisplayName("Un número nacional encuentra al cliente guardado con código de país")
+    void nationalNumberMatchesInternationalPhone() {
+        assertEquals(List.of("Laura"), search("600123"));
+        assertEquals(List.of("Laura"), search("600 123 456"));
+        assertEquals(List.of("Marta"), search("611 98"));
+    }
+
+    @Test
+    @DisplayName("El número completo con prefijo internacional sigue encontrando por prefijo")
+    void internationalNumberMatches() {
+        assertEquals(List.of("Laura"), search("+34 600"));
+        assertEquals(List.of("Laura"), search("34600123456"));
+        // Con prefijo internacional, el número nacional de la búsqueda encuentra al guardado sin él
+        assertEquals(List.of("Pablo"), search("+34 622 111"));
+    }
+
+    @Test
+    @DisplayName("Los últimos dígitos encuentran al cliente como el antiguo LIKE '%x%'")
+    void trailingDigitsMatch() {
+        assertEquals(List.of("Laura"), search("3456"));
+        assertEquals(List.of("Pablo"), search("1 222"));
+        assertTrue(search("99999").isEmpty());
+    }
+
+    private List<String> search(String term) {
+        return clientService.search(BUSINESS_ID, term, PageRequest.of(0, 20)).stream()
+                .map(Client::getName)
+                .toList();
+    }
+
+    private void seedClient(Long businessId, String name, String phone) {
+        Client client = new Client();
+        client.setBusinessId(businessId);
+        client.setClientKey(ClientNormalizer.clientKey(name, phone, null));
+        client.setName(name);
+        client.setPhone(phone);
+        client.setPhoneNormalized(ClientNormalizer.normalizePhone(phone));
+        client.setPhoneNational(ClientNormalizer.nationalPhone(phone));
+        client.setPhoneReversed(ClientNormalizer.reversedPhone(phone));
+        client.setNameNormalized(ClientNormalizer.normalizeName(name));
+        client.setTotalAppointments(1);
+        client.setLastVisit(LocalDate.now());
+        clientRepository.save(client);
+    }
+}
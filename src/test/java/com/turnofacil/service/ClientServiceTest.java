@@ -0,0 +1,229 @@
+package com.turnofacil.service;
+
+import com.turnofacil.model.Appointment;
+import com.turnofacil.model.Client;
+import com.turnofacil.model.User;
+import com.turnofacil.model.enums.AppointmentStatus;
+import com.turnofacil.repository.ClientRepository;
+import com.turnofacil.service.BusinessStatsService.StatsSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Ficha de cliente mantenida por ClientService. La tabla CLIENTS vive en memoria y el
+ * upsert reproduce el INSERT ... ON DUPLICATE KEY UPDATE sobre (USER_ID, CLIENT_KEY).
+ */
+class ClientServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 2);
+
+    private final Map<String, Client> clients = new HashMap<>();
+    private ClientRepository clientRepo;
+    private ClientService service;
+    private User business;
+
+    @BeforeEach
+    void setUp() {
+        clientRepo = mock(ClientRepository.class);
+        when(clientRepo.upsertVisit(any(), any(), any(), any(), any(), any(), any(), any(), any(), any(),
+                anyInt(), anyInt(), anyInt(), any())).thenAnswer(inv -> {
+            Long businessId = inv.getArgument(0);
+            LocalDate date = inv.getArgument(13);
+            Client client = clients.computeIfAbsent(businessId + "|" + inv.getArgument(1), key -> {
+                Client created = new Client();
+                created.setId((long) clients.size() + 1);
+                created.setBusinessId(businessId);
+                created.setClientKey(inv.getArgument(1));
+                created.setPhoneNormalized(inv.getArgument(5));
+                created.setEmailNormalized(inv.getArgument(8));
+                created.setFirstVisit(date);
+                created.setLastVisit(date);
+                return created;
+            });
+            if (!date.isBefore(client.getLastVisit())) {
+                client.setName(inv.getArgument(2));
+                client.setLastVisit(date);
+            }
+            if (date.isBefore(client.getFirstVisit())) {
+                client.setFirstVisit(date);
+            }
+            client.setTotalAppointments(client.getTotalAppointments() + 1);
+            addCounters(client, inv.getArgument(10), inv.getArgument(11), inv.getArgument(12));
+            return 1;
+        });
+        when(clientRepo.findIdByBusinessIdAndClientKey(any(), any())).thenAnswer(inv -> {
+            Client client = clients.get(inv.getArgument(0) + "|" + inv.getArgument(1));
+            return client != null ? client.getId() : null;
+        });
+        when(clientRepo.applyStatusDelta(any(), anyInt(), anyInt(), anyInt())).thenAnswer(inv -> {
+            Long clientId = inv.getArgument(0);
+            clients.values().stream()
+                    .filter(c -> c.getId().equals(clientId))
+                    .forEach(c -> addCounters(c, inv.getArgument(1), inv.getArgument(2), inv.getArgument(3)));
+            return 1;
+        });
+        service = new ClientService(clientRepo);
+
+        business = new User();
+        business.setId(1L);
+    }
+
+    @Test
+    @DisplayName("Primera visita: crea la ficha con las claves normalizadas y vincula la cita")
+    void firstVisitCreatesClient() {
+        Appointment appointment = appointment("  Ana  ", "+34 600 123 456", "Ana@Example.com", DAY,
+                AppointmentStatus.PENDING);
+
+        service.recordCreated(appointment);
+
+        verify(clientRepo).upsertVisit(1L, "p:34600123456", "Ana", "+34 600 123 456", "Ana@Example.com",
+                "34600123456", "600123456", "65432100643", "ana@example.com", "ana",
+                0, 0, 0, DAY);
+        Client client = onlyClient();
+        assertEquals(client.getId(), appointment.getClientId());
+        assertEquals(1, client.getTotalAppointments());
+        assertEquals(DAY, client.getFirstVisit());
+        assertEquals(DAY, client.getLastVisit());
+    }
+
+    @Test
+    @DisplayName("Visita repetida: el mismo teléfono con otro formato suma a la misma ficha")
+    void repeatVisitMergesByNormalizedPhone() {
+        Appointment first = appointment("Ana", "+34 600 123 456", null, DAY, AppointmentStatus.PENDING);
+        Appointment second = appointment("Ana López", "+34-600-123-456", "ana@example.com", DAY.plusDays(7),
+                AppointmentStatus.COMPLETED);
+        // Otro negocio con el mismo teléfono: otra ficha
+        Appointment otherBusiness = appointment("Ana", "+34 600 123 456", null, DAY, AppointmentStatus.PENDING);
+        User other = new User();
+        other.setId(2L);
+        otherBusiness.setBusiness(other);
+
+        service.recordCreated(first);
+        service.recordCreated(second);
+        service.recordCreated(otherBusiness);
+
+        assertEquals(first.getClientId(), second.getClientId());
+        assertNotEquals(first.getClientId(), otherBusiness.getClientId());
+        Client client = clients.get("1|p:34600123456");
+        assertEquals(2, client.getTotalAppointments());
+        assertEquals(1, client.getCompletedAppointments());
+        assertEquals("Ana López", client.getName());
+        assertEquals(DAY, client.getFirstVisit());
+        assertEquals(DAY.plusDays(7), client.getLastVisit());
+    }
+
+    @Test
+    @DisplayName("Sin teléfono, el email normalizado identifica al cliente")
+    void repeatVisitMergesByNormalizedEmail() {
+        Appointment first = appointment("Ana", null, " Ana@Example.com ", DAY, AppointmentStatus.PENDING);
+        Appointment second = appointment("Ana", "", "ana@example.com", DAY.plusDays(1), AppointmentStatus.PENDING);
+
+        service.recordCreated(first);
+        service.recordCreated(second);
+
+        assertEquals(first.getClientId(), second.getClientId());
+        Client client = onlyClient();
+        assertEquals("e:ana@example.com", client.getClientKey());
+        assertEquals(2, client.getTotalAppointments());
+    }
+
+    @Test
+    @DisplayName("Los cambios de estado mueven los contadores de completadas, canceladas y no presentadas")
+    void statusChangesAdjustCounters() {
+        Appointment completed = appointment("Ana", "600123456", null, DAY, AppointmentStatus.PENDING);
+        Appointment cancelled = appointment("Ana", "600123456", null, DAY.plusDays(1), AppointmentStatus.PENDING);
+        Appointment noShow = appointment("Ana", "600123456", null, DAY.plusDays(2), AppointmentStatus.CONFIRMED);
+        service.recordCreated(completed);
+        service.recordCreated(cancelled);
+        service.recordCreated(noShow);
+
+        changeStatus(completed, AppointmentStatus.CONFIRMED);
+        changeStatus(completed, AppointmentStatus.COMPLETED);
+        changeStatus(cancelled, AppointmentStatus.CANCELLED);
+        changeStatus(noShow, AppointmentStatus.NO_SHOW);
+
+        Client client = onlyClient();
+        assertAll(
+                () -> assertEquals(3, client.getTotalAppointments()),
+                () -> assertEquals(1, client.getCompletedAppointments()),
+                () -> assertEquals(1, client.getCancelledAppointments()),
+                () -> assertEquals(1, client.getNoShowAppointments())
+        );
+
+        // Corrección de una no presentada a completada: se resta de una y se suma a la otra
+        changeStatus(noShow, AppointmentStatus.COMPLETED);
+
+        assertEquals(2, client.getCompletedAppointments());
+        assertEquals(0, client.getNoShowAppointments());
+        verify(clientRepo).applyStatusDelta(client.getId(), 1, 0, -1);
+    }
+
+    @Test
+    @DisplayName("Sin cambio de estado no hay delta; un cambio de fecha recalcula primera y última visita")
+    void dateChangeRefreshesVisitDates() {
+        Appointment appointment = appointment("Ana", "600123456", null, DAY, AppointmentStatus.CONFIRMED);
+        service.recordCreated(appointment);
+        StatsSnapshot before = StatsSnapshot.of(appointment);
+
+        appointment.setDate(DAY.plusDays(3));
+        service.recordChanged(before, appointment);
+
+        verify(clientRepo, never()).applyStatusDelta(any(), anyInt(), anyInt(), anyInt());
+        verify(clientRepo).refreshVisitDates(appointment.getClientId());
+    }
+
+    @Test
+    @DisplayName("Una cita sin ficha vinculada se registra como visita nueva")
+    void unlinkedAppointmentCountsAsCreated() {
+        Appointment appointment = appointment("Ana", "600123456", null, DAY, AppointmentStatus.PENDING);
+        StatsSnapshot before = StatsSnapshot.of(appointment);
+        appointment.setStatus(AppointmentStatus.COMPLETED);
+
+        service.recordChanged(before, appointment);
+
+        Client client = onlyClient();
+        assertEquals(client.getId(), appointment.getClientId());
+        assertEquals(1, client.getCompletedAppointments());
+        verify(clientRepo, never()).applyStatusDelta(any(), anyInt(), anyInt(), anyInt());
+    }
+
+    private void changeStatus(Appointment appointment, AppointmentStatus status) {
+        StatsSnapshot before = StatsSnapshot.of(appointment);
+        appointment.setStatus(status);
+        service.recordChanged(before, appointment);
+    }
+
+    private Client onlyClient() {
+        assertEquals(1, clients.size());
+        return clients.values().iterator().next();
+    }
+
+    private static void addCounters(Client client, int completed, int cancelled, int noShow) {
+        client.setCompletedAppointments(client.getCompletedAppointments() + completed);
+        client.setCancelledAppointments(client.getCancelledAppointments() + cancelled);
+        client.setNoShowAppointments(client.getNoShowAppointments() + noShow);
+    }
+
+    private Appointment appointment(String name, String phone, String email, LocalDate date,
+                                    AppointmentStatus status) {
+        Appointment appointment = new Appointment();
+        appointment.setBusiness(business);
+        appointment.setClientName(name);
+        appointment.setClientPhone(phone);
+        appointment.setClientEmail(email);
+        appointment.setDate(date);
+        appointment.setTime(LocalTime.of(10, 0));
+        appointment.setStatus(status);
+        return appointment;
+    }
+}
@@ -0,0 +1,61 @@
+package com.turnofacil.service;
+
+import com.turnofacil.monitoring.jfr.OutboundCallEvent;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecordingServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private FlightRecordingService service;
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    @DisplayName("La grabación recoge los eventos propios y se descarga al detenerla")
+    void recordsCustomEvents() throws Exception {
+        service = new FlightRecordingService(dir.toString(), 10, 50);
+
+        assertTrue(service.start(Duration.ofHours(2)).running());
+        assertThrows(IllegalStateException.class, () -> service.start(Duration.ofMinutes(1)));
+        assertTrue(service.download().isEmpty());
+
+        OutboundCallEvent event = new OutboundCallEvent("smtp", "reminder");
+        event.begin();
+        event.success = true;
+        event.commit();
+
+        assertFalse(service.stop().running());
+
+        Path file = service.download().orElseThrow();
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("turnofacil.OutboundCall")
+                && "reminder".equals(e.getString("type"))));
+    }
+
+    @Test
+    @DisplayName("La duración pedida se limita al máximo configurado")
+    void capsDuration() throws Exception {
+        service = new FlightRecordingService(dir.toString(), 1, 50);
+
+        FlightRecordingService.RecordingStatus status = service.start(Duration.ofHours(2));
+
+        assertEquals(1, status.maxDurationMinutes());
+        assertTrue(Duration.between(status.startedAt(), status.endsAt()).toMinutes() <= 1);
+    }
+}
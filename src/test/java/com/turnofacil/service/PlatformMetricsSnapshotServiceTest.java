@@ -0,0 +1,119 @@
+package com.turnofacil.service;
+
+import com.turnofacil.model.PlatformMetricsSnapshot;
+import com.turnofacil.model.Subscription;
+import com.turnofacil.model.User;
+import com.turnofacil.model.enums.Plan;
+import com.turnofacil.model.enums.SnapshotGranularity;
+import com.turnofacil.model.enums.SubscriptionStatus;
+import com.turnofacil.repository.PlatformMetricsSnapshotRepository;
+import com.turnofacil.repository.SubscriptionRepository;
+import com.turnofacil.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * El INSERT ... SELECT de la foto agrega usuarios y suscripciones en una sentencia
+ * y relanzar el mismo hueco no duplica filas.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.globally_quoted_identifiers=true"
+})
+@Import(PlatformMetricsSnapshotService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PlatformMetricsSnapshotServiceTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private PlatformMetricsSnapshotService snapshotService;
+
+    @Autowired
+    private PlatformMetricsSnapshotRepository snapshotRepository;
+
+    @BeforeEach
+    void setUp() {
+        snapshotRepository.deleteAll();
+        subscriptionRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("La foto cuenta negocios, planes activos y MRR")
+    void captureAggregatesUsersAndSubscriptions() {
+        seedBusiness("pro@example.com", Plan.PRO, SubscriptionStatus.ACTIVE);
+        seedBusiness("business@example.com", Plan.BUSINESS, SubscriptionStatus.ACTIVE);
+        seedBusiness("trial@example.com", Plan.PRO, SubscriptionStatus.TRIAL);
+
+        PlatformMetricsSnapshot snapshot = snapshotService.capture(SnapshotGranularity.HOURLY,
+                LocalDateTime.now().truncatedTo(ChronoUnit.HOURS));
+
+        assertAll(
+                () -> assertEquals(3, snapshot.getTotalBusinesses()),
+                () -> assertEquals(3, snapshot.getNewBusinessesThisMonth()),
+                () -> assertEquals(2, snapshot.getActiveSubscriptions()),
+                () -> assertEquals(1, snapshot.getTrialSubscriptions()),
+                () -> assertEquals(1, snapshot.getProPlan()),
+                () -> assertEquals(1, snapshot.getBusinessPlan()),
+                // Precios de Plan: 12.00 + 29.00
+                () -> assertEquals(0, Plan.PRO.getMonthlyPrice().add(Plan.BUSINESS.getMonthlyPrice())
+                        .compareTo(snapshot.getMrr()))
+        );
+    }
+
+    @Test
+    @DisplayName("Capturar dos veces el mismo hueco deja una sola fila")
+    void captureIsIdempotentPerSlot() {
+        LocalDateTime slot = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+
+        snapshotService.capture(SnapshotGranularity.HOURLY, slot);
+        snapshotService.capture(SnapshotGranularity.HOURLY, slot);
+
+        assertEquals(1, snapshotRepository.count());
+    }
+
+    @Test
+    @DisplayName("Recapturar un hueco anterior devuelve la fila de ese hueco, no la más reciente")
+    void captureReturnsRowForItsSlot() {
+        LocalDateTime slot = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        PlatformMetricsSnapshot current = snapshotService.capture(SnapshotGranularity.HOURLY, slot);
+
+        PlatformMetricsSnapshot previous = snapshotService.capture(SnapshotGranularity.HOURLY, slot.minusHours(1));
+
+        assertEquals(slot.minusHours(1), previous.getCapturedAt());
+        assertNotEquals(current.getId(), previous.getId());
+        assertEquals(2, snapshotRepository.count());
+    }
+
+    private void seedBusiness(String email, Plan plan, SubscriptionStatus status) {
+        User user = new User();
+        user.setName(email);
+        user.setEmail(email);
+        user.setPassword("x");
+        user = userRepository.save(user);
+
+        Subscription subscription = new Subscription();
+        subscription.setUser(user);
+        subscription.setPlan(plan);
+        subscription.setStatus(status);
+        subscriptionRepository.save(subscription);
+    }
+}
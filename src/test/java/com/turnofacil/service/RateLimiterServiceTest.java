@@ -0,0 +1,53 @@
+package com.turnofacil.service;
+
+import com.turnofacil.service.cache.InMemoryCacheService;
+import com.turnofacil.service.cache.MeteredCacheService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterServiceTest {
+
+    private SimpleMeterRegistry registry;
+    private RateLimiterService rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        rateLimiter = new RateLimiterService(
+                new MeteredCacheService(new InMemoryCacheService(), registry), registry);
+    }
+
+    @Test
+    @DisplayName("Las decisiones se cuentan por bucket, sin la IP en las etiquetas")
+    void countsDecisionsPerBucket() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.isAllowed("booking:10.0.0.1", 2, 60);
+        }
+
+        assertAll(
+                () -> assertEquals(2.0, registry.get("turnofacil.ratelimit.decisions")
+                        .tags("bucket", "booking", "result", "allowed").counter().count()),
+                () -> assertEquals(1.0, registry.get("turnofacil.ratelimit.decisions")
+                        .tags("bucket", "booking", "result", "denied").counter().count()),
+                () -> assertEquals(3, registry.get("turnofacil.cache.operation")
+                        .tag("op", "increment").timer().count())
+        );
+    }
+
+    @Test
+    @DisplayName("La cache medida distingue aciertos y fallos de lectura")
+    void cacheCountsHitsAndMisses() {
+        MeteredCacheService cache = new MeteredCacheService(new InMemoryCacheService(), registry);
+        cache.set("slots:1", "x");
+
+        cache.get("slots:1");
+        cache.get("slots:2");
+
+        assertEquals(1.0, registry.get("turnofacil.cache.gets").tag("result", "hit").counter().count());
+        assertEquals(1.0, registry.get("turnofacil.cache.gets").tag("result", "miss").counter().count());
+    }
+}
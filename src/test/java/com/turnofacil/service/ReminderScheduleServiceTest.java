@@ -0,0 +1,69 @@
+package com.turnofacil.service;
+
+import com.turnofacil.model.Appointment;
+import com.turnofacil.model.BusinessConfig;
+import com.turnofacil.repository.AppointmentRepository;
+import com.turnofacil.repository.BusinessConfigRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ReminderScheduleServiceTest {
+
+    private ReminderScheduleService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ReminderScheduleService(mock(AppointmentRepository.class),
+                mock(BusinessConfigRepository.class), mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    @DisplayName("El momento del recordatorio se pasa a UTC con la zona del negocio")
+    void remindAtUsesBusinessTimezone() {
+        LocalDate date = LocalDate.of(2026, 3, 10);
+        LocalTime time = LocalTime.of(10, 0);
+
+        assertAll(
+                () -> assertEquals(LocalDateTime.of(2026, 3, 9, 13, 0),
+                        ReminderScheduleService.remindAt(date, time, ZoneId.of("America/Argentina/Buenos_Aires"), 24)),
+                () -> assertEquals(LocalDateTime.of(2026, 3, 10, 7, 0),
+                        ReminderScheduleService.remindAt(date, time, ZoneId.of("Europe/Madrid"), 2))
+        );
+    }
+
+    @Test
+    @DisplayName("Cada canal solo se programa si está activo y la cita tiene el dato de contacto")
+    void applyRespectsChannels() {
+        BusinessConfig config = new BusinessConfig();
+        config.setTimezone("Europe/Madrid");
+        config.setEnableReminders(true);
+        config.setReminderHoursBefore(24);
+        config.setEnableWhatsappReminders(false);
+
+        Appointment appointment = new Appointment();
+        appointment.setDate(LocalDate.of(2026, 7, 1));
+        appointment.setTime(LocalTime.of(9, 30));
+        appointment.setClientEmail("cliente@example.com");
+        appointment.setClientPhone("600000000");
+
+        service.apply(appointment, config);
+
+        assertEquals(LocalDateTime.of(2026, 6, 30, 7, 30), appointment.getEmailRemindAt());
+        assertNull(appointment.getWhatsappRemindAt());
+
+        config.setEnableReminders(false);
+        service.apply(appointment, config);
+
+        assertNull(appointment.getEmailRemindAt());
+    }
+}
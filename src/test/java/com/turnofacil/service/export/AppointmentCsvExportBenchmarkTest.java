@@ -0,0 +1,156 @@
+package com.turnofacil.service.export;
+
+import com.turnofacil.dto.AppointmentExportFilter;
+import com.turnofacil.model.User;
+import com.turnofacil.repository.UserRepository;
+import com.turnofacil.support.QueryBudgetExtension;
+import com.turnofacil.support.QueryCounter;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark de la exportación CSV desde la BD de test: streamForExport en transacción de solo
+ * lectura, con el fetch size de streaming, escrito a un sumidero que solo cuenta bytes.
+ * Se muestrea el heap usado durante la escritura.
+ *
+ * La BD es un fichero H2 en target/ y MAX_MEMORY_ROWS hace que H2 vuelque a disco el resultado
+ * ordenado: ni la tabla ni el resultado viven en el heap, como con MySQL en su propio proceso;
+ * así lo medido es lo que retiene la aplicación.
+ *
+ * Ejecutar con: mvn test -Pbenchmark -Dtest=AppointmentCsvExportBenchmarkTest
+ * Opcional: -Dexport.benchmark.rows=200000 para una pasada más corta (por defecto 1M).
+ */
+@Tag("benchmark")
+@SpringBootTest(properties =
+        "spring.datasource.url=jdbc:h2:./target/h2/export-benchmark;MODE=MySQL;MAX_MEMORY_ROWS=1000")
+@ActiveProfiles("test")
+@Import(QueryBudgetExtension.DataSourceConfiguration.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AppointmentCsvExportBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentCsvExportBenchmarkTest.class);
+
+    private static final int ROWS = Integer.getInteger("export.benchmark.rows", 1_000_000);
+    private static final long SAMPLE_EVERY = 100_000;
+    // 1M de filas materializadas ocuparían cientos de MB; el límite no depende del número de filas
+    private static final long MAX_HEAP_GROWTH_BYTES = 32L * 1024 * 1024;
+
+    @Autowired
+    private AppointmentExportService exportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User business;
+
+    @BeforeAll
+    void seed() {
+        business = new User();
+        business.setName("Negocio exportación");
+        business.setEmail("exportacion@example.com");
+        business.setPassword("x");
+        business = userRepository.save(business);
+
+        // Una sola sentencia genera todas las filas dentro de H2
+        jdbcTemplate.update("""
+                INSERT INTO "APPOINTMENTS" ("DATE", "TIME", "DURATION", "CLIENT_NAME", "CLIENT_PHONE",
+                    "CLIENT_EMAIL", "NOTES", "STATUS", "USER_ID", "REMINDER_SENT", "WHATSAPP_REMINDER_SENT",
+                    "EMAIL_REMINDER_ATTEMPTS", "EMAIL_REMINDER_FAILED", "WHATSAPP_REMINDER_ATTEMPTS",
+                    "WHATSAPP_REMINDER_FAILED")
+                SELECT DATEADD('DAY', X / 20, DATE '2020-01-01'),
+                       CAST(DATEADD('MINUTE', MOD(X, 20) * 30, TIMESTAMP '2020-01-01 09:00:00') AS TIME),
+                       30, CONCAT('Cliente ', X), CONCAT('+34 600 ', X), CONCAT('cliente', X, '@email.com'),
+                       CASE WHEN MOD(X, 10) = 0 THEN 'Nota con "comillas", y comas' END,
+                       CASE WHEN MOD(X, 2) = 0 THEN 'COMPLETED' ELSE 'CONFIRMED' END,
+                       ?, FALSE, FALSE, 0, FALSE, 0, FALSE
+                FROM SYSTEM_RANGE(1, ?)
+                """, business.getId(), ROWS);
+    }
+
+    @Test
+    @DisplayName("Exporta 1M de filas de la BD en streaming, en solo lectura y sin que el heap crezca con las filas")
+    void exportsFromDatabaseInBoundedMemory() throws IOException {
+        CountingOutputStream sink = new CountingOutputStream();
+        HeapSampler sampler = new HeapSampler();
+        AtomicBoolean readOnly = new AtomicBoolean(true);
+
+        long baseline = sampler.usedAfterGc();
+        long start = System.nanoTime();
+        QueryCounter.start();
+        QueryCounter counter;
+        long written;
+        try {
+            written = exportService.writeCsv(business.getId(), new AppointmentExportFilter(null, null, null), sink,
+                    rows -> {
+                        readOnly.compareAndSet(true, TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+                        if (rows % SAMPLE_EVERY == 0) {
+                            sampler.sample();
+                        }
+                    });
+        } finally {
+            counter = QueryCounter.stop();
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        long growth = sampler.maxUsed - baseline;
+        log.info("CSV {} filas desde BD: {} ms | {} MB escritos | crecimiento max. heap: {} KB",
+                ROWS, elapsedMs, sink.bytes / (1024 * 1024), growth / 1024);
+
+        assertEquals(ROWS, written);
+        assertEquals(1, counter.getStatementCount(), "Una sola consulta en streaming");
+        assertEquals(ROWS, counter.getRowCount());
+        assertEquals(List.of(Integer.MIN_VALUE), counter.getFetchSizes());
+        assertTrue(readOnly.get(), "La exportación debe leer en una transacción de solo lectura");
+        assertTrue(growth < MAX_HEAP_GROWTH_BYTES,
+                "El heap creció " + growth / 1024 + " KB durante la exportación");
+    }
+
+    private static final class HeapSampler {
+        private final Runtime runtime = Runtime.getRuntime();
+        private long maxUsed;
+
+        long usedAfterGc() {
+            System.gc();
+            return runtime.totalMemory() - runtime.freeMemory();
+        }
+
+        void sample() {
+            maxUsed = Math.max(maxUsed, usedAfterGc());
+        }
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.turnofacil.service.export;
+
+import com.turnofacil.dto.AppointmentExportFilter;
+import com.turnofacil.dto.AppointmentExportRow;
+import com.turnofacil.model.enums.AppointmentStatus;
+import com.turnofacil.repository.AppointmentRepository;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.util.DefaultTempFileCreationStrategy;
+import org.apache.poi.util.TempFile;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Excel de turnos escrito por SXSSF (streaming a ficheros temporales) y leído de vuelta.
+ */
+class AppointmentExcelExportTest {
+
+    // Más filas que la ventana en memoria de SXSSF y que un aviso de progreso
+    private static final int ROWS = AppointmentExportService.PROGRESS_EVERY + 1;
+
+    @TempDir
+    Path poiTempDir;
+
+    private AppointmentRepository appointmentRepo;
+    private AppointmentExportService service;
+
+    @BeforeEach
+    void setUp() {
+        // Los ficheros temporales de SXSSF van a un directorio propio para poder contarlos
+        TempFile.setTempFileCreationStrategy(new DefaultTempFileCreationStrategy(poiTempDir.toFile()));
+        appointmentRepo = mock(AppointmentRepository.class);
+        service = new AppointmentExportService(appointmentRepo);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TempFile.setTempFileCreationStrategy(new DefaultTempFileCreationStrategy());
+    }
+
+    @Test
+    @DisplayName("Cabecera, una fila por turno y valores de fecha, hora y duración legibles al reabrir el fichero")
+    void writesWorkbookThatReadsBack() throws IOException {
+        AtomicBoolean streamClosed = new AtomicBoolean();
+        when(appointmentRepo.streamForExport(eq(1L), any(), any(), any()))
+                .thenReturn(rows().onClose(() -> streamClosed.set(true)));
+        List<Long> progress = new ArrayList<>();
+        List<Integer> tempFilesWhileWriting = new ArrayList<>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = service.writeExcel(1L, new AppointmentExportFilter(null, null, null), out, rowsSoFar -> {
+            progress.add(rowsSoFar);
+            tempFilesWhileWriting.add(tempFiles().size());
+        });
+
+        assertEquals(ROWS, written);
+        assertEquals(List.of((long) AppointmentExportService.PROGRESS_EVERY), progress);
+        assertTrue(streamClosed.get(), "El Stream de la BD debe cerrarse");
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet sheet = workbook.getSheet("Turnos");
+            assertNotNull(sheet);
+            assertEquals(ROWS, sheet.getLastRowNum());
+
+            Row header = sheet.getRow(0);
+            for (int i = 0; i < AppointmentExportService.COLUMNS.length; i++) {
+                assertEquals(AppointmentExportService.COLUMNS[i], header.getCell(i).getStringCellValue());
+            }
+
+            Row first = sheet.getRow(1);
+            assertAll(
+                    () -> assertEquals("2026-03-02", first.getCell(0).getStringCellValue()),
+                    () -> assertEquals("09:00", first.getCell(1).getStringCellValue()),
+                    () -> assertEquals("Cliente 0", first.getCell(2).getStringCellValue()),
+                    () -> assertEquals("", first.getCell(4).getStringCellValue()),
+                    () -> assertEquals("Completado", first.getCell(6).getStringCellValue()),
+                    () -> assertEquals(CellType.NUMERIC, first.getCell(7).getCellType()),
+                    () -> assertEquals(30.0, first.getCell(7).getNumericCellValue())
+            );
+
+            Row last = sheet.getRow(ROWS);
+            assertAll(
+                    () -> assertEquals("Cliente " + (ROWS - 1), last.getCell(2).getStringCellValue()),
+                    () -> assertEquals("cliente" + (ROWS - 1) + "@example.com", last.getCell(4).getStringCellValue()),
+                    // Sin duración se exporta 0
+                    () -> assertEquals(0.0, last.getCell(7).getNumericCellValue())
+            );
+        }
+
+        // Mientras escribía había filas volcadas a disco; al terminar no queda ningún temporal
+        assertTrue(tempFilesWhileWriting.get(0) > 0, "SXSSF debería volcar las filas a ficheros temporales");
+        assertEquals(List.of(), tempFiles());
+    }
+
+    @Test
+    @DisplayName("Los temporales se borran también si la lectura de la BD falla a mitad")
+    void disposesTempFilesOnFailure() {
+        Stream<AppointmentExportRow> failing = Stream.concat(rows().limit(500),
+                Stream.generate(() -> {
+                    throw new IllegalStateException("conexión perdida");
+                }));
+        when(appointmentRepo.streamForExport(eq(1L), any(), any(), any())).thenReturn(failing);
+
+        assertThrows(IllegalStateException.class, () -> service.writeExcel(1L,
+                new AppointmentExportFilter(null, null, null), new ByteArrayOutputStream()));
+        assertEquals(List.of(), tempFiles());
+    }
+
+    private static Stream<AppointmentExportRow> rows() {
+        LocalDate day = LocalDate.of(2026, 3, 2);
+        return IntStream.range(0, ROWS).mapToObj(i -> new AppointmentExportRow(
+                day.plusDays(i / 20),
+                LocalTime.of(9, 0).plusMinutes(30L * (i % 20)),
+                "Cliente " + i,
+                "+34 600 000 " + String.format("%03d", i % 1000),
+                i == 0 ? null : "cliente" + i + "@example.com",
+                i % 7 == 0 ? "Primera visita; \"alergia\"" : null,
+                i % 2 == 0 ? AppointmentStatus.COMPLETED : AppointmentStatus.CONFIRMED,
+                i == ROWS - 1 ? null : 30));
+    }
+
+    private List<String> tempFiles() {
+        try (Stream<Path> files = Files.walk(poiTempDir)) {
+            return files.filter(Files::isRegularFile)
+                    .map(Path::toFile)
+                    .map(File::getName)
+                    .toList();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
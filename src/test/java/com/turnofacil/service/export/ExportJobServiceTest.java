@@ -0,0 +1,194 @@
+package com.turnofacil.service.export;
+
+import com.turnofacil.dto.AppointmentExportFilter;
+import com.turnofacil.dto.ExportJobDto;
+import com.turnofacil.service.NotificationSseService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ExportJobServiceTest {
+
+    private static final Long BUSINESS_ID = 1L;
+    private static final Long OTHER_BUSINESS_ID = 2L;
+    private static final AppointmentExportFilter ALL = new AppointmentExportFilter(null, null, null);
+
+    @TempDir
+    Path exportDir;
+
+    private AppointmentExportService appointmentExportService;
+    private NotificationSseService sseService;
+    // Executor manual: los trabajos quedan encolados hasta runQueued()
+    private final Queue<Runnable> queued = new ArrayDeque<>();
+    private ExportJobService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        appointmentExportService = mock(AppointmentExportService.class);
+        sseService = mock(NotificationSseService.class);
+        when(appointmentExportService.writeCsv(anyLong(), any(), any(), any())).thenAnswer(inv -> {
+            OutputStream out = inv.getArgument(2);
+            out.write("Fecha,Hora\n".getBytes(StandardCharsets.UTF_8));
+            return 3L;
+        });
+        service = newService(queued::add);
+    }
+
+    @Test
+    @DisplayName("Cada negocio tiene un máximo de exportaciones activas; al terminar puede lanzar otra")
+    void limitsActiveExportsPerBusiness() {
+        service.enqueue(BUSINESS_ID, ExportType.APPOINTMENTS_CSV, ALL);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> service.enqueue(BUSINESS_ID, ExportType.APPOINTMENTS_XLSX, ALL));
+        assertTrue(e.getMessage().contains("exportación en curso"));
+        // Otro negocio no se ve afectado
+        service.enqueue(OTHER_BUSINESS_ID, ExportType.APPOINTMENTS_CSV, ALL);
+        assertEquals(2, queued.size());
+
+        runQueued();
+
+        assertDoesNotThrow(() -> service.enqueue(BUSINESS_ID, ExportType.APPOINTMENTS_CSV, ALL));
+    }
+
+    @Test
+    @DisplayName("Un trabajo que falla también libera su hueco")
+    void failedExportReleasesSlot() throws IOException {
+        when(appointmentExportService.writeCsv(anyLong(), any(), any(), any())).thenThrow(new IOException("disco lleno"));
+        ExportJob job = service.enqueue(BUSINESS_ID, ExportType.APPOINTMENTS_CSV, ALL);
+
+        runQueued();
+
+        assertEquals(ExportJob.Status.FAILED, job.getStatus());
+        assertEquals("disco lleno", job.getError());
+        assertEquals(List.of(), filesIn(exportDir));
+        assertDoesNotThrow(() -> service.enqueue(BUSINESS_ID, ExportType.APPOINTMENTS_CSV, ALL));
+    }
+
+    @Test
+    @DisplayName("Con la cola global llena se rechaza, se avisa como fallida y no ocupa hueco del negocio")
+    void rejectedByExecutor() {
+        AtomicBoolean full = new AtomicBoolean(true);
+        service = newService(task -> {
+            if (full.get()) {
+                throw new RejectedExecutionException("cola llena");
+            }
+            queued.add(task);
+        });
+
+        assertThrows(IllegalStateException.class, () -> service.enqueue(BUSINESS_ID, ExportType.APPOINTMENTS_CSV, ALL));
+
+        assertEquals(List.of("QUEUED", "FAILED"), sentStatuses());
+        full.set(false);
+        assertDoesNotThrow(() -> service.enqueue(BUSINESS_ID, ExportType.APPOINTMENTS_CSV, ALL));
+    }
+
+    @Test
+    @DisplayName("QUEUED se publica antes de entregar el trabajo al executor, y después RUNNING y COMPLETED")
+    void notifiesQueuedBeforeRunning() {
+        service = newService(task -> {
+            // En este punto el trabajo ya debe haberse anunciado como QUEUED
+            assertEquals(List.of("QUEUED"), sentStatuses());
+            task.run();
+        });
+
+        service.enqueue(BUSINESS_ID, ExportType.APPOINTMENTS_CSV, ALL);
+
+        assertEquals(List.of("QUEUED", "RUNNING", "COMPLETED"), sentStatuses());
+    }
+
+    @Test
+    @DisplayName("La descarga exige trabajo completado del mismo negocio, el token correcto y enlace vigente")
+    void downloadRequiresValidToken() throws IOException {
+        ExportJob job = service.enqueue(BUSINESS_ID, ExportType.APPOINTMENTS_CSV, ALL);
+        String token = job.getDownloadToken();
+
+        // Aún en cola: no hay fichero
+        assertTrue(service.getDownloadable(BUSINESS_ID, job.getId(), token).isEmpty());
+
+        runQueued();
+
+        assertEquals(ExportJob.Status.COMPLETED, job.getStatus());
+        assertEquals(3, job.getRows());
+        assertEquals("Fecha,Hora\n", Files.readString(job.getFile()));
+        assertAll(
+                () -> assertTrue(service.getDownloadable(BUSINESS_ID, job.getId(), token).isPresent()),
+                () -> assertTrue(service.getDownloadable(BUSINESS_ID, job.getId(), token + "x").isEmpty()),
+                () -> assertTrue(service.getDownloadable(BUSINESS_ID, job.getId(), null).isEmpty()),
+                () -> assertTrue(service.getDownloadable(OTHER_BUSINESS_ID, job.getId(), token).isEmpty()),
+                () -> assertTrue(service.getDownloadable(BUSINESS_ID, "otro-id", token).isEmpty())
+        );
+        assertEquals("/admin/exports/" + job.getId() + "/download?token=" + token,
+                service.toDto(job).downloadUrl());
+
+        job.setExpiresAt(LocalDateTime.now().minusSeconds(1));
+
+        assertTrue(service.getDownloadable(BUSINESS_ID, job.getId(), token).isEmpty());
+    }
+
+    @Test
+    @DisplayName("La limpieza borra fichero y trabajo caducados y conserva los vigentes")
+    void purgeExpiredRemovesFilesAndJobs() {
+        ExportJob expired = service.enqueue(BUSINESS_ID, ExportType.APPOINTMENTS_CSV, ALL);
+        ExportJob current = service.enqueue(OTHER_BUSINESS_ID, ExportType.APPOINTMENTS_CSV, ALL);
+        runQueued();
+        Path expiredFile = expired.getFile();
+        expired.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+
+        service.purgeExpired();
+
+        assertFalse(Files.exists(expiredFile));
+        assertTrue(service.getJob(BUSINESS_ID, expired.getId()).isEmpty());
+        assertTrue(Files.exists(current.getFile()));
+        assertTrue(service.getJob(OTHER_BUSINESS_ID, current.getId()).isPresent());
+    }
+
+    private ExportJobService newService(Executor executor) {
+        try {
+            return new ExportJobService(appointmentExportService, mock(InvoiceExportService.class), sseService,
+                    executor, exportDir.toString(), 1, 30);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void runQueued() {
+        Runnable task;
+        while ((task = queued.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private List<String> sentStatuses() {
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(sseService, atLeast(0)).sendEvent(eq(BUSINESS_ID), eq("export"), events.capture());
+        return events.getAllValues().stream()
+                .map(event -> ((ExportJobDto) event).status())
+                .toList();
+    }
+
+    private static List<Path> filesIn(Path dir) throws IOException {
+        try (var files = Files.list(dir)) {
+            return files.toList();
+        }
+    }
+}
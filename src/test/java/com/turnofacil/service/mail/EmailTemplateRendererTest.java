@@ -0,0 +1,112 @@
+package com.turnofacil.service.mail;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * El HTML precompilado debe ser idéntico al que produce Thymeleaf procesando la plantilla.
+ */
+class EmailTemplateRendererTest {
+
+    private SpringTemplateEngine templateEngine;
+    private SimpleMeterRegistry meterRegistry;
+    private EmailTemplateRenderer renderer;
+
+    @BeforeEach
+    void setUp() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+        meterRegistry = new SimpleMeterRegistry();
+        renderer = new EmailTemplateRenderer(templateEngine, meterRegistry, true);
+    }
+
+    @Test
+    @DisplayName("Recordatorios de un mismo negocio: una compilación y salida idéntica a Thymeleaf, escapado incluido")
+    void reminderMatchesThymeleaf() {
+        Map<String, Object> business = business("Peluquería <Ana> & Co", "+34 600 000 000");
+
+        for (String client : new String[]{"Laura", "Tom \"& Jerry\" <b>", "José"}) {
+            Map<String, Object> recipient = recipient(client, 30, null);
+            assertEquals(thymeleaf("email/reminder", business, recipient),
+                    renderer.render("email/reminder", business, recipient));
+        }
+
+        assertEquals(1, renderer.compiledTemplates());
+        assertEquals(2, meterRegistry.counter("turnofacil.email.render", "cache", "hit").count());
+    }
+
+    @Test
+    @DisplayName("Campos opcionales nulos o que th:if evalúa como falso mantienen la salida de Thymeleaf")
+    @SuppressWarnings("unchecked")
+    void optionalFieldsMatchThymeleaf() {
+        Map<String, Object> business = business("Barbería", null);
+        Map<String, Object>[] recipients = new Map[]{
+                recipient("Laura", 30, "http://localhost/public/appointment/abc?x=1&y=2"),
+                recipient("Laura", null, null),
+                recipient("Laura", 0, "no"),
+                recipient("", 45, "http://localhost/public/appointment/def")
+        };
+
+        for (Map<String, Object> recipient : recipients) {
+            recipient.put("notes", recipient.get("duration") == null ? null : "Llegaré 5' tarde");
+            assertEquals(thymeleaf("email/booking-confirmation", business, recipient),
+                    renderer.render("email/booking-confirmation", business, recipient));
+        }
+
+        assertEquals(1, meterRegistry.counter("turnofacil.email.render", "cache", "bypass").count());
+    }
+
+    @Test
+    @DisplayName("Con la caché de plantillas desactivada siempre procesa con Thymeleaf")
+    void cacheDisabledAlwaysProcesses() {
+        renderer = new EmailTemplateRenderer(templateEngine, meterRegistry, false);
+        Map<String, Object> business = business("Barbería", "+34 600 000 000");
+
+        renderer.render("email/reminder", business, recipient("Laura", 30, null));
+        renderer.render("email/reminder", business, recipient("Marta", 30, null));
+
+        assertEquals(0, renderer.compiledTemplates());
+        assertEquals(2, meterRegistry.counter("turnofacil.email.render", "cache", "bypass").count());
+    }
+
+    private String thymeleaf(String template, Map<String, Object> business, Map<String, Object> recipient) {
+        Context context = new Context();
+        context.setVariables(business);
+        recipient.forEach(context::setVariable);
+        return templateEngine.process(template, context);
+    }
+
+    private static Map<String, Object> business(String name, String phone) {
+        Map<String, Object> vars = new HashMap<>();
+        vars.put("businessName", name);
+        vars.put("businessPhone", phone);
+        vars.put("businessEmail", "contacto@negocio.com");
+        return vars;
+    }
+
+    private static Map<String, Object> recipient(String clientName, Integer duration, String manageUrl) {
+        Map<String, Object> vars = new HashMap<>();
+        vars.put("clientName", clientName);
+        vars.put("date", "lunes, 2 de marzo de 2026");
+        vars.put("time", "10:30");
+        vars.put("duration", duration);
+        vars.put("manageUrl", manageUrl);
+        return vars;
+    }
+}
@@ -0,0 +1,220 @@
+package com.turnofacil.service.mail;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pool de conexiones contra un servidor SMTP mínimo en local que cuenta conexiones y mensajes.
+ */
+class PooledJavaMailSenderTest {
+
+    private static final int POOL_SIZE = 2;
+
+    private SmtpStandIn server;
+    private SimpleMeterRegistry meterRegistry;
+    private PooledJavaMailSender sender;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new SmtpStandIn();
+        meterRegistry = new SimpleMeterRegistry();
+        sender = new PooledJavaMailSender(POOL_SIZE, Duration.ofMinutes(1), 100, Duration.ofSeconds(5), meterRegistry);
+        sender.setHost("127.0.0.1");
+        sender.setPort(server.port());
+        sender.setProtocol("smtp");
+        Properties properties = new Properties();
+        properties.put("mail.smtp.connectiontimeout", "5000");
+        properties.put("mail.smtp.timeout", "5000");
+        sender.setJavaMailProperties(properties);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        sender.destroy();
+        server.close();
+    }
+
+    @Test
+    @DisplayName("N mensajes desde varios hilos salen por como mucho el tamaño del pool de conexiones")
+    void sendsManyMessagesOverFewConnections() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> sends = new ArrayList<>();
+            for (int batch = 0; batch < 10; batch++) {
+                int from = batch * 5;
+                sends.add(threads.submit(() -> {
+                    sender.send(messages(from, 5));
+                    return null;
+                }));
+            }
+            for (Future<?> send : sends) {
+                send.get();
+            }
+        } finally {
+            threads.shutdown();
+        }
+        // Y mensajes sueltos después reutilizan las conexiones ya abiertas
+        for (int i = 0; i < 10; i++) {
+            sender.send(messages(100 + i, 1));
+        }
+
+        assertEquals(60, server.messages.get());
+        assertTrue(server.connections.get() <= POOL_SIZE, "conexiones: " + server.connections.get());
+        assertEquals(60, meterRegistry.counter("turnofacil.email.smtp.messages").count());
+    }
+
+    @Test
+    @DisplayName("Si el servidor cierra una conexión inactiva, se reconecta y el mensaje se entrega")
+    void reconnectsWhenServerDropsConnection() throws Exception {
+        sender.send(messages(0, 1));
+        server.dropConnections();
+
+        sender.send(messages(1, 1));
+
+        assertEquals(2, server.messages.get());
+        assertEquals(2, server.connections.get());
+        assertEquals(1, meterRegistry.counter("turnofacil.email.smtp.reconnects").count());
+        assertEquals(1, sender.openConnections());
+    }
+
+    @Test
+    @DisplayName("Un destinatario rechazado falla solo su mensaje; el resto del lote sigue por la misma conexión")
+    void rejectedRecipientFailsOnlyItsMessage() throws Exception {
+        MimeMessage[] batch = messages(0, 3);
+        batch[1].setRecipients(MimeMessage.RecipientType.TO, "rechazado@example.com");
+
+        MailSendException e = assertThrows(MailSendException.class, () -> sender.send(batch));
+
+        assertEquals(1, e.getFailedMessages().size());
+        assertTrue(e.getFailedMessages().containsKey(batch[1]));
+        assertEquals(2, server.messages.get());
+        assertEquals(1, server.connections.get());
+    }
+
+    private MimeMessage[] messages(int from, int count) throws Exception {
+        MimeMessage[] messages = new MimeMessage[count];
+        for (int i = 0; i < count; i++) {
+            messages[i] = sender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(messages[i], false, "UTF-8");
+            helper.setFrom("turnos@example.com");
+            helper.setTo("cliente" + (from + i) + "@example.com");
+            helper.setSubject("Recordatorio " + (from + i));
+            helper.setText("Tu turno es mañana");
+        }
+        return messages;
+    }
+
+    /**
+     * Servidor SMTP de pruebas: acepta todo salvo los destinatarios "rechazado@".
+     */
+    private static final class SmtpStandIn implements AutoCloseable {
+
+        final AtomicInteger connections = new AtomicInteger();
+        final AtomicInteger messages = new AtomicInteger();
+        private final ServerSocket serverSocket;
+        private final Queue<Socket> sockets = new ConcurrentLinkedQueue<>();
+        private final ExecutorService sessions = Executors.newCachedThreadPool();
+
+        SmtpStandIn() throws IOException {
+            serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            sessions.execute(this::accept);
+        }
+
+        int port() {
+            return serverSocket.getLocalPort();
+        }
+
+        void dropConnections() throws IOException {
+            Socket socket;
+            while ((socket = sockets.poll()) != null) {
+                socket.close();
+            }
+        }
+
+        private void accept() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    connections.incrementAndGet();
+                    sockets.add(socket);
+                    sessions.execute(() -> session(socket));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void session(Socket socket) {
+            try (socket) {
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                OutputStream out = socket.getOutputStream();
+                reply(out, "220 localhost ESMTP");
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.toUpperCase();
+                    if (command.startsWith("EHLO") || command.startsWith("HELO")) {
+                        reply(out, "250 localhost");
+                    } else if (command.startsWith("RCPT TO") && command.contains("RECHAZADO@")) {
+                        reply(out, "550 Buzón inexistente");
+                    } else if (command.startsWith("DATA")) {
+                        reply(out, "354 Fin con <CRLF>.<CRLF>");
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            // cuerpo del mensaje
+                        }
+                        messages.incrementAndGet();
+                        reply(out, "250 OK");
+                    } else if (command.startsWith("QUIT")) {
+                        reply(out, "221 Bye");
+                        return;
+                    } else {
+                        reply(out, "250 OK");
+                    }
+                }
+            } catch (SocketException e) {
+                // conexión cerrada por dropConnections()
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private static void reply(OutputStream out, String line) throws IOException {
+            out.write((line + "\r\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+            dropConnections();
+            sessions.shutdownNow();
+        }
+    }
+}
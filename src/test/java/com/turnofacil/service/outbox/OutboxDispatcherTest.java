@@ -0,0 +1,131 @@
+package com.turnofacil.service.outbox;
+
+import com.turnofacil.dto.EmailAppointmentDto;
+import com.turnofacil.dto.WhatsAppConfirmationPayload;
+import com.turnofacil.model.OutboxMessage;
+import com.turnofacil.model.enums.OutboxMessageType;
+import com.turnofacil.model.enums.OutboxStatus;
+import com.turnofacil.repository.OutboxMessageRepository;
+import com.turnofacil.service.EmailService;
+import com.turnofacil.service.NotificationSseService;
+import com.turnofacil.service.whatsapp.WhatsAppService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OutboxDispatcherTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private OutboxMessageRepository outboxRepo;
+    private EmailService emailService;
+    private WhatsAppService whatsAppService;
+    private SimpleMeterRegistry registry;
+    private JsonMapper jsonMapper;
+    private OutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepo = mock(OutboxMessageRepository.class);
+        emailService = mock(EmailService.class);
+        whatsAppService = mock(WhatsAppService.class);
+        registry = new SimpleMeterRegistry();
+        jsonMapper = JsonMapper.builder().build();
+        dispatcher = new OutboxDispatcher(outboxRepo, new OutboxService(outboxRepo, jsonMapper, mock(ApplicationEventPublisher.class)),
+                emailService, whatsAppService, mock(NotificationSseService.class),
+                mock(PlatformTransactionManager.class), registry, Runnable::run, Runnable::run,
+                50, 20, 5, MAX_ATTEMPTS, 30, 60, 7);
+    }
+
+    @Test
+    @DisplayName("Los mensajes entregados se marcan como enviados en un solo UPDATE")
+    void marksDeliveredMessagesInBulk() throws Exception {
+        OutboxMessage first = message(1L, OutboxMessageType.BOOKING_CONFIRMATION_EMAIL, 0, emailPayload());
+        OutboxMessage second = message(2L, OutboxMessageType.BUSINESS_NOTIFICATION_EMAIL, 0, emailPayload());
+        givenClaimed(first, second);
+
+        dispatcher.dispatchBatch("run");
+
+        verify(emailService).sendBookingConfirmation(any(EmailAppointmentDto.class));
+        verify(emailService).sendBusinessNotification(any(EmailAppointmentDto.class));
+        verify(outboxRepo).markSent(argThat(ids -> ids.containsAll(List.of(1L, 2L))), any());
+        verify(outboxRepo, never()).markFailed(any(), any(), anyInt(), any(), any());
+        assertEquals(1.0, registry.get("turnofacil.outbox.messages")
+                .tags("type", "BOOKING_CONFIRMATION_EMAIL", "outcome", "sent").counter().count());
+    }
+
+    @Test
+    @DisplayName("Un fallo reprograma el mensaje y al agotar los intentos pasa a DEAD")
+    void failedDeliveriesAreRetriedThenDeadLettered() {
+        OutboxMessage retry = message(3L, OutboxMessageType.WHATSAPP_CONFIRMATION, 0, whatsappPayload());
+        OutboxMessage last = message(4L, OutboxMessageType.WHATSAPP_CONFIRMATION, MAX_ATTEMPTS - 1, whatsappPayload());
+        givenClaimed(retry, last);
+        when(whatsAppService.sendAppointmentConfirmation(any(), any(), any(), any(), any()))
+                .thenReturn(WhatsAppService.SendResult.failure("429 Too Many Requests"));
+
+        dispatcher.dispatchBatch("run");
+
+        verify(outboxRepo).markFailed(eq(3L), eq(OutboxStatus.PENDING), eq(1), any(), eq("429 Too Many Requests"));
+        verify(outboxRepo).markFailed(eq(4L), eq(OutboxStatus.DEAD), eq(MAX_ATTEMPTS), any(), any());
+        verify(outboxRepo, never()).markSent(any(), any());
+    }
+
+    @Test
+    @DisplayName("El backoff se duplica en cada intento hasta el tope")
+    void backoffGrowsExponentiallyUpToMax() {
+        Duration base = Duration.ofSeconds(30);
+        Duration max = Duration.ofMinutes(60);
+
+        Duration first = OutboxDispatcher.backoff(1, base, max);
+        Duration third = OutboxDispatcher.backoff(3, base, max);
+        Duration tenth = OutboxDispatcher.backoff(10, base, max);
+
+        assertAll(
+                () -> assertTrue(first.compareTo(base) >= 0 && first.compareTo(Duration.ofSeconds(33)) <= 0),
+                () -> assertTrue(third.compareTo(Duration.ofMinutes(2)) >= 0
+                        && third.compareTo(Duration.ofSeconds(132)) <= 0),
+                () -> assertTrue(tenth.compareTo(max) >= 0 && tenth.compareTo(Duration.ofMinutes(66)) <= 0)
+        );
+    }
+
+    private void givenClaimed(OutboxMessage... messages) {
+        List<Long> ids = java.util.Arrays.stream(messages).map(OutboxMessage::getId).toList();
+        when(outboxRepo.findDueIds(any(), any())).thenReturn(ids);
+        when(outboxRepo.findClaimed(ids, "run")).thenReturn(List.of(messages));
+    }
+
+    private OutboxMessage message(Long id, OutboxMessageType type, int attempts, Object payload) {
+        OutboxMessage message = new OutboxMessage();
+        message.setId(id);
+        message.setType(type);
+        message.setBusinessId(1L);
+        message.setIdempotencyKey(type.name().toLowerCase() + ":" + id);
+        message.setAttempts(attempts);
+        message.setPayload(jsonMapper.writeValueAsString(payload));
+        return message;
+    }
+
+    private static EmailAppointmentDto emailPayload() {
+        return new EmailAppointmentDto("Ana", "600000000", "ana@example.com",
+                LocalDate.of(2026, 11, 3), LocalTime.of(10, 30), 30, null, "token",
+                "Peluqueria Ana", "600111222", "negocio@example.com");
+    }
+
+    private static WhatsAppConfirmationPayload whatsappPayload() {
+        return new WhatsAppConfirmationPayload("+34600000000", "Peluqueria Ana", "Corte",
+                "03/11/2026 a las 10:30", "token");
+    }
+}
@@ -0,0 +1,49 @@
+package com.turnofacil.service.whatsapp;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * La simulación del mock pasa por el mismo cliente que la API real.
+ */
+class MockWhatsAppServiceTest {
+
+    @Test
+    @DisplayName("Los 429 simulados se reintentan con el backoff del cliente y acaban como fallo reintentable")
+    void simulatedThrottlingGoesThroughRetries() {
+        try (MockWhatsAppService mock = new MockWhatsAppService(Duration.ZERO, Duration.ZERO, 0, 1,
+                new WhatsAppClientSettings(4, 10, 1000, 100, 2,
+                        Duration.ofMillis(1), Duration.ofSeconds(5), 2))) {
+
+            WhatsAppService.SendResult result = mock.sendMessage("+34600000001", "Hola");
+
+            assertFalse(result.success());
+            assertTrue(result.retryable());
+            assertEquals("Error API: 429", result.errorMessage());
+        }
+    }
+
+    @Test
+    @DisplayName("Con latencia simulada, el límite en vuelo y la cola del cliente se aplican igual que con la API real")
+    void simulatedLatencyUsesInFlightLimit() throws Exception {
+        try (MockWhatsAppService mock = new MockWhatsAppService(Duration.ofMillis(200), Duration.ZERO, 0, 0,
+                new WhatsAppClientSettings(1, 0, 1000, 100, 0,
+                        Duration.ofMillis(1), Duration.ofSeconds(5), 2))) {
+
+            CompletableFuture<WhatsAppService.SendResult> first = mock.sendMessageAsync("+34600000001", "Hola");
+            WhatsAppService.SendResult second = mock.sendMessageAsync("+34600000002", "Hola")
+                    .get(100, TimeUnit.MILLISECONDS);
+
+            assertEquals("Cola de envios WhatsApp llena", second.errorMessage());
+            WhatsAppService.SendResult delivered = first.get(5, TimeUnit.SECONDS);
+            assertTrue(delivered.success());
+            assertTrue(delivered.messageId().startsWith("mock_"));
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.turnofacil.service.whatsapp;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cliente asíncrono contra un servidor HTTP local que hace de API de Meta.
+ */
+class WhatsAppBusinessServiceTest {
+
+    private HttpServer server;
+    private final Queue<Integer> statuses = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    // Si está puesto, el servidor no responde hasta que se abra
+    private volatile CountDownLatch gate;
+    private String apiUrl;
+    private WhatsAppBusinessService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            awaitGate();
+            Integer status = statuses.poll();
+            int code = status != null ? status : 200;
+            byte[] body = (code == 200 ? "{\"messages\":[{\"id\":\"wamid.1\"}]}" : "{\"error\":{}}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(code, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        apiUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        service = new WhatsAppBusinessService("1234567890", "token",
+                new WhatsAppClientSettings(4, 100, 1000, 100, 2,
+                        Duration.ofMillis(10), Duration.ofSeconds(5), 2),
+                apiUrl);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.close();
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("Un 429 o un 5xx se reintenta hasta que la API acepta el mensaje")
+    void retriesThrottledAndServerErrors() {
+        statuses.add(429);
+        statuses.add(503);
+
+        WhatsAppService.SendResult result = service.sendMessage("+34 600 000 000", "Hola");
+
+        assertTrue(result.success());
+        assertEquals("wamid.1", result.messageId());
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    @DisplayName("Un 4xx distinto de 429 no se reintenta")
+    void clientErrorIsNotRetried() {
+        statuses.add(400);
+
+        WhatsAppService.SendResult result = service.sendMessage("+34600000000", "Hola");
+
+        assertFalse(result.success());
+        assertEquals("Error API: 400", result.errorMessage());
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    @DisplayName("Un lote devuelve un resultado por mensaje, en orden")
+    void batchReturnsOneResultPerMessage() throws Exception {
+        List<WhatsAppService.ReminderMessage> batch = List.of(
+                new WhatsAppService.ReminderMessage("+34600000001", "Peluqueria Ana", "Corte", "lunes"),
+                new WhatsAppService.ReminderMessage("+34600000002", "Peluqueria Ana", "Tinte", "martes"),
+                new WhatsAppService.ReminderMessage("+34600000003", "Peluqueria Ana", "Corte", "miércoles"));
+
+        List<WhatsAppService.SendResult> results = service.sendAppointmentReminders(batch).get(5, TimeUnit.SECONDS);
+
+        assertEquals(3, results.size());
+        assertTrue(results.stream().allMatch(WhatsAppService.SendResult::success));
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    @DisplayName("Con los huecos en vuelo y la cola ocupados, el siguiente envío se rechaza sin esperar")
+    void rejectsWhenQueueIsFull() throws Exception {
+        gate = new CountDownLatch(1);
+        try (WhatsAppBusinessService small = new WhatsAppBusinessService("1234567890", "token",
+                new WhatsAppClientSettings(1, 1, 1000, 100, 0,
+                        Duration.ofMillis(10), Duration.ofSeconds(5), 2),
+                apiUrl)) {
+            CompletableFuture<WhatsAppService.SendResult> inFlight = small.sendMessageAsync("+34600000001", "Hola");
+            CompletableFuture<WhatsAppService.SendResult> queued = small.sendMessageAsync("+34600000002", "Hola");
+
+            WhatsAppService.SendResult rejected = small.sendMessageAsync("+34600000003", "Hola")
+                    .get(1, TimeUnit.SECONDS);
+
+            assertFalse(rejected.success());
+            assertTrue(rejected.retryable());
+            assertEquals("Cola de envios WhatsApp llena", rejected.errorMessage());
+            assertFalse(inFlight.isDone());
+            assertFalse(queued.isDone());
+
+            gate.countDown();
+            assertTrue(inFlight.get(5, TimeUnit.SECONDS).success());
+            assertTrue(queued.get(5, TimeUnit.SECONDS).success());
+            assertEquals(2, requests.get());
+            // Con todo terminado vuelve a aceptar
+            assertTrue(small.sendMessage("+34600000004", "Hola").success());
+        }
+    }
+
+    @Test
+    @DisplayName("Un mensaje esperando su Retry-After no ocupa el hueco en vuelo: otro sale mientras tanto")
+    void retryWaitReleasesInFlightSlot() throws Exception {
+        AtomicInteger throttled = new AtomicInteger();
+        WhatsAppTransport api = payload -> {
+            boolean first = payload.contains("+34600000001") && throttled.getAndIncrement() == 0;
+            return CompletableFuture.completedFuture(first
+                    ? new WhatsAppTransport.Response(429, "{}", "1")
+                    : new WhatsAppTransport.Response(200, "{\"messages\":[{\"id\":\"wamid.2\"}]}", null));
+        };
+        try (WhatsAppBusinessService single = new WhatsAppBusinessService("1234567890",
+                new WhatsAppClientSettings(1, 10, 1000, 100, 2,
+                        Duration.ofMillis(10), Duration.ofSeconds(5), 2),
+                api)) {
+            CompletableFuture<WhatsAppService.SendResult> throttledSend = single.sendMessageAsync("+34600000001", "Hola");
+
+            WhatsAppService.SendResult other = single.sendMessageAsync("+34600000002", "Hola")
+                    .get(500, TimeUnit.MILLISECONDS);
+
+            assertTrue(other.success());
+            assertFalse(throttledSend.isDone(), "El primero sigue esperando su Retry-After de 1 s");
+            assertEquals(0, single.inFlight());
+            assertEquals(1, single.queued());
+            assertEquals("wamid.2", throttledSend.get(5, TimeUnit.SECONDS).messageId());
+            assertEquals(0, single.queued());
+        }
+    }
+
+    @Test
+    @DisplayName("Muchas llamadas que terminan en el mismo hilo se vacían en bucle, sin anidar la pila")
+    void drainDoesNotRecurse() {
+        InFlightLimiter limiter = new InFlightLimiter(1, 0);
+        CompletableFuture<String> held = new CompletableFuture<>();
+        CompletableFuture<String> first = limiter.call(() -> held);
+        List<CompletableFuture<String>> queued = IntStream.range(0, 20_000)
+                .mapToObj(i -> limiter.call(() -> CompletableFuture.completedFuture("ok")))
+                .toList();
+        assertEquals(1, limiter.inFlight());
+
+        held.complete("ok");
+
+        assertTrue(first.isDone());
+        assertTrue(queued.stream().allMatch(f -> "ok".equals(f.getNow(null))));
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    @DisplayName("El token bucket deja salir la ráfaga y espacia el resto al ritmo configurado")
+    void tokenBucketSpacesRequestsAfterBurst() {
+        TokenBucket bucket = new TokenBucket(10, 2, 0);
+
+        assertEquals(0, bucket.reserve(0));
+        assertEquals(0, bucket.reserve(0));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), bucket.reserve(0));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(200), bucket.reserve(0));
+        // Pasado un segundo se ha rellenado hasta la capacidad
+        assertEquals(0, bucket.reserve(TimeUnit.SECONDS.toNanos(2)));
+    }
+
+    private void awaitGate() {
+        CountDownLatch current = gate;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
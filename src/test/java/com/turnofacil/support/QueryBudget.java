@@ -0,0 +1,21 @@
+package com.turnofacil.support;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Presupuesto de SQL para un test: sentencias ejecutadas y filas leídas en el hilo del test.
+ * Lo aplica QueryBudgetExtension alrededor del cuerpo del método (no cuenta @BeforeEach).
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+
+    /** Máximo de sentencias (SELECT, INSERT, UPDATE...) ejecutadas. */
+    int maxStatements();
+
+    /** Máximo de filas recorridas en los ResultSet. */
+    int maxRows() default Integer.MAX_VALUE;
+}
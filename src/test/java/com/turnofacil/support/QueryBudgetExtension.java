@@ -0,0 +1,71 @@
+package com.turnofacil.support;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Comprueba el @QueryBudget de cada test: cuenta las sentencias y filas que ejecuta el hilo
+ * del test (las llamadas MockMvc o al job) y falla listando la SQL si se supera.
+ *
+ * El contexto debe importar QueryBudgetExtension.DataSourceConfiguration para que el
+ * DataSource pase por QueryCountingDataSource.
+ */
+public class QueryBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        if (budget(context) != null) {
+            QueryCounter.start();
+        }
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        QueryBudget budget = budget(context);
+        if (budget == null) {
+            return;
+        }
+        QueryCounter counter = QueryCounter.stop();
+        if (counter == null || context.getExecutionException().isPresent()) {
+            return;
+        }
+        if (counter.getStatementCount() > budget.maxStatements() || counter.getRowCount() > budget.maxRows()) {
+            fail(String.format("Presupuesto SQL superado en %s: %d sentencias (max %d), %d filas (max %d)%n%s",
+                    context.getDisplayName(),
+                    counter.getStatementCount(), budget.maxStatements(),
+                    counter.getRowCount(), budget.maxRows(),
+                    String.join(System.lineSeparator(), counter.getStatements())));
+        }
+    }
+
+    private static QueryBudget budget(ExtensionContext context) {
+        return context.getTestMethod()
+                .map(method -> method.getAnnotation(QueryBudget.class))
+                .orElse(null);
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    public static class DataSourceConfiguration {
+
+        @Bean
+        static BeanPostProcessor queryCountingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource && !(bean instanceof QueryCountingDataSource)) {
+                        return new QueryCountingDataSource(dataSource);
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+}
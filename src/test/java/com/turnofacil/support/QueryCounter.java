@@ -0,0 +1,68 @@
+package com.turnofacil.support;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Contador de sentencias y filas por hilo.
+ * Solo cuenta entre start() y stop(), así los jobs @Scheduled y los @Async de otros hilos
+ * no ensucian la medición del test.
+ */
+public final class QueryCounter {
+
+    private static final ThreadLocal<QueryCounter> CURRENT = new ThreadLocal<>();
+
+    private final List<String> statements = new ArrayList<>();
+    private final List<Integer> fetchSizes = new ArrayList<>();
+    private long rows;
+
+    private QueryCounter() {
+    }
+
+    public static void start() {
+        CURRENT.set(new QueryCounter());
+    }
+
+    public static QueryCounter stop() {
+        QueryCounter counter = CURRENT.get();
+        CURRENT.remove();
+        return counter;
+    }
+
+    static void recordStatement(String sql) {
+        QueryCounter counter = CURRENT.get();
+        if (counter != null) {
+            counter.statements.add(sql);
+        }
+    }
+
+    static void recordFetchSize(int fetchSize) {
+        QueryCounter counter = CURRENT.get();
+        if (counter != null) {
+            counter.fetchSizes.add(fetchSize);
+        }
+    }
+
+    static void recordRow() {
+        QueryCounter counter = CURRENT.get();
+        if (counter != null) {
+            counter.rows++;
+        }
+    }
+
+    public int getStatementCount() {
+        return statements.size();
+    }
+
+    public long getRowCount() {
+        return rows;
+    }
+
+    public List<String> getStatements() {
+        return statements;
+    }
+
+    public List<Integer> getFetchSizes() {
+        return fetchSizes;
+    }
+}
@@ -0,0 +1,76 @@
+package com.turnofacil.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para las claves normalizadas de cliente.
+ * Deben coincidir con las expresiones SQL del backfill (V13, V14, V23).
+ */
+class ClientNormalizerTest {
+
+    @Test
+    @DisplayName("El teléfono se reduce a dígitos")
+    void phoneKeepsOnlyDigits() {
+        assertAll(
+            () -> assertEquals("34612345678", ClientNormalizer.normalizePhone("+34 612-345-678")),
+            () -> assertEquals("612345678", ClientNormalizer.normalizePhone("(612) 34 56 78")),
+            () -> assertNull(ClientNormalizer.normalizePhone("sin telefono")),
+            () -> assertNull(ClientNormalizer.normalizePhone(null))
+        );
+    }
+
+    @Test
+    @DisplayName("El número nacional descarta el prefijo internacional y el código de país")
+    void nationalPhoneDropsCountryCode() {
+        assertAll(
+            () -> assertEquals("612345678", ClientNormalizer.nationalPhone("+34 612-345-678")),
+            () -> assertEquals("612345678", ClientNormalizer.nationalPhone("0034 612 345 678")),
+            () -> assertEquals("2025550123", ClientNormalizer.nationalPhone("+1 (202) 555-0123")),
+            () -> assertEquals("912345678", ClientNormalizer.nationalPhone("+351 912 345 678")),
+            () -> assertEquals("1123456789", ClientNormalizer.nationalPhone("+54 11 2345 6789")),
+            () -> assertEquals("612345678", ClientNormalizer.nationalPhone("612 345 678")),
+            () -> assertNull(ClientNormalizer.nationalPhone("+34")),
+            () -> assertNull(ClientNormalizer.nationalPhone(null))
+        );
+    }
+
+    @Test
+    @DisplayName("Los dígitos al revés convierten el sufijo en prefijo")
+    void reversedPhone() {
+        assertAll(
+            () -> assertEquals("87654321643", ClientNormalizer.reversedPhone("+34 612-345-678")),
+            () -> assertNull(ClientNormalizer.reversedPhone(""))
+        );
+    }
+
+    @Test
+    @DisplayName("El email se recorta y pasa a minúsculas")
+    void emailIsTrimmedAndLowercased() {
+        assertAll(
+            () -> assertEquals("juan@email.com", ClientNormalizer.normalizeEmail("  Juan@Email.COM ")),
+            () -> assertNull(ClientNormalizer.normalizeEmail("   "))
+        );
+    }
+
+    @Test
+    @DisplayName("El nombre se guarda sin acentos, en minúsculas y con espacios colapsados")
+    void nameIsAccentFolded() {
+        assertAll(
+            () -> assertEquals("jose maria nunez", ClientNormalizer.normalizeName("  José   María Núñez ")),
+            () -> assertNull(ClientNormalizer.normalizeName(""))
+        );
+    }
+
+    @Test
+    @DisplayName("La clave prioriza teléfono, luego email, luego nombre")
+    void clientKeyPriority() {
+        assertAll(
+            () -> assertEquals("p:612345678", ClientNormalizer.clientKey("Juan", "612 345 678", "juan@email.com")),
+            () -> assertEquals("e:juan@email.com", ClientNormalizer.clientKey("Juan", "", "Juan@Email.com")),
+            () -> assertEquals("n:juan perez", ClientNormalizer.clientKey(" Juan Perez ", null, null))
+        );
+    }
+}